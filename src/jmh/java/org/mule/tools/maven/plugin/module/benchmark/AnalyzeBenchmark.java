@@ -0,0 +1,151 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import static org.codehaus.plexus.util.FileUtils.deleteDirectory;
+
+import org.mule.tools.maven.plugin.module.analyze.AnalyzerConfiguration;
+import org.mule.tools.maven.plugin.module.analyze.DefaultModuleApiAnalyzer;
+import org.mule.tools.maven.plugin.module.analyze.ProjectAnalysisResult;
+import org.mule.tools.maven.plugin.module.analyze.SilentAnalyzerLogger;
+import org.mule.tools.maven.plugin.module.analyze.asm.ASMDependencyAnalyzer;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+/**
+ * Runs {@link DefaultModuleApiAnalyzer#analyze} end to end on a synthetic Mule module with the size of a large real one: 20000
+ * classes depending on a classpath of 400 jars, a tenth of them Mule modules.
+ * <p>
+ * Every invocation analyzes a new project, so nothing is reused from a previous analysis of the same build, and no cache is
+ * configured. What the JVM keeps between builds, like the modules found on unchanged jars, is reused as on any warm build.
+ * <p>
+ * Besides the wall time reported by JMH, the benchmark prints the CPU time, the allocation and the peak heap of the
+ * measurement invocations at the end of the run, as measured by a {@link ResourceMeter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class AnalyzeBenchmark {
+
+  @Param({"400"})
+  public int jars;
+
+  @Param({"1000"})
+  public int projectPackages;
+
+  @Param({"true", "false"})
+  public boolean scanOnDemand;
+
+  private File directory;
+  private File outputDirectory;
+  private Set<Artifact> artifacts;
+  private DefaultModuleApiAnalyzer analyzer;
+  private final ResourceMeter resourceMeter = new ResourceMeter();
+  private boolean measuring;
+
+  @Setup
+  public void setUp() throws Exception {
+    directory = Files.createTempDirectory("analyze-benchmark").toFile();
+    final SyntheticClasspathGenerator generator = new SyntheticClasspathGenerator(42)
+        .jars(jars)
+        .projectPackages(projectPackages)
+        .publicRatio(0.8)
+        .muleModuleRatio(0.1);
+    final List<File> libraries = generator.generateJars(new File(directory, "repository"));
+    outputDirectory = new File(directory, "target/classes");
+    generator.generateProject(outputDirectory);
+
+    final DefaultArtifactHandler artifactHandler = new DefaultArtifactHandler("jar");
+    artifactHandler.setAddedToClasspath(true);
+    artifacts = new LinkedHashSet<>();
+    for (File library : libraries) {
+      final String artifactId = library.getName().substring(0, library.getName().lastIndexOf('.'));
+      final Artifact artifact =
+          new DefaultArtifact("org.synthetic", artifactId, "1.0.0", "compile", "jar", null, artifactHandler);
+      artifact.setFile(library);
+      artifacts.add(artifact);
+    }
+
+    analyzer = new DefaultModuleApiAnalyzer();
+    // Injected by the container on a build
+    final Field dependencyAnalyzer = DefaultModuleApiAnalyzer.class.getDeclaredField("dependencyAnalyzer");
+    dependencyAnalyzer.setAccessible(true);
+    dependencyAnalyzer.set(analyzer, new ASMDependencyAnalyzer());
+  }
+
+  @Setup(Level.Iteration)
+  public void setUpIteration(IterationParams iterationParams) {
+    measuring = iterationParams.getType() == IterationType.MEASUREMENT;
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    System.out.println("Analysis resources: " + resourceMeter.summary());
+    deleteDirectory(directory);
+  }
+
+  @Benchmark
+  public ProjectAnalysisResult analyze() throws Exception {
+    final MavenProject project = newProject();
+    final AnalyzerConfiguration configuration = new AnalyzerConfiguration();
+    configuration.setScanOnDemand(scanOnDemand);
+    configuration.setIncremental(false);
+    final Log log = new SystemStreamLog();
+
+    if (!measuring) {
+      return analyzer.analyze(project, configuration, new SilentAnalyzerLogger(), log);
+    }
+
+    resourceMeter.start();
+    try {
+      return analyzer.analyze(project, configuration, new SilentAnalyzerLogger(), log);
+    } finally {
+      resourceMeter.stop();
+    }
+  }
+
+  private MavenProject newProject() {
+    final MavenProject project = new MavenProject();
+    project.getBuild().setDirectory(outputDirectory.getParent());
+    project.getBuild().setOutputDirectory(outputDirectory.getPath());
+    project.setArtifacts(artifacts);
+    return project;
+  }
+}
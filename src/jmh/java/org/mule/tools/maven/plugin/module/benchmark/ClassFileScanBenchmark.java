@@ -0,0 +1,118 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import static org.codehaus.plexus.util.FileUtils.deleteDirectory;
+
+import org.mule.tools.maven.plugin.module.analyze.ClassFileVisitorUtils;
+import org.mule.tools.maven.plugin.module.analyze.CollectorClassFileVisitor;
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
+import org.mule.tools.maven.plugin.module.analyze.SilentAnalyzerLogger;
+import org.mule.tools.maven.plugin.module.analyze.asm.DependencyClassFileVisitor;
+import org.mule.tools.maven.plugin.module.common.ModuleLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link ClassFileVisitorUtils#accept} on 100 synthetic libraries, given either as jars or as the folders they
+ * extract to, as the project classes and the reactor dependencies are. {@link #collectClasses()} only reads the class files,
+ * while {@link #analyzeClasses()} also analyzes them with a {@link DependencyClassFileVisitor}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ClassFileScanBenchmark {
+
+  @Param({"jar", "directory"})
+  public String layout;
+
+  private File directory;
+  private final List<URL> libraries = new ArrayList<>();
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("class-file-scan-benchmark").toFile();
+    for (File jar : new SyntheticClasspathGenerator(42).jars(100).generateJars(new File(directory, "jars"))) {
+      libraries.add(layout.equals("jar") ? jar.toURI().toURL() : extract(jar).toURI().toURL());
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    deleteDirectory(directory);
+  }
+
+  @Benchmark
+  public int collectClasses() throws IOException {
+    final ModuleLogger analyzerLogger = new SilentAnalyzerLogger();
+    int classes = 0;
+    for (URL library : libraries) {
+      final CollectorClassFileVisitor visitor = new CollectorClassFileVisitor();
+      ClassFileVisitorUtils.accept(library, visitor, analyzerLogger);
+      classes += visitor.getClasses().size();
+    }
+    return classes;
+  }
+
+  @Benchmark
+  public PackageGraph analyzeClasses() throws IOException {
+    final ModuleLogger analyzerLogger = new SilentAnalyzerLogger();
+    final DependencyClassFileVisitor visitor = new DependencyClassFileVisitor(analyzerLogger);
+    for (URL library : libraries) {
+      ClassFileVisitorUtils.accept(library, visitor, analyzerLogger);
+    }
+    return visitor.getPackageGraph();
+  }
+
+  private File extract(File jar) throws IOException {
+    final String jarName = jar.getName();
+    final Path target = new File(directory, "classes/" + jarName.substring(0, jarName.lastIndexOf('.'))).toPath();
+    try (ZipFile zipFile = new ZipFile(jar)) {
+      final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        final ZipEntry entry = entries.nextElement();
+        if (entry.isDirectory()) {
+          continue;
+        }
+        final Path file = target.resolve(entry.getName());
+        Files.createDirectories(file.getParent());
+        try (InputStream in = zipFile.getInputStream(entry)) {
+          Files.copy(in, file);
+        }
+      }
+    }
+    return target.toFile();
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.benchmark;
+
+import static org.codehaus.plexus.util.FileUtils.deleteDirectory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Class files loaded in memory, so benchmarks measure the class analysis without any I/O.
+ */
+public class ClassFiles {
+
+  private static final String CLASS_EXTENSION = ".class";
+
+  private final List<String> classNames = new ArrayList<>();
+  private final List<byte[]> contents = new ArrayList<>();
+
+  private ClassFiles() {}
+
+  /**
+   * Loads classes from a named source
+   *
+   * @param source either {@code classpath}, for the jars on the benchmark classpath, or {@code synthetic-<percentage>} for
+   *               synthetic jars with the given percentage of public classes.
+   * @return the loaded classes
+   * @throws IOException if the classes cannot be read
+   */
+  public static ClassFiles load(String source) throws IOException {
+    if (source.equals("classpath")) {
+      return fromClasspath();
+    }
+    return synthetic(Integer.parseInt(source.substring(source.indexOf('-') + 1)) / 100.0);
+  }
+
+  /**
+   * @return the classes on the jars of the benchmark classpath, which provide real method bodies and debug information.
+   */
+  public static ClassFiles fromClasspath() throws IOException {
+    final ClassFiles classFiles = new ClassFiles();
+    for (String path : System.getProperty("java.class.path").split(File.pathSeparator)) {
+      if (path.endsWith(".jar")) {
+        classFiles.readJar(new File(path));
+      }
+    }
+    return classFiles;
+  }
+
+  /**
+   * @param publicRatio ratio of public classes, between 0 and 1.
+   * @return the classes of 50 synthetic jars, which have almost no code.
+   */
+  public static ClassFiles synthetic(double publicRatio) throws IOException {
+    final ClassFiles classFiles = new ClassFiles();
+    final File directory = Files.createTempDirectory("class-files").toFile();
+    try {
+      for (File jar : new SyntheticClasspathGenerator(42).jars(50).publicRatio(publicRatio).generateJars(directory)) {
+        classFiles.readJar(jar);
+      }
+    } finally {
+      deleteDirectory(directory);
+    }
+    return classFiles;
+  }
+
+  private void readJar(File jar) throws IOException {
+    try (ZipFile zipFile = new ZipFile(jar)) {
+      final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        final ZipEntry entry = entries.nextElement();
+        final String name = entry.getName();
+        if (!name.endsWith(CLASS_EXTENSION) || name.startsWith("META-INF/") || name.endsWith("module-info.class")) {
+          continue;
+        }
+        try (InputStream in = zipFile.getInputStream(entry)) {
+          classNames.add(name.substring(0, name.length() - CLASS_EXTENSION.length()).replace('/', '.'));
+          contents.add(in.readAllBytes());
+        }
+      }
+    }
+  }
+
+  public int size() {
+    return contents.size();
+  }
+
+  /**
+   * @return the class name, using dots as separator, of the class at the given index.
+   */
+  public String getClassName(int index) {
+    return classNames.get(index);
+  }
+
+  public byte[] getContent(int index) {
+    return contents.get(index);
+  }
+}
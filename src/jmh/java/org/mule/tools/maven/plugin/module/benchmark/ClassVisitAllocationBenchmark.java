@@ -0,0 +1,95 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.benchmark;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import org.mule.tools.maven.plugin.module.analyze.SilentAnalyzerLogger;
+import org.mule.tools.maven.plugin.module.analyze.asm.DependencyClassFileVisitor;
+import org.mule.tools.maven.plugin.module.analyze.asm.ResultCollector;
+import org.mule.tools.maven.plugin.module.common.ModuleLogger;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the memory allocated to visit a class. Each invocation visits one class, cycling over all the loaded classes, so
+ * running it with the GC profiler reports the bytes allocated per class scanned as {@code gc.alloc.rate.norm}:
+ *
+ * <pre>
+ * mvn verify -Pbenchmarks -Djmh.args="ClassVisitAllocationBenchmark -prof gc"
+ * </pre>
+ *
+ * {@link #reusedChain()} uses {@link DependencyClassFileVisitor}, while {@link #perClassChain()} builds a new visitor chain
+ * for each class as it used to be done.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ClassVisitAllocationBenchmark {
+
+  @Param({"classpath", "synthetic-100"})
+  public String classes;
+
+  private final ModuleLogger analyzerLogger = new SilentAnalyzerLogger();
+  private ClassFiles classFiles;
+  private DependencyClassFileVisitor visitor;
+  private ResultCollector resultCollector;
+  private int next;
+
+  @Setup
+  public void setUp() throws IOException {
+    classFiles = ClassFiles.load(classes);
+  }
+
+  @Setup(Level.Iteration)
+  public void setUpIteration() {
+    // Visits all the classes once, so the collected dependencies do not grow during the measurement
+    visitor = new DependencyClassFileVisitor(analyzerLogger);
+    resultCollector = new ResultCollector(analyzerLogger);
+    for (int i = 0; i < classFiles.size(); i++) {
+      final byte[] classBytes = classFiles.getContent(i);
+      visitor.visitClass(classFiles.getClassName(i), classBytes, classBytes.length);
+      ClassVisitBenchmark.fullParse(classFiles.getClassName(i), classBytes, resultCollector, analyzerLogger);
+    }
+  }
+
+  @Benchmark
+  public void reusedChain() {
+    final int index = nextIndex();
+    final byte[] classBytes = classFiles.getContent(index);
+    visitor.visitClass(classFiles.getClassName(index), classBytes, classBytes.length);
+  }
+
+  @Benchmark
+  public void perClassChain() {
+    final int index = nextIndex();
+    ClassVisitBenchmark.fullParse(classFiles.getClassName(index), classFiles.getContent(index), resultCollector,
+                                  analyzerLogger);
+  }
+
+  private int nextIndex() {
+    final int index = next;
+    next = index + 1 == classFiles.size() ? 0 : index + 1;
+    return index;
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import static org.mule.tools.maven.plugin.module.analyze.DefaultModuleApiAnalyzer.getPackageName;
+
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
+import org.mule.tools.maven.plugin.module.analyze.SilentAnalyzerLogger;
+import org.mule.tools.maven.plugin.module.analyze.asm.DefaultAnnotationVisitor;
+import org.mule.tools.maven.plugin.module.analyze.asm.DefaultClassVisitor;
+import org.mule.tools.maven.plugin.module.analyze.asm.DefaultFieldVisitor;
+import org.mule.tools.maven.plugin.module.analyze.asm.DefaultMethodVisitor;
+import org.mule.tools.maven.plugin.module.analyze.asm.DefaultSignatureVisitor;
+import org.mule.tools.maven.plugin.module.analyze.asm.DependencyClassFileVisitor;
+import org.mule.tools.maven.plugin.module.analyze.asm.ResultCollector;
+import org.mule.tools.maven.plugin.module.common.ModuleLogger;
+
+import java.io.IOException;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.signature.SignatureVisitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the class visit done by {@link DependencyClassFileVisitor}, which discards non public classes from their header
+ * and skips code, debug and frame sections, against a full parse of every class with a new visitor chain per class.
+ * <p>
+ * Synthetic classes have the given percentage of public classes but almost no code, while the jars on the benchmark classpath
+ * provide real method bodies and debug information.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ClassVisitBenchmark {
+
+  @Param({"synthetic-30", "synthetic-100", "classpath"})
+  public String classes;
+
+  private ClassFiles classFiles;
+
+  @Setup
+  public void setUp() throws IOException {
+    classFiles = ClassFiles.load(classes);
+  }
+
+  @Benchmark
+  public PackageGraph headerPrefilter() {
+    final DependencyClassFileVisitor visitor = new DependencyClassFileVisitor(new SilentAnalyzerLogger());
+    for (int i = 0; i < classFiles.size(); i++) {
+      final byte[] classBytes = classFiles.getContent(i);
+      visitor.visitClass(classFiles.getClassName(i), classBytes, classBytes.length);
+    }
+    return visitor.getPackageGraph();
+  }
+
+  @Benchmark
+  public PackageGraph fullParse() {
+    final ModuleLogger analyzerLogger = new SilentAnalyzerLogger();
+    final ResultCollector resultCollector = new ResultCollector(analyzerLogger);
+    for (int i = 0; i < classFiles.size(); i++) {
+      fullParse(classFiles.getClassName(i), classFiles.getContent(i), resultCollector, analyzerLogger);
+    }
+    return resultCollector.getPackageGraph();
+  }
+
+  /**
+   * Visits a class the way it was done before the header prefilter and the reusable visitor chain.
+   */
+  static void fullParse(String className, byte[] classBytes, ResultCollector resultCollector, ModuleLogger analyzerLogger) {
+    final String packageName = getPackageName(className);
+    final AnnotationVisitor annotationVisitor = new DefaultAnnotationVisitor(packageName, resultCollector, analyzerLogger);
+    final SignatureVisitor signatureVisitor = new DefaultSignatureVisitor(packageName, resultCollector, analyzerLogger);
+    final FieldVisitor fieldVisitor = new DefaultFieldVisitor(packageName, annotationVisitor, resultCollector, analyzerLogger);
+    final MethodVisitor methodVisitor =
+        new DefaultMethodVisitor(packageName, annotationVisitor, signatureVisitor, resultCollector, analyzerLogger);
+
+    new ClassReader(classBytes).accept(new DefaultClassVisitor(packageName, signatureVisitor, annotationVisitor, fieldVisitor,
+                                                               methodVisitor, resultCollector, analyzerLogger),
+                                       0);
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import static org.codehaus.plexus.util.FileUtils.deleteDirectory;
+
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
+import org.mule.tools.maven.plugin.module.analyze.ParallelDependencyScanner;
+import org.mule.tools.maven.plugin.module.analyze.SilentAnalyzerLogger;
+import org.mule.tools.maven.plugin.module.analyze.asm.ASMDependencyAnalyzer;
+import org.mule.tools.maven.plugin.module.analyze.cache.CachingDependencyAnalyzer;
+import org.mule.tools.maven.plugin.module.analyze.cache.PackageDependencyCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the scan of the external dependencies of a project over a synthetic 300 jar classpath, with a varying number of
+ * threads. Running it with {@code threads=1} gives the sequential baseline. {@link #scanWarmCache()} measures the same scan
+ * when all the jars are already in the package dependency cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ExternalScanBenchmark {
+
+  @Param({"1", "2", "4", "8"})
+  public int threads;
+
+  private File directory;
+  private List<File> jars;
+  private PackageDependencyCache cache;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("external-scan-benchmark").toFile();
+    jars = new SyntheticClasspathGenerator(42).jars(300).generateJars(new File(directory, "jars"));
+    cache = new PackageDependencyCache(new File(directory, "cache"));
+    scanWarmCache();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    deleteDirectory(directory);
+  }
+
+  @Benchmark
+  public PackageGraph scan() throws IOException {
+    return new ParallelDependencyScanner(new ASMDependencyAnalyzer(), threads).scan(jars, new SilentAnalyzerLogger());
+  }
+
+  @Benchmark
+  public PackageGraph scanWarmCache() throws IOException {
+    return new ParallelDependencyScanner(new CachingDependencyAnalyzer(new ASMDependencyAnalyzer(), cache), threads)
+        .scan(jars, new SilentAnalyzerLogger());
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import static org.codehaus.plexus.util.FileUtils.deleteDirectory;
+import static org.mule.tools.maven.plugin.module.benchmark.SyntheticClasspathGenerator.PROJECT_MODULE_NAME;
+
+import org.mule.tools.maven.plugin.module.analyze.AnalyzerConfiguration;
+import org.mule.tools.maven.plugin.module.analyze.LibraryPackageIndex;
+import org.mule.tools.maven.plugin.module.analyze.ModuleDiscoverer;
+import org.mule.tools.maven.plugin.module.analyze.SilentAnalyzerLogger;
+import org.mule.tools.maven.plugin.module.bean.Module;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the discovery of the Mule modules on a classpath of 300 synthetic jars, a tenth of them Mule modules. The
+ * properties are read either from the jars or from a {@link LibraryPackageIndex} built beforehand.
+ * <p>
+ * The modules found on jars are kept for the whole JVM, so {@link #discoverUnchangedJars()} measures a discovery where no jar
+ * changed since the previous one, while {@link #discoverChangedJars(ChangedJars)} touches every jar before each invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ModuleDiscoveryBenchmark {
+
+  @Param({"jars", "index"})
+  public String source;
+
+  private File directory;
+  private List<File> jars;
+  private MavenProject project;
+  private LibraryPackageIndex libraryIndex;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("module-discovery-benchmark").toFile();
+    jars = new SyntheticClasspathGenerator(42).muleModuleRatio(0.1).generateJars(new File(directory, "jars"));
+
+    final List<String> classpath = new ArrayList<>();
+    for (File jar : jars) {
+      classpath.add(jar.getAbsolutePath());
+    }
+    project = new ClasspathProject(classpath);
+    libraryIndex = source.equals("index") ? LibraryPackageIndex.of(jars) : null;
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    deleteDirectory(directory);
+  }
+
+  @Benchmark
+  public List<Module> discoverUnchangedJars() throws Exception {
+    return discover();
+  }
+
+  @Benchmark
+  public List<Module> discoverChangedJars(ChangedJars changedJars) throws Exception {
+    return discover();
+  }
+
+  private List<Module> discover() throws Exception {
+    return new ModuleDiscoverer().discoverExternalModules(project, new SilentAnalyzerLogger(), PROJECT_MODULE_NAME,
+                                                          new AnalyzerConfiguration(), libraryIndex);
+  }
+
+  /**
+   * Changes the modification time of every jar, so the modules found on a previous discovery are not reused.
+   */
+  @State(Scope.Thread)
+  public static class ChangedJars {
+
+    private long lastModified = System.currentTimeMillis();
+
+    @Setup(Level.Invocation)
+    public void touch(ModuleDiscoveryBenchmark benchmark) throws IOException {
+      lastModified += 1000;
+      for (File jar : benchmark.jars) {
+        if (!jar.setLastModified(lastModified)) {
+          throw new IOException("Cannot change the modification time of " + jar);
+        }
+      }
+    }
+  }
+
+  private static final class ClasspathProject extends MavenProject {
+
+    private final List<String> classpath;
+
+    private ClasspathProject(List<String> classpath) {
+      this.classpath = classpath;
+    }
+
+    @Override
+    public List<String> getCompileClasspathElements() {
+      return classpath;
+    }
+
+    @Override
+    public List<String> getRuntimeClasspathElements() {
+      return classpath;
+    }
+  }
+}
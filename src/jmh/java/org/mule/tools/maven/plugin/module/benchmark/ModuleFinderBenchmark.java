@@ -0,0 +1,80 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import static org.codehaus.plexus.util.FileUtils.deleteDirectory;
+
+import org.mule.tools.maven.plugin.module.generate.CachingModuleFinder;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how the {@code generate} goal finds the modules on a module path of 100 synthetic automatic modules, comparing the
+ * finder of the JDK, which reads every jar on each build, with a {@link CachingModuleFinder} that already read them on a
+ * previous build of the same JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ModuleFinderBenchmark {
+
+  private File directory;
+  private final List<Path> modulePath = new ArrayList<>();
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("module-finder-benchmark").toFile();
+    final File modulesDirectory = new File(directory, "modules");
+    for (File jar : new SyntheticClasspathGenerator(42).jars(100).generateJars(new File(directory, "jars"))) {
+      // Jars named synthetic-N would all derive the same automatic module name, with N as its version
+      final Path module = new File(modulesDirectory, jar.getName().replace("synthetic-", "synthetic-j")).toPath();
+      Files.createDirectories(module.getParent());
+      Files.move(jar.toPath(), module);
+      modulePath.add(module);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    deleteDirectory(directory);
+  }
+
+  @Benchmark
+  public Set<ModuleReference> jdkFinder() {
+    return ModuleFinder.of(modulePath.toArray(new Path[0])).findAll();
+  }
+
+  @Benchmark
+  public Set<ModuleReference> cachingFinder() {
+    return new CachingModuleFinder(modulePath, null).findAll();
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import static org.codehaus.plexus.util.FileUtils.deleteDirectory;
+import static org.mule.tools.maven.plugin.module.benchmark.SyntheticClasspathGenerator.packageName;
+
+import org.mule.tools.maven.plugin.module.analyze.JrePackageFinder;
+import org.mule.tools.maven.plugin.module.analyze.LibraryPackageIndex;
+import org.mule.tools.maven.plugin.module.analyze.OnDemandDependencyScanner;
+import org.mule.tools.maven.plugin.module.analyze.PackageClosureCalculator;
+import org.mule.tools.maven.plugin.module.analyze.PackageClosureCalculator.PackageClosure;
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
+import org.mule.tools.maven.plugin.module.analyze.ParallelDependencyScanner;
+import org.mule.tools.maven.plugin.module.analyze.SilentAnalyzerLogger;
+import org.mule.tools.maven.plugin.module.analyze.asm.ASMDependencyAnalyzer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares calculating the exported package closure after scanning all the classes of a synthetic 300 jar classpath with
+ * calculating it while scanning only the packages the closure reaches. All the packages out of the first {@code ownJars} jars
+ * are considered exported by other modules, so the closure stops at them as it does for a module built on other modules.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class OnDemandScanBenchmark {
+
+  private static final int JARS = 300;
+  private static final int MAX_PACKAGES_PER_JAR = 7;
+
+  @Param({"30"})
+  public int ownJars;
+
+  private File directory;
+  private List<File> jars;
+  private Set<String> jrePackages;
+  private Set<String> exportedPackages;
+  private Set<String> otherModuleExportedPackages;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("on-demand-scan-benchmark").toFile();
+    jars = new SyntheticClasspathGenerator(42).jars(JARS).generateJars(new File(directory, "jars"));
+    jrePackages = JrePackageFinder.find();
+    exportedPackages = Collections.singleton(toPackageName(0, 0));
+    otherModuleExportedPackages = new HashSet<>();
+    for (int jar = ownJars; jar < JARS; jar++) {
+      for (int pkg = 0; pkg < MAX_PACKAGES_PER_JAR; pkg++) {
+        otherModuleExportedPackages.add(toPackageName(jar, pkg));
+      }
+    }
+
+    if (!fullScanClosure().getExportedPackageClosure().equals(onDemandClosure().getExportedPackageClosure())) {
+      throw new IllegalStateException("Closures are different");
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    deleteDirectory(directory);
+  }
+
+  @Benchmark
+  public PackageClosure fullScanClosure() throws IOException {
+    final SilentAnalyzerLogger analyzerLogger = new SilentAnalyzerLogger();
+    final PackageGraph externalPackageDeps =
+        new ParallelDependencyScanner(new ASMDependencyAnalyzer(), 1).scan(jars, analyzerLogger);
+    return new PackageClosureCalculator(PackageGraph.empty(), externalPackageDeps, jrePackages, analyzerLogger)
+        .calculate(exportedPackages, Collections.emptySet(), otherModuleExportedPackages);
+  }
+
+  @Benchmark
+  public PackageClosure onDemandClosure() throws IOException {
+    final SilentAnalyzerLogger analyzerLogger = new SilentAnalyzerLogger();
+    try (OnDemandDependencyScanner scanner =
+        new OnDemandDependencyScanner(LibraryPackageIndex.of(jars), null, null, 1, analyzerLogger)) {
+      return new PackageClosureCalculator(PackageGraph.empty(), scanner, jrePackages, analyzerLogger)
+          .calculate(exportedPackages, Collections.emptySet(), otherModuleExportedPackages);
+    }
+  }
+
+  private static String toPackageName(int jar, int pkg) {
+    return packageName(jar, pkg).replace('/', '.');
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import org.mule.tools.maven.plugin.module.analyze.PackageClosureCalculator;
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
+import org.mule.tools.maven.plugin.module.analyze.SilentAnalyzerLogger;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the worklist closure of {@link PackageClosureCalculator} against the fixpoint loop it replaced, which rescanned the
+ * whole closure until no package was added.
+ * <p>
+ * Each synthetic package depends on a few packages with a close index, so the closure is about {@value #DEPTH} levels deep
+ * and the fixpoint loop needs a round per level. Packages also reference JRE, internal SUN and other module packages, which
+ * are removed from the closure.
+ * <p>
+ * The privileged API benchmarks export a package that depends on most of the standard API, with the standard API exported
+ * packages removed from the privileged closure, as done for modules that have both APIs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class PackageClosureBenchmark {
+
+  private static final int FAN_OUT = 4;
+  private static final int DEPTH = 200;
+  private static final String[] IGNORED_PACKAGES = {"java.util", "javax.xml.parsers", "sun.misc", "org.other.api"};
+
+  @Param({"10000", "100000"})
+  public int packages;
+
+  private PackageGraph projectPackageDeps;
+  private Set<String> exportedPackages;
+  private Set<String> otherModuleExportedPackages;
+  private Set<String> jrePackages;
+  private Set<String> privilegedPackages;
+  private Set<String> privilegedOtherModuleExportedPackages;
+
+  @Setup
+  public void setUp() throws IOException {
+    final Random random = new Random(42);
+    final int window = packages / DEPTH;
+    final Map<String, Set<String>> packageDeps = new HashMap<>();
+    for (int i = 0; i < packages; i++) {
+      final Set<String> dependencies = new HashSet<>();
+      for (int j = 0; j < FAN_OUT; j++) {
+        dependencies.add(packageName(Math.min(packages - 1, i + 1 + random.nextInt(window))));
+      }
+      dependencies.add(IGNORED_PACKAGES[random.nextInt(IGNORED_PACKAGES.length)]);
+      packageDeps.put(packageName(i), dependencies);
+    }
+
+    projectPackageDeps = PackageGraph.of(packageDeps);
+    exportedPackages = Collections.singleton(packageName(0));
+    otherModuleExportedPackages = Collections.singleton("org.other.api");
+    jrePackages = new HashSet<>();
+    Collections.addAll(jrePackages, "java.util", "javax.xml.parsers");
+    privilegedPackages = Collections.singleton(packageName(1));
+    privilegedOtherModuleExportedPackages = new HashSet<>(otherModuleExportedPackages);
+    privilegedOtherModuleExportedPackages.addAll(exportedPackages);
+
+    if (!worklistClosure().equals(fixpointClosure())
+        || !bothApisSharedCalculator().equals(bothApisSeparateCalculators())) {
+      throw new IllegalStateException("Closures are different");
+    }
+  }
+
+  @Benchmark
+  public Set<String> worklistClosure() throws IOException {
+    return newCalculator().calculate(exportedPackages, Collections.emptySet(), otherModuleExportedPackages)
+        .getExportedPackageClosure();
+  }
+
+  @Benchmark
+  public Set<String> bothApisSharedCalculator() throws IOException {
+    final PackageClosureCalculator calculator = newCalculator();
+    calculator.calculate(exportedPackages, Collections.emptySet(), otherModuleExportedPackages);
+    return calculator.calculate(privilegedPackages, Collections.emptySet(), privilegedOtherModuleExportedPackages)
+        .getExportedPackageClosure();
+  }
+
+  @Benchmark
+  public Set<String> bothApisSeparateCalculators() throws IOException {
+    newCalculator().calculate(exportedPackages, Collections.emptySet(), otherModuleExportedPackages);
+    return newCalculator().calculate(privilegedPackages, Collections.emptySet(), privilegedOtherModuleExportedPackages)
+        .getExportedPackageClosure();
+  }
+
+  @Benchmark
+  public Set<String> fixpointClosure() {
+    final Set<String> exportedPackageClosure = new HashSet<>(exportedPackages);
+
+    boolean dirty;
+    do {
+      final Set<String> diff = new HashSet<>();
+      for (String exportedPackage : exportedPackageClosure) {
+        if (!ignorePackage(exportedPackage)) {
+          final int packageId = projectPackageDeps.getId(exportedPackage);
+          if (packageId >= 0 && projectPackageDeps.isDeclared(packageId)) {
+            final int end = projectPackageDeps.getDependenciesEnd(packageId);
+            for (int index = projectPackageDeps.getDependenciesStart(packageId); index < end; index++) {
+              final String packageDep = projectPackageDeps.getName(projectPackageDeps.getDependency(index));
+              if (!exportedPackageClosure.contains(packageDep) && !ignorePackage(packageDep)) {
+                diff.add(packageDep);
+              }
+            }
+          }
+        }
+      }
+      exportedPackageClosure.addAll(diff);
+      dirty = !diff.isEmpty();
+    } while (dirty);
+
+    return exportedPackageClosure;
+  }
+
+  private PackageClosureCalculator newCalculator() {
+    return new PackageClosureCalculator(projectPackageDeps, PackageGraph.empty(), jrePackages, new SilentAnalyzerLogger());
+  }
+
+  private boolean ignorePackage(String packageName) {
+    return otherModuleExportedPackages.contains(packageName) || jrePackages.contains(packageName)
+        || packageName.startsWith("sun.") || packageName.startsWith("com.sun.");
+  }
+
+  private static String packageName(int index) {
+    return "org.synthetic.p" + (index % 100) + ".m" + index;
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the export closure computed over the package dependency maps used before {@link PackageGraph} against the same
+ * closure computed over the graph.
+ * <p>
+ * The retained heap of both representations is printed during the setup, as the used heap difference after a full GC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PackageGraphBenchmark {
+
+  private static final int FAN_OUT = 8;
+  private static final int ROOT_COUNT = 50;
+
+  @Param({"10000", "100000"})
+  public int packages;
+
+  private Map<String, Set<String>> packageDeps;
+  private PackageGraph packageGraph;
+  private String[] roots;
+
+  @Setup
+  public void setUp() {
+    final Random random = new Random(42);
+    final String[] names = new String[packages];
+    for (int i = 0; i < packages; i++) {
+      names[i] = "org.synthetic.p" + (i % 100) + ".m" + i;
+    }
+
+    final long initialHeap = usedHeap();
+    packageDeps = new HashMap<>();
+    for (int i = 0; i < packages; i++) {
+      final Set<String> dependencies = new HashSet<>();
+      for (int j = 0; j < FAN_OUT; j++) {
+        dependencies.add(names[random.nextInt(packages)]);
+      }
+      packageDeps.put(names[i], dependencies);
+    }
+    final long mapHeap = usedHeap();
+
+    packageGraph = PackageGraph.of(packageDeps);
+    final long graphHeap = usedHeap();
+
+    roots = new String[ROOT_COUNT];
+    for (int i = 0; i < ROOT_COUNT; i++) {
+      roots[i] = names[random.nextInt(packages)];
+    }
+
+    System.out.printf("%n%s: maps retain %d KB, graph retains %d KB sharing the names%n", packageGraph,
+                      (mapHeap - initialHeap) / 1024, (graphHeap - mapHeap) / 1024);
+  }
+
+  @Benchmark
+  public int mapClosure() {
+    final Set<String> closure = new HashSet<>();
+    final Deque<String> pending = new ArrayDeque<>();
+    for (String root : roots) {
+      if (closure.add(root)) {
+        pending.add(root);
+      }
+    }
+
+    while (!pending.isEmpty()) {
+      final Set<String> dependencies = packageDeps.get(pending.poll());
+      if (dependencies != null) {
+        for (String dependency : dependencies) {
+          if (closure.add(dependency)) {
+            pending.add(dependency);
+          }
+        }
+      }
+    }
+    return closure.size();
+  }
+
+  @Benchmark
+  public int graphClosure() {
+    final BitSet closure = new BitSet(packageGraph.size());
+    final int[] pending = new int[packageGraph.size()];
+    int head = 0;
+    int tail = 0;
+    for (String root : roots) {
+      final int id = packageGraph.getId(root);
+      if (id >= 0 && !closure.get(id)) {
+        closure.set(id);
+        pending[tail++] = id;
+      }
+    }
+
+    while (head < tail) {
+      final int id = pending[head++];
+      final int end = packageGraph.getDependenciesEnd(id);
+      for (int index = packageGraph.getDependenciesStart(id); index < end; index++) {
+        final int dependency = packageGraph.getDependency(index);
+        if (!closure.get(dependency)) {
+          closure.set(dependency);
+          pending[tail++] = dependency;
+        }
+      }
+    }
+    return tail;
+  }
+
+  private static long usedHeap() {
+    final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    for (int i = 0; i < 3; i++) {
+      memory.gc();
+    }
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.benchmark;
+
+import static com.sun.management.GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION;
+
+import static java.lang.management.ManagementFactory.getGarbageCollectorMXBeans;
+import static java.lang.management.ManagementFactory.getMemoryPoolMXBeans;
+import static java.lang.management.ManagementFactory.getOperatingSystemMXBean;
+import static java.lang.management.MemoryType.HEAP;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.OperatingSystemMXBean;
+
+/**
+ * Measures the resources used by the whole JVM while running a piece of code: wall time, CPU time, allocated heap and peak
+ * heap usage.
+ * <p>
+ * The analysis runs on short lived pool threads, whose allocations are lost once they finish, so allocation is not read from
+ * the threads. Instead, it is the growth of the used heap plus what every garbage collection freed meanwhile. The peak is the
+ * highest used heap seen before a collection or at the end. Both are exact as long as no concurrent collection frees memory
+ * while measuring.
+ */
+public class ResourceMeter implements NotificationListener {
+
+  private static final double MB = 1024 * 1024;
+
+  private final OperatingSystemMXBean operatingSystem = (OperatingSystemMXBean) getOperatingSystemMXBean();
+  private final Set<String> heapPools = new HashSet<>();
+
+  private long startTime;
+  private long startCpuTime;
+  private long startUsedHeap;
+  private long startCollections;
+  private long collections;
+  private long freedHeap;
+  private long peakHeap;
+
+  private int measures;
+  private long totalTime;
+  private long totalCpuTime;
+  private long totalAllocated;
+  private long maxPeakHeap;
+
+  public ResourceMeter() {
+    for (MemoryPoolMXBean pool : getMemoryPoolMXBeans()) {
+      if (pool.getType() == HEAP) {
+        heapPools.add(pool.getName());
+      }
+    }
+  }
+
+  /**
+   * Starts measuring
+   */
+  public void start() {
+    for (GarbageCollectorMXBean collector : getGarbageCollectorMXBeans()) {
+      ((NotificationEmitter) collector).addNotificationListener(this, null, null);
+    }
+
+    synchronized (this) {
+      collections = 0;
+      freedHeap = 0;
+      startCollections = countCollections();
+      startUsedHeap = usedHeap();
+      peakHeap = startUsedHeap;
+    }
+    startCpuTime = operatingSystem.getProcessCpuTime();
+    startTime = System.nanoTime();
+  }
+
+  /**
+   * Stops measuring and adds what was used since {@link #start()} to the totals
+   *
+   * @throws InterruptedException if interrupted while waiting for the notifications of the last collections
+   */
+  public void stop() throws InterruptedException {
+    final long time = System.nanoTime() - startTime;
+    final long cpuTime = operatingSystem.getProcessCpuTime() - startCpuTime;
+    final long usedHeap = usedHeap();
+
+    // Collections are notified asynchronously, so the last ones may not have arrived yet
+    final long expectedCollections = countCollections() - startCollections;
+    final long deadline = System.nanoTime() + 1_000_000_000L;
+    while (getCollections() < expectedCollections && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    for (GarbageCollectorMXBean collector : getGarbageCollectorMXBeans()) {
+      try {
+        ((NotificationEmitter) collector).removeNotificationListener(this);
+      } catch (ListenerNotFoundException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    synchronized (this) {
+      measures++;
+      totalTime += time;
+      totalCpuTime += cpuTime;
+      totalAllocated += usedHeap - startUsedHeap + freedHeap;
+      maxPeakHeap = Math.max(maxPeakHeap, Math.max(peakHeap, usedHeap));
+    }
+  }
+
+  @Override
+  public void handleNotification(Notification notification, Object handback) {
+    if (!notification.getType().equals(GARBAGE_COLLECTION_NOTIFICATION)) {
+      return;
+    }
+
+    final GarbageCollectionNotificationInfo info =
+        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+    final long before = sumHeap(info.getGcInfo().getMemoryUsageBeforeGc());
+    final long after = sumHeap(info.getGcInfo().getMemoryUsageAfterGc());
+    synchronized (this) {
+      collections++;
+      freedHeap += before - after;
+      peakHeap = Math.max(peakHeap, before);
+    }
+  }
+
+  /**
+   * @return the average wall time, CPU time and allocation, and the highest peak heap of all the measures
+   */
+  public synchronized String summary() {
+    if (measures == 0) {
+      return "no measures";
+    }
+    return String.format("%d measures: wall %.1f ms, cpu %.1f ms, allocated %.1f MB, peak heap %.1f MB", measures,
+                         totalTime / 1e6 / measures, totalCpuTime / 1e6 / measures, totalAllocated / MB / measures,
+                         maxPeakHeap / MB);
+  }
+
+  private synchronized long getCollections() {
+    return collections;
+  }
+
+  private long usedHeap() {
+    long used = 0;
+    for (MemoryPoolMXBean pool : getMemoryPoolMXBeans()) {
+      if (pool.getType() == HEAP) {
+        used += pool.getUsage().getUsed();
+      }
+    }
+    return used;
+  }
+
+  private long sumHeap(Map<String, MemoryUsage> usages) {
+    long used = 0;
+    for (Map.Entry<String, MemoryUsage> usage : usages.entrySet()) {
+      if (heapPools.contains(usage.getKey())) {
+        used += usage.getValue().getUsed();
+      }
+    }
+    return used;
+  }
+
+  private static long countCollections() {
+    long count = 0;
+    for (GarbageCollectorMXBean collector : getGarbageCollectorMXBeans()) {
+      count += Math.max(0, collector.getCollectionCount());
+    }
+    return count;
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.benchmark;
+
+import static org.mule.tools.maven.plugin.module.analyze.DefaultModuleApiAnalyzer.getPackageName;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import static org.objectweb.asm.ClassReader.SKIP_DEBUG;
+import static org.objectweb.asm.ClassReader.SKIP_FRAMES;
+import static org.objectweb.asm.Opcodes.ASM9;
+
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
+import org.mule.tools.maven.plugin.module.analyze.SilentAnalyzerLogger;
+import org.mule.tools.maven.plugin.module.analyze.asm.ResultCollector;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how a {@link ResultCollector} handles the class references found while visiting classes, without the cost of
+ * parsing them. The references on the headers, members and code of the classes are recorded once, keeping the same package
+ * name instance for all the references of a class as the visitors do, and replayed on a new collector on each invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ResultCollectorBenchmark {
+
+  @Param({"synthetic-100", "classpath"})
+  public String classes;
+
+  private String[] packageNames;
+  private String[] references;
+
+  @Setup
+  public void setUp() throws IOException {
+    final ClassFiles classFiles = ClassFiles.load(classes);
+    final ReferenceRecorder recorder = new ReferenceRecorder();
+    for (int i = 0; i < classFiles.size(); i++) {
+      recorder.packageName = getPackageName(classFiles.getClassName(i));
+      new ClassReader(classFiles.getContent(i)).accept(recorder, SKIP_DEBUG | SKIP_FRAMES);
+    }
+
+    packageNames = recorder.packageNames.toArray(new String[0]);
+    references = recorder.references.toArray(new String[0]);
+  }
+
+  @Benchmark
+  public PackageGraph collectReferences() {
+    final ResultCollector resultCollector = new ResultCollector(new SilentAnalyzerLogger());
+    for (int i = 0; i < references.length; i++) {
+      resultCollector.addName(packageNames[i], references[i]);
+    }
+    return resultCollector.getPackageGraph();
+  }
+
+  /**
+   * Records the internal names of the classes referenced by the super types, members and instructions of the visited classes.
+   */
+  private static final class ReferenceRecorder extends ClassVisitor {
+
+    private final List<String> packageNames = new ArrayList<>();
+    private final List<String> references = new ArrayList<>();
+    private String packageName;
+
+    private final MethodVisitor methodRecorder = new MethodVisitor(ASM9) {
+
+      @Override
+      public void visitTypeInsn(int opcode, String type) {
+        add(Type.getObjectType(type));
+      }
+
+      @Override
+      public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+        add(Type.getObjectType(owner));
+        add(Type.getType(descriptor));
+      }
+
+      @Override
+      public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+        add(Type.getObjectType(owner));
+        addMethod(descriptor);
+      }
+    };
+
+    private ReferenceRecorder() {
+      super(ASM9);
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+      if (superName != null) {
+        add(Type.getObjectType(superName));
+      }
+      for (String anInterface : interfaces) {
+        add(Type.getObjectType(anInterface));
+      }
+    }
+
+    @Override
+    public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+      add(Type.getType(descriptor));
+      return null;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+      addMethod(descriptor);
+      if (exceptions != null) {
+        for (String exception : exceptions) {
+          add(Type.getObjectType(exception));
+        }
+      }
+      return methodRecorder;
+    }
+
+    private void addMethod(String descriptor) {
+      add(Type.getReturnType(descriptor));
+      for (Type argument : Type.getArgumentTypes(descriptor)) {
+        add(argument);
+      }
+    }
+
+    private void add(Type type) {
+      if (type.getSort() == Type.ARRAY) {
+        type = type.getElementType();
+      }
+      if (type.getSort() == Type.OBJECT) {
+        packageNames.add(packageName);
+        references.add(type.getInternalName());
+      }
+    }
+  }
+}
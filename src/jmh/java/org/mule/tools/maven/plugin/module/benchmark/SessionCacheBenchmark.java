@@ -0,0 +1,102 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import static org.codehaus.plexus.util.FileUtils.deleteDirectory;
+
+import org.mule.tools.maven.plugin.module.analyze.DependencyAnalyzer;
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
+import org.mule.tools.maven.plugin.module.analyze.ParallelDependencyScanner;
+import org.mule.tools.maven.plugin.module.analyze.SilentAnalyzerLogger;
+import org.mule.tools.maven.plugin.module.analyze.asm.ASMDependencyAnalyzer;
+import org.mule.tools.maven.plugin.module.analyze.cache.ArtifactAnalysisCache;
+import org.mule.tools.maven.plugin.module.analyze.cache.CachingDependencyAnalyzer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Simulates a parallel reactor build where every module depends on the same 100 synthetic jars, analyzing the modules
+ * concurrently with and without an {@link ArtifactAnalysisCache} shared by all of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class SessionCacheBenchmark {
+
+  @Param({"16"})
+  public int modules;
+
+  @Param({"4"})
+  public int builderThreads;
+
+  private File directory;
+  private List<File> jars;
+  private ExecutorService reactor;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("session-cache-benchmark").toFile();
+    jars = new SyntheticClasspathGenerator(42).jars(100).generateJars(new File(directory, "jars"));
+    reactor = Executors.newFixedThreadPool(builderThreads);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    reactor.shutdownNow();
+    deleteDirectory(directory);
+  }
+
+  @Benchmark
+  public List<PackageGraph> withoutSessionCache() throws Exception {
+    return buildReactor(new ASMDependencyAnalyzer());
+  }
+
+  @Benchmark
+  public List<PackageGraph> withSessionCache() throws Exception {
+    return buildReactor(new CachingDependencyAnalyzer(new ASMDependencyAnalyzer(), null,
+                                                      new ArtifactAnalysisCache(256 * 1024 * 1024)));
+  }
+
+  private List<PackageGraph> buildReactor(DependencyAnalyzer analyzer) throws InterruptedException, ExecutionException {
+    final List<Future<PackageGraph>> builds = new ArrayList<>(modules);
+    for (int module = 0; module < modules; module++) {
+      builds.add(reactor.submit(() -> new ParallelDependencyScanner(analyzer, 1).scan(jars, new SilentAnalyzerLogger())));
+    }
+
+    final List<PackageGraph> result = new ArrayList<>(modules);
+    for (Future<PackageGraph> build : builds) {
+      result.add(build.get());
+    }
+    return result;
+  }
+}
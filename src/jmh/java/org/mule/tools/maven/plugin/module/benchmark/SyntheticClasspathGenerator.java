@@ -0,0 +1,285 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.benchmark;
+
+import static org.mule.tools.maven.plugin.module.bean.Module.EXPORT_CLASS_PACKAGES;
+import static org.mule.tools.maven.plugin.module.bean.Module.MODULE_NAME;
+import static org.mule.tools.maven.plugin.module.bean.Module.MULE_MODULE_PROPERTIES_LOCATION;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static org.objectweb.asm.ClassWriter.COMPUTE_MAXS;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_SUPER;
+import static org.objectweb.asm.Opcodes.ACONST_NULL;
+import static org.objectweb.asm.Opcodes.ARETURN;
+import static org.objectweb.asm.Opcodes.V17;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * Generates a deterministic classpath of synthetic jars to run the benchmarks against, and the compiled classes of a Mule
+ * module project depending on them.
+ * <p>
+ * Each jar contains its own packages. Public classes reference classes from packages of other jars, so the package dependency
+ * graph spans the whole classpath. The same seed always generates the same bytes.
+ */
+public class SyntheticClasspathGenerator {
+
+  public static final String PROJECT_MODULE_NAME = "org.synthetic.project";
+
+  private static final String ROOT_PACKAGE = "org/synthetic/";
+  private static final String PROJECT_PACKAGE = ROOT_PACKAGE + "project/p";
+
+  private final long seed;
+  private int jars = 300;
+  private int packagesPerJar = 4;
+  private int classesPerPackage = 20;
+  private int fanOut = 3;
+  private double publicRatio = 1.0;
+  private double muleModuleRatio = 0.0;
+  private int projectPackages = 50;
+  private double exportedRatio = 0.5;
+
+  public SyntheticClasspathGenerator(long seed) {
+    this.seed = seed;
+  }
+
+  public SyntheticClasspathGenerator jars(int jars) {
+    this.jars = jars;
+    return this;
+  }
+
+  /**
+   * @param packagesPerJar average number of packages per jar. Actual jars have between half and one and a half times this
+   *                       value, so jar sizes are not uniform.
+   */
+  public SyntheticClasspathGenerator packagesPerJar(int packagesPerJar) {
+    this.packagesPerJar = packagesPerJar;
+    return this;
+  }
+
+  public SyntheticClasspathGenerator classesPerPackage(int classesPerPackage) {
+    this.classesPerPackage = classesPerPackage;
+    return this;
+  }
+
+  /**
+   * @param fanOut number of classes from other packages referenced by each public class.
+   */
+  public SyntheticClasspathGenerator fanOut(int fanOut) {
+    this.fanOut = fanOut;
+    return this;
+  }
+
+  /**
+   * @param publicRatio ratio of public classes on each package, between 0 and 1. The rest are package private.
+   */
+  public SyntheticClasspathGenerator publicRatio(double publicRatio) {
+    this.publicRatio = publicRatio;
+    return this;
+  }
+
+  /**
+   * @param muleModuleRatio ratio of jars that are Mule modules, between 0 and 1. Those jars contain a
+   *                        {@code mule-module.properties} exporting all their packages. Which jars are modules does not depend
+   *                        on the seed, so the generated classes are the same for any ratio.
+   */
+  public SyntheticClasspathGenerator muleModuleRatio(double muleModuleRatio) {
+    this.muleModuleRatio = muleModuleRatio;
+    return this;
+  }
+
+  public SyntheticClasspathGenerator projectPackages(int projectPackages) {
+    this.projectPackages = projectPackages;
+    return this;
+  }
+
+  /**
+   * @param exportedRatio ratio of the project packages exported by its module, between 0 and 1.
+   */
+  public SyntheticClasspathGenerator exportedRatio(double exportedRatio) {
+    this.exportedRatio = exportedRatio;
+    return this;
+  }
+
+  /**
+   * Writes the jars into the given directory
+   *
+   * @param directory folder where the jars are written. Created if it does not exist.
+   * @return the generated jar files
+   * @throws IOException if a jar cannot be written
+   */
+  public List<File> generateJars(File directory) throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Cannot create directory " + directory);
+    }
+
+    final Random random = new Random(seed);
+    final int[] jarPackages = generateJarPackages(random);
+
+    final List<File> result = new ArrayList<>(jars);
+    for (int jar = 0; jar < jars; jar++) {
+      final File jarFile = new File(directory, "synthetic-" + jar + ".jar");
+      try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jarFile))) {
+        for (int pkg = 0; pkg < jarPackages[jar]; pkg++) {
+          for (int cls = 0; cls < classesPerPackage; cls++) {
+            final boolean isPublic = random.nextDouble() < publicRatio;
+            final String[] references = new String[fanOut];
+            for (int ref = 0; ref < fanOut; ref++) {
+              final int refJar = random.nextInt(jars);
+              references[ref] = className(refJar, random.nextInt(jarPackages[refJar]), random.nextInt(classesPerPackage));
+            }
+
+            final String className = className(jar, pkg, cls);
+            out.putNextEntry(new JarEntry(className + ".class"));
+            out.write(generateClass(className, isPublic, references));
+            out.closeEntry();
+          }
+        }
+
+        if (isMuleModule(jar)) {
+          out.putNextEntry(new JarEntry(MULE_MODULE_PROPERTIES_LOCATION));
+          out.write(generateModuleProperties(moduleName(jar), packageNames(jar, jarPackages[jar])));
+          out.closeEntry();
+        }
+      }
+      result.add(jarFile);
+    }
+
+    return result;
+  }
+
+  /**
+   * Writes the classes of the project into the given directory, as they are compiled into the output folder of a build,
+   * together with the module properties of the project.
+   * <p>
+   * Project classes reference classes from both the project and the jars generated with the same settings. The project
+   * packages are the ones exported by its module, spread along the project.
+   *
+   * @param outputDirectory folder where the classes are written. Created if it does not exist.
+   * @throws IOException if a class cannot be written
+   */
+  public void generateProject(File outputDirectory) throws IOException {
+    // Same sizes as the generated jars, so project classes only reference existing library classes
+    final int[] jarPackages = generateJarPackages(new Random(seed));
+    final Random random = new Random(seed + 1);
+
+    final List<String> exportedPackages = new ArrayList<>();
+    for (int pkg = 0; pkg < projectPackages; pkg++) {
+      for (int cls = 0; cls < classesPerPackage; cls++) {
+        final boolean isPublic = random.nextDouble() < publicRatio;
+        final String[] references = new String[fanOut];
+        for (int ref = 0; ref < fanOut; ref++) {
+          // The project is one more artifact of the classpath, with its own chance of being referenced
+          final int refJar = random.nextInt(jars + 1);
+          references[ref] = refJar == jars
+              ? projectClassName(random.nextInt(projectPackages), random.nextInt(classesPerPackage))
+              : className(refJar, random.nextInt(jarPackages[refJar]), random.nextInt(classesPerPackage));
+        }
+
+        final String className = projectClassName(pkg, cls);
+        final File classFile = new File(outputDirectory, className + ".class");
+        Files.createDirectories(classFile.getParentFile().toPath());
+        Files.write(classFile.toPath(), generateClass(className, isPublic, references));
+      }
+
+      if (isSpread(pkg, exportedRatio)) {
+        exportedPackages.add((PROJECT_PACKAGE + pkg).replace('/', '.'));
+      }
+    }
+
+    final File moduleProperties = new File(outputDirectory, MULE_MODULE_PROPERTIES_LOCATION);
+    Files.createDirectories(moduleProperties.getParentFile().toPath());
+    Files.write(moduleProperties.toPath(), generateModuleProperties(PROJECT_MODULE_NAME, exportedPackages));
+  }
+
+  private int[] generateJarPackages(Random random) {
+    final int[] jarPackages = new int[jars];
+    for (int i = 0; i < jars; i++) {
+      jarPackages[i] = Math.max(1, packagesPerJar / 2 + random.nextInt(packagesPerJar + 1));
+    }
+    return jarPackages;
+  }
+
+  /**
+   * @return the internal name of the package containing the classes of the given jar and package indexes
+   */
+  public static String packageName(int jar, int pkg) {
+    return ROOT_PACKAGE + "j" + jar + "/p" + pkg;
+  }
+
+  /**
+   * @return the name of the Mule module on the jar with the given index, if it is a module
+   */
+  public static String moduleName(int jar) {
+    return ROOT_PACKAGE.replace('/', '.') + "j" + jar;
+  }
+
+  private boolean isMuleModule(int jar) {
+    return isSpread(jar, muleModuleRatio);
+  }
+
+  /**
+   * @return whether the element with the given index is selected when spreading the given ratio evenly along the elements
+   */
+  private static boolean isSpread(int index, double ratio) {
+    return (int) ((index + 1) * ratio) > (int) (index * ratio);
+  }
+
+  private static List<String> packageNames(int jar, int packages) {
+    final List<String> packageNames = new ArrayList<>(packages);
+    for (int pkg = 0; pkg < packages; pkg++) {
+      packageNames.add(packageName(jar, pkg).replace('/', '.'));
+    }
+    return packageNames;
+  }
+
+  private static byte[] generateModuleProperties(String moduleName, List<String> exportedPackages) {
+    return (MODULE_NAME + "=" + moduleName + "\n" + EXPORT_CLASS_PACKAGES + "=" + String.join(",", exportedPackages) + "\n")
+        .getBytes(UTF_8);
+  }
+
+  private static String className(int jar, int pkg, int cls) {
+    return packageName(jar, pkg) + "/C" + cls;
+  }
+
+  private static String projectClassName(int pkg, int cls) {
+    return PROJECT_PACKAGE + pkg + "/C" + cls;
+  }
+
+  static byte[] generateClass(String className, boolean isPublic, String[] references) {
+    final ClassWriter writer = new ClassWriter(COMPUTE_MAXS);
+    writer.visit(V17, (isPublic ? ACC_PUBLIC : 0) | ACC_SUPER, className, null, "java/lang/Object", null);
+
+    for (int i = 0; i < references.length; i++) {
+      writer.visitField(ACC_PUBLIC, "field" + i, "L" + references[i] + ";", null, null).visitEnd();
+    }
+
+    final String returnType = references.length > 0 ? "L" + references[0] + ";" : "Ljava/lang/Object;";
+    final MethodVisitor method = writer.visitMethod(ACC_PUBLIC, "method", "()" + returnType, null, null);
+    method.visitCode();
+    method.visitInsn(ACONST_NULL);
+    method.visitInsn(ARETURN);
+    method.visitMaxs(0, 0);
+    method.visitEnd();
+
+    writer.visitEnd();
+    return writer.toByteArray();
+  }
+}
@@ -10,13 +10,22 @@ import static java.lang.System.lineSeparator;
 
 import static org.apache.maven.plugins.annotations.LifecyclePhase.VALIDATE;
 import static org.apache.maven.plugins.annotations.ResolutionScope.TEST;
+import static org.mule.tools.maven.plugin.module.bean.Module.MULE_MODULE_PROPERTIES_LOCATION;
 
+import org.mule.tools.maven.plugin.module.analyze.cache.AnalysisVerdictRecord;
+import org.mule.tools.maven.plugin.module.analyze.cache.FolderListing;
+import org.mule.tools.maven.plugin.module.analyze.cache.InputFingerprint;
 import org.mule.tools.maven.plugin.module.common.AbstractModuleMojo;
 import org.mule.tools.maven.plugin.module.common.ModuleLogger;
+import org.mule.tools.maven.plugin.module.common.PhaseMetrics;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -37,6 +46,9 @@ public class AnalyzeMojo extends AbstractModuleMojo {
   public static final String DUPLICATED_EXPORTED_PACKAGES = "Following packages are already exported by a module dependency:";
   public static final String DUPLICATED_PRIVILEGED_EXPORTED_PACKAGES =
       "Following privileged packages are already exported by a module dependency:";
+  public static final String MODULE_API_UP_TO_DATE = "Module API inputs did not change since the last successful analysis";
+
+  private static final String VERDICT_RECORD_FILE = "mule-module-maven-plugin/analyze-verdict.bin";
 
   /**
    * Logs extra information about analysis process
@@ -50,12 +62,27 @@ public class AnalyzeMojo extends AbstractModuleMojo {
   @Parameter(property = "muleModule.analyze.skip", defaultValue = "false")
   private boolean skip;
 
+  /**
+   * Skips the analysis when none of its inputs changed since the last successful one: the project classes, the resolved
+   * artifacts, the module properties, the packages provided by the JRE and the plugin itself. Verbose analyses always run.
+   */
+  @Parameter(property = "muleModule.analyze.skipUpToDate", defaultValue = "true")
+  private boolean skipUpToDate;
+
   /*
    * @see org.apache.maven.plugin.Mojo#execute()
    */
   @Override
   public void execute()
       throws MojoExecutionException, MojoFailureException {
+    try {
+      doExecute();
+    } finally {
+      reportMetrics("analyze");
+    }
+  }
+
+  private void doExecute() throws MojoExecutionException {
     if (isSkip()) {
       getLog().info("Skipping plugin execution");
       return;
@@ -66,15 +93,106 @@ public class AnalyzeMojo extends AbstractModuleMojo {
       return;
     }
 
-    boolean error = checkModuleApi();
-
-    if (error) {
-      throw new MojoExecutionException(MODULE_API_PROBLEMS_FOUND);
-    } else {
+    final AnalyzerConfiguration configuration = getAnalyzerConfiguration();
+    final AnalysisVerdictRecord verdictRecord = skipUpToDate && configuration.canSkipWork()
+        ? new AnalysisVerdictRecord(new File(project.getBuild().getDirectory(), VERDICT_RECORD_FILE))
+        : null;
+    // Listed once, so the analysis reuses the listing instead of walking the classes again
+    final FolderListing outputListing = verdictRecord == null ? null : listOutputDirectory();
+    final byte[] inputs = outputListing == null ? null : fingerprintInputs(outputListing);
+    if (inputs != null && verdictRecord.isUpToDate(inputs)) {
+      getLog().info(MODULE_API_UP_TO_DATE);
       getLog().info(NO_MODULE_API_PROBLEMS_FOUND);
+      return;
+    }
+
+    boolean succeeded = false;
+    try {
+      final ProjectAnalysisResult analysis = analyzeModuleApi(configuration, outputListing);
+      boolean error = checkModuleApi(analysis);
+
+      if (error) {
+        throw new MojoExecutionException(MODULE_API_PROBLEMS_FOUND);
+      } else {
+        getLog().info(NO_MODULE_API_PROBLEMS_FOUND);
+        succeeded = true;
+        if (inputs != null) {
+          storeVerdict(verdictRecord, inputs);
+        }
+      }
+    } finally {
+      // A failed analysis, whatever the cause, must not leave the verdict of a previous one behind
+      if (!succeeded && verdictRecord != null) {
+        deleteVerdict(verdictRecord);
+      }
     }
   }
 
+  /**
+   * Fingerprints everything the verdict depends on. Inputs read after this point, while the analysis runs, are at least as
+   * recent as the fingerprinted ones, so a change made meanwhile only causes another analysis on the next build.
+   *
+   * @param outputListing listing of the project output folder.
+   * @return the digest of the analysis inputs, or null if they cannot be fingerprinted
+   */
+  private byte[] fingerprintInputs(FolderListing outputListing) {
+    final PhaseMetrics phase = metrics.start("fingerprint");
+    try {
+      final InputFingerprint fingerprint = new InputFingerprint();
+      fingerprint.add(plugin.getVersion()).addArtifact(plugin.getPluginArtifact().getFile());
+      fingerprint.addListing(outputListing);
+      for (Resource resource : project.getBuild().getResources()) {
+        fingerprint.addContent(new File(resource.getDirectory(), MULE_MODULE_PROPERTIES_LOCATION));
+      }
+      for (Artifact artifact : project.getArtifacts()) {
+        fingerprint.add(artifact.getId()).add(artifact.getScope()).addArtifact(artifact.getFile());
+      }
+      fingerprint.addAll(JrePackageFinder.find(getTargetRelease()));
+      return fingerprint.getDigest();
+    } catch (IOException | RuntimeException e) {
+      getLog().debug("Cannot fingerprint the module API analysis inputs", e);
+      return null;
+    } finally {
+      phase.close();
+    }
+  }
+
+  /**
+   * @return the listing of the project output folder, or null if it cannot be listed
+   */
+  private FolderListing listOutputDirectory() {
+    final PhaseMetrics phase = metrics.start("outputListing");
+    try {
+      return FolderListing.of(new File(project.getBuild().getOutputDirectory()));
+    } catch (IOException e) {
+      getLog().debug("Cannot list the project output folder", e);
+      return null;
+    } finally {
+      phase.close();
+    }
+  }
+
+  private void storeVerdict(AnalysisVerdictRecord verdictRecord, byte[] inputs) {
+    try {
+      verdictRecord.store(inputs);
+    } catch (IOException e) {
+      getLog().debug("Cannot record the module API analysis verdict", e);
+    }
+  }
+
+  private void deleteVerdict(AnalysisVerdictRecord verdictRecord) {
+    try {
+      verdictRecord.delete();
+    } catch (IOException e) {
+      getLog().debug("Cannot delete the module API analysis verdict", e);
+    }
+  }
+
+  @Override
+  protected boolean isVerbose() {
+    return verbose;
+  }
+
   public boolean isSkip() {
     return skip;
   }
@@ -83,15 +201,18 @@ public class AnalyzeMojo extends AbstractModuleMojo {
     this.skip = skip;
   }
 
-  private boolean checkModuleApi() throws MojoExecutionException {
-    ProjectAnalysisResult analysis;
+  private ProjectAnalysisResult analyzeModuleApi(AnalyzerConfiguration configuration, FolderListing outputListing)
+      throws MojoExecutionException {
     try {
       final ModuleLogger analyzerLogger = verbose ? new VerboseAnalyzerLogger(getLog()) : new SilentAnalyzerLogger();
-      analysis = analyzer.analyze(project, analyzerLogger, getLog());
+      configuration.setOutputListing(outputListing);
+      return analyzer.analyze(project, configuration, analyzerLogger, getLog());
     } catch (ModuleApiAnalyzerException exception) {
       throw new MojoExecutionException("Cannot analyze module API", exception);
     }
+  }
 
+  private boolean checkModuleApi(ProjectAnalysisResult analysis) {
     boolean stardardApiError = false;
     boolean privilegedApiError = false;
 
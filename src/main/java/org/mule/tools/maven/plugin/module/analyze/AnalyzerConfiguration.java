@@ -0,0 +1,182 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze;
+
+import static java.lang.Runtime.getRuntime;
+
+import org.mule.tools.maven.plugin.module.analyze.cache.ArtifactAnalysisCache;
+import org.mule.tools.maven.plugin.module.analyze.cache.FolderListing;
+import org.mule.tools.maven.plugin.module.common.AnalysisMetrics;
+
+import java.io.File;
+
+/**
+ * Tuning options used by a {@link ModuleApiAnalyzer} while analyzing a project.
+ *
+ * @since 1.10
+ */
+public class AnalyzerConfiguration {
+
+  private int threads;
+  private File cacheDirectory;
+  private String release;
+  private boolean scanOnDemand = true;
+  private boolean incremental = true;
+  private ArtifactAnalysisCache sessionCache;
+  private AnalysisMetrics metrics = new AnalysisMetrics();
+  private FolderListing outputListing;
+  private boolean verbose;
+
+  /**
+   * @return number of threads used to scan the project dependencies. Always greater than zero.
+   */
+  public int getThreads() {
+    return threads > 0 ? threads : getRuntime().availableProcessors();
+  }
+
+  /**
+   * @param threads number of threads used to scan the project dependencies. Values lower than one use as many threads as
+   *                available processors.
+   */
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  /**
+   * @return folder where the package dependencies of the project artifacts are cached between builds. Null when the cache is
+   *         disabled or the analysis {@link #canSkipWork() cannot skip work}.
+   */
+  public File getCacheDirectory() {
+    return canSkipWork() ? cacheDirectory : null;
+  }
+
+  /**
+   * @param cacheDirectory folder where the package dependencies of the project artifacts are cached between builds. Null to
+   *                       disable the cache.
+   */
+  public void setCacheDirectory(File cacheDirectory) {
+    this.cacheDirectory = cacheDirectory;
+  }
+
+  /**
+   * @return Java release targeted by the project, used to find the packages provided by the JRE. Null when the release of the
+   *         JVM running the build is used.
+   */
+  public String getRelease() {
+    return release;
+  }
+
+  /**
+   * @param release Java release targeted by the project, as in {@code maven.compiler.release} or
+   *                {@code maven.compiler.target}.
+   */
+  public void setRelease(String release) {
+    this.release = release;
+  }
+
+  /**
+   * @return whether the classes of the project artifacts are only analyzed when their packages are reached from the exported
+   *         packages. Defaults to true, always false when the analysis {@link #canSkipWork() cannot skip work}.
+   */
+  public boolean isScanOnDemand() {
+    return scanOnDemand && canSkipWork();
+  }
+
+  /**
+   * @param scanOnDemand true to analyze only the packages of the project artifacts that are reached from the exported
+   *                     packages, false to analyze all the classes of the project artifacts.
+   */
+  public void setScanOnDemand(boolean scanOnDemand) {
+    this.scanOnDemand = scanOnDemand;
+  }
+
+  /**
+   * @return in memory cache of package dependencies shared by the modules analyzed during the same build. Null when the
+   *         dependencies are not shared or the analysis {@link #canSkipWork() cannot skip work}.
+   */
+  public ArtifactAnalysisCache getSessionCache() {
+    return canSkipWork() ? sessionCache : null;
+  }
+
+  /**
+   * @param sessionCache in memory cache of package dependencies shared by the modules analyzed during the same build. Null to
+   *                     not share them.
+   */
+  public void setSessionCache(ArtifactAnalysisCache sessionCache) {
+    this.sessionCache = sessionCache;
+  }
+
+  /**
+   * @return whether the project classes are analyzed incrementally, only parsing the classes that changed since the previous
+   *         analysis. Defaults to true, always false when the analysis {@link #canSkipWork() cannot skip work}.
+   */
+  public boolean isIncremental() {
+    return incremental && canSkipWork();
+  }
+
+  /**
+   * @param incremental true to only parse the project classes that changed since the previous analysis, false to parse all of
+   *                    them.
+   */
+  public void setIncremental(boolean incremental) {
+    this.incremental = incremental;
+  }
+
+  /**
+   * @return metrics where the phases of the analysis are recorded. Never null.
+   */
+  public AnalysisMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * @param metrics metrics where the phases of the analysis are recorded, usually the ones of the executed goal.
+   */
+  public void setMetrics(AnalysisMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * @return listing of the project output folder taken by the executed goal, or null if the analysis must list it.
+   */
+  public FolderListing getOutputListing() {
+    return outputListing;
+  }
+
+  /**
+   * @param outputListing listing of the project output folder already taken by the executed goal, so the analysis does not
+   *                      walk the folder again. Null to let the analysis list it.
+   */
+  public void setOutputListing(FolderListing outputListing) {
+    this.outputListing = outputListing;
+  }
+
+  /**
+   * @return whether the analysis logs every module and class it analyzes. Defaults to false.
+   */
+  public boolean isVerbose() {
+    return verbose;
+  }
+
+  /**
+   * @param verbose true if the analysis logs every module and class it analyzes.
+   */
+  public void setVerbose(boolean verbose) {
+    this.verbose = verbose;
+  }
+
+  /**
+   * Tells whether the analysis may skip work whose outcome is already known: reusing what previous builds, other goals or other
+   * modules of the build found, or leaving unanalyzed the classes that cannot reach the exported API. A verbose analysis logs
+   * every module and class it analyzes, so it never skips any of them.
+   *
+   * @return whether the analysis may skip work
+   */
+  public boolean canSkipWork() {
+    return !verbose;
+  }
+}
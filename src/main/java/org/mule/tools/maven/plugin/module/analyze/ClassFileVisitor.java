@@ -6,9 +6,29 @@
  */
 package org.mule.tools.maven.plugin.module.analyze;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 
 public interface ClassFileVisitor {
 
   void visitClass(String className, InputStream in);
+
+  /**
+   * Visits a class already read into memory. The buffer may be reused once this method returns, so implementations must not
+   * keep a reference to it.
+   *
+   * @param className  name of the visited class.
+   * @param classBytes buffer containing the class file.
+   * @param length     number of bytes of the class file, starting from the beginning of the buffer.
+   */
+  default void visitClass(String className, byte[] classBytes, int length) {
+    visitClass(className, new ByteArrayInputStream(classBytes, 0, length));
+  }
+
+  /**
+   * @return true if classes can be visited concurrently from different threads, false otherwise.
+   */
+  default boolean isThreadSafe() {
+    return false;
+  }
 }
@@ -6,27 +6,51 @@
  */
 package org.mule.tools.maven.plugin.module.analyze;
 
+import static org.mule.tools.maven.plugin.module.common.AnalysisExecutors.newAnalysisPool;
+import static org.mule.tools.maven.plugin.module.common.AnalysisExecutors.shutdown;
+
+import static java.lang.Runtime.getRuntime;
+import static java.nio.file.FileVisitOption.FOLLOW_LINKS;
+import static java.nio.file.FileVisitResult.CONTINUE;
+import static java.nio.file.FileVisitResult.SKIP_SUBTREE;
+
 import org.mule.tools.maven.plugin.module.common.ModuleLogger;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
-
-import org.codehaus.plexus.util.DirectoryScanner;
-
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * Utility to visit classes in a library given either as a jar file or an exploded directory.
  */
 public final class ClassFileVisitorUtils {
 
-  private static final String[] CLASS_INCLUDES = {"**/*.class"};
+  private static final String CLASS_EXTENSION = ".class";
+  private static final String META_INF_FOLDER = "META-INF";
+  private static final String META_INF = META_INF_FOLDER + "/";
+  private static final String MODULE_INFO_CLASS = "module-info.class";
+  private static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
 
   private ClassFileVisitorUtils() {
     // private constructor for utility class
@@ -34,7 +58,22 @@ public final class ClassFileVisitorUtils {
 
   public static void accept(URL url, ClassFileVisitor visitor, ModuleLogger analyzerLogger)
       throws IOException {
-    analyzerLogger.log("Analyzing: " + url);
+    accept(url, visitor, analyzerLogger, getRuntime().availableProcessors());
+  }
+
+  /**
+   * Visits the classes of a library
+   *
+   * @param url            jar file or class folder to visit.
+   * @param visitor        visitor of the library classes.
+   * @param analyzerLogger collects all the logging information generated during the project analysis
+   * @param threads        maximum number of classes of a class folder visited at the same time, when the visitor is thread
+   *                       safe. Classes of a jar file are always visited one at a time.
+   * @throws IOException if the library cannot be read
+   */
+  public static void accept(URL url, ClassFileVisitor visitor, ModuleLogger analyzerLogger, int threads)
+      throws IOException {
+    analyzerLogger.log(() -> "Analyzing: " + url);
     if (url.getPath().endsWith(".jar")) {
       acceptJar(url, visitor);
     } else if (url.getProtocol().equalsIgnoreCase("file")) {
@@ -42,7 +81,7 @@ public final class ClassFileVisitorUtils {
         File file = new File(new URI(url.toString()));
 
         if (file.isDirectory()) {
-          acceptDirectory(file, visitor);
+          acceptDirectory(file, visitor, threads);
         } else if (file.exists()) {
           throw new IllegalArgumentException("Cannot accept visitor on URL: " + url);
         }
@@ -57,47 +96,80 @@ public final class ClassFileVisitorUtils {
 
   private static void acceptJar(URL url, ClassFileVisitor visitor)
       throws IOException {
-    JarInputStream in = new JarInputStream(url.openStream());
+    final File file = toFile(url);
+    if (file == null) {
+      acceptJarStream(url, visitor);
+      return;
+    }
+
+    // Uses the central directory to find the classes, so resources and metadata entries are never inflated
+    try (ZipFile zipFile = new ZipFile(file)) {
+      final ClassBuffer buffer = new ClassBuffer();
+      final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        final ZipEntry entry = entries.nextElement();
+        final String name = entry.getName();
+        if (entry.isDirectory() || !isAnalyzableClass(name)) {
+          continue;
+        }
+
+        try (InputStream in = zipFile.getInputStream(entry)) {
+          buffer.read(in, entry.getSize());
+        }
+        visitClass(name, buffer.bytes, buffer.length, visitor);
+      }
+    }
+  }
+
+  private static File toFile(URL url) {
+    if (!"file".equalsIgnoreCase(url.getProtocol())) {
+      return null;
+    }
+
     try {
-      JarEntry entry = null;
+      final File file = new File(url.toURI());
+      return file.isFile() ? file : null;
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      return null;
+    }
+  }
 
+  private static boolean isAnalyzableClass(String name) {
+    return name.endsWith(CLASS_EXTENSION) && !name.startsWith(META_INF) && !name.equals(MODULE_INFO_CLASS);
+  }
+
+  private static void acceptJarStream(URL url, ClassFileVisitor visitor)
+      throws IOException {
+    try (JarInputStream in = new JarInputStream(url.openStream())) {
+      JarEntry entry;
       while ((entry = in.getNextJarEntry()) != null) {
         String name = entry.getName();
 
-        if (name.endsWith(".class")) {
+        if (isAnalyzableClass(name)) {
           visitClass(name, in, visitor);
         }
       }
-    } finally {
-      in.close();
     }
   }
 
-  private static void acceptDirectory(File directory, ClassFileVisitor visitor)
+  private static void acceptDirectory(File directory, ClassFileVisitor visitor, int threads)
       throws IOException {
     if (!directory.isDirectory()) {
       throw new IllegalArgumentException("File is not a directory");
     }
 
-    DirectoryScanner scanner = new DirectoryScanner();
-
-    scanner.setBasedir(directory);
-    scanner.setIncludes(CLASS_INCLUDES);
-
-    scanner.scan();
-
-    String[] paths = scanner.getIncludedFiles();
-
-    for (String path : paths) {
-      path = path.replace(File.separatorChar, '/');
-
-      File file = new File(directory, path);
-      FileInputStream in = new FileInputStream(file);
-
+    final ExecutorService executor = visitor.isThreadSafe() && threads > 1 ? newAnalysisPool("walker", threads) : null;
+    try {
+      final DirectoryClassWalker walker = new DirectoryClassWalker(directory.toPath(), visitor, executor);
       try {
-        visitClass(path, in, visitor);
+        Files.walkFileTree(directory.toPath(), EnumSet.of(FOLLOW_LINKS), Integer.MAX_VALUE, walker);
+        walker.awaitCompletion();
       } finally {
-        in.close();
+        walker.cancel();
+      }
+    } finally {
+      if (executor != null) {
+        shutdown(executor);
       }
     }
   }
@@ -113,4 +185,147 @@ public final class ClassFileVisitorUtils {
 
     visitor.visitClass(className, in);
   }
+
+  private static void visitClass(String path, byte[] classBytes, int length, ClassFileVisitor visitor) {
+    final String className = path.substring(0, path.length() - CLASS_EXTENSION.length()).replace('/', '.');
+
+    visitor.visitClass(className, classBytes, length);
+  }
+
+  /**
+   * Walks a class folder, skipping META-INF subtrees without listing them. Classes are parsed on the walking thread when there
+   * is no executor, otherwise they are handed in batches to the executor as soon as they are found.
+   */
+  private static final class DirectoryClassWalker extends SimpleFileVisitor<Path> {
+
+    private static final int BATCH_SIZE = 64;
+
+    private final Path root;
+    private final ClassFileVisitor visitor;
+    private final ExecutorService executor;
+    private final List<Future<?>> tasks = new ArrayList<>();
+    private List<Path> batch = new ArrayList<>(BATCH_SIZE);
+
+    private DirectoryClassWalker(Path root, ClassFileVisitor visitor, ExecutorService executor) {
+      this.root = root;
+      this.visitor = visitor;
+      this.executor = executor;
+    }
+
+    @Override
+    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+      final Path fileName = dir.getFileName();
+      if (!dir.equals(root) && fileName != null && META_INF_FOLDER.equals(fileName.toString())) {
+        return SKIP_SUBTREE;
+      }
+      return CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+      if (!attrs.isRegularFile() || !file.getFileName().toString().endsWith(CLASS_EXTENSION)) {
+        return CONTINUE;
+      }
+
+      if (executor != null) {
+        batch.add(file);
+        if (batch.size() == BATCH_SIZE) {
+          submitBatch();
+        }
+      } else {
+        visitFile(file);
+      }
+      return CONTINUE;
+    }
+
+    private void submitBatch() {
+      final List<Path> files = batch;
+      batch = new ArrayList<>(BATCH_SIZE);
+      tasks.add(executor.submit(() -> {
+        for (Path file : files) {
+          if (Thread.currentThread().isInterrupted()) {
+            return;
+          }
+          try {
+            visitFile(file);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+      }));
+    }
+
+    private void visitFile(Path file) throws IOException {
+      final byte[] classBytes = Files.readAllBytes(file);
+      final String path = root.relativize(file).toString().replace(File.separatorChar, '/');
+      visitClass(path, classBytes, classBytes.length, visitor);
+    }
+
+    private void awaitCompletion() throws IOException {
+      if (!batch.isEmpty()) {
+        submitBatch();
+      }
+
+      for (Future<?> task : tasks) {
+        await(task);
+      }
+    }
+
+    /**
+     * Cancels the batches that did not end, so none of them keeps visiting classes once the walk failed.
+     */
+    private void cancel() {
+      for (Future<?> task : tasks) {
+        task.cancel(true);
+      }
+    }
+
+    private static void await(Future<?> task) throws IOException {
+      try {
+        task.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while visiting classes", e);
+      } catch (ExecutionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof UncheckedIOException) {
+          throw ((UncheckedIOException) cause).getCause();
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new IOException("Cannot visit classes", cause);
+      }
+    }
+  }
+
+  /**
+   * Holds the content of the last read class, reusing the same array for all the classes of a jar.
+   */
+  private static final class ClassBuffer {
+
+    private byte[] bytes = new byte[DEFAULT_BUFFER_SIZE];
+    private int length;
+
+    private void read(InputStream in, long expectedSize) throws IOException {
+      if (expectedSize > bytes.length) {
+        bytes = new byte[(int) expectedSize];
+      }
+
+      length = 0;
+      int read;
+      while ((read = in.read(bytes, length, bytes.length - length)) >= 0) {
+        length += read;
+        if (length == bytes.length) {
+          final int next = in.read();
+          if (next < 0) {
+            break;
+          }
+          bytes = Arrays.copyOf(bytes, bytes.length * 2);
+          bytes[length++] = (byte) next;
+        }
+      }
+    }
+  }
 }
@@ -8,8 +8,15 @@ package org.mule.tools.maven.plugin.module.analyze;
 
 import static org.mule.tools.maven.plugin.module.analyze.JrePackageFinder.find;
 
+import org.mule.tools.maven.plugin.module.analyze.PackageClosureCalculator.PackageClosure;
+import org.mule.tools.maven.plugin.module.analyze.cache.ArtifactAnalysisCache;
+import org.mule.tools.maven.plugin.module.analyze.cache.CachingDependencyAnalyzer;
+import org.mule.tools.maven.plugin.module.analyze.cache.FolderListing;
+import org.mule.tools.maven.plugin.module.analyze.cache.IncrementalClassFolderAnalyzer;
+import org.mule.tools.maven.plugin.module.analyze.cache.PackageDependencyCache;
 import org.mule.tools.maven.plugin.module.bean.Module;
 import org.mule.tools.maven.plugin.module.common.ModuleLogger;
+import org.mule.tools.maven.plugin.module.common.PhaseMetrics;
 
 import java.io.File;
 import java.io.IOException;
@@ -40,6 +47,7 @@ public class DefaultModuleApiAnalyzer implements ModuleApiAnalyzer {
   // TODO(pablo.kraan): move these things ot a util class
   private static final char PACKAGE_SEPARATOR = '.';
   private static final String EMPTY_PACKAGE = "";
+  private static final String CLASS_RECORDS_FILE = "mule-module-maven-plugin/class-dependencies.bin";
 
   /**
    * DependencyAnalyzer
@@ -54,7 +62,8 @@ public class DefaultModuleApiAnalyzer implements ModuleApiAnalyzer {
   }
 
   @Override
-  public ProjectAnalysisResult analyze(MavenProject project, ModuleLogger analyzerLogger, Log log)
+  public ProjectAnalysisResult analyze(MavenProject project, AnalyzerConfiguration configuration, ModuleLogger analyzerLogger,
+                                       Log log)
       throws ModuleApiAnalyzerException {
 
     Module module = moduleDiscoverer.discoverProjectModule(project, analyzerLogger);
@@ -63,102 +72,150 @@ public class DefaultModuleApiAnalyzer implements ModuleApiAnalyzer {
       return new ProjectAnalysisResult(null, null);
     }
 
-    return analyze(project, module, analyzerLogger, log);
+    return analyze(project, module, configuration, analyzerLogger, log);
   }
 
   @Override
-  public ProjectAnalysisResult analyze(MavenProject project, Module module, ModuleLogger analyzerLogger, Log log)
+  public ProjectAnalysisResult analyze(MavenProject project, Module module, AnalyzerConfiguration configuration,
+                                       ModuleLogger analyzerLogger, Log log)
       throws ModuleApiAnalyzerException {
     try {
-      List<Module> modules = moduleDiscoverer.discoverExternalModules(project, analyzerLogger, module.getName());
+      final List<File> libraries = getLibraries(project, analyzerLogger);
+      final boolean scanOnDemand = configuration.isScanOnDemand();
+      final FolderListing outputListing = configuration.canSkipWork() ? getOutputListing(project, configuration) : null;
+      final byte[] classesDigest = outputListing == null ? null : ProjectScan.digestClasses(outputListing);
+      final ProjectScan publishedScan = classesDigest == null ? null
+          : ProjectScan.find(project, module.getName(), libraries, configuration.getRelease(), scanOnDemand, classesDigest);
+
+      // Indexed before discovering the modules, which then reuses the module properties read from each jar
+      final LibraryPackageIndex libraryIndex =
+          publishedScan == null && scanOnDemand ? indexLibraries(libraries, configuration) : null;
+      final List<Module> modules = publishedScan != null ? publishedScan.getModules()
+          : discoverModules(project, module, libraryIndex, configuration, analyzerLogger);
 
       checkExportedOptionalPackage(analyzerLogger, module.getExportedPackages(), module.getOptionalExportedPackages());
 
       Set<String> externalExportedPackages = getExternalExportedPackages(modules);
 
-      final Map<String, Set<String>> projectPackageDependencies = findPackageDependencies(project, analyzerLogger);
-      final Map<String, Set<String>> externalPackageDeps = calculateExternalDeps(project, analyzerLogger);
+      final ProjectScan scan = publishedScan != null ? publishedScan
+          : scan(project, module, libraries, libraryIndex, modules, classesDigest, outputListing, configuration, analyzerLogger);
+      if (classesDigest != null && publishedScan == null) {
+        scan.publish(project);
+      }
 
-      ApiAnalysisResult standardApiAnalysisResult =
-          analyzeApi(analyzerLogger, module.getExportedPackages(), module.getOptionalExportedPackages(), externalExportedPackages,
-                     projectPackageDependencies,
-                     externalPackageDeps);
+      // With an on demand scan, the libraries are analyzed while calculating the closure
+      try (PhaseMetrics phase = configuration.getMetrics().start("closure")) {
+        // Shared by both APIs, so the privileged closure reuses the packages already resolved by the standard one
+        final PackageClosureCalculator closureCalculator = scan.newClosureCalculator(analyzerLogger);
+        final ProjectAnalysisResult result =
+            analyzeApis(module, modules, externalExportedPackages, closureCalculator, analyzerLogger);
+        phase.recordPackages(result.getStandardApi().getExportedPackageClosure().size());
+        return result;
+      } finally {
+        scan.closeFiles();
+      }
+    } catch (Exception exception) {
+      throw new ModuleApiAnalyzerException("Cannot analyze dependencies", exception);
+    }
+  }
 
-      logPackageClosure(analyzerLogger, standardApiAnalysisResult.getExportedPackageClosure());
+  /**
+   * @return the listing of the project output folder taken by the executed goal, or a new one if it took none.
+   */
+  private FolderListing getOutputListing(MavenProject project, AnalyzerConfiguration configuration) throws IOException {
+    final File outputDirectory = new File(project.getBuild().getOutputDirectory());
+    final FolderListing outputListing = configuration.getOutputListing();
+    return outputListing != null && outputListing.isListingOf(outputDirectory) ? outputListing
+        : FolderListing.of(outputDirectory);
+  }
 
-      ApiAnalysisResult privilegedApiAnalysisResult = null;
+  private LibraryPackageIndex indexLibraries(List<File> libraries, AnalyzerConfiguration configuration) throws IOException {
+    final PhaseMetrics phase = configuration.getMetrics().start("libraryIndex");
+    try {
+      return LibraryPackageIndex.of(libraries);
+    } finally {
+      phase.close();
+    }
+  }
 
-      if (!module.getExportedPrivilegedPackages().isEmpty()) {
-        Set<String> externalPrivilegedExportedPackages = getExternalExportedPrivilegedPackages(modules);
-        Set<String> exportedPackages = new HashSet<>(module.getExportedPackages());
-        exportedPackages.addAll(externalExportedPackages);
-        exportedPackages.addAll(externalPrivilegedExportedPackages);
+  private List<Module> discoverModules(MavenProject project, Module module, LibraryPackageIndex libraryIndex,
+                                       AnalyzerConfiguration configuration, ModuleLogger analyzerLogger)
+      throws ModuleApiAnalyzerException {
+    final PhaseMetrics phase = configuration.getMetrics().start("moduleDiscovery");
+    try {
+      return moduleDiscoverer.discoverExternalModules(project, analyzerLogger, module.getName(), configuration, libraryIndex);
+    } finally {
+      phase.close();
+    }
+  }
 
-        privilegedApiAnalysisResult =
-            analyzeApi(analyzerLogger, module.getExportedPrivilegedPackages(), module.getOptionalExportedPackages(),
-                       exportedPackages,
-                       projectPackageDependencies,
-                       externalPackageDeps);
-      }
+  private ProjectScan scan(MavenProject project, Module module, List<File> libraries, LibraryPackageIndex libraryIndex,
+                           List<Module> modules, byte[] classesDigest, FolderListing outputListing,
+                           AnalyzerConfiguration configuration, ModuleLogger analyzerLogger)
+      throws IOException {
+    final PackageGraph projectPackageDependencies;
+    try (PhaseMetrics phase = configuration.getMetrics().start("projectScan")) {
+      projectPackageDependencies = findPackageDependencies(project, configuration, outputListing, analyzerLogger);
+      phase.recordGraph(projectPackageDependencies);
+    }
+    final Set<String> jrePackages = find(configuration.getRelease());
+    if (libraryIndex != null) {
+      final OnDemandDependencyScanner onDemandScanner =
+          new OnDemandDependencyScanner(libraryIndex, getCache(configuration), configuration.getSessionCache(),
+                                        configuration.getThreads(), analyzerLogger);
+      return ProjectScan.onDemand(module.getName(), libraries, configuration.getRelease(), classesDigest, modules,
+                                  projectPackageDependencies, onDemandScanner, jrePackages);
+    }
 
-      logPrivilegedPackageClosure(analyzerLogger, standardApiAnalysisResult.getExportedPackageClosure());
+    final PackageGraph externalPackageDeps;
+    try (PhaseMetrics phase = configuration.getMetrics().start("externalScan")) {
+      externalPackageDeps = calculateExternalDeps(libraries, configuration, analyzerLogger);
+      phase.recordGraph(externalPackageDeps);
+    }
+    return ProjectScan.of(module.getName(), libraries, configuration.getRelease(), classesDigest, modules,
+                          projectPackageDependencies, externalPackageDeps, jrePackages);
+  }
 
-      return new ProjectAnalysisResult(standardApiAnalysisResult, privilegedApiAnalysisResult);
-    } catch (Exception exception) {
-      throw new ModuleApiAnalyzerException("Cannot analyze dependencies", exception);
+  private ProjectAnalysisResult analyzeApis(Module module, List<Module> modules, Set<String> externalExportedPackages,
+                                            PackageClosureCalculator closureCalculator, ModuleLogger analyzerLogger)
+      throws IOException, ModuleApiAnalyzerException {
+    ApiAnalysisResult standardApiAnalysisResult =
+        analyzeApi(module.getExportedPackages(), module.getOptionalExportedPackages(), externalExportedPackages,
+                   closureCalculator);
+
+    logPackageClosure(analyzerLogger, standardApiAnalysisResult.getExportedPackageClosure());
+
+    ApiAnalysisResult privilegedApiAnalysisResult = null;
+
+    if (!module.getExportedPrivilegedPackages().isEmpty()) {
+      Set<String> externalPrivilegedExportedPackages = getExternalExportedPrivilegedPackages(modules);
+      Set<String> exportedPackages = new HashSet<>(module.getExportedPackages());
+      exportedPackages.addAll(externalExportedPackages);
+      exportedPackages.addAll(externalPrivilegedExportedPackages);
+
+      privilegedApiAnalysisResult =
+          analyzeApi(module.getExportedPrivilegedPackages(), module.getOptionalExportedPackages(), exportedPackages,
+                     closureCalculator);
     }
+
+    logPrivilegedPackageClosure(analyzerLogger, standardApiAnalysisResult.getExportedPackageClosure());
+
+    return new ProjectAnalysisResult(standardApiAnalysisResult, privilegedApiAnalysisResult);
   }
 
-  private ApiAnalysisResult analyzeApi(ModuleLogger analyzerLogger, Set<String> projectExportedPackages,
-                                       Set<String> projectOptionalPackages, Set<String> externalExportedPackages,
-                                       Map<String, Set<String>> projectPackageDependencies,
-                                       Map<String, Set<String>> externalPackageDeps) {
+  private ApiAnalysisResult analyzeApi(Set<String> projectExportedPackages, Set<String> projectOptionalPackages,
+                                       Set<String> externalExportedPackages, PackageClosureCalculator closureCalculator)
+      throws IOException {
 
     Set<String> duplicatedPackages = removeExternalModuleExportedPackage(projectExportedPackages, externalExportedPackages);
     projectExportedPackages.removeAll(duplicatedPackages);
 
-    final Set<String> exportedPackageClosure = new HashSet<>(projectExportedPackages);
-    final Set<String> missingAnalyzedPackages = new HashSet<>();
-    final Set<String> jrePackages = find();
+    final PackageClosure closure =
+        closureCalculator.calculate(projectExportedPackages, projectOptionalPackages, externalExportedPackages);
+    final Set<String> exportedPackageClosure = closure.getExportedPackageClosure();
+    final Set<String> missingAnalyzedPackages = closure.getNotAnalyzedPackages();
     final Map<String, Set<String>> missingExportedPackages = new HashMap<>();
 
-    boolean dirty;
-    do {
-      Set<String> diff = new HashSet<>();
-      Set<String> exportedByOtherModule = new HashSet<>();
-      for (String exportedPackage : exportedPackageClosure) {
-        if (!ignorePackage(analyzerLogger, exportedPackage, jrePackages, externalExportedPackages)) {
-          Set<String> packageDeps = projectPackageDependencies.get(exportedPackage);
-          if (packageDeps != null) {
-            for (String packageDep : packageDeps) {
-              if (!exportedPackageClosure.contains(packageDep)
-                  && !ignorePackage(analyzerLogger, packageDep, jrePackages, externalExportedPackages)) {
-                diff.add(packageDep);
-              }
-            }
-          } else {
-            packageDeps = externalPackageDeps.get(exportedPackage);
-            if (packageDeps != null) {
-              for (String packageDep : packageDeps) {
-                if (!exportedPackageClosure.contains(packageDep)
-                    && !ignorePackage(analyzerLogger, packageDep, jrePackages, externalExportedPackages)) {
-                  diff.add(packageDep);
-                }
-              }
-            } else {
-              if (!externalExportedPackages.contains(exportedPackage) && !projectOptionalPackages.contains(exportedPackage)) {
-                missingAnalyzedPackages.add(exportedPackage);
-              }
-            }
-          }
-        }
-      }
-      exportedPackageClosure.addAll(diff);
-      exportedPackageClosure.removeAll(exportedByOtherModule);
-      diff.removeAll(exportedByOtherModule);
-      dirty = !diff.isEmpty();
-    } while (dirty);
-
     Set<String> packagesToExport =
         sanitizePackagesToExport(projectExportedPackages, projectOptionalPackages, exportedPackageClosure);
 
@@ -183,6 +240,10 @@ public class DefaultModuleApiAnalyzer implements ModuleApiAnalyzer {
   }
 
   private void logPackageClosure(ModuleLogger analyzerLogger, Set<String> exportedPackageClosure, String message) {
+    if (!analyzerLogger.isEnabled()) {
+      return;
+    }
+
     StringBuilder builder = new StringBuilder(message);
     for (String exportedPackage : exportedPackageClosure) {
       builder.append("\n").append(exportedPackage);
@@ -251,26 +312,6 @@ public class DefaultModuleApiAnalyzer implements ModuleApiAnalyzer {
     return "Removing JRE package " + packageName + " from export package closure";
   }
 
-  private boolean ignorePackage(ModuleLogger analyzerLogger, String packageName, Set<String> jrePackages,
-                                Set<String> otherModuleExportedPackages) {
-    boolean result = false;
-
-    if (otherModuleExportedPackages.contains(packageName)) {
-      analyzerLogger
-          .log(buildRemovedProvidedPackageMessage(packageName));
-      result = true;
-    } else if (jrePackages.contains(packageName)) {
-      analyzerLogger.log(
-                         buildRemovedJrePackageMessage(packageName));
-      result = true;
-    } else if (packageName.startsWith("sun.") || packageName.startsWith("com.sun.")) {
-      analyzerLogger.log(buildRemovedSunPackageMessage(packageName));
-      result = true;
-    }
-
-    return result;
-  }
-
   private Set<String> getExternalExportedPackages(List<Module> modules)
       throws ModuleApiAnalyzerException {
     Set<String> result = new HashSet<>();
@@ -289,48 +330,58 @@ public class DefaultModuleApiAnalyzer implements ModuleApiAnalyzer {
     return result;
   }
 
-  private Map<String, Set<String>> calculateExternalDeps(MavenProject project, ModuleLogger analyzerLogger) throws IOException {
-    final Map<String, Set<String>> result = new HashMap<>();
+  private List<File> getLibraries(MavenProject project, ModuleLogger analyzerLogger) {
+    final List<File> libraries = new ArrayList<>();
     for (Object projectArtifact : project.getArtifacts()) {
       final Artifact artifact = (Artifact) projectArtifact;
       if ("test".equals(artifact.getScope())) {
-        analyzerLogger.log("Skipping test artifact: " + artifact.getFile().toString());
+        analyzerLogger.log(() -> "Skipping test artifact: " + artifact.getFile());
         continue;
       }
       if ("pom".equals(artifact.getType())) {
-        analyzerLogger.log("Skipping POM artifact: " + artifact.getFile().toString());
+        analyzerLogger.log(() -> "Skipping POM artifact: " + artifact.getFile());
         continue;
       }
-      final Map<String, Set<String>> artifactExternalPackageDeps =
-          findPackageDependencies(artifact.getFile().toString(), analyzerLogger);
-
-      for (String externalPackageName : artifactExternalPackageDeps.keySet()) {
-        final Set<String> packageDeps = artifactExternalPackageDeps.get(externalPackageName);
-        Set<String> externalPackageDeps = result.get(externalPackageName);
-        if (externalPackageDeps == null) {
-          externalPackageDeps = new HashSet<>();
-          result.put(externalPackageName, externalPackageDeps);
-        }
-        externalPackageDeps.addAll(packageDeps);
-      }
+      libraries.add(artifact.getFile());
     }
+    return libraries;
+  }
 
-    return result;
+  private PackageDependencyCache getCache(AnalyzerConfiguration configuration) {
+    return configuration.getCacheDirectory() == null ? null : new PackageDependencyCache(configuration.getCacheDirectory());
+  }
+
+  private PackageGraph calculateExternalDeps(List<File> libraries, AnalyzerConfiguration configuration,
+                                            ModuleLogger analyzerLogger)
+      throws IOException {
+    final PackageDependencyCache cache = getCache(configuration);
+    final ArtifactAnalysisCache sessionCache = configuration.getSessionCache();
+    final DependencyAnalyzer librariesAnalyzer = cache == null && sessionCache == null ? dependencyAnalyzer
+        : new CachingDependencyAnalyzer(dependencyAnalyzer, cache, sessionCache);
+
+    return new ParallelDependencyScanner(librariesAnalyzer, configuration.getThreads()).scan(libraries, analyzerLogger);
   }
 
-  protected Map<String, Set<String>> findPackageDependencies(MavenProject project, ModuleLogger analyzerLogger)
+  private PackageGraph findPackageDependencies(MavenProject project, AnalyzerConfiguration configuration,
+                                               FolderListing outputListing, ModuleLogger analyzerLogger)
       throws IOException {
-    String outputDirectory = project.getBuild().getOutputDirectory();
-    final Map<String, Set<String>> packageDeps = findPackageDependencies(outputDirectory, analyzerLogger);
+    if (!configuration.isIncremental()) {
+      return findPackageDependencies(project.getBuild().getOutputDirectory(), dependencyAnalyzer, configuration.getThreads(),
+                                     analyzerLogger);
+    }
 
-    return packageDeps;
+    final File recordsFile = new File(project.getBuild().getDirectory(), CLASS_RECORDS_FILE);
+    final DependencyAnalyzer incrementalAnalyzer = new IncrementalClassFolderAnalyzer(recordsFile, outputListing);
+    return findPackageDependencies(project.getBuild().getOutputDirectory(), incrementalAnalyzer, configuration.getThreads(),
+                                   analyzerLogger);
   }
 
-  private Map<String, Set<String>> findPackageDependencies(String path, ModuleLogger analyzerLogger)
+  private PackageGraph findPackageDependencies(String path, DependencyAnalyzer analyzer, int threads,
+                                               ModuleLogger analyzerLogger)
       throws IOException {
     URL url = new File(path).toURI().toURL();
 
-    return dependencyAnalyzer.analyze(url, analyzerLogger);
+    return analyzer.analyze(url, analyzerLogger, threads);
   }
 
 }
@@ -10,15 +10,26 @@ import org.mule.tools.maven.plugin.module.common.ModuleLogger;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.Map;
-import java.util.Set;
 
 /**
- * Gets the set of classes referenced by a library given either as a jar file or an exploded directory.
+ * Gets the packages referenced by a library given either as a jar file or an exploded directory.
  */
 public interface DependencyAnalyzer {
 
   String ROLE = DependencyAnalyzer.class.getName();
 
-  Map<String, Set<String>> analyze(URL url, ModuleLogger analyzerLogger) throws IOException;
+  PackageGraph analyze(URL url, ModuleLogger analyzerLogger) throws IOException;
+
+  /**
+   * Gets the packages referenced by a library, bounding the threads used to analyze it
+   *
+   * @param url            jar file or class folder to analyze.
+   * @param analyzerLogger collects all the logging information generated during the project analysis
+   * @param threads        maximum number of threads used to analyze the library.
+   * @return the package dependencies found on the library
+   * @throws IOException if the library cannot be read
+   */
+  default PackageGraph analyze(URL url, ModuleLogger analyzerLogger, int threads) throws IOException {
+    return analyze(url, analyzerLogger);
+  }
 }
@@ -7,47 +7,202 @@
 package org.mule.tools.maven.plugin.module.analyze;
 
 import static org.codehaus.plexus.util.PropertyUtils.loadProperties;
+import static org.objectweb.asm.ClassReader.SKIP_CODE;
+import static org.objectweb.asm.Opcodes.ASM9;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReference;
+import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ModuleVisitor;
 
 /**
- * Lists all the packages defined in the JRE public API according to the version declared on the module being built.
+ * Lists all the packages defined in the JRE public API according to the Java release the module being built targets.
+ * <p>
+ * Up to Java 8 the packages are taken from a list bundled with the plugin. Releases older than the JVM running the build take
+ * the packages exported by the module descriptors of that release in {@code lib/ct.sym}, the data {@code javac --release}
+ * compiles against. The release of the JVM running the build, later ones and the releases missing from {@code ct.sym} use the
+ * packages exported by the system modules of that JVM. Only the packages exported without qualification are taken, leaving
+ * out internal SUN packages, as the analyzer removes them on its own.
+ * <p>
+ * Each set is calculated once per JVM and shared by all the analyzed modules.
  */
 public class JrePackageFinder {
 
   private static final String JRE_PACKAGES_PROPERTIES = "jre-packages.properties";
   private static final String UNABLE_TO_DETERMINE_JRE_PACKAGES_ERROR = "Unable to determine packages exported by the JRE";
+  private static final String MODULE_DESCRIPTOR_SIGNATURE = "/module-info.sig";
+  private static final int LEGACY_RELEASE = 8;
+
+  private static final Map<Integer, Set<String>> PACKAGES_BY_RELEASE = new ConcurrentHashMap<>();
 
   private JrePackageFinder() {}
 
   /**
-   ** @return the packages defined in the JRE API
+   ** @return the packages defined in the JRE API of the JVM running the build
    */
   public static Set<String> find() {
+    return find(null);
+  }
+
+  /**
+   * @param release Java release targeted by the module, as in {@code maven.compiler.release} or {@code maven.compiler.target}.
+   *                Null, empty or a value that does not start with a release number to use the release of the JVM running
+   *                the build.
+   * @return the packages defined in the JRE API
+   */
+  public static Set<String> find(String release) {
     try {
-      final Properties properties = loadProperties(JrePackageFinder.class.getClassLoader().getResource(JRE_PACKAGES_PROPERTIES));
+      // Immutable sets are open addressed, which makes the membership checks done for every closure package cheaper
+      return PACKAGES_BY_RELEASE.computeIfAbsent(parseRelease(release), key -> Set.copyOf(findPackages(key)));
+    } catch (Exception e) {
+      throw new IllegalStateException("Unable to determine JRE provided packages", e);
+    }
+  }
+
+  /**
+   * Parses a Java release as written on the compiler options: {@code 8}, {@code 1.8}, {@code 17} or {@code 17-ea}
+   *
+   * @param release release to parse. May be null.
+   * @return the feature number of the release, or the one of the JVM running the build if it cannot be parsed
+   */
+  static int parseRelease(String release) {
+    if (release == null) {
+      return Runtime.version().feature();
+    }
 
-      // TODO(pablo.kraan): MULE-12497: Manage different JRE version on module maven plugin
-      final String jreVersionProperty = "jre-1.8";
-      if (!properties.keySet().contains(jreVersionProperty)) {
-        throw new IllegalStateException(UNABLE_TO_DETERMINE_JRE_PACKAGES_ERROR);
+    String version = release.trim();
+    if (version.startsWith("1.")) {
+      version = version.substring(2);
+    }
+    int end = 0;
+    while (end < version.length() && end < 3 && Character.isDigit(version.charAt(end))) {
+      end++;
+    }
+    final int feature = end == 0 ? 0 : Integer.parseInt(version.substring(0, end));
+    return feature > 0 ? feature : Runtime.version().feature();
+  }
+
+  private static Set<String> findPackages(int release) {
+    if (release <= LEGACY_RELEASE) {
+      return loadLegacyPackages();
+    }
+    if (release < Runtime.version().feature()) {
+      final Set<String> packages = findReleasePackages(release);
+      if (!packages.isEmpty()) {
+        return packages;
       }
+    }
+    return findSystemModulePackages();
+  }
 
-      final String packages = (String) properties.get(jreVersionProperty);
-      final Set<String> result = new HashSet<>();
-      for (String jrePackage : packages.split(",")) {
-        jrePackage = jrePackage.trim();
-        if (!jrePackage.isEmpty()) {
-          result.add(jrePackage);
-        }
+  private static Set<String> loadLegacyPackages() {
+    final Properties properties;
+    try {
+      properties = loadProperties(JrePackageFinder.class.getClassLoader().getResource(JRE_PACKAGES_PROPERTIES));
+    } catch (IOException e) {
+      throw new IllegalStateException(UNABLE_TO_DETERMINE_JRE_PACKAGES_ERROR, e);
+    }
+
+    final String jreVersionProperty = "jre-1.8";
+    if (!properties.keySet().contains(jreVersionProperty)) {
+      throw new IllegalStateException(UNABLE_TO_DETERMINE_JRE_PACKAGES_ERROR);
+    }
+
+    final String packages = (String) properties.get(jreVersionProperty);
+    final Set<String> result = new HashSet<>();
+    for (String jrePackage : packages.split(",")) {
+      jrePackage = jrePackage.trim();
+      if (!jrePackage.isEmpty()) {
+        result.add(jrePackage);
       }
+    }
+
+    return result;
+  }
 
+  /**
+   * Reads the module descriptors of a release from {@code ct.sym}, where each folder is named after the releases its entries
+   * apply to, written as one digit or letter per release: {@code 9}, {@code A} for 10, {@code B} for 11 and so on.
+   *
+   * @return the packages exported by the modules of the release, or an empty set if {@code ct.sym} does not describe it
+   */
+  private static Set<String> findReleasePackages(int release) {
+    final File ctSym = new File(System.getProperty("java.home"), "lib" + File.separator + "ct.sym");
+    final Set<String> result = new HashSet<>();
+    if (!ctSym.isFile()) {
       return result;
-    } catch (Exception e) {
-      throw new IllegalStateException("Unable to determine JRE provided packages", e);
     }
+
+    final String releaseTag = Integer.toString(release, Character.MAX_RADIX).toUpperCase(Locale.ROOT);
+    try (ZipFile zipFile = new ZipFile(ctSym)) {
+      for (Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements();) {
+        final ZipEntry entry = entries.nextElement();
+        final String name = entry.getName();
+        final int separator = name.indexOf('/');
+        if (separator > 0 && name.endsWith(MODULE_DESCRIPTOR_SIGNATURE) && name.substring(0, separator).contains(releaseTag)) {
+          try (InputStream descriptor = zipFile.getInputStream(entry)) {
+            addExportedPackages(descriptor, result);
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(UNABLE_TO_DETERMINE_JRE_PACKAGES_ERROR, e);
+    }
+    return result;
+  }
+
+  private static void addExportedPackages(InputStream descriptor, Set<String> packages) throws IOException {
+    new ClassReader(descriptor).accept(new ClassVisitor(ASM9) {
+
+      @Override
+      public ModuleVisitor visitModule(String name, int access, String version) {
+        return new ModuleVisitor(ASM9) {
+
+          @Override
+          public void visitExport(String packageName, int access, String... modules) {
+            if (modules == null || modules.length == 0) {
+              addJrePackage(packageName.replace('/', '.'), packages);
+            }
+          }
+        };
+      }
+    }, SKIP_CODE);
+  }
+
+  private static Set<String> findSystemModulePackages() {
+    final Set<String> result = new HashSet<>();
+    for (ModuleReference module : ModuleFinder.ofSystem().findAll()) {
+      for (ModuleDescriptor.Exports exports : module.descriptor().exports()) {
+        if (!exports.isQualified()) {
+          addJrePackage(exports.source(), result);
+        }
+      }
+    }
+
+    if (result.isEmpty()) {
+      throw new IllegalStateException(UNABLE_TO_DETERMINE_JRE_PACKAGES_ERROR);
+    }
+    return result;
   }
 
+  private static void addJrePackage(String packageName, Set<String> packages) {
+    if (!packageName.startsWith("sun.") && !packageName.startsWith("com.sun.")) {
+      packages.add(packageName);
+    }
+  }
 }
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze;
+
+import static org.mule.tools.maven.plugin.module.bean.Module.MULE_MODULE_PROPERTIES_LOCATION;
+
+import static java.nio.file.FileVisitOption.FOLLOW_LINKS;
+import static java.nio.file.FileVisitResult.CONTINUE;
+import static java.nio.file.FileVisitResult.SKIP_SUBTREE;
+import static java.util.Collections.emptyList;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Maps each package to the libraries that contain its classes, listing jar central directories and class folders without
+ * reading any class.
+ * <p>
+ * The class files indexed for a library are the same ones {@link ClassFileVisitorUtils} visits on it. While listing a jar, its
+ * Mule module properties are read too, so {@link ModuleDiscoverer} does not need to open the jar again.
+ *
+ * @since 1.10
+ */
+public class LibraryPackageIndex {
+
+  private static final String CLASS_EXTENSION = ".class";
+  private static final String META_INF = "META-INF";
+  private static final String MODULE_INFO_CLASS = "module-info.class";
+
+  private final Map<String, List<LibraryPackage>> packages;
+  private final int classCount;
+  private final Set<File> jars;
+  private final Map<File, byte[]> moduleProperties;
+
+  private LibraryPackageIndex(Map<String, List<LibraryPackage>> packages, int classCount, Set<File> jars,
+                              Map<File, byte[]> moduleProperties) {
+    this.packages = packages;
+    this.classCount = classCount;
+    this.jars = jars;
+    this.moduleProperties = moduleProperties;
+  }
+
+  /**
+   * Indexes the given libraries
+   *
+   * @param libraries jar files or class folders.
+   * @return the index of the packages found on the libraries
+   * @throws IOException if any of the libraries cannot be read
+   */
+  public static LibraryPackageIndex of(List<File> libraries) throws IOException {
+    final Map<String, List<LibraryPackage>> packages = new HashMap<>();
+    final Set<File> jars = new HashSet<>();
+    final Map<File, byte[]> moduleProperties = new HashMap<>();
+    int classCount = 0;
+    for (File library : libraries) {
+      for (LibraryPackage libraryPackage : listPackages(library, jars, moduleProperties)) {
+        packages.computeIfAbsent(libraryPackage.getPackageName(), name -> new ArrayList<>(1)).add(libraryPackage);
+        classCount += libraryPackage.getClassPaths().size();
+      }
+    }
+    return new LibraryPackageIndex(packages, classCount, jars, moduleProperties);
+  }
+
+  /**
+   * @param packageName name of a package.
+   * @return the classes of the package on each library that contains it
+   */
+  public List<LibraryPackage> getLibraryPackages(String packageName) {
+    return packages.getOrDefault(packageName, emptyList());
+  }
+
+  /**
+   * @return number of packages found on the libraries
+   */
+  public int getPackageCount() {
+    return packages.size();
+  }
+
+  /**
+   * @return number of classes found on the libraries
+   */
+  public int getClassCount() {
+    return classCount;
+  }
+
+  /**
+   * @param library a library file.
+   * @return whether the library is a jar listed by this index
+   */
+  public boolean isIndexedJar(File library) {
+    return jars.contains(library.getAbsoluteFile());
+  }
+
+  /**
+   * @param jar a jar listed by this index.
+   * @return the content of the Mule module properties of the jar, or null if the jar is not a Mule module
+   */
+  public byte[] getModuleProperties(File jar) {
+    return moduleProperties.get(jar.getAbsoluteFile());
+  }
+
+  private static Iterable<LibraryPackage> listPackages(File library, Set<File> jars, Map<File, byte[]> moduleProperties)
+      throws IOException {
+    final Map<String, LibraryPackage> libraryPackages = new LinkedHashMap<>();
+    if (library.getPath().endsWith(".jar")) {
+      try (ZipFile zipFile = new ZipFile(library)) {
+        final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+          final ZipEntry entry = entries.nextElement();
+          if (entry.isDirectory()) {
+            continue;
+          }
+          if (MULE_MODULE_PROPERTIES_LOCATION.equals(entry.getName())) {
+            try (InputStream in = zipFile.getInputStream(entry)) {
+              moduleProperties.put(library.getAbsoluteFile(), in.readAllBytes());
+            }
+          } else {
+            addClass(library, entry.getName(), libraryPackages);
+          }
+        }
+      }
+      jars.add(library.getAbsoluteFile());
+    } else if (library.isDirectory()) {
+      final Path root = library.toPath();
+      Files.walkFileTree(root, EnumSet.of(FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+          final Path fileName = dir.getFileName();
+          return !dir.equals(root) && fileName != null && META_INF.equals(fileName.toString()) ? SKIP_SUBTREE : CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+          if (attrs.isRegularFile()) {
+            addClass(library, root.relativize(file).toString().replace(File.separatorChar, '/'), libraryPackages);
+          }
+          return CONTINUE;
+        }
+      });
+    } else if (library.exists()) {
+      throw new IllegalArgumentException("Cannot accept visitor on URL: " + library.toURI().toURL());
+    }
+    return libraryPackages.values();
+  }
+
+  private static void addClass(File library, String path, Map<String, LibraryPackage> libraryPackages) {
+    if (!isIndexedClass(path)) {
+      return;
+    }
+
+    final int separator = path.lastIndexOf('/');
+    final String packageName = separator < 0 ? "" : path.substring(0, separator).replace('/', '.');
+    libraryPackages.computeIfAbsent(packageName, name -> new LibraryPackage(library, name)).classPaths.add(path);
+  }
+
+  private static boolean isIndexedClass(String path) {
+    return path.endsWith(CLASS_EXTENSION) && !path.equals(MODULE_INFO_CLASS) && !path.startsWith(META_INF + "/")
+        && !path.contains("/" + META_INF + "/");
+  }
+
+  /**
+   * Classes of a package found on a library.
+   */
+  public static class LibraryPackage {
+
+    private final File library;
+    private final String packageName;
+    private final List<String> classPaths = new ArrayList<>();
+
+    private LibraryPackage(File library, String packageName) {
+      this.library = library;
+      this.packageName = packageName;
+    }
+
+    /**
+     * @return the jar file or class folder containing the package
+     */
+    public File getLibrary() {
+      return library;
+    }
+
+    public String getPackageName() {
+      return packageName;
+    }
+
+    /**
+     * @return paths of the class files of the package, relative to the library root and using '/' as separator
+     */
+    public List<String> getClassPaths() {
+      return classPaths;
+    }
+  }
+}
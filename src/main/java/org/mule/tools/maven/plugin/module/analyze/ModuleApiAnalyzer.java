@@ -18,9 +18,11 @@ public interface ModuleApiAnalyzer {
 
   String ROLE = ModuleApiAnalyzer.class.getName();
 
-  ProjectAnalysisResult analyze(MavenProject project, ModuleLogger analyzerLogger, Log log) throws ModuleApiAnalyzerException;
+  ProjectAnalysisResult analyze(MavenProject project, AnalyzerConfiguration configuration, ModuleLogger analyzerLogger,
+                                Log log)
+      throws ModuleApiAnalyzerException;
 
   ProjectAnalysisResult analyze(MavenProject project, org.mule.tools.maven.plugin.module.bean.Module projectModule,
-                                ModuleLogger analyzerLogger, Log log)
+                                AnalyzerConfiguration configuration, ModuleLogger analyzerLogger, Log log)
       throws ModuleApiAnalyzerException;
 }
@@ -9,25 +9,32 @@ package org.mule.tools.maven.plugin.module.analyze;
 import static org.mule.tools.maven.plugin.module.bean.Module.MODULE_NAME;
 import static org.mule.tools.maven.plugin.module.bean.Module.MULE_MODULE_PROPERTIES;
 import static org.mule.tools.maven.plugin.module.bean.Module.MULE_MODULE_PROPERTIES_LOCATION;
-
-import static java.lang.Thread.currentThread;
+import static org.mule.tools.maven.plugin.module.common.AnalysisExecutors.newAnalysisPool;
+import static org.mule.tools.maven.plugin.module.common.AnalysisExecutors.shutdown;
+import static org.mule.tools.maven.plugin.module.common.LeastRecentlyUsedMap.synchronizedLeastRecentlyUsedMap;
 
 import org.mule.tools.maven.plugin.module.bean.Module;
 import org.mule.tools.maven.plugin.module.bean.ModuleFactory;
 import org.mule.tools.maven.plugin.module.common.ModuleLogger;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
-import java.net.URLClassLoader;
-import java.util.Enumeration;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.model.Resource;
 import org.apache.maven.project.MavenProject;
 
@@ -38,6 +45,11 @@ import org.apache.maven.project.MavenProject;
  */
 public class ModuleDiscoverer {
 
+  private static final int MAX_CACHED_JARS = 4096;
+
+  // Modules found on the most recently used jars, or null when the jar is not a module, keyed by the jar absolute path
+  private static final Map<String, JarModule> JAR_MODULES = synchronizedLeastRecentlyUsedMap(MAX_CACHED_JARS);
+
   private final ModuleFactory moduleFactory = new ModuleFactory();
 
   /**
@@ -75,50 +87,213 @@ public class ModuleDiscoverer {
   public List<Module> discoverExternalModules(MavenProject project, ModuleLogger analyzerLogger,
                                               String projectModuleName)
       throws ModuleApiAnalyzerException {
-    final List<Module> result = new LinkedList<>();
+    final AnalyzerConfiguration configuration = new AnalyzerConfiguration();
+    configuration.setVerbose(analyzerLogger.isEnabled());
+    return discoverExternalModules(project, analyzerLogger, projectModuleName, configuration, null);
+  }
 
-    Set<URL> urls = new HashSet<>();
-    List<String> elements;
+  /**
+   * Discovers all the Mule modules used as dependencies on the Maven project under analysis.
+   * <p>
+   * The module properties are looked up directly on each element of the project classpath, without a class loader. Modules
+   * found on the most recently used jar files are kept for the whole JVM and reused while the jar keeps the same size and
+   * modification time, unless the analysis {@link AnalyzerConfiguration#canSkipWork() cannot skip work}.
+   *
+   * @param project           project being analyzed.
+   * @param analyzerLogger    collects all the logging information generated during the project analysis
+   * @param projectModuleName name of the module that corresponds to the project being analyzed
+   * @param configuration     configuration of the analysis, which sets the maximum number of classpath elements read at the
+   *                          same time.
+   * @param libraryIndex      index of the project libraries, which provides the module properties of the jars it lists
+   *                          without opening them again. May be null.
+   * @return a list containing all the Mule modules that are dependencies of the analyzed project, in classpath order.
+   * @throws ModuleApiAnalyzerException
+   */
+  public List<Module> discoverExternalModules(MavenProject project, ModuleLogger analyzerLogger,
+                                              String projectModuleName, AnalyzerConfiguration configuration,
+                                              LibraryPackageIndex libraryIndex)
+      throws ModuleApiAnalyzerException {
+    final Set<File> elements = new LinkedHashSet<>();
     try {
-      elements = project.getRuntimeClasspathElements();
-      elements.addAll(project.getCompileClasspathElements());
+      for (String element : project.getRuntimeClasspathElements()) {
+        elements.add(new File(element).getAbsoluteFile());
+      }
+      for (String element : project.getCompileClasspathElements()) {
+        elements.add(new File(element).getAbsoluteFile());
+      }
+    } catch (DependencyResolutionRequiredException e) {
+      throw new ModuleApiAnalyzerException("Error getting project resources", e);
+    }
 
-      for (String element : elements) {
-        urls.add(new File(element).toURI().toURL());
+    final List<Module> result = new ArrayList<>();
+    for (Module module : findModules(new ArrayList<>(elements), analyzerLogger, configuration, libraryIndex)) {
+      // Skips project module properties
+      if (!module.getName().equals(projectModuleName)) {
+        result.add(module);
       }
+    }
+    return result;
+  }
 
-      ClassLoader contextClassLoader = URLClassLoader.newInstance(
-                                                                  urls.toArray(new URL[0]),
-                                                                  currentThread().getContextClassLoader());
+  private List<Module> findModules(List<File> elements, ModuleLogger analyzerLogger, AnalyzerConfiguration configuration,
+                                   LibraryPackageIndex libraryIndex)
+      throws ModuleApiAnalyzerException {
+    // Class folders, jars already read and jars that did not change are resolved right away, only the rest are worth
+    // reading concurrently
+    final Module[] modules = new Module[elements.size()];
+    final List<Integer> pending = new ArrayList<>();
+    for (int i = 0; i < modules.length; i++) {
+      final File element = elements.get(i);
+      if (libraryIndex != null && libraryIndex.isIndexedJar(element)) {
+        modules[i] = getIndexedModule(element, libraryIndex.getModuleProperties(element), analyzerLogger);
+        continue;
+      }
 
-      final Enumeration<URL> resources;
-      try {
-        resources = contextClassLoader.getResources(MULE_MODULE_PROPERTIES_LOCATION);
-      } catch (Exception e) {
-        throw new ModuleApiAnalyzerException("Cannot read " + MULE_MODULE_PROPERTIES_LOCATION, e);
+      if (element.isDirectory()) {
+        modules[i] = findModule(element, analyzerLogger);
+        continue;
+      }
+
+      final JarModule cached = configuration.canSkipWork() ? getCachedModule(element) : null;
+      if (cached != null) {
+        modules[i] = cached.module;
+      } else {
+        pending.add(i);
       }
+    }
 
-      while (resources.hasMoreElements()) {
-        final URL url = resources.nextElement();
-        try {
-          Properties properties = loadProperties(url);
+    final int threads = configuration.getThreads();
+    if (threads <= 1 || pending.size() <= 1) {
+      for (int i : pending) {
+        modules[i] = findModule(elements.get(i), analyzerLogger);
+      }
+    } else {
+      final ExecutorService executor = newAnalysisPool("discoverer", Math.min(threads, pending.size()));
+      try {
+        final List<Future<Module>> lookups = new ArrayList<>(pending.size());
+        for (int i : pending) {
+          final File element = elements.get(i);
+          lookups.add(executor.submit(() -> findModule(element, analyzerLogger)));
+        }
 
-          // Skips project module properties
-          String moduleName = (String) properties.get(MODULE_NAME);
-          if (!moduleName.equals(projectModuleName)) {
-            result.add(moduleFactory.create(analyzerLogger, moduleName, properties));
-          }
-        } catch (Exception e) {
-          throw new ModuleApiAnalyzerException("Cannot read " + MULE_MODULE_PROPERTIES_LOCATION + " from " + url.toString(), e);
+        for (int i = 0; i < lookups.size(); i++) {
+          modules[pending.get(i)] = await(lookups.get(i));
         }
+      } finally {
+        shutdown(executor);
       }
-    } catch (Exception e) {
-      throw new ModuleApiAnalyzerException("Error getting project resources", e);
     }
 
+    final List<Module> result = new ArrayList<>();
+    for (Module module : modules) {
+      if (module != null) {
+        result.add(module);
+      }
+    }
     return result;
   }
 
+  private JarModule getCachedModule(File element) {
+    final JarModule cached = JAR_MODULES.get(element.getPath());
+    return cached != null && cached.size == element.length() && cached.lastModified == element.lastModified() ? cached
+        : null;
+  }
+
+  private Module getIndexedModule(File jar, byte[] moduleProperties, ModuleLogger analyzerLogger)
+      throws ModuleApiAnalyzerException {
+    final long size = jar.length();
+    final long lastModified = jar.lastModified();
+    Module module = null;
+    if (moduleProperties != null) {
+      final Properties properties = new Properties();
+      try {
+        properties.load(new ByteArrayInputStream(moduleProperties));
+      } catch (IOException e) {
+        throw new ModuleApiAnalyzerException("Cannot read " + MULE_MODULE_PROPERTIES_LOCATION + " from " + jar, e);
+      }
+      module = createModule(properties, jar, analyzerLogger);
+    }
+
+    JAR_MODULES.put(jar.getPath(), new JarModule(size, lastModified, module));
+    return module;
+  }
+
+  private Module findModule(File element, ModuleLogger analyzerLogger) throws ModuleApiAnalyzerException {
+    if (element.isDirectory()) {
+      // Classes of another module of the same build, which change without notice
+      final File moduleProperties = new File(element, MULE_MODULE_PROPERTIES_LOCATION);
+      if (!moduleProperties.isFile()) {
+        return null;
+      }
+      try {
+        return createModule(loadProperties(moduleProperties.toURI().toURL()), element, analyzerLogger);
+      } catch (IOException e) {
+        throw new ModuleApiAnalyzerException("Cannot read " + MULE_MODULE_PROPERTIES_LOCATION + " from " + element, e);
+      }
+    }
+
+    if (!element.isFile()) {
+      return null;
+    }
+
+    final long size = element.length();
+    final long lastModified = element.lastModified();
+    final Module module = readJarModule(element, analyzerLogger);
+    JAR_MODULES.put(element.getPath(), new JarModule(size, lastModified, module));
+    return module;
+  }
+
+  private Module readJarModule(File jar, ModuleLogger analyzerLogger) throws ModuleApiAnalyzerException {
+    try (ZipFile zipFile = new ZipFile(jar)) {
+      final ZipEntry entry = zipFile.getEntry(MULE_MODULE_PROPERTIES_LOCATION);
+      if (entry == null) {
+        return null;
+      }
+
+      final Properties properties = new Properties();
+      try (InputStream resourceStream = zipFile.getInputStream(entry)) {
+        properties.load(resourceStream);
+      }
+      return createModule(properties, jar, analyzerLogger);
+    } catch (IOException e) {
+      throw new ModuleApiAnalyzerException("Cannot read " + MULE_MODULE_PROPERTIES_LOCATION + " from " + jar, e);
+    }
+  }
+
+  private Module createModule(Properties properties, File element, ModuleLogger analyzerLogger)
+      throws ModuleApiAnalyzerException {
+    final String moduleName = (String) properties.get(MODULE_NAME);
+    if (moduleName == null) {
+      throw new ModuleApiAnalyzerException("Cannot read " + MULE_MODULE_PROPERTIES_LOCATION + " from " + element
+          + ": missing " + MODULE_NAME);
+    }
+
+    try {
+      return moduleFactory.create(analyzerLogger, moduleName, properties);
+    } catch (IllegalStateException | IOException e) {
+      throw new ModuleApiAnalyzerException("Cannot read " + MULE_MODULE_PROPERTIES_LOCATION + " from " + element, e);
+    }
+  }
+
+  private static Module await(Future<Module> lookup) throws ModuleApiAnalyzerException {
+    try {
+      return lookup.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ModuleApiAnalyzerException("Interrupted while discovering project modules", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof ModuleApiAnalyzerException) {
+        throw (ModuleApiAnalyzerException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new ModuleApiAnalyzerException("Error getting project resources", cause);
+    }
+  }
+
   private Properties loadProperties(URL url) throws IOException {
     Properties properties = new Properties();
 
@@ -158,4 +333,16 @@ public class ModuleDiscoverer {
     return properties;
   }
 
+  private static final class JarModule {
+
+    private final long size;
+    private final long lastModified;
+    private final Module module;
+
+    private JarModule(long size, long lastModified, Module module) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.module = module;
+    }
+  }
 }
@@ -0,0 +1,375 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze;
+
+import static org.mule.tools.maven.plugin.module.common.AnalysisExecutors.newAnalysisPool;
+import static org.mule.tools.maven.plugin.module.common.AnalysisExecutors.shutdown;
+
+import org.mule.tools.maven.plugin.module.analyze.LibraryPackageIndex.LibraryPackage;
+import org.mule.tools.maven.plugin.module.analyze.asm.DependencyClassFileVisitor;
+import org.mule.tools.maven.plugin.module.analyze.cache.ArtifactAnalysisCache;
+import org.mule.tools.maven.plugin.module.analyze.cache.ArtifactFingerprint;
+import org.mule.tools.maven.plugin.module.analyze.cache.PackageDependencyCache;
+import org.mule.tools.maven.plugin.module.common.ModuleLogger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Resolves the package dependencies of the project libraries one package at a time, parsing only the classes of the requested
+ * package on the libraries that contain it according to a {@link LibraryPackageIndex}.
+ * <p>
+ * The dependencies of a package are the same ones a full scan of the libraries finds for it, as its classes are visited with
+ * the same {@link DependencyClassFileVisitor}. When a jar already has an entry on the {@link PackageDependencyCache}, the
+ * dependencies are taken from there instead. The dependencies of the packages parsed from each jar are shared through the
+ * {@link ArtifactAnalysisCache} with the other modules of the build, and added to the package entry of the jar on the
+ * {@link PackageDependencyCache} when the scanner is closed, so later builds only parse the packages no build needed before.
+ *
+ * @since 1.10
+ */
+public class OnDemandDependencyScanner implements PackageDependencyResolver, Closeable {
+
+  private final LibraryPackageIndex index;
+  private final PackageDependencyCache cache;
+  private final ArtifactAnalysisCache sessionCache;
+  private final ModuleLogger analyzerLogger;
+  private final int threads;
+  private ExecutorService executor;
+
+  private final Map<String, Optional<Set<String>>> resolvedPackages = new ConcurrentHashMap<>();
+  private final Map<File, Optional<PackageGraph>> cachedLibraries = new ConcurrentHashMap<>();
+  private final Map<File, Optional<PackageGraph>> cachedLibraryPackages = new ConcurrentHashMap<>();
+  private final Map<File, Queue<PackageGraph>> parsedLibraryPackages = new ConcurrentHashMap<>();
+  private final Map<File, ArtifactFingerprint> fingerprints = new ConcurrentHashMap<>();
+  private final Map<File, ZipFile> openJars = new ConcurrentHashMap<>();
+  private final AtomicInteger parsedClassCount = new AtomicInteger();
+
+  /**
+   * Creates a new scanner
+   *
+   * @param index          index of the packages on the project libraries.
+   * @param cache          cache of package dependencies of jar files. Null to always parse the classes.
+   * @param sessionCache   cache of package dependencies shared by the modules of the current build. Null to not share them.
+   * @param threads        maximum number of packages resolved at the same time when they are prefetched.
+   * @param analyzerLogger collects all the logging information generated during the project analysis
+   */
+  public OnDemandDependencyScanner(LibraryPackageIndex index, PackageDependencyCache cache, ArtifactAnalysisCache sessionCache,
+                                   int threads, ModuleLogger analyzerLogger) {
+    this.index = index;
+    this.cache = cache;
+    this.sessionCache = sessionCache;
+    this.threads = threads;
+    this.analyzerLogger = analyzerLogger;
+  }
+
+  @Override
+  public Set<String> resolve(String packageName) throws IOException {
+    Optional<Set<String>> dependencies = resolvedPackages.get(packageName);
+    if (dependencies == null) {
+      dependencies = scan(packageName);
+      resolvedPackages.put(packageName, dependencies);
+    }
+    return dependencies.orElse(null);
+  }
+
+  @Override
+  public void prefetch(Collection<String> packageNames) throws IOException {
+    final List<String> pendingPackages = new ArrayList<>();
+    for (String packageName : packageNames) {
+      if (!resolvedPackages.containsKey(packageName) && !index.getLibraryPackages(packageName).isEmpty()) {
+        pendingPackages.add(packageName);
+      }
+    }
+    if (threads <= 1 || pendingPackages.size() < 2) {
+      return;
+    }
+
+    if (executor == null) {
+      executor = newAnalysisPool("resolver", threads);
+    }
+
+    final List<Future<?>> scans = new ArrayList<>(pendingPackages.size());
+    for (String packageName : pendingPackages) {
+      scans.add(executor.submit(() -> {
+        try {
+          resolvedPackages.put(packageName, scan(packageName));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }));
+    }
+
+    for (Future<?> scan : scans) {
+      await(scan);
+    }
+  }
+
+  /**
+   * @return number of classes parsed so far
+   */
+  public int getParsedClassCount() {
+    return parsedClassCount.get();
+  }
+
+  private Optional<Set<String>> scan(String packageName) throws IOException {
+    final List<LibraryPackage> libraryPackages = index.getLibraryPackages(packageName);
+    if (libraryPackages.isEmpty()) {
+      return Optional.empty();
+    }
+
+    final Set<String> dependencies = new HashSet<>();
+    boolean found = false;
+    for (LibraryPackage libraryPackage : libraryPackages) {
+      found |= addDependencies(getPackageGraph(libraryPackage), packageName, dependencies);
+    }
+    return found ? Optional.of(dependencies) : Optional.empty();
+  }
+
+  private PackageGraph getPackageGraph(LibraryPackage libraryPackage) throws IOException {
+    final File library = libraryPackage.getLibrary();
+    if (!isJar(library)) {
+      return parse(libraryPackage);
+    }
+
+    final PackageGraph cachedGraph = getCachedGraph(library);
+    if (cachedGraph != null) {
+      return cachedGraph;
+    }
+
+    final PackageGraph cachedPackages = getCachedPackages(library);
+    if (cachedPackages != null && isDeclared(cachedPackages, libraryPackage.getPackageName())) {
+      return cachedPackages;
+    }
+
+    final PackageGraph packageGraph = sessionCache == null ? parse(libraryPackage)
+        : sessionCache.get(new LibraryPackageKey(getFingerprint(library), libraryPackage.getPackageName()),
+                           () -> parse(libraryPackage));
+    if (cache != null) {
+      parsedLibraryPackages.computeIfAbsent(library, file -> new ConcurrentLinkedQueue<>()).add(packageGraph);
+    }
+    return packageGraph;
+  }
+
+  private static boolean isDeclared(PackageGraph packageGraph, String packageName) {
+    final int packageId = packageGraph.getId(packageName);
+    return packageId >= 0 && packageGraph.isDeclared(packageId);
+  }
+
+  private static boolean addDependencies(PackageGraph packageGraph, String packageName, Set<String> dependencies) {
+    final int packageId = packageGraph.getId(packageName);
+    if (packageId < 0 || !packageGraph.isDeclared(packageId)) {
+      return false;
+    }
+
+    final int end = packageGraph.getDependenciesEnd(packageId);
+    for (int index = packageGraph.getDependenciesStart(packageId); index < end; index++) {
+      dependencies.add(packageGraph.getName(packageGraph.getDependency(index)));
+    }
+    return true;
+  }
+
+  private PackageGraph getCachedGraph(File library) throws IOException {
+    Optional<PackageGraph> cachedGraph = cachedLibraries.get(library);
+    if (cachedGraph == null) {
+      cachedGraph = Optional.ofNullable(loadCachedGraph(library));
+      cachedLibraries.put(library, cachedGraph);
+    }
+    return cachedGraph.orElse(null);
+  }
+
+  private PackageGraph loadCachedGraph(File library) throws IOException {
+    if (cache == null && sessionCache == null) {
+      return null;
+    }
+
+    final ArtifactFingerprint fingerprint = getFingerprint(library);
+    PackageGraph cachedGraph = sessionCache == null ? null : sessionCache.getIfPresent(fingerprint);
+    if (cachedGraph == null && cache != null) {
+      cachedGraph = cache.load(fingerprint, analyzerLogger);
+      if (cachedGraph != null && sessionCache != null) {
+        sessionCache.put(fingerprint, cachedGraph);
+      }
+    }
+    return cachedGraph;
+  }
+
+  private PackageGraph getCachedPackages(File library) throws IOException {
+    if (cache == null) {
+      return null;
+    }
+
+    Optional<PackageGraph> cachedPackages = cachedLibraryPackages.get(library);
+    if (cachedPackages == null) {
+      cachedPackages = Optional.ofNullable(cache.loadPackages(getFingerprint(library), analyzerLogger));
+      cachedLibraryPackages.put(library, cachedPackages);
+    }
+    return cachedPackages.orElse(null);
+  }
+
+  /**
+   * Adds the packages parsed from each jar to its package entry on the cache, along with the ones loaded from there.
+   */
+  private void storeParsedPackages() {
+    for (Map.Entry<File, Queue<PackageGraph>> entry : parsedLibraryPackages.entrySet()) {
+      final File library = entry.getKey();
+      final List<PackageGraph> packageGraphs = new ArrayList<>(entry.getValue());
+      // Both were taken before parsing the first package of the jar
+      cachedLibraryPackages.get(library).ifPresent(packageGraphs::add);
+
+      final PackageGraph libraryPackages = PackageGraph.merge(packageGraphs);
+      cache.storePackages(fingerprints.get(library), libraryPackages, analyzerLogger);
+      cachedLibraryPackages.put(library, Optional.of(libraryPackages));
+    }
+    parsedLibraryPackages.clear();
+  }
+
+  private ArtifactFingerprint getFingerprint(File library) throws IOException {
+    ArtifactFingerprint fingerprint = fingerprints.get(library);
+    if (fingerprint == null) {
+      fingerprint = ArtifactFingerprint.of(library);
+      fingerprints.put(library, fingerprint);
+    }
+    return fingerprint;
+  }
+
+  private static boolean isJar(File library) {
+    return library.isFile() && library.getPath().endsWith(".jar");
+  }
+
+  private PackageGraph parse(LibraryPackage libraryPackage) throws IOException {
+    final DependencyClassFileVisitor visitor = new DependencyClassFileVisitor(analyzerLogger);
+    final File library = libraryPackage.getLibrary();
+    final ZipFile jar = library.isDirectory() ? null : getJar(library);
+    for (String classPath : libraryPackage.getClassPaths()) {
+      final byte[] classBytes;
+      if (jar == null) {
+        classBytes = Files.readAllBytes(library.toPath().resolve(classPath));
+      } else {
+        final ZipEntry entry = jar.getEntry(classPath);
+        try (InputStream in = jar.getInputStream(entry)) {
+          classBytes = in.readAllBytes();
+        }
+      }
+
+      final String className = classPath.substring(0, classPath.length() - ".class".length()).replace('/', '.');
+      visitor.visitClass(className, classBytes, classBytes.length);
+      parsedClassCount.incrementAndGet();
+    }
+    return visitor.getPackageGraph();
+  }
+
+  private ZipFile getJar(File library) throws IOException {
+    try {
+      return openJars.computeIfAbsent(library, file -> {
+        try {
+          return new ZipFile(file);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static void await(Future<?> scan) throws IOException {
+    try {
+      scan.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while scanning project dependencies", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) cause).getCause();
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException("Cannot scan project dependencies", cause);
+    }
+  }
+
+  /**
+   * Stops the prefetching threads, stores the packages parsed so far on the cache and closes the jars opened so far. The
+   * scanner can still be used afterwards, keeping the packages already resolved and opening the jars again when needed.
+   */
+  @Override
+  public void close() throws IOException {
+    if (executor != null) {
+      shutdown(executor);
+      executor = null;
+    }
+    storeParsedPackages();
+
+    IOException closeException = null;
+    for (ZipFile jar : openJars.values()) {
+      try {
+        jar.close();
+      } catch (IOException e) {
+        closeException = e;
+      }
+    }
+    openJars.clear();
+    if (closeException != null) {
+      throw closeException;
+    }
+  }
+
+  /**
+   * Identifies the classes of a package on a given jar content.
+   */
+  private static final class LibraryPackageKey {
+
+    private final ArtifactFingerprint fingerprint;
+    private final String packageName;
+
+    private LibraryPackageKey(ArtifactFingerprint fingerprint, String packageName) {
+      this.fingerprint = fingerprint;
+      this.packageName = packageName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof LibraryPackageKey)) {
+        return false;
+      }
+      final LibraryPackageKey that = (LibraryPackageKey) o;
+      return fingerprint.equals(that.fingerprint) && packageName.equals(that.packageName);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(fingerprint, packageName);
+    }
+  }
+}
@@ -0,0 +1,385 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze;
+
+import static java.util.Arrays.copyOf;
+import static java.util.Arrays.copyOfRange;
+import static java.util.Arrays.fill;
+
+import static org.mule.tools.maven.plugin.module.analyze.DefaultModuleApiAnalyzer.buildRemovedJrePackageMessage;
+import static org.mule.tools.maven.plugin.module.analyze.DefaultModuleApiAnalyzer.buildRemovedProvidedPackageMessage;
+import static org.mule.tools.maven.plugin.module.analyze.DefaultModuleApiAnalyzer.buildRemovedSunPackageMessage;
+
+import org.mule.tools.maven.plugin.module.common.ModuleLogger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Calculates the closure of the packages exported by a module: the exported packages plus all the packages reachable from
+ * them through the package dependencies of the project and its external dependencies.
+ * <p>
+ * Packages exported by other modules, JRE packages and internal SUN packages are removed from the closure and their
+ * dependencies are not followed. Packages are visited once, using a worklist, and the decision to remove a package is taken
+ * once per calculation, so each removal is logged once.
+ * <p>
+ * The packages reached by a calculation are kept as nodes with their dependencies already resolved to other nodes, so later
+ * calculations on the same calculator, like the one for the privileged API, only look up the packages that were not reached
+ * before.
+ * <p>
+ * The dependencies of the external packages can either be given as a graph of all of them or resolved by a
+ * {@link PackageDependencyResolver} when the calculation reaches each package, so only the packages in the closure are ever
+ * analyzed.
+ *
+ * @since 1.10
+ */
+public class PackageClosureCalculator {
+
+  private static final int[] NOT_ANALYZED = new int[0];
+
+  private static final byte JRE_PACKAGE = 1;
+  private static final byte SUN_PACKAGE = 2;
+
+  private static final byte IN_CLOSURE = 1;
+  private static final byte CHECKED = 2;
+  private static final byte IGNORED = 4;
+
+  private final PackageGraph projectPackageDeps;
+  private final PackageGraph externalPackageDeps;
+  private final PackageDependencyResolver externalPackageResolver;
+  private final Set<String> jrePackages;
+  private final ModuleLogger analyzerLogger;
+
+  // Nodes reached so far. Dependencies are null until the node is expanded for the first time
+  private final Map<String, Integer> nodeIds = new HashMap<>();
+  private String[] names = new String[64];
+  private byte[] removalReasons = new byte[64];
+  private int[][] dependencies = new int[64][];
+  private int nodeCount;
+
+  // Node of each package of the graphs, to translate the dependencies of a graph without looking up their names
+  private final int[] projectNodes;
+  private final int[] externalNodes;
+
+  /**
+   * Creates a new calculator
+   *
+   * @param projectPackageDeps  package dependencies of the project classes.
+   * @param externalPackageDeps package dependencies of the project artifacts. Only used for packages that are not declared on
+   *                            {@code projectPackageDeps}.
+   * @param jrePackages         packages provided by the JRE.
+   * @param analyzerLogger      collects all the logging information generated during the calculation.
+   */
+  public PackageClosureCalculator(PackageGraph projectPackageDeps, PackageGraph externalPackageDeps, Set<String> jrePackages,
+                                  ModuleLogger analyzerLogger) {
+    this(projectPackageDeps, externalPackageDeps, null, jrePackages, analyzerLogger);
+  }
+
+  /**
+   * Creates a new calculator that resolves the dependencies of the external packages as they are reached
+   *
+   * @param projectPackageDeps      package dependencies of the project classes.
+   * @param externalPackageResolver resolves the package dependencies of the project artifacts. Only used for packages that are
+   *                                not declared on {@code projectPackageDeps}.
+   * @param jrePackages             packages provided by the JRE.
+   * @param analyzerLogger          collects all the logging information generated during the calculation.
+   */
+  public PackageClosureCalculator(PackageGraph projectPackageDeps, PackageDependencyResolver externalPackageResolver,
+                                  Set<String> jrePackages, ModuleLogger analyzerLogger) {
+    this(projectPackageDeps, PackageGraph.empty(), externalPackageResolver, jrePackages, analyzerLogger);
+  }
+
+  private PackageClosureCalculator(PackageGraph projectPackageDeps, PackageGraph externalPackageDeps,
+                                   PackageDependencyResolver externalPackageResolver, Set<String> jrePackages,
+                                   ModuleLogger analyzerLogger) {
+    this.projectPackageDeps = projectPackageDeps;
+    this.externalPackageDeps = externalPackageDeps;
+    this.externalPackageResolver = externalPackageResolver;
+    this.jrePackages = jrePackages;
+    this.analyzerLogger = analyzerLogger;
+    this.projectNodes = newNodeTable(projectPackageDeps);
+    this.externalNodes = newNodeTable(externalPackageDeps);
+  }
+
+  /**
+   * Calculates a package closure
+   *
+   * @param exportedPackages            packages exported by the module. All of them are part of the closure.
+   * @param optionalPackages            packages that are not required to be found on the analyzed dependencies.
+   * @param otherModuleExportedPackages packages already exported by other modules.
+   * @return the closure of the exported packages
+   * @throws IOException if the dependencies of an external package cannot be resolved
+   */
+  public PackageClosure calculate(Set<String> exportedPackages, Set<String> optionalPackages,
+                                  Set<String> otherModuleExportedPackages)
+      throws IOException {
+    final Set<String> closure = new HashSet<>(exportedPackages);
+    final Set<String> notAnalyzedPackages = new HashSet<>();
+    final CalculationState state = new CalculationState();
+
+    for (String exportedPackage : exportedPackages) {
+      state.add(getNodeId(exportedPackage));
+    }
+
+    while (state.hasPending()) {
+      if (externalPackageResolver != null && state.isLevelStart()) {
+        prefetch(state, otherModuleExportedPackages);
+      }
+
+      final int node = state.poll();
+      if (isIgnored(node, state, otherModuleExportedPackages)) {
+        continue;
+      }
+
+      final int[] nodeDependencies = getDependencies(node);
+      if (nodeDependencies == NOT_ANALYZED) {
+        final String packageName = names[node];
+        if (!otherModuleExportedPackages.contains(packageName) && !optionalPackages.contains(packageName)) {
+          notAnalyzedPackages.add(packageName);
+        }
+        continue;
+      }
+
+      for (int dependency : nodeDependencies) {
+        if (!state.isInClosure(dependency) && !isIgnored(dependency, state, otherModuleExportedPackages)) {
+          state.add(dependency);
+          closure.add(names[dependency]);
+        }
+      }
+    }
+
+    return new PackageClosure(closure, notAnalyzedPackages);
+  }
+
+  private void prefetch(CalculationState state, Set<String> otherModuleExportedPackages) throws IOException {
+    // Every pending node is going to be expanded unless it is removed, so their packages can be resolved together
+    final List<String> packageNames = new ArrayList<>();
+    for (int node : state.startLevel()) {
+      final String packageName = names[node];
+      if (dependencies[node] == null && removalReasons[node] == 0 && !otherModuleExportedPackages.contains(packageName)
+          && !projectPackageDeps.isDeclared(packageName)) {
+        packageNames.add(packageName);
+      }
+    }
+
+    if (!packageNames.isEmpty()) {
+      externalPackageResolver.prefetch(packageNames);
+    }
+  }
+
+  private boolean isIgnored(int node, CalculationState state, Set<String> otherModuleExportedPackages) {
+    if (!state.isChecked(node)) {
+      state.check(node, ignorePackage(node, otherModuleExportedPackages));
+    }
+    return state.isIgnored(node);
+  }
+
+  private boolean ignorePackage(int node, Set<String> otherModuleExportedPackages) {
+    final String packageName = names[node];
+    boolean result = false;
+
+    if (otherModuleExportedPackages.contains(packageName)) {
+      analyzerLogger.log(() -> buildRemovedProvidedPackageMessage(packageName));
+      result = true;
+    } else if (removalReasons[node] == JRE_PACKAGE) {
+      analyzerLogger.log(() -> buildRemovedJrePackageMessage(packageName));
+      result = true;
+    } else if (removalReasons[node] == SUN_PACKAGE) {
+      analyzerLogger.log(() -> buildRemovedSunPackageMessage(packageName));
+      result = true;
+    }
+
+    return result;
+  }
+
+  private int[] getDependencies(int node) throws IOException {
+    int[] nodeDependencies = dependencies[node];
+    if (nodeDependencies == null) {
+      // Resolving may add nodes and grow the node arrays, so it has to be done before the assignment
+      nodeDependencies = resolveDependencies(names[node]);
+      dependencies[node] = nodeDependencies;
+    }
+    return nodeDependencies;
+  }
+
+  private int[] resolveDependencies(String packageName) throws IOException {
+    PackageGraph packageDeps = projectPackageDeps;
+    int[] graphNodes = projectNodes;
+    int packageId = packageDeps.getId(packageName);
+    if (packageId < 0 || !packageDeps.isDeclared(packageId)) {
+      if (externalPackageResolver != null) {
+        return resolveExternalDependencies(packageName);
+      }
+      packageDeps = externalPackageDeps;
+      graphNodes = externalNodes;
+      packageId = packageDeps.getId(packageName);
+    }
+
+    if (packageId < 0 || !packageDeps.isDeclared(packageId)) {
+      return NOT_ANALYZED;
+    }
+
+    final int start = packageDeps.getDependenciesStart(packageId);
+    final int[] result = new int[packageDeps.getDependenciesEnd(packageId) - start];
+    for (int i = 0; i < result.length; i++) {
+      final int dependency = packageDeps.getDependency(start + i);
+      if (graphNodes[dependency] < 0) {
+        graphNodes[dependency] = getNodeId(packageDeps.getName(dependency));
+      }
+      result[i] = graphNodes[dependency];
+    }
+    return result;
+  }
+
+  private int[] resolveExternalDependencies(String packageName) throws IOException {
+    final Set<String> packageDependencies = externalPackageResolver.resolve(packageName);
+    if (packageDependencies == null) {
+      return NOT_ANALYZED;
+    }
+
+    final int[] result = new int[packageDependencies.size()];
+    int i = 0;
+    for (String dependency : packageDependencies) {
+      result[i++] = getNodeId(dependency);
+    }
+    return result;
+  }
+
+  private int getNodeId(String packageName) {
+    final Integer existingId = nodeIds.get(packageName);
+    if (existingId != null) {
+      return existingId;
+    }
+
+    if (nodeCount == names.length) {
+      names = copyOf(names, nodeCount * 2);
+      removalReasons = copyOf(removalReasons, nodeCount * 2);
+      dependencies = copyOf(dependencies, nodeCount * 2);
+    }
+
+    final int id = nodeCount++;
+    names[id] = packageName;
+    if (jrePackages.contains(packageName)) {
+      removalReasons[id] = JRE_PACKAGE;
+    } else if (packageName.startsWith("sun.") || packageName.startsWith("com.sun.")) {
+      removalReasons[id] = SUN_PACKAGE;
+    }
+    nodeIds.put(packageName, id);
+    return id;
+  }
+
+  private static int[] newNodeTable(PackageGraph packageGraph) {
+    final int[] nodes = new int[packageGraph.size()];
+    fill(nodes, -1);
+    return nodes;
+  }
+
+  /**
+   * Flags of the nodes reached by a single calculation and the nodes pending to expand.
+   */
+  private final class CalculationState {
+
+    private byte[] flags = new byte[nodeCount];
+    private int[] pending = new int[64];
+    private int head;
+    private int tail;
+    private int levelEnd;
+
+    private byte flags(int node) {
+      return node < flags.length ? flags[node] : 0;
+    }
+
+    private void setFlags(int node, byte value) {
+      if (node >= flags.length) {
+        flags = copyOf(flags, Math.max(names.length, node + 1));
+      }
+      flags[node] |= value;
+    }
+
+    private boolean isInClosure(int node) {
+      return (flags(node) & IN_CLOSURE) != 0;
+    }
+
+    private boolean isChecked(int node) {
+      return (flags(node) & CHECKED) != 0;
+    }
+
+    private boolean isIgnored(int node) {
+      return (flags(node) & IGNORED) != 0;
+    }
+
+    private void check(int node, boolean ignored) {
+      setFlags(node, ignored ? (byte) (CHECKED | IGNORED) : CHECKED);
+    }
+
+    private void add(int node) {
+      if (isInClosure(node)) {
+        return;
+      }
+      setFlags(node, IN_CLOSURE);
+      if (tail == pending.length) {
+        pending = copyOf(pending, tail * 2);
+      }
+      pending[tail++] = node;
+    }
+
+    private boolean hasPending() {
+      return head < tail;
+    }
+
+    private boolean isLevelStart() {
+      return head >= levelEnd;
+    }
+
+    /**
+     * Starts expanding the nodes pending so far, which are the ones reached from the previous level.
+     *
+     * @return the nodes of the new level
+     */
+    private int[] startLevel() {
+      levelEnd = tail;
+      return copyOfRange(pending, head, tail);
+    }
+
+    private int poll() {
+      return pending[head++];
+    }
+  }
+
+  /**
+   * Result of a package closure calculation.
+   */
+  public static class PackageClosure {
+
+    private final Set<String> exportedPackageClosure;
+    private final Set<String> notAnalyzedPackages;
+
+    private PackageClosure(Set<String> exportedPackageClosure, Set<String> notAnalyzedPackages) {
+      this.exportedPackageClosure = exportedPackageClosure;
+      this.notAnalyzedPackages = notAnalyzedPackages;
+    }
+
+    /**
+     * @return the exported packages plus all the packages reachable from them
+     */
+    public Set<String> getExportedPackageClosure() {
+      return exportedPackageClosure;
+    }
+
+    /**
+     * @return packages in the closure that were not found on the analyzed dependencies
+     */
+    public Set<String> getNotAnalyzedPackages() {
+      return notAnalyzedPackages;
+    }
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Finds the package dependencies of a package when they are needed, instead of analyzing all the packages in advance.
+ *
+ * @since 1.10
+ */
+public interface PackageDependencyResolver {
+
+  /**
+   * Resolves the dependencies of a package
+   *
+   * @param packageName name of the package.
+   * @return the packages referenced from the given package or null if the package was not found
+   * @throws IOException if the package dependencies cannot be read
+   */
+  Set<String> resolve(String packageName) throws IOException;
+
+  /**
+   * Announces packages that are going to be resolved next, so implementations can resolve them together. Does nothing by
+   * default.
+   *
+   * @param packageNames names of the packages.
+   * @throws IOException if the package dependencies cannot be read
+   */
+  default void prefetch(Collection<String> packageNames) throws IOException {}
+}
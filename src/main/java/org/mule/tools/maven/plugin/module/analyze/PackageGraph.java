@@ -0,0 +1,399 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze;
+
+import static java.util.Arrays.copyOf;
+import static java.util.Arrays.sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Immutable graph of dependencies between packages, stored in compressed sparse row form.
+ * <p>
+ * Each package is a node identified by its index on the sorted array of package names. The dependencies of node {@code i} are
+ * the node IDs stored in {@code targets} from {@code offsets[i]}, inclusive, to {@code offsets[i + 1]}, exclusive, sorted and
+ * without duplicates. A node is declared when its package was analyzed, even if it has no dependencies; packages that are only
+ * referenced from other packages are nodes without dependencies that are not declared.
+ *
+ * @since 1.10
+ */
+public final class PackageGraph {
+
+  private static final PackageGraph EMPTY = new PackageGraph(new String[0], new int[1], new int[0], new BitSet());
+
+  private final String[] names;
+  private final int[] offsets;
+  private final int[] targets;
+  private final BitSet declared;
+
+  private PackageGraph(String[] names, int[] offsets, int[] targets, BitSet declared) {
+    this.names = names;
+    this.offsets = offsets;
+    this.targets = targets;
+    this.declared = declared;
+  }
+
+  /**
+   * @return a graph without packages
+   */
+  public static PackageGraph empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Creates a graph from adjacency lists
+   *
+   * @param names        names of the packages, without duplicates and in any order.
+   * @param dependencies for each package, indexes on {@code names} of its dependencies, or null if the package is not declared.
+   *                     Lists may contain duplicates and are not modified.
+   * @return the new graph
+   */
+  public static PackageGraph of(String[] names, int[][] dependencies) {
+    final int size = names.length;
+    final Integer[] order = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+    }
+    sort(order, Comparator.comparing(i -> names[i]));
+
+    final String[] sortedNames = new String[size];
+    final int[] ids = new int[size];
+    for (int id = 0; id < size; id++) {
+      sortedNames[id] = names[order[id]];
+      ids[order[id]] = id;
+    }
+
+    final BitSet declared = new BitSet(size);
+    final int[] offsets = new int[size + 1];
+    int edgeCount = 0;
+    for (int[] packageDependencies : dependencies) {
+      if (packageDependencies != null) {
+        edgeCount += packageDependencies.length;
+      }
+    }
+
+    int[] targets = new int[edgeCount];
+    int next = 0;
+    for (int id = 0; id < size; id++) {
+      offsets[id] = next;
+      final int[] packageDependencies = dependencies[order[id]];
+      if (packageDependencies != null) {
+        declared.set(id);
+        final int start = next;
+        for (int dependency : packageDependencies) {
+          targets[next++] = ids[dependency];
+        }
+        next = sortUnique(targets, start, next);
+      }
+    }
+    offsets[size] = next;
+
+    return new PackageGraph(sortedNames, offsets, next == targets.length ? targets : copyOf(targets, next), declared);
+  }
+
+  /**
+   * @param packageDeps packages referenced from each analyzed package.
+   * @return a graph with the given dependencies
+   */
+  public static PackageGraph of(Map<String, Set<String>> packageDeps) {
+    final Map<String, Integer> ids = new HashMap<>();
+    final List<String> names = new ArrayList<>();
+    for (String packageName : packageDeps.keySet()) {
+      ids.put(packageName, names.size());
+      names.add(packageName);
+    }
+
+    final int[][] dependencies = new int[packageDeps.size()][];
+    for (Map.Entry<String, Set<String>> entry : packageDeps.entrySet()) {
+      final int[] packageDependencies = new int[entry.getValue().size()];
+      int i = 0;
+      for (String dependency : entry.getValue()) {
+        Integer id = ids.get(dependency);
+        if (id == null) {
+          id = names.size();
+          ids.put(dependency, id);
+          names.add(dependency);
+        }
+        packageDependencies[i++] = id;
+      }
+      dependencies[ids.get(entry.getKey())] = packageDependencies;
+    }
+
+    return of(names.toArray(new String[0]), copyOf(dependencies, names.size()));
+  }
+
+  /**
+   * Merges graphs, doing a union of the dependencies of the packages found on more than one graph.
+   *
+   * @param graphs graphs to merge.
+   * @return a graph containing all the packages and dependencies of the given graphs
+   */
+  public static PackageGraph merge(Collection<PackageGraph> graphs) {
+    final List<PackageGraph> nonEmptyGraphs = new ArrayList<>(graphs.size());
+    for (PackageGraph graph : graphs) {
+      if (graph.size() > 0) {
+        nonEmptyGraphs.add(graph);
+      }
+    }
+    if (nonEmptyGraphs.isEmpty()) {
+      return EMPTY;
+    } else if (nonEmptyGraphs.size() == 1) {
+      return nonEmptyGraphs.get(0);
+    }
+
+    // Merges the sorted names of all the graphs, keeping the merged ID of every node of each graph
+    final int graphCount = nonEmptyGraphs.size();
+    final int[][] ids = new int[graphCount][];
+    final PriorityQueue<NameCursor> cursors = new PriorityQueue<>(graphCount);
+    int maxSize = 0;
+    for (int i = 0; i < graphCount; i++) {
+      final PackageGraph graph = nonEmptyGraphs.get(i);
+      ids[i] = new int[graph.size()];
+      cursors.add(new NameCursor(graph, i));
+      maxSize += graph.size();
+    }
+
+    String[] names = new String[maxSize];
+    int size = 0;
+    while (!cursors.isEmpty()) {
+      final NameCursor cursor = cursors.poll();
+      final String name = cursor.current();
+      if (size == 0 || !names[size - 1].equals(name)) {
+        names[size++] = name;
+      }
+      ids[cursor.graphIndex][cursor.position] = size - 1;
+      if (cursor.advance()) {
+        cursors.add(cursor);
+      }
+    }
+    names = size == names.length ? names : copyOf(names, size);
+
+    // Copies the dependencies of each graph, translated to merged IDs, next to the ones of the same package on other graphs
+    final BitSet declared = new BitSet(size);
+    final int[] offsets = new int[size + 1];
+    for (int i = 0; i < graphCount; i++) {
+      final PackageGraph graph = nonEmptyGraphs.get(i);
+      for (int id = graph.declared.nextSetBit(0); id >= 0; id = graph.declared.nextSetBit(id + 1)) {
+        final int mergedId = ids[i][id];
+        declared.set(mergedId);
+        offsets[mergedId + 1] += graph.offsets[id + 1] - graph.offsets[id];
+      }
+    }
+    for (int id = 0; id < size; id++) {
+      offsets[id + 1] += offsets[id];
+    }
+
+    final int[] targets = new int[offsets[size]];
+    final int[] next = copyOf(offsets, size);
+    for (int i = 0; i < graphCount; i++) {
+      final PackageGraph graph = nonEmptyGraphs.get(i);
+      for (int id = graph.declared.nextSetBit(0); id >= 0; id = graph.declared.nextSetBit(id + 1)) {
+        final int mergedId = ids[i][id];
+        for (int index = graph.offsets[id]; index < graph.offsets[id + 1]; index++) {
+          targets[next[mergedId]++] = ids[i][graph.targets[index]];
+        }
+      }
+    }
+
+    // Removes the duplicated dependencies, compacting the targets
+    int compacted = 0;
+    for (int id = 0; id < size; id++) {
+      final int start = offsets[id];
+      final int end = offsets[id + 1];
+      offsets[id] = compacted;
+      if (end > start) {
+        System.arraycopy(targets, start, targets, compacted, end - start);
+        compacted = sortUnique(targets, compacted, compacted + end - start);
+      }
+    }
+    offsets[size] = compacted;
+
+    return new PackageGraph(names, offsets, compacted == targets.length ? targets : copyOf(targets, compacted), declared);
+  }
+
+  /**
+   * @return number of packages in the graph. IDs go from zero to this value, exclusive.
+   */
+  public int size() {
+    return names.length;
+  }
+
+  /**
+   * @return number of dependencies between packages in the graph.
+   */
+  public int getDependencyCount() {
+    return targets.length;
+  }
+
+  /**
+   * @param packageName name of the package to find.
+   * @return the ID of the package or a negative value if the package is not in the graph
+   */
+  public int getId(String packageName) {
+    final int id = Arrays.binarySearch(names, packageName);
+    return id >= 0 ? id : -1;
+  }
+
+  /**
+   * @param id a package ID.
+   * @return the name of the package
+   */
+  public String getName(int id) {
+    return names[id];
+  }
+
+  /**
+   * @param id a package ID.
+   * @return true if the package was analyzed, false if it is only referenced from other packages
+   */
+  public boolean isDeclared(int id) {
+    return declared.get(id);
+  }
+
+  /**
+   * @param packageName a package name.
+   * @return true if the package is in the graph and was analyzed
+   */
+  public boolean isDeclared(String packageName) {
+    final int id = getId(packageName);
+    return id >= 0 && declared.get(id);
+  }
+
+  /**
+   * @param id a package ID.
+   * @return index of the first dependency of the package, to be used with {@link #getDependency(int)}
+   */
+  public int getDependenciesStart(int id) {
+    return offsets[id];
+  }
+
+  /**
+   * @param id a package ID.
+   * @return index after the last dependency of the package, to be used with {@link #getDependency(int)}
+   */
+  public int getDependenciesEnd(int id) {
+    return offsets[id + 1];
+  }
+
+  /**
+   * @param index a dependency index, between {@link #getDependenciesStart(int)} and {@link #getDependenciesEnd(int)} of a
+   *              package.
+   * @return the ID of the referenced package
+   */
+  public int getDependency(int index) {
+    return targets[index];
+  }
+
+  /**
+   * Estimates the heap retained by the graph, counting package names as compact strings that are not shared with other
+   * graphs.
+   *
+   * @return the approximate size of the graph in bytes
+   */
+  public long getEstimatedSize() {
+    long size = 32 + 16L + 4L * names.length + 16L + 4L * offsets.length + 16L + 4L * targets.length + 40L
+        + declared.size() / 8;
+    for (String name : names) {
+      size += 40 + name.length();
+    }
+    return size;
+  }
+
+  /**
+   * Converts the graph back to maps. Meant for logging and compatibility, not for hot paths.
+   *
+   * @return the packages referenced from each declared package
+   */
+  public Map<String, Set<String>> toMap() {
+    final Map<String, Set<String>> result = new HashMap<>();
+    for (int id = declared.nextSetBit(0); id >= 0; id = declared.nextSetBit(id + 1)) {
+      final Set<String> dependencies = new HashSet<>();
+      for (int index = offsets[id]; index < offsets[id + 1]; index++) {
+        dependencies.add(names[targets[index]]);
+      }
+      result.put(names[id], dependencies);
+    }
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof PackageGraph)) {
+      return false;
+    }
+    PackageGraph that = (PackageGraph) o;
+    return Arrays.equals(names, that.names) && Arrays.equals(offsets, that.offsets) && Arrays.equals(targets, that.targets)
+        && declared.equals(that.declared);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(names) + Arrays.hashCode(targets);
+  }
+
+  @Override
+  public String toString() {
+    return "PackageGraph[packages=" + names.length + ", dependencies=" + targets.length + "]";
+  }
+
+  /**
+   * Sorts a region of an array removing duplicated values
+   *
+   * @return the index after the last unique value of the region
+   */
+  private static int sortUnique(int[] values, int start, int end) {
+    if (end - start < 2) {
+      return end;
+    }
+    sort(values, start, end);
+    int last = start;
+    for (int i = start + 1; i < end; i++) {
+      if (values[i] != values[last]) {
+        values[++last] = values[i];
+      }
+    }
+    return last + 1;
+  }
+
+  private static final class NameCursor implements Comparable<NameCursor> {
+
+    private final PackageGraph graph;
+    private final int graphIndex;
+    private int position;
+
+    private NameCursor(PackageGraph graph, int graphIndex) {
+      this.graph = graph;
+      this.graphIndex = graphIndex;
+    }
+
+    private String current() {
+      return graph.names[position];
+    }
+
+    private boolean advance() {
+      return ++position < graph.names.length;
+    }
+
+    @Override
+    public int compareTo(NameCursor other) {
+      return current().compareTo(other.current());
+    }
+  }
+}
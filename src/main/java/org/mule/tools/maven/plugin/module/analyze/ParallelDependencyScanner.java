@@ -0,0 +1,141 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze;
+
+import static org.mule.tools.maven.plugin.module.common.AnalysisExecutors.newAnalysisPool;
+import static org.mule.tools.maven.plugin.module.common.AnalysisExecutors.shutdown;
+
+import static java.util.Collections.synchronizedList;
+import static java.util.Comparator.comparingLong;
+
+import org.mule.tools.maven.plugin.module.common.ModuleLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Finds the package dependencies of a group of libraries, scanning them concurrently.
+ * <p>
+ * Libraries are submitted largest first, so the biggest jars do not end up being scanned alone at the end of the run. The
+ * graphs of all the libraries are merged at the end, doing a union of the dependencies per package, so the result is the same
+ * no matter the order in which the libraries are scanned. What is logged while scanning a library is buffered and logged once
+ * the library is scanned, so the logs of libraries scanned at the same time are not interleaved.
+ *
+ * @since 1.10
+ */
+public class ParallelDependencyScanner {
+
+  private final DependencyAnalyzer dependencyAnalyzer;
+  private final int threads;
+
+  /**
+   * Creates a new scanner
+   *
+   * @param dependencyAnalyzer analyzer used to find the package dependencies of each library.
+   * @param threads            maximum number of libraries scanned at the same time.
+   */
+  public ParallelDependencyScanner(DependencyAnalyzer dependencyAnalyzer, int threads) {
+    this.dependencyAnalyzer = dependencyAnalyzer;
+    this.threads = threads;
+  }
+
+  /**
+   * Scans the given libraries
+   *
+   * @param libraries      jar files or class folders to scan.
+   * @param analyzerLogger collects all the logging information generated during the project analysis
+   * @return the package dependencies found on all the libraries
+   * @throws IOException if any of the libraries cannot be read
+   */
+  public PackageGraph scan(List<File> libraries, ModuleLogger analyzerLogger) throws IOException {
+    if (libraries.isEmpty()) {
+      return PackageGraph.empty();
+    }
+
+    final List<PackageGraph> libraryGraphs = new ArrayList<>(libraries.size());
+    if (threads <= 1 || libraries.size() == 1) {
+      for (File library : libraries) {
+        libraryGraphs.add(scan(library, threads, analyzerLogger));
+      }
+      return PackageGraph.merge(libraryGraphs);
+    }
+
+    final List<File> sortedLibraries = new ArrayList<>(libraries);
+    sortedLibraries.sort(comparingLong(File::length).reversed());
+
+    final ExecutorService executor = newAnalysisPool("scanner", Math.min(threads, libraries.size()));
+    try {
+      final List<Future<PackageGraph>> scans = new ArrayList<>(sortedLibraries.size());
+      final List<BufferedLogger> libraryLoggers = new ArrayList<>(sortedLibraries.size());
+      for (File library : sortedLibraries) {
+        final BufferedLogger libraryLogger = analyzerLogger.isEnabled() ? new BufferedLogger() : null;
+        libraryLoggers.add(libraryLogger);
+        // Libraries are already scanned concurrently, so each one is scanned by a single thread
+        scans.add(executor.submit(() -> scan(library, 1, libraryLogger != null ? libraryLogger : analyzerLogger)));
+      }
+
+      for (int i = 0; i < scans.size(); i++) {
+        libraryGraphs.add(await(scans.get(i)));
+        if (libraryLoggers.get(i) != null) {
+          libraryLoggers.get(i).flush(analyzerLogger);
+        }
+      }
+    } finally {
+      shutdown(executor);
+    }
+
+    return PackageGraph.merge(libraryGraphs);
+  }
+
+  private PackageGraph scan(File library, int libraryThreads, ModuleLogger analyzerLogger) throws IOException {
+    return dependencyAnalyzer.analyze(library.toURI().toURL(), analyzerLogger, libraryThreads);
+  }
+
+  private static PackageGraph await(Future<PackageGraph> scan) throws IOException {
+    try {
+      return scan.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while scanning project dependencies", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException("Cannot scan project dependencies", cause);
+    }
+  }
+
+  /**
+   * Keeps the messages logged while scanning a library.
+   */
+  private static final class BufferedLogger implements ModuleLogger {
+
+    private final List<String> messages = synchronizedList(new ArrayList<>());
+
+    @Override
+    public void log(String message) {
+      messages.add(message);
+    }
+
+    private void flush(ModuleLogger analyzerLogger) {
+      synchronized (messages) {
+        messages.forEach(analyzerLogger::log);
+        messages.clear();
+      }
+    }
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze;
+
+import org.mule.tools.maven.plugin.module.analyze.cache.FolderListing;
+import org.mule.tools.maven.plugin.module.analyze.cache.FolderListing.ListedFile;
+import org.mule.tools.maven.plugin.module.analyze.cache.InputFingerprint;
+import org.mule.tools.maven.plugin.module.bean.Module;
+import org.mule.tools.maven.plugin.module.common.ModuleLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.maven.project.MavenProject;
+
+/**
+ * What the analysis of a project found on its classes and libraries: the external modules, the package dependencies and the
+ * JRE packages. It is published on the context of the {@link MavenProject}, so when both the {@code generate} and the
+ * {@code analyze} goals analyze the same project build, the second one does not scan the classpath again.
+ * <p>
+ * A scan is only reused while the analyzed module name, the libraries, the Java release, the scan mode and the compiled
+ * classes are the same. It is held through a soft reference, so the scans of a large reactor never exhaust the memory.
+ *
+ * @since 1.10
+ */
+final class ProjectScan {
+
+  private static final String CONTEXT_KEY = ProjectScan.class.getName();
+  private static final String CLASS_EXTENSION = ".class";
+
+  private final String moduleName;
+  private final List<File> libraries;
+  private final String release;
+  private final boolean scanOnDemand;
+  private final byte[] classesDigest;
+
+  private final List<Module> modules;
+  private final PackageGraph projectPackageDeps;
+  private final PackageGraph externalPackageDeps;
+  private final OnDemandDependencyScanner onDemandScanner;
+  private final Set<String> jrePackages;
+
+  private ProjectScan(String moduleName, List<File> libraries, String release, boolean scanOnDemand, byte[] classesDigest,
+                      List<Module> modules, PackageGraph projectPackageDeps, PackageGraph externalPackageDeps,
+                      OnDemandDependencyScanner onDemandScanner, Set<String> jrePackages) {
+    this.moduleName = moduleName;
+    this.libraries = libraries;
+    this.release = release;
+    this.scanOnDemand = scanOnDemand;
+    this.classesDigest = classesDigest;
+    this.modules = modules;
+    this.projectPackageDeps = projectPackageDeps;
+    this.externalPackageDeps = externalPackageDeps;
+    this.onDemandScanner = onDemandScanner;
+    this.jrePackages = jrePackages;
+  }
+
+  /**
+   * Creates a scan that resolved the dependencies of every library
+   */
+  static ProjectScan of(String moduleName, List<File> libraries, String release, byte[] classesDigest, List<Module> modules,
+                        PackageGraph projectPackageDeps, PackageGraph externalPackageDeps, Set<String> jrePackages) {
+    return new ProjectScan(moduleName, libraries, release, false, classesDigest, modules, projectPackageDeps,
+                           externalPackageDeps, null, jrePackages);
+  }
+
+  /**
+   * Creates a scan that resolves the dependencies of the libraries on demand
+   */
+  static ProjectScan onDemand(String moduleName, List<File> libraries, String release, byte[] classesDigest,
+                              List<Module> modules, PackageGraph projectPackageDeps, OnDemandDependencyScanner onDemandScanner,
+                              Set<String> jrePackages) {
+    return new ProjectScan(moduleName, libraries, release, true, classesDigest, modules, projectPackageDeps, null,
+                           onDemandScanner, jrePackages);
+  }
+
+  /**
+   * Finds the scan published by a previous analysis of the same project build
+   *
+   * @return the published scan, or null if there is none or it was done on different inputs
+   */
+  static ProjectScan find(MavenProject project, String moduleName, List<File> libraries, String release, boolean scanOnDemand,
+                          byte[] classesDigest) {
+    final Object published = project.getContextValue(CONTEXT_KEY);
+    final ProjectScan scan = published instanceof SoftReference ? (ProjectScan) ((SoftReference<?>) published).get() : null;
+    if (scan == null || !scan.moduleName.equals(moduleName) || !scan.libraries.equals(libraries)
+        || !Objects.equals(scan.release, release) || scan.scanOnDemand != scanOnDemand
+        || !Arrays.equals(scan.classesDigest, classesDigest)) {
+      return null;
+    }
+    return scan;
+  }
+
+  /**
+   * Publishes this scan on the context of the project, replacing any previous one
+   */
+  void publish(MavenProject project) {
+    project.setContextValue(CONTEXT_KEY, new SoftReference<>(this));
+  }
+
+  /**
+   * Digests the path, size and modification time of the compiled classes of a project. Other files on the output folder, like
+   * the generated module properties, do not affect the analysis.
+   *
+   * @param outputListing listing of the folder containing the project classes.
+   * @return the digest of the project classes
+   */
+  static byte[] digestClasses(FolderListing outputListing) {
+    final InputFingerprint fingerprint = new InputFingerprint().add(outputListing.getDirectory().getPath());
+    if (!outputListing.exists()) {
+      return fingerprint.getDigest();
+    }
+
+    final List<String> classes = new ArrayList<>();
+    for (ListedFile file : outputListing.getFiles()) {
+      if (file.getPath().endsWith(CLASS_EXTENSION)) {
+        classes.add(file.getPath() + '|' + file.getSize() + '|' + file.getLastModified());
+      }
+    }
+    return fingerprint.addAll(classes).getDigest();
+  }
+
+  List<Module> getModules() {
+    return modules;
+  }
+
+  /**
+   * @return a calculator of the package closures of the scanned project. Each call returns a new calculator, as they keep the
+   *         state of their calculations.
+   */
+  PackageClosureCalculator newClosureCalculator(ModuleLogger analyzerLogger) {
+    return onDemandScanner != null
+        ? new PackageClosureCalculator(projectPackageDeps, onDemandScanner, jrePackages, analyzerLogger)
+        : new PackageClosureCalculator(projectPackageDeps, externalPackageDeps, jrePackages, analyzerLogger);
+  }
+
+  /**
+   * Closes the files opened while resolving dependencies on demand. The scan can still be used afterwards.
+   */
+  void closeFiles() throws IOException {
+    if (onDemandScanner != null) {
+      onDemandScanner.close();
+    }
+  }
+}
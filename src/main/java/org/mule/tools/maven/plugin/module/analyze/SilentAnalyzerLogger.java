@@ -14,4 +14,9 @@ public class SilentAnalyzerLogger implements ModuleLogger {
   public void log(String message) {
     // Do nothing
   }
+
+  @Override
+  public boolean isEnabled() {
+    return false;
+  }
 }
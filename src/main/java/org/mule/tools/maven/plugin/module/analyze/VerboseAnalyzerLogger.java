@@ -22,4 +22,9 @@ public class VerboseAnalyzerLogger implements ModuleLogger {
   public void log(String message) {
     logger.info(message);
   }
+
+  @Override
+  public boolean isEnabled() {
+    return logger.isInfoEnabled();
+  }
 }
@@ -8,12 +8,11 @@ package org.mule.tools.maven.plugin.module.analyze.asm;
 
 import org.mule.tools.maven.plugin.module.analyze.ClassFileVisitorUtils;
 import org.mule.tools.maven.plugin.module.analyze.DependencyAnalyzer;
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
 import org.mule.tools.maven.plugin.module.common.ModuleLogger;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.Map;
-import java.util.Set;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -30,12 +29,22 @@ public class ASMDependencyAnalyzer
    * @see org.mule.tools.maven.plugin.module.analyze.DependencyAnalyzer#analyze(java.net.URL)
    */
   @Override
-  public Map<String, Set<String>> analyze(URL url, ModuleLogger analyzerLogger)
+  public PackageGraph analyze(URL url, ModuleLogger analyzerLogger)
       throws IOException {
     DependencyClassFileVisitor visitor = new DependencyClassFileVisitor(analyzerLogger);
 
     ClassFileVisitorUtils.accept(url, visitor, analyzerLogger);
 
-    return visitor.getPackageDeps();
+    return visitor.getPackageGraph();
+  }
+
+  @Override
+  public PackageGraph analyze(URL url, ModuleLogger analyzerLogger, int threads)
+      throws IOException {
+    DependencyClassFileVisitor visitor = new DependencyClassFileVisitor(analyzerLogger);
+
+    ClassFileVisitorUtils.accept(url, visitor, analyzerLogger, threads);
+
+    return visitor.getPackageGraph();
   }
 }
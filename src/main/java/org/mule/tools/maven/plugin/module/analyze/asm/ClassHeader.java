@@ -0,0 +1,62 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze.asm;
+
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Reads the parts of a class file needed to decide whether the class must be analyzed, without visiting it.
+ */
+final class ClassHeader {
+
+  private static final String SIGNATURE_ATTRIBUTE = "Signature";
+
+  private ClassHeader() {}
+
+  /**
+   * Finds the generic signature of a class by jumping over the fields and methods tables up to the class attributes.
+   *
+   * @param reader     reader containing the class file.
+   * @param charBuffer buffer used to decode strings, with at least {@link ClassReader#getMaxStringLength()} chars.
+   * @return the signature of the class or null if the class has no signature attribute
+   */
+  static String getSignature(ClassReader reader, char[] charBuffer) {
+
+    // Skips access flags, this class and super class
+    int offset = reader.header + 6;
+    offset += 2 + reader.readUnsignedShort(offset) * 2;
+
+    // Skips fields and methods, both use the same layout
+    for (int table = 0; table < 2; table++) {
+      int memberCount = reader.readUnsignedShort(offset);
+      offset += 2;
+      while (memberCount-- > 0) {
+        offset = skipAttributes(reader, offset + 6);
+      }
+    }
+
+    int attributeCount = reader.readUnsignedShort(offset);
+    offset += 2;
+    while (attributeCount-- > 0) {
+      if (SIGNATURE_ATTRIBUTE.equals(reader.readUTF8(offset, charBuffer))) {
+        return reader.readUTF8(offset + 6, charBuffer);
+      }
+      offset += 6 + reader.readInt(offset + 2);
+    }
+
+    return null;
+  }
+
+  private static int skipAttributes(ClassReader reader, int offset) {
+    int attributeCount = reader.readUnsignedShort(offset);
+    offset += 2;
+    while (attributeCount-- > 0) {
+      offset += 6 + reader.readInt(offset + 2);
+    }
+    return offset;
+  }
+}
@@ -18,7 +18,7 @@ import org.objectweb.asm.Type;
  */
 public class DefaultAnnotationVisitor extends AnnotationVisitor {
 
-  private final String packageName;
+  private String packageName;
   private final ResultCollector resultCollector;
   private final ModuleLogger analyzerLogger;
 
@@ -29,6 +29,10 @@ public class DefaultAnnotationVisitor extends AnnotationVisitor {
     this.analyzerLogger = analyzerLogger;
   }
 
+  void setPackageName(String packageName) {
+    this.packageName = packageName;
+  }
+
   public void visit(final String name, final Object value) {
     if (value instanceof Type) {
       resultCollector.addType(packageName, (Type) value);
@@ -20,7 +20,6 @@ import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
-import org.objectweb.asm.signature.SignatureReader;
 import org.objectweb.asm.signature.SignatureVisitor;
 
 
@@ -33,7 +32,7 @@ public class DefaultClassVisitor extends ClassVisitor {
   private final ResultCollector resultCollector;
   private final ModuleLogger analyzerLogger;
 
-  private final String packageName;
+  private String packageName;
   private final SignatureVisitor signatureVisitor;
 
   private final AnnotationVisitor annotationVisitor;
@@ -57,16 +56,24 @@ public class DefaultClassVisitor extends ClassVisitor {
     this.analyzerLogger = analyzerLogger;
   }
 
+  void setPackageName(String packageName) {
+    this.packageName = packageName;
+  }
+
   @Override
   public void visit(final int version, final int access, final String name, final String signature,
                     final String superName, final String[] interfaces) {
-    analyzerLogger.log("Analyzing class: " + name + (signature != null ? signature : ""));
+    if (analyzerLogger.isEnabled()) {
+      analyzerLogger.log("Analyzing class: " + name + (signature != null ? signature : ""));
+    }
     resultCollector.addName(packageName, name);
 
     skipClass = isPrivate(access) || isPackage(access);
     if (skipClass) {
-      String accessString = isPrivate(access) ? "private" : "package";
-      analyzerLogger.log("Skipping class: " + name + (signature != null ? signature : "") + " visibility: " + accessString);
+      if (analyzerLogger.isEnabled()) {
+        String accessString = isPrivate(access) ? "private" : "package";
+        analyzerLogger.log("Skipping class: " + name + (signature != null ? signature : "") + " visibility: " + accessString);
+      }
     } else {
       isFinalClass = isFinal(access);
 
@@ -102,8 +109,10 @@ public class DefaultClassVisitor extends ClassVisitor {
     }
 
     if (isPublic(access) || (isProtected(access) && !isFinalClass)) {
-      String accessString = isPublic(access) ? "public" : "protected";
-      analyzerLogger.log("Analyzing field: " + name + " - " + accessString);
+      if (analyzerLogger.isEnabled()) {
+        String accessString = isPublic(access) ? "public" : "protected";
+        analyzerLogger.log("Analyzing field: " + name + " - " + accessString);
+      }
       if (signature == null) {
         resultCollector.addDesc(packageName, desc);
       } else {
@@ -116,8 +125,10 @@ public class DefaultClassVisitor extends ClassVisitor {
 
       return fieldVisitor;
     } else {
-      String accessString = isPrivate(access) ? "private" : "package";
-      analyzerLogger.log("Analyzing field: " + name + " - " + accessString);
+      if (analyzerLogger.isEnabled()) {
+        String accessString = isPrivate(access) ? "private" : "package";
+        analyzerLogger.log("Analyzing field: " + name + " - " + accessString);
+      }
       return null;
     }
   }
@@ -147,13 +158,13 @@ public class DefaultClassVisitor extends ClassVisitor {
 
   private void addSignature(final String signature) {
     if (signature != null) {
-      new SignatureReader(signature).accept(signatureVisitor);
+      SignatureScanner.accept(signature, signatureVisitor);
     }
   }
 
   private void addTypeSignature(final String signature) {
     if (signature != null) {
-      new SignatureReader(signature).acceptType(signatureVisitor);
+      SignatureScanner.acceptType(signature, signatureVisitor);
     }
   }
 
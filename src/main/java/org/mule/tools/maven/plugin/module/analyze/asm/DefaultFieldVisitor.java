@@ -19,7 +19,7 @@ import org.objectweb.asm.Opcodes;
 public class DefaultFieldVisitor
     extends FieldVisitor {
 
-  private final String packageName;
+  private String packageName;
   private final AnnotationVisitor annotationVisitor;
 
   private final ResultCollector resultCollector;
@@ -34,6 +34,10 @@ public class DefaultFieldVisitor
     this.analyzerLogger = analyzerLogger;
   }
 
+  void setPackageName(String packageName) {
+    this.packageName = packageName;
+  }
+
   public AnnotationVisitor visitAnnotation(final String desc, final boolean visible) {
     if (visible) {
       resultCollector.addDesc(packageName, desc);
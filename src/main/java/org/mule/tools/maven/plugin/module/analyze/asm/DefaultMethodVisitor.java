@@ -21,7 +21,7 @@ import org.objectweb.asm.signature.SignatureVisitor;
 public class DefaultMethodVisitor
     extends MethodVisitor {
 
-  private final String packageName;
+  private String packageName;
   private final AnnotationVisitor annotationVisitor;
 
   private final SignatureVisitor signatureVisitor;
@@ -39,6 +39,10 @@ public class DefaultMethodVisitor
     this.analyzerLogger = analyzerLogger;
   }
 
+  void setPackageName(String packageName) {
+    this.packageName = packageName;
+  }
+
   public AnnotationVisitor visitAnnotation(final String desc, final boolean visible) {
     if (visible) {
       resultCollector.addDesc(packageName, desc);
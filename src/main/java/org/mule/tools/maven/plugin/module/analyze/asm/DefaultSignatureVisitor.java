@@ -18,7 +18,7 @@ import org.objectweb.asm.signature.SignatureVisitor;
 public class DefaultSignatureVisitor
     extends SignatureVisitor {
 
-  private final String packageName;
+  private String packageName;
   private final ResultCollector resultCollector;
   private final ModuleLogger analyzerLogger;
 
@@ -29,6 +29,10 @@ public class DefaultSignatureVisitor
     this.analyzerLogger = analyzerLogger;
   }
 
+  void setPackageName(String packageName) {
+    this.packageName = packageName;
+  }
+
   public void visitClassType(final String name) {
     resultCollector.addName(packageName, name);
   }
@@ -7,33 +7,49 @@
 package org.mule.tools.maven.plugin.module.analyze.asm;
 
 import static org.mule.tools.maven.plugin.module.analyze.DefaultModuleApiAnalyzer.getPackageName;
+import static org.mule.tools.maven.plugin.module.analyze.asm.AccessUtils.isPackage;
+import static org.mule.tools.maven.plugin.module.analyze.asm.AccessUtils.isPrivate;
+import static org.objectweb.asm.ClassReader.SKIP_CODE;
+import static org.objectweb.asm.ClassReader.SKIP_DEBUG;
+import static org.objectweb.asm.ClassReader.SKIP_FRAMES;
 
 import org.mule.tools.maven.plugin.module.analyze.ClassFileVisitor;
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
+import org.mule.tools.maven.plugin.module.common.AnalysisMetrics;
 import org.mule.tools.maven.plugin.module.common.ModuleLogger;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.ClassReader;
-import org.objectweb.asm.ClassVisitor;
-import org.objectweb.asm.FieldVisitor;
-import org.objectweb.asm.MethodVisitor;
-import org.objectweb.asm.signature.SignatureVisitor;
 
 /**
  * Computes the set of classes referenced by visited class files
+ * <p>
+ * Classes can be visited concurrently: each thread reuses its own visitor chain for all the classes it visits, and the results
+ * of all the chains are merged when requested.
  */
 public class DependencyClassFileVisitor implements ClassFileVisitor {
 
-  private final ResultCollector resultCollector;
+  private final Map<Thread, VisitorChain> visitorChains = new ConcurrentHashMap<>();
   private final ModuleLogger analyzerLogger;
 
   public DependencyClassFileVisitor(ModuleLogger analyzerLogger) {
     this.analyzerLogger = analyzerLogger;
-    resultCollector = new ResultCollector(analyzerLogger);
+  }
+
+  private VisitorChain getVisitorChain() {
+    // Not a ThreadLocal, as pooled threads would keep the chains of finished analyses until their entries are expunged
+    return visitorChains.computeIfAbsent(Thread.currentThread(), thread -> new VisitorChain(analyzerLogger));
+  }
+
+  @Override
+  public boolean isThreadSafe() {
+    return true;
   }
 
   /*
@@ -41,46 +57,99 @@ public class DependencyClassFileVisitor implements ClassFileVisitor {
    */
   @Override
   public void visitClass(String className, InputStream in) {
-    // TODO(pablo.kraan): MULE-14419 - ignoring classes defined inside META-INF folder and module-info until Java 9 is supported
-    if (className.startsWith("META-INF.") || className.contains(".META-INF.") || className.equals("module-info")) {
+    if (isIgnoredClass(className)) {
       return;
     }
 
+    final byte[] classBytes;
     try {
-      final String packageName = getPackageName(className);
-      ClassReader reader = new ClassReader(in);
-
-      AnnotationVisitor annotationVisitor = new DefaultAnnotationVisitor(packageName, resultCollector, analyzerLogger);
-      SignatureVisitor signatureVisitor = new DefaultSignatureVisitor(packageName, resultCollector, analyzerLogger);
-      FieldVisitor fieldVisitor = new DefaultFieldVisitor(packageName, annotationVisitor, resultCollector, analyzerLogger);
-      MethodVisitor mv =
-          new DefaultMethodVisitor(packageName, annotationVisitor, signatureVisitor, resultCollector, analyzerLogger);
-      ClassVisitor classVisitor =
-          new DefaultClassVisitor(packageName, signatureVisitor, annotationVisitor, fieldVisitor, mv, resultCollector,
-                                  analyzerLogger);
-
-      reader.accept(classVisitor, 0);
-    } catch (UnsupportedOperationException exception) {
-      throw new IllegalArgumentException("Unable to process '" + className + "': " + exception.toString(), exception);
+      classBytes = in.readAllBytes();
     } catch (IOException exception) {
       exception.printStackTrace();
-    } catch (IndexOutOfBoundsException e) {
-      // some bug inside ASM causes an IOB exception. Log it and move on?
-      // this happens when the class isn't valid.
-      analyzerLogger.log("Unable to process: " + className);
+      return;
     }
+    visitClass(className, classBytes, classBytes.length);
+  }
+
+  @Override
+  public void visitClass(String className, byte[] classBytes, int length) {
+    if (isIgnoredClass(className)) {
+      return;
+    }
+
+    AnalysisMetrics.classRead(length);
+    accept(className, new ClassReader(classBytes, 0, length));
   }
 
   /**
-   * @return the set of classes referenced by visited class files
+   * Visits a single class on the visitor chain of the calling thread, keeping its dependencies out of the
+   * {@link #getPackageGraph() result} of this visitor.
+   *
+   * @param className  name of the class.
+   * @param classBytes content of the class file.
+   * @param length     number of bytes of the class file.
+   * @return the packages referenced by the class, or null if the class is ignored or its package is not declared, as when it
+   *         cannot be parsed.
    */
-  public Set<String> getDependencies() {
-    return resultCollector.getDependencies();
+  public String[] visitSingleClass(String className, byte[] classBytes, int length) {
+    if (isIgnoredClass(className)) {
+      return null;
+    }
+
+    final String packageName = getPackageName(className);
+    final ResultCollector resultCollector = getVisitorChain().getResultCollector();
+    // Discards what a previous class of the same package left, if it failed before being removed
+    resultCollector.removePackageDependencies(packageName);
+    visitClass(className, classBytes, length);
+    return resultCollector.removePackageDependencies(packageName);
   }
 
-  public Map<String, Set<String>> getPackageDeps() {
-    return resultCollector.getPackageDeps();
+  private boolean isIgnoredClass(String className) {
+    // TODO(pablo.kraan): MULE-14419 - ignoring classes defined inside META-INF folder and module-info until Java 9 is supported
+    return className.startsWith("META-INF.") || className.contains(".META-INF.") || className.equals("module-info");
   }
 
+  private void accept(String className, ClassReader reader) {
+    try {
+      final String packageName = getPackageName(className);
+      final VisitorChain visitorChain = getVisitorChain();
+      final ResultCollector resultCollector = visitorChain.getResultCollector();
+
+      // Non public classes are not part of the API, so there is no need to visit them
+      final int access = reader.getAccess();
+      if (isPrivate(access) || isPackage(access)) {
+        final String name = reader.getClassName();
+        if (analyzerLogger.isEnabled()) {
+          final String signature = ClassHeader.getSignature(reader, visitorChain.getCharBuffer(reader.getMaxStringLength()));
+          analyzerLogger.log("Analyzing class: " + name + (signature != null ? signature : ""));
+          analyzerLogger.log("Skipping class: " + name + (signature != null ? signature : "") + " visibility: "
+              + (isPrivate(access) ? "private" : "package"));
+        }
+        resultCollector.addName(packageName, name);
+        return;
+      }
+
+      // Only declarations are analyzed, so code, debug information and frames are never needed
+      reader.accept(visitorChain.bind(packageName), SKIP_CODE | SKIP_DEBUG | SKIP_FRAMES);
+    } catch (UnsupportedOperationException exception) {
+      throw new IllegalArgumentException("Unable to process '" + className + "': " + exception.toString(), exception);
+    } catch (IndexOutOfBoundsException e) {
+      // some bug inside ASM causes an IOB exception. Log it and move on?
+      // this happens when the class isn't valid.
+      analyzerLogger.log(() -> "Unable to process: " + className);
+    }
+  }
 
+  /**
+   * Must not be invoked while classes are still being visited.
+   *
+   * @return the packages referenced from each visited package
+   */
+  public PackageGraph getPackageGraph() {
+    final List<PackageGraph> packageGraphs = new ArrayList<>(visitorChains.size());
+    for (VisitorChain visitorChain : visitorChains.values()) {
+      packageGraphs.add(visitorChain.getResultCollector().getPackageGraph());
+    }
+    return PackageGraph.merge(packageGraphs);
+  }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze.asm;
+
+import static java.util.Arrays.copyOf;
+
+/**
+ * Assigns dense int IDs to package names.
+ * <p>
+ * Names are looked up from a region of a class name in either internal ('/' separated) or binary ('.' separated) form, so
+ * a package name is only created as a string the first time it is found. Uses open addressing with linear probing.
+ */
+final class PackageSymbolTable {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private String[] names = new String[INITIAL_CAPACITY];
+  private int[] hashes = new int[INITIAL_CAPACITY];
+  // Holds ID + 1 for each used slot, so zero means empty
+  private int[] slots = new int[INITIAL_CAPACITY * 2];
+  private int size;
+
+  /**
+   * Gets the ID of a package, adding it if needed
+   *
+   * @param source string containing the package name.
+   * @param start  index of the first char of the package name.
+   * @param end    index after the last char of the package name.
+   * @return the ID of the package
+   */
+  int getId(String source, int start, int end) {
+    final int hash = hash(source, start, end);
+    final int mask = slots.length - 1;
+    int slot = hash & mask;
+    int entry;
+    while ((entry = slots[slot]) != 0) {
+      final int id = entry - 1;
+      if (hashes[id] == hash && matches(names[id], source, start, end)) {
+        return id;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    return add(source.substring(start, end).replace('/', '.'), hash, slot);
+  }
+
+  /**
+   * @param id a package ID.
+   * @return the package name, using '.' as separator
+   */
+  String getName(int id) {
+    return names[id];
+  }
+
+  /**
+   * @return number of packages in the table. IDs go from zero to this value, exclusive.
+   */
+  int size() {
+    return size;
+  }
+
+  private int add(String name, int hash, int slot) {
+    final int id = size++;
+    if (id == names.length) {
+      names = copyOf(names, id * 2);
+      hashes = copyOf(hashes, id * 2);
+    }
+    names[id] = name;
+    hashes[id] = hash;
+    slots[slot] = id + 1;
+
+    if (size * 2 > slots.length) {
+      rehash();
+    }
+    return id;
+  }
+
+  private void rehash() {
+    slots = new int[slots.length * 2];
+    final int mask = slots.length - 1;
+    for (int id = 0; id < size; id++) {
+      int slot = hashes[id] & mask;
+      while (slots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = id + 1;
+    }
+  }
+
+  private static int hash(String source, int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + normalize(source.charAt(i));
+    }
+    return hash ^ (hash >>> 16);
+  }
+
+  private static boolean matches(String name, String source, int start, int end) {
+    if (name.length() != end - start) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      if (name.charAt(i - start) != normalize(source.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static char normalize(char c) {
+    return c == '/' ? '.' : c;
+  }
+}
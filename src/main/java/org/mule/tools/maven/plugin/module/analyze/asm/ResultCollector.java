@@ -6,33 +6,74 @@
  */
 package org.mule.tools.maven.plugin.module.analyze.asm;
 
-import static org.mule.tools.maven.plugin.module.analyze.DefaultModuleApiAnalyzer.getPackageName;
+import static java.util.Arrays.copyOf;
 
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
 import org.mule.tools.maven.plugin.module.common.ModuleLogger;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.BitSet;
 
 import org.objectweb.asm.Type;
 
+/**
+ * Collects the packages referenced from each visited package.
+ * <p>
+ * Packages are identified by the ID assigned on a {@link PackageSymbolTable}, and the dependencies of each package are kept as
+ * a bit set of IDs. Package names are only created once per package, instead of once per referenced class, and the result is
+ * only converted to a {@link PackageGraph} when requested.
+ */
 public class ResultCollector {
 
-  private final Set<String> classes = new HashSet<String>();
-  private final Map<String, Set<String>> packageDeps = new HashMap<String, Set<String>>();
+  private final PackageSymbolTable packages = new PackageSymbolTable();
+  // Indexed by package ID, null for packages that have not been visited
+  private BitSet[] packageDeps = new BitSet[64];
   private final ModuleLogger analyzerLogger;
 
+  private String lastPackageName;
+  private int lastPackageId;
+
   public ResultCollector(ModuleLogger analyzerLogger) {
     this.analyzerLogger = analyzerLogger;
   }
 
-  public Set<String> getDependencies() {
-    return classes;
+  /**
+   * @return the packages referenced from each visited package. Visited packages are declared on the graph even when they have
+   *         no dependencies.
+   */
+  public PackageGraph getPackageGraph() {
+    final int size = packages.size();
+    final String[] names = new String[size];
+    final int[][] dependencies = new int[size][];
+    for (int id = 0; id < size; id++) {
+      names[id] = packages.getName(id);
+      if (id < packageDeps.length && packageDeps[id] != null) {
+        dependencies[id] = packageDeps[id].stream().toArray();
+      }
+    }
+    return PackageGraph.of(names, dependencies);
   }
 
-  public Map<String, Set<String>> getPackageDeps() {
-    return packageDeps;
+  /**
+   * Removes what was collected from a package, so the dependencies of the next class visited on it can be told apart from the
+   * ones of the classes visited before.
+   *
+   * @param packageName name of the package.
+   * @return the names of the packages referenced from the package, or null if it was not visited since last removed.
+   */
+  String[] removePackageDependencies(String packageName) {
+    final int packageId = getPackageId(packageName);
+    final BitSet deps = packageDeps[packageId];
+    if (deps == null) {
+      return null;
+    }
+    packageDeps[packageId] = null;
+
+    final String[] names = new String[deps.cardinality()];
+    int i = 0;
+    for (int depPackageId = deps.nextSetBit(0); depPackageId >= 0; depPackageId = deps.nextSetBit(depPackageId + 1)) {
+      names[i++] = packages.getName(depPackageId);
+    }
+    return names;
   }
 
   public void addName(String packageName, String name) {
@@ -42,37 +83,86 @@ public class ResultCollector {
 
     // decode arrays
     if (name.startsWith("[L") && name.endsWith(";")) {
-      name = name.substring(2, name.length() - 1);
+      addPackageDependency(packageName, name, 2, name.length() - 1);
+    } else {
+      addPackageDependency(packageName, name, 0, name.length());
     }
-
-    // decode internal representation
-    name = name.replace('/', '.');
-
-    classes.add(name);
-    addPackageDependency(packageName, name);
   }
 
-  private void addPackageDependency(String packageName, String name) {
-    if (name.startsWith("java.")) {
+  /**
+   * Adds a dependency to the class whose name, either in internal or binary form, is found on the given region of a string.
+   */
+  private void addPackageDependency(String packageName, String source, int start, int end) {
+    if (isJdkClass(source, start, end)) {
       // Ignore JDK dependencies
       return;
     }
 
-    Set<String> deps = packageDeps.get(packageName);
+    final int packageId = getPackageId(packageName);
+    BitSet deps = packageDeps[packageId];
     if (deps == null) {
-      deps = new HashSet<String>();
-      packageDeps.put(packageName, deps);
+      deps = new BitSet();
+      packageDeps[packageId] = deps;
     }
-    final String depPackageName = getPackageName(name);
+
+    final int separator = lastSeparator(source, start, end);
     // TODO(pablo.kraan): is OK just to ignore the default package?
-    if (!packageName.equals(depPackageName) && !"".equals(depPackageName) && !deps.contains(depPackageName)) {
-      analyzerLogger.log("Adding dependency from " + packageName + " to " + depPackageName);
-      deps.add(depPackageName);
+    if (separator <= start) {
+      return;
+    }
+    final int depPackageId = packages.getId(source, start, separator);
+    if (depPackageId != packageId && !deps.get(depPackageId)) {
+      if (analyzerLogger.isEnabled()) {
+        analyzerLogger.log("Adding dependency from " + packageName + " to " + packages.getName(depPackageId));
+      }
+      deps.set(depPackageId);
+    }
+  }
+
+  private int getPackageId(String packageName) {
+    // Consecutive additions usually come from the same class
+    if (packageName != lastPackageName) {
+      lastPackageId = packages.getId(packageName, 0, packageName.length());
+      lastPackageName = packageName;
+      if (lastPackageId >= packageDeps.length) {
+        packageDeps = copyOf(packageDeps, Math.max(packageDeps.length * 2, lastPackageId + 1));
+      }
     }
+    return lastPackageId;
+  }
+
+  private static boolean isJdkClass(String source, int start, int end) {
+    if (end - start < 5 || !source.startsWith("java", start)) {
+      return false;
+    }
+    final char separator = source.charAt(start + 4);
+    return separator == '.' || separator == '/';
+  }
+
+  private static int lastSeparator(String source, int start, int end) {
+    for (int i = end - 1; i >= start; i--) {
+      final char c = source.charAt(i);
+      if (c == '/' || c == '.') {
+        return i;
+      }
+    }
+    return -1;
   }
 
   void addDesc(String packageName, final String desc) {
-    addType(packageName, Type.getType(desc));
+    addFieldType(packageName, desc, 0);
+  }
+
+  /**
+   * Adds the type described at the given position of a descriptor, if it is an object or an array of objects.
+   */
+  private void addFieldType(String packageName, String desc, int start) {
+    while (desc.charAt(start) == '[') {
+      start++;
+    }
+    if (desc.charAt(start) == 'L') {
+      addPackageDependency(packageName, desc, start + 1, desc.indexOf(';', start));
+    }
   }
 
   void addType(String packageName, final Type t) {
@@ -82,18 +172,13 @@ public class ResultCollector {
         break;
 
       case Type.OBJECT:
-        addName(packageName, t.getClassName().replace('.', '/'));
+        addName(packageName, t.getInternalName());
         break;
 
       default:
     }
   }
 
-  public void add(String packageName, String name) {
-    classes.add(name);
-    addPackageDependency(packageName, name);
-  }
-
   void addNames(String packageName, final String[] names) {
     if (names == null) {
       return;
@@ -105,12 +190,24 @@ public class ResultCollector {
   }
 
   void addMethodDesc(String packageName, final String desc) {
-    addType(packageName, Type.getReturnType(desc));
-
-    Type[] types = Type.getArgumentTypes(desc);
+    final int returnType = desc.indexOf(')') + 1;
+    addFieldType(packageName, desc, returnType);
+    addObjectTypes(packageName, desc, 1, returnType - 1);
+  }
 
-    for (Type type : types) {
-      addType(packageName, type);
+  /**
+   * Adds the object types found in a region of a method descriptor containing a list of types.
+   */
+  private void addObjectTypes(String packageName, String desc, int start, int end) {
+    int pos = start;
+    while (pos < end) {
+      if (desc.charAt(pos) == 'L') {
+        final int typeEnd = desc.indexOf(';', pos);
+        addPackageDependency(packageName, desc, pos + 1, typeEnd);
+        pos = typeEnd + 1;
+      } else {
+        pos++;
+      }
     }
   }
 }
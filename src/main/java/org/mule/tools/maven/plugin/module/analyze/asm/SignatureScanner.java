@@ -0,0 +1,139 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze.asm;
+
+import org.objectweb.asm.signature.SignatureReader;
+import org.objectweb.asm.signature.SignatureVisitor;
+
+/**
+ * Replacement for {@link SignatureReader} that does not need an instance per signature.
+ * <p>
+ * Only reports the class types found on a signature, through {@link SignatureVisitor#visitClassType(String)} and
+ * {@link SignatureVisitor#visitInnerClassType(String)}, as those are the only ones needed to find the referenced classes. Type
+ * variables, type arguments and bounds are walked but not reported.
+ */
+final class SignatureScanner {
+
+  private SignatureScanner() {}
+
+  /**
+   * Scans a class or method signature, as {@link SignatureReader#accept(SignatureVisitor)} does.
+   *
+   * @param signature        signature to scan.
+   * @param signatureVisitor visitor receiving the found class types.
+   */
+  static void accept(String signature, SignatureVisitor signatureVisitor) {
+    final int length = signature.length();
+    int pos = 0;
+
+    if (signature.charAt(pos) == '<') {
+      pos = scanTypeParameters(signature, pos + 1, signatureVisitor);
+    }
+
+    if (pos < length && signature.charAt(pos) == '(') {
+      pos++;
+      while (signature.charAt(pos) != ')') {
+        pos = scanType(signature, pos, signatureVisitor);
+      }
+      pos = scanType(signature, pos + 1, signatureVisitor);
+      while (pos < length && signature.charAt(pos) == '^') {
+        pos = scanType(signature, pos + 1, signatureVisitor);
+      }
+    } else {
+      while (pos < length) {
+        pos = scanType(signature, pos, signatureVisitor);
+      }
+    }
+  }
+
+  /**
+   * Scans a field type signature, as {@link SignatureReader#acceptType(SignatureVisitor)} does.
+   *
+   * @param signature        signature to scan.
+   * @param signatureVisitor visitor receiving the found class types.
+   */
+  static void acceptType(String signature, SignatureVisitor signatureVisitor) {
+    scanType(signature, 0, signatureVisitor);
+  }
+
+  private static int scanTypeParameters(String signature, int pos, SignatureVisitor signatureVisitor) {
+    while (signature.charAt(pos) != '>') {
+      // Skips the parameter name, then scans its class bound and interface bounds
+      pos = signature.indexOf(':', pos);
+      while (signature.charAt(pos) == ':') {
+        pos++;
+        final char c = signature.charAt(pos);
+        if (c == 'L' || c == '[' || c == 'T') {
+          pos = scanType(signature, pos, signatureVisitor);
+        }
+      }
+    }
+    return pos + 1;
+  }
+
+  private static int scanType(String signature, int pos, SignatureVisitor signatureVisitor) {
+    switch (signature.charAt(pos)) {
+      case 'L':
+        return scanClassType(signature, pos + 1, signatureVisitor);
+      case '[':
+        return scanType(signature, pos + 1, signatureVisitor);
+      case 'T':
+        return signature.indexOf(';', pos) + 1;
+      default:
+        // Primitive type or void
+        return pos + 1;
+    }
+  }
+
+  private static int scanClassType(String signature, int pos, SignatureVisitor signatureVisitor) {
+    int start = pos;
+    boolean inner = false;
+    boolean visited = false;
+
+    while (true) {
+      final char c = signature.charAt(pos);
+      if (c == ';' || c == '.' || c == '<') {
+        if (!visited) {
+          final String name = signature.substring(start, pos);
+          if (inner) {
+            signatureVisitor.visitInnerClassType(name);
+          } else {
+            signatureVisitor.visitClassType(name);
+          }
+          visited = true;
+        }
+
+        if (c == ';') {
+          return pos + 1;
+        } else if (c == '.') {
+          start = pos + 1;
+          inner = true;
+          visited = false;
+          pos++;
+        } else {
+          pos = scanTypeArguments(signature, pos + 1, signatureVisitor);
+        }
+      } else {
+        pos++;
+      }
+    }
+  }
+
+  private static int scanTypeArguments(String signature, int pos, SignatureVisitor signatureVisitor) {
+    while (signature.charAt(pos) != '>') {
+      final char c = signature.charAt(pos);
+      if (c == '*') {
+        pos++;
+      } else if (c == '+' || c == '-') {
+        pos = scanType(signature, pos + 1, signatureVisitor);
+      } else {
+        pos = scanType(signature, pos, signatureVisitor);
+      }
+    }
+    return pos + 1;
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze.asm;
+
+import org.mule.tools.maven.plugin.module.common.ModuleLogger;
+
+import org.objectweb.asm.ClassVisitor;
+
+/**
+ * Visitors used to analyze classes, created once and bound to the package of each visited class. As visitors keep state while
+ * a class is visited, a chain must only be used by one thread at a time.
+ */
+final class VisitorChain {
+
+  private final ResultCollector resultCollector;
+  private final DefaultAnnotationVisitor annotationVisitor;
+  private final DefaultSignatureVisitor signatureVisitor;
+  private final DefaultFieldVisitor fieldVisitor;
+  private final DefaultMethodVisitor methodVisitor;
+  private final DefaultClassVisitor classVisitor;
+  private char[] charBuffer = new char[256];
+
+  VisitorChain(ModuleLogger analyzerLogger) {
+    resultCollector = new ResultCollector(analyzerLogger);
+    annotationVisitor = new DefaultAnnotationVisitor(null, resultCollector, analyzerLogger);
+    signatureVisitor = new DefaultSignatureVisitor(null, resultCollector, analyzerLogger);
+    fieldVisitor = new DefaultFieldVisitor(null, annotationVisitor, resultCollector, analyzerLogger);
+    methodVisitor = new DefaultMethodVisitor(null, annotationVisitor, signatureVisitor, resultCollector, analyzerLogger);
+    classVisitor = new DefaultClassVisitor(null, signatureVisitor, annotationVisitor, fieldVisitor, methodVisitor,
+                                           resultCollector, analyzerLogger);
+  }
+
+  /**
+   * Binds all the visitors to a package
+   *
+   * @param packageName name of the package containing the class about to be visited.
+   * @return the visitor for the class
+   */
+  ClassVisitor bind(String packageName) {
+    annotationVisitor.setPackageName(packageName);
+    signatureVisitor.setPackageName(packageName);
+    fieldVisitor.setPackageName(packageName);
+    methodVisitor.setPackageName(packageName);
+    classVisitor.setPackageName(packageName);
+
+    return classVisitor;
+  }
+
+  /**
+   * @param length minimum number of chars needed.
+   * @return a buffer to decode strings from the class files, reused between classes.
+   */
+  char[] getCharBuffer(int length) {
+    if (charBuffer.length < length) {
+      charBuffer = new char[Math.max(length, charBuffer.length * 2)];
+    }
+    return charBuffer;
+  }
+
+  ResultCollector getResultCollector() {
+    return resultCollector;
+  }
+}
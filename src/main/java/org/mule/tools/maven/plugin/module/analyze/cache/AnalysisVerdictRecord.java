@@ -0,0 +1,134 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze.cache;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Remembers the {@link InputFingerprint} of the inputs of the last successful analysis of a project, so the analysis can be
+ * skipped while none of them change. Only analyses without problems are recorded, so the verdict itself needs no storing.
+ * <p>
+ * The record holds the digest followed by a CRC of the content. It is written to a temporary file and atomically moved in
+ * place, and a record that cannot be read back is considered missing.
+ *
+ * @since 1.10
+ */
+public class AnalysisVerdictRecord {
+
+  /**
+   * Must change whenever the stored format or the inputs included in the fingerprint change.
+   */
+  static final int FORMAT_VERSION = 2;
+
+  private static final int MAGIC = 0x4D4D4156;
+
+  private final Path file;
+
+  /**
+   * Creates a new record
+   *
+   * @param file file containing the record. Its folder is created on demand.
+   */
+  public AnalysisVerdictRecord(File file) {
+    this.file = file.toPath();
+  }
+
+  /**
+   * Checks whether the last successful analysis had the same inputs
+   *
+   * @param inputs digest of the inputs of the current analysis.
+   * @return true if there is a valid record for the given inputs
+   */
+  public boolean isUpToDate(byte[] inputs) {
+    try {
+      final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+      final int contentLength = buffer.limit() - Long.BYTES;
+      if (contentLength < 0) {
+        return false;
+      }
+      final CRC32 crc = new CRC32();
+      crc.update(buffer.array(), 0, contentLength);
+      if (crc.getValue() != buffer.getLong(contentLength) || buffer.getInt() != MAGIC
+          || buffer.getInt() != FORMAT_VERSION) {
+        return false;
+      }
+
+      return Arrays.equals(inputs, readBytes(buffer));
+    } catch (NoSuchFileException e) {
+      return false;
+    } catch (IOException | RuntimeException e) {
+      // A damaged record only means the analysis has to run again
+      return false;
+    }
+  }
+
+  /**
+   * Records a successful analysis
+   *
+   * @param inputs digest of the analysis inputs.
+   * @throws IOException if the record cannot be written
+   */
+  public void store(byte[] inputs) throws IOException {
+    Files.createDirectories(file.getParent());
+    final Path temporaryFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+    try {
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporaryFile))) {
+        final CheckedOutputStream checkedOut = new CheckedOutputStream(out, new CRC32());
+        final DataOutputStream data = new DataOutputStream(checkedOut);
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        writeBytes(data, inputs);
+        data.flush();
+
+        new DataOutputStream(out).writeLong(checkedOut.getChecksum().getValue());
+      }
+
+      try {
+        Files.move(temporaryFile, file, ATOMIC_MOVE, REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temporaryFile, file, REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  /**
+   * Removes the record, so the next analysis runs no matter its inputs.
+   *
+   * @throws IOException if the record exists and cannot be deleted
+   */
+  public void delete() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  private static void writeBytes(DataOutputStream data, byte[] bytes) throws IOException {
+    data.writeShort(bytes.length);
+    data.write(bytes);
+  }
+
+  private static byte[] readBytes(ByteBuffer buffer) {
+    final byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+    buffer.get(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze.cache;
+
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps in memory the package dependencies found on artifacts, so the modules analyzed during the same build share them.
+ * <p>
+ * Loading is single flight: when several threads ask for a key that is not cached yet, only one of them runs the loader and
+ * the rest wait for its result. Entries are evicted in least recently used order once their estimated size exceeds the
+ * maximum size of the cache.
+ *
+ * @since 1.10
+ */
+public class ArtifactAnalysisCache {
+
+  private final long maxSize;
+
+  // Guarded by itself. Access ordered, so the eldest entry is the least recently used one
+  private final LinkedHashMap<Object, PackageGraph> entries = new LinkedHashMap<>(64, 0.75f, true);
+  private long size;
+
+  private final Map<Object, CompletableFuture<PackageGraph>> loads = new ConcurrentHashMap<>();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong sharedLoads = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * Creates a new cache
+   *
+   * @param maxSize maximum estimated size of the cached entries, in bytes.
+   */
+  public ArtifactAnalysisCache(long maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Loads the package dependencies for a key that computes them
+   *
+   * @param key    identifies the analyzed content. Must implement equals and hashCode.
+   * @param loader computes the package dependencies when they are not cached. May return null, which is not cached.
+   * @return the cached or loaded package dependencies
+   * @throws IOException if the loader fails
+   */
+  public PackageGraph get(Object key, Loader loader) throws IOException {
+    PackageGraph packageGraph = lookup(key);
+    if (packageGraph != null) {
+      hits.incrementAndGet();
+      return packageGraph;
+    }
+
+    final CompletableFuture<PackageGraph> load = new CompletableFuture<>();
+    final CompletableFuture<PackageGraph> runningLoad = loads.putIfAbsent(key, load);
+    if (runningLoad != null) {
+      sharedLoads.incrementAndGet();
+      return await(runningLoad);
+    }
+
+    try {
+      // Another thread may have finished loading the same key between the lookup and the registration of this load
+      packageGraph = lookup(key);
+      if (packageGraph == null) {
+        misses.incrementAndGet();
+        packageGraph = loader.load();
+        if (packageGraph != null) {
+          put(key, packageGraph);
+        }
+      } else {
+        hits.incrementAndGet();
+      }
+      load.complete(packageGraph);
+      return packageGraph;
+    } catch (IOException | RuntimeException | Error e) {
+      load.completeExceptionally(e);
+      throw e;
+    } finally {
+      loads.remove(key, load);
+    }
+  }
+
+  /**
+   * @param key identifies the analyzed content.
+   * @return the cached package dependencies or null if they are not cached
+   */
+  public PackageGraph getIfPresent(Object key) {
+    final PackageGraph packageGraph = lookup(key);
+    if (packageGraph != null) {
+      hits.incrementAndGet();
+    }
+    return packageGraph;
+  }
+
+  /**
+   * Adds package dependencies that were loaded without {@link #get(Object, Loader)}.
+   *
+   * @param key          identifies the analyzed content.
+   * @param packageGraph package dependencies to cache.
+   */
+  public void put(Object key, PackageGraph packageGraph) {
+    final long entrySize = packageGraph.getEstimatedSize();
+    if (entrySize > maxSize) {
+      return;
+    }
+
+    synchronized (entries) {
+      final PackageGraph previous = entries.put(key, packageGraph);
+      if (previous != null) {
+        size -= previous.getEstimatedSize();
+      }
+      size += entrySize;
+
+      final Iterator<PackageGraph> eldest = entries.values().iterator();
+      while (size > maxSize) {
+        size -= eldest.next().getEstimatedSize();
+        eldest.remove();
+        evictions.incrementAndGet();
+      }
+    }
+  }
+
+  private PackageGraph lookup(Object key) {
+    synchronized (entries) {
+      return entries.get(key);
+    }
+  }
+
+  private static PackageGraph await(CompletableFuture<PackageGraph> load) throws IOException {
+    try {
+      return load.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for an artifact analysis", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw new IOException(cause.getMessage(), cause);
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException("Cannot analyze artifact", cause);
+    }
+  }
+
+  /**
+   * @return a summary of the cache usage
+   */
+  public String getStatistics() {
+    final long cachedSize;
+    final int cachedEntries;
+    synchronized (entries) {
+      cachedSize = size;
+      cachedEntries = entries.size();
+    }
+    return String.format("%d hits, %d misses, %d shared loads, %d evictions, %d entries using %.1f MB", hits.get(),
+                         misses.get(), sharedLoads.get(), evictions.get(), cachedEntries, cachedSize / (1024.0 * 1024.0));
+  }
+
+  /**
+   * Computes the package dependencies of a cache entry.
+   */
+  @FunctionalInterface
+  public interface Loader {
+
+    /**
+     * @return the package dependencies or null if they cannot be computed
+     * @throws IOException if the analyzed content cannot be read
+     */
+    PackageGraph load() throws IOException;
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Identifies the content of an artifact file without reading all of it.
+ * <p>
+ * Besides the path, size and modification time, it includes a CRC of the zip central directory, which holds the name, size and
+ * CRC of every entry. That is enough to detect a jar rewritten in place with a preserved timestamp, while only reading the end
+ * of the file.
+ *
+ * @since 1.10
+ */
+public final class ArtifactFingerprint {
+
+  private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+  private static final int MAX_ZIP_COMMENT_SIZE = 0xFFFF;
+  private static final long ZIP64_MARKER = 0xFFFFFFFFL;
+
+  private final String path;
+  private final long size;
+  private final long lastModified;
+  private final long digest;
+
+  public ArtifactFingerprint(String path, long size, long lastModified, long digest) {
+    this.path = path;
+    this.size = size;
+    this.lastModified = lastModified;
+    this.digest = digest;
+  }
+
+  /**
+   * Computes the fingerprint of a file
+   *
+   * @param file artifact file to fingerprint. Non null.
+   * @return the fingerprint of the given file
+   * @throws IOException if the file cannot be read
+   */
+  public static ArtifactFingerprint of(File file) throws IOException {
+    final File absoluteFile = file.getAbsoluteFile();
+    return new ArtifactFingerprint(absoluteFile.getPath(), absoluteFile.length(), absoluteFile.lastModified(),
+                                   centralDirectoryDigest(absoluteFile));
+  }
+
+  private static long centralDirectoryDigest(File file) throws IOException {
+    try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+      final long length = input.length();
+      final int tailLength = (int) Math.min(length, MAX_ZIP_COMMENT_SIZE + END_OF_CENTRAL_DIRECTORY_SIZE);
+      final byte[] tail = new byte[tailLength];
+      input.seek(length - tailLength);
+      input.readFully(tail);
+
+      final CRC32 crc = new CRC32();
+      for (int i = tailLength - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--) {
+        if (tail[i] == 'P' && tail[i + 1] == 'K' && tail[i + 2] == 5 && tail[i + 3] == 6) {
+          final long directorySize = readUnsignedInt(tail, i + 12);
+          final long directoryOffset = readUnsignedInt(tail, i + 16);
+          if (directorySize != ZIP64_MARKER && directoryOffset != ZIP64_MARKER && directoryOffset + directorySize <= length) {
+            final byte[] buffer = new byte[8192];
+            input.seek(directoryOffset);
+            long remaining = directorySize;
+            while (remaining > 0) {
+              final int read = input.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+              if (read < 0) {
+                break;
+              }
+              crc.update(buffer, 0, read);
+              remaining -= read;
+            }
+            return crc.getValue();
+          }
+          break;
+        }
+      }
+
+      // Not a plain zip file, the tail still changes along with the content in any sane archive
+      crc.update(tail);
+      return crc.getValue();
+    }
+  }
+
+  private static long readUnsignedInt(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xFFL) | (bytes[offset + 1] & 0xFFL) << 8 | (bytes[offset + 2] & 0xFFL) << 16
+        | (bytes[offset + 3] & 0xFFL) << 24;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public long getLastModified() {
+    return lastModified;
+  }
+
+  public long getDigest() {
+    return digest;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ArtifactFingerprint)) {
+      return false;
+    }
+    ArtifactFingerprint that = (ArtifactFingerprint) o;
+    return size == that.size && lastModified == that.lastModified && digest == that.digest && path.equals(that.path);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(path, size, lastModified, digest);
+  }
+
+  @Override
+  public String toString() {
+    return path + "[size=" + size + ", lastModified=" + lastModified + ", digest=" + Long.toHexString(digest) + "]";
+  }
+}
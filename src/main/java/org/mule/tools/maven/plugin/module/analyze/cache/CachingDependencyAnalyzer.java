@@ -0,0 +1,103 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze.cache;
+
+import org.mule.tools.maven.plugin.module.analyze.DependencyAnalyzer;
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
+import org.mule.tools.maven.plugin.module.common.ModuleLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+
+/**
+ * Decorates a {@link DependencyAnalyzer} so the dependencies of jar files are taken from a {@link PackageDependencyCache} when
+ * the jar did not change since it was analyzed.
+ * <p>
+ * When an {@link ArtifactAnalysisCache} is given, it is checked before the {@link PackageDependencyCache}, so a jar used by
+ * several modules of the same build is analyzed or read from disk once, even when the modules are built concurrently.
+ * <p>
+ * Class folders are always delegated, as they usually belong to modules being built in the same reactor.
+ *
+ * @since 1.10
+ */
+public class CachingDependencyAnalyzer implements DependencyAnalyzer {
+
+  private final DependencyAnalyzer delegate;
+  private final PackageDependencyCache cache;
+  private final ArtifactAnalysisCache sessionCache;
+
+  public CachingDependencyAnalyzer(DependencyAnalyzer delegate, PackageDependencyCache cache) {
+    this(delegate, cache, null);
+  }
+
+  /**
+   * Creates a new analyzer
+   *
+   * @param delegate     analyzes the jars that are not cached.
+   * @param cache        cache of package dependencies kept between builds. Null to only use the session cache.
+   * @param sessionCache cache of package dependencies shared by the modules of the current build. Null to only use the cache
+   *                     kept between builds.
+   */
+  public CachingDependencyAnalyzer(DependencyAnalyzer delegate, PackageDependencyCache cache,
+                                   ArtifactAnalysisCache sessionCache) {
+    this.delegate = delegate;
+    this.cache = cache;
+    this.sessionCache = sessionCache;
+  }
+
+  @Override
+  public PackageGraph analyze(URL url, ModuleLogger analyzerLogger) throws IOException {
+    final File file = toJarFile(url);
+    if (file == null) {
+      return delegate.analyze(url, analyzerLogger);
+    }
+
+    final ArtifactFingerprint fingerprint = ArtifactFingerprint.of(file);
+    if (sessionCache != null) {
+      return sessionCache.get(fingerprint, () -> analyze(url, fingerprint, analyzerLogger));
+    }
+    return analyze(url, fingerprint, analyzerLogger);
+  }
+
+  @Override
+  public PackageGraph analyze(URL url, ModuleLogger analyzerLogger, int threads) throws IOException {
+    // Only class folders are analyzed with several threads, and those are never cached
+    return toJarFile(url) == null ? delegate.analyze(url, analyzerLogger, threads) : analyze(url, analyzerLogger);
+  }
+
+  private PackageGraph analyze(URL url, ArtifactFingerprint fingerprint, ModuleLogger analyzerLogger) throws IOException {
+    if (cache == null) {
+      return delegate.analyze(url, analyzerLogger);
+    }
+
+    PackageGraph packageDeps = cache.load(fingerprint, analyzerLogger);
+    if (packageDeps != null) {
+      analyzerLogger.log(() -> "Using cached package dependencies for: " + url);
+      return packageDeps;
+    }
+
+    packageDeps = delegate.analyze(url, analyzerLogger);
+    cache.store(fingerprint, packageDeps, analyzerLogger);
+
+    return packageDeps;
+  }
+
+  private static File toJarFile(URL url) {
+    if (!"file".equalsIgnoreCase(url.getProtocol()) || !url.getPath().endsWith(".jar")) {
+      return null;
+    }
+
+    try {
+      final File file = new File(url.toURI());
+      return file.isFile() ? file : null;
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
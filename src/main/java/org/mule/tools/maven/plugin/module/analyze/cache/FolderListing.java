@@ -0,0 +1,140 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze.cache;
+
+import static java.nio.file.FileVisitOption.FOLLOW_LINKS;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * The path, size and modification time of every file in a folder, taken in a single walk. A goal lists the project output
+ * folder once and shares the listing between the fingerprint of its inputs, the digest of the project classes and the
+ * incremental analysis of those classes.
+ *
+ * @since 1.10
+ */
+public final class FolderListing {
+
+  private final File directory;
+  private final boolean exists;
+  private final List<ListedFile> files;
+
+  private FolderListing(File directory, boolean exists, List<ListedFile> files) {
+    this.directory = directory;
+    this.exists = exists;
+    this.files = files;
+  }
+
+  /**
+   * Lists the files of a folder
+   *
+   * @param directory folder to list. May not exist.
+   * @return the listing of the folder
+   * @throws IOException if the folder cannot be walked
+   */
+  public static FolderListing of(File directory) throws IOException {
+    final File absoluteDirectory = directory.getAbsoluteFile();
+    if (!absoluteDirectory.isDirectory()) {
+      return new FolderListing(absoluteDirectory, false, emptyList());
+    }
+
+    final Path root = absoluteDirectory.toPath();
+    final List<ListedFile> files = new ArrayList<>();
+    Files.walkFileTree(root, EnumSet.of(FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+        if (attributes.isRegularFile()) {
+          files.add(new ListedFile(file, root.relativize(file).toString().replace(File.separatorChar, '/'), attributes.size(),
+                                   attributes.lastModifiedTime().toMillis()));
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    return new FolderListing(absoluteDirectory, true, unmodifiableList(files));
+  }
+
+  /**
+   * @return the absolute path of the listed folder.
+   */
+  public File getDirectory() {
+    return directory;
+  }
+
+  /**
+   * @return whether the folder existed when it was listed.
+   */
+  public boolean exists() {
+    return exists;
+  }
+
+  /**
+   * @return the regular files found on the folder and its subfolders, in the order they were walked.
+   */
+  public List<ListedFile> getFiles() {
+    return files;
+  }
+
+  /**
+   * @param directory folder to check.
+   * @return whether this is a listing of the given folder.
+   */
+  public boolean isListingOf(File directory) {
+    return this.directory.equals(directory.getAbsoluteFile());
+  }
+
+  /**
+   * A file found on a listed folder.
+   */
+  public static final class ListedFile {
+
+    private final Path file;
+    private final String path;
+    private final long size;
+    private final long lastModified;
+
+    private ListedFile(Path file, String path, long size, long lastModified) {
+      this.file = file;
+      this.path = path;
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+
+    /**
+     * @return the location of the file.
+     */
+    public Path getFile() {
+      return file;
+    }
+
+    /**
+     * @return the path of the file relative to the listed folder, using {@code /} as separator.
+     */
+    public String getPath() {
+      return path;
+    }
+
+    public long getSize() {
+      return size;
+    }
+
+    public long getLastModified() {
+      return lastModified;
+    }
+  }
+}
@@ -0,0 +1,455 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze.cache;
+
+import static java.lang.Runtime.getRuntime;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import static org.mule.tools.maven.plugin.module.analyze.DefaultModuleApiAnalyzer.getPackageName;
+import static org.mule.tools.maven.plugin.module.common.AnalysisExecutors.newAnalysisPool;
+import static org.mule.tools.maven.plugin.module.common.AnalysisExecutors.shutdown;
+
+import org.mule.tools.maven.plugin.module.analyze.DependencyAnalyzer;
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
+import org.mule.tools.maven.plugin.module.analyze.asm.DependencyClassFileVisitor;
+import org.mule.tools.maven.plugin.module.analyze.cache.FolderListing.ListedFile;
+import org.mule.tools.maven.plugin.module.common.ModuleLogger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Analyzes a class folder keeping a record of the package dependencies of each class, so later analyses of the same folder
+ * only parse the classes that were added or changed since the previous one.
+ * <p>
+ * A class is considered unchanged when its size and modification time match its record. Otherwise its size and SHA-256
+ * content digest are compared, so classes compiled again to the same bytes are not parsed either. Records of deleted classes are dropped and the
+ * package graph is rebuilt from the remaining records.
+ * <p>
+ * Changed classes are parsed on the given number of threads, each one reusing its visitor chain for all the classes it parses,
+ * so the first analysis of a folder costs about the same as a full one.
+ * <p>
+ * Records are stored in a single file, using the same layout conventions as {@link PackageDependencyCache}: a header with the
+ * analyzed folder, a table of the package names, one entry per class referencing those names, and a CRC of the whole
+ * content. A file that cannot be read back is ignored and the folder is analyzed from scratch.
+ *
+ * @since 1.10
+ */
+public class IncrementalClassFolderAnalyzer implements DependencyAnalyzer {
+
+  /**
+   * Must change whenever the stored format or the dependencies computed for a class change.
+   */
+  static final int FORMAT_VERSION = 2;
+
+  private static final int MAGIC = 0x4D4D4352;
+  private static final int HASH_LENGTH = 32;
+  private static final String CLASS_EXTENSION = ".class";
+  private static final String META_INF_FOLDER = "META-INF";
+  private static final String MODULE_INFO_CLASS = "module-info.class";
+  private static final int BATCH_SIZE = 64;
+
+  private final Path recordsFile;
+  private final FolderListing listing;
+
+  /**
+   * Creates a new analyzer
+   *
+   * @param recordsFile file where the class records are kept between analyses. Its folder is created on demand.
+   */
+  public IncrementalClassFolderAnalyzer(File recordsFile) {
+    this(recordsFile, null);
+  }
+
+  /**
+   * Creates a new analyzer that reuses a listing of the analyzed folder, instead of walking it again
+   *
+   * @param recordsFile file where the class records are kept between analyses. Its folder is created on demand.
+   * @param listing     listing of the analyzed folder. Ignored when another folder is analyzed. May be null.
+   */
+  public IncrementalClassFolderAnalyzer(File recordsFile, FolderListing listing) {
+    this.recordsFile = recordsFile.toPath();
+    this.listing = listing;
+  }
+
+  @Override
+  public PackageGraph analyze(URL url, ModuleLogger analyzerLogger) throws IOException {
+    return analyze(url, analyzerLogger, getRuntime().availableProcessors());
+  }
+
+  @Override
+  public PackageGraph analyze(URL url, ModuleLogger analyzerLogger, int threads) throws IOException {
+    final Path root = toDirectory(url);
+    if (root == null) {
+      throw new IllegalArgumentException("Cannot accept visitor on URL: " + url);
+    }
+    if (!Files.isDirectory(root)) {
+      return PackageGraph.empty();
+    }
+
+    final Map<String, ClassRecord> previousRecords = load(root, analyzerLogger);
+    final Map<String, ClassRecord> records = new ConcurrentHashMap<>();
+    final List<ChangedClass> changedClasses = new ArrayList<>();
+
+    final FolderListing folderListing = listing != null && listing.isListingOf(root.toFile()) ? listing
+        : FolderListing.of(root.toFile());
+    for (ListedFile file : folderListing.getFiles()) {
+      final String path = file.getPath();
+      if (!path.endsWith(CLASS_EXTENSION) || path.equals(MODULE_INFO_CLASS) || isInMetaInf(path)) {
+        continue;
+      }
+
+      final ClassRecord previousRecord = previousRecords.get(path);
+      if (previousRecord != null && previousRecord.size == file.getSize()
+          && previousRecord.lastModified == file.getLastModified()) {
+        records.put(path, previousRecord);
+      } else {
+        changedClasses.add(new ChangedClass(file.getFile(), path, file.getSize(), file.getLastModified(), previousRecord));
+      }
+    }
+
+    final int removedClasses = previousRecords.size() - records.size() - countPreviousRecords(changedClasses);
+    final int parsedClasses = analyzeChangedClasses(changedClasses, records, threads, analyzerLogger);
+    analyzerLogger.log(() -> "Incremental analysis of " + root + ": " + records.size() + " classes, " + changedClasses.size()
+        + " changed, " + parsedClasses + " parsed, " + removedClasses + " removed");
+
+    if (!changedClasses.isEmpty() || removedClasses > 0) {
+      store(root, records.values(), analyzerLogger);
+    }
+
+    return toPackageGraph(records.values());
+  }
+
+  private static boolean isInMetaInf(String path) {
+    return path.startsWith(META_INF_FOLDER + '/') || path.contains('/' + META_INF_FOLDER + '/');
+  }
+
+  private static int countPreviousRecords(List<ChangedClass> changedClasses) {
+    int result = 0;
+    for (ChangedClass changedClass : changedClasses) {
+      if (changedClass.previousRecord != null) {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  private static Path toDirectory(URL url) {
+    if (!"file".equalsIgnoreCase(url.getProtocol())) {
+      return null;
+    }
+
+    try {
+      return new File(url.toURI()).toPath();
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private int analyzeChangedClasses(List<ChangedClass> changedClasses, Map<String, ClassRecord> records, int threads,
+                                    ModuleLogger analyzerLogger)
+      throws IOException {
+    // A single visitor, so each thread reuses its visitor chain for all the classes it parses
+    final DependencyClassFileVisitor visitor = new DependencyClassFileVisitor(analyzerLogger);
+    if (changedClasses.size() <= BATCH_SIZE || threads <= 1) {
+      int parsedClasses = 0;
+      for (ChangedClass changedClass : changedClasses) {
+        parsedClasses += analyze(changedClass, records, visitor);
+      }
+      return parsedClasses;
+    }
+
+    final ExecutorService executor = newAnalysisPool("incremental", threads);
+    try {
+      final List<Future<Integer>> tasks = new ArrayList<>();
+      for (int start = 0; start < changedClasses.size(); start += BATCH_SIZE) {
+        final List<ChangedClass> batch = changedClasses.subList(start, Math.min(start + BATCH_SIZE, changedClasses.size()));
+        tasks.add(executor.submit(() -> {
+          int parsedClasses = 0;
+          for (ChangedClass changedClass : batch) {
+            parsedClasses += analyze(changedClass, records, visitor);
+          }
+          return parsedClasses;
+        }));
+      }
+
+      int parsedClasses = 0;
+      for (Future<Integer> task : tasks) {
+        parsedClasses += await(task);
+      }
+      return parsedClasses;
+    } finally {
+      shutdown(executor);
+    }
+  }
+
+  private static int await(Future<Integer> task) throws IOException {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while analyzing classes", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException("Cannot analyze classes", cause);
+    }
+  }
+
+  private static int analyze(ChangedClass changedClass, Map<String, ClassRecord> records, DependencyClassFileVisitor visitor)
+      throws IOException {
+    final byte[] classBytes = Files.readAllBytes(changedClass.file);
+    final byte[] hash = hash(classBytes);
+
+    final ClassRecord previousRecord = changedClass.previousRecord;
+    if (previousRecord != null && previousRecord.size == changedClass.size && Arrays.equals(previousRecord.hash, hash)) {
+      records.put(changedClass.path, new ClassRecord(changedClass.path, changedClass.size, changedClass.lastModified, hash,
+                                                     previousRecord.packageName, previousRecord.dependencies));
+      return 0;
+    }
+
+    final String className =
+        changedClass.path.substring(0, changedClass.path.length() - CLASS_EXTENSION.length()).replace('/', '.');
+    final String[] dependencies = visitor.visitSingleClass(className, classBytes, classBytes.length);
+    records.put(changedClass.path, new ClassRecord(changedClass.path, changedClass.size, changedClass.lastModified, hash,
+                                                   dependencies == null ? null : getPackageName(className),
+                                                   dependencies == null ? new String[0] : dependencies));
+    return 1;
+  }
+
+  private static byte[] hash(byte[] classBytes) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(classBytes);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static PackageGraph toPackageGraph(Collection<ClassRecord> records) {
+    final Map<String, Set<String>> packageDeps = new HashMap<>();
+    for (ClassRecord record : records) {
+      if (record.packageName != null) {
+        Collections.addAll(packageDeps.computeIfAbsent(record.packageName, name -> new HashSet<>()), record.dependencies);
+      }
+    }
+    return PackageGraph.of(packageDeps);
+  }
+
+  private Map<String, ClassRecord> load(Path root, ModuleLogger analyzerLogger) {
+    try {
+      return read(ByteBuffer.wrap(Files.readAllBytes(recordsFile)), root);
+    } catch (NoSuchFileException e) {
+      return Collections.emptyMap();
+    } catch (IOException | RuntimeException e) {
+      analyzerLogger.log(() -> "Discarding invalid class records " + recordsFile + ": " + e);
+      return Collections.emptyMap();
+    }
+  }
+
+  private void store(Path root, Collection<ClassRecord> records, ModuleLogger analyzerLogger) {
+    Path temporaryFile = null;
+    try {
+      Files.createDirectories(recordsFile.getParent());
+      temporaryFile = Files.createTempFile(recordsFile.getParent(), recordsFile.getFileName().toString(), ".tmp");
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporaryFile))) {
+        write(out, root, records);
+      }
+
+      try {
+        Files.move(temporaryFile, recordsFile, ATOMIC_MOVE, REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temporaryFile, recordsFile, REPLACE_EXISTING);
+      }
+    } catch (IOException | RuntimeException e) {
+      analyzerLogger.log(() -> "Cannot write class records " + recordsFile + ": " + e);
+    } finally {
+      if (temporaryFile != null) {
+        try {
+          Files.deleteIfExists(temporaryFile);
+        } catch (IOException e) {
+          // Nothing to do, a stale file does not break the analysis
+        }
+      }
+    }
+  }
+
+  private static void write(OutputStream out, Path root, Collection<ClassRecord> records) throws IOException {
+    final Map<String, Integer> nameIds = new HashMap<>();
+    final List<String> names = new ArrayList<>();
+    for (ClassRecord record : records) {
+      if (record.packageName != null) {
+        nameIds.computeIfAbsent(record.packageName, name -> addName(names, name));
+      }
+      for (String dependency : record.dependencies) {
+        nameIds.computeIfAbsent(dependency, name -> addName(names, name));
+      }
+    }
+
+    final CheckedOutputStream checkedOut = new CheckedOutputStream(out, new CRC32());
+    final DataOutputStream data = new DataOutputStream(checkedOut);
+    data.writeInt(MAGIC);
+    data.writeInt(FORMAT_VERSION);
+    writeString(data, root.toAbsolutePath().toString());
+
+    data.writeInt(names.size());
+    for (String name : names) {
+      writeString(data, name);
+    }
+
+    data.writeInt(records.size());
+    for (ClassRecord record : records) {
+      writeString(data, record.path);
+      data.writeLong(record.size);
+      data.writeLong(record.lastModified);
+      data.write(record.hash);
+      data.writeInt(record.packageName == null ? -1 : nameIds.get(record.packageName));
+      data.writeInt(record.dependencies.length);
+      for (String dependency : record.dependencies) {
+        data.writeInt(nameIds.get(dependency));
+      }
+    }
+    data.flush();
+
+    new DataOutputStream(out).writeLong(checkedOut.getChecksum().getValue());
+  }
+
+  private static int addName(List<String> names, String name) {
+    names.add(name);
+    return names.size() - 1;
+  }
+
+  private static Map<String, ClassRecord> read(ByteBuffer buffer, Path root) throws IOException {
+    final int contentLength = buffer.limit() - Long.BYTES;
+    if (contentLength < 0) {
+      throw new IOException("Truncated records");
+    }
+    final CRC32 crc = new CRC32();
+    crc.update(buffer.duplicate().limit(contentLength));
+    if (crc.getValue() != buffer.getLong(contentLength)) {
+      throw new IOException("Checksum mismatch");
+    }
+
+    if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+      throw new IOException("Unsupported format");
+    }
+    if (!readString(buffer).equals(root.toAbsolutePath().toString())) {
+      return Collections.emptyMap();
+    }
+
+    final String[] names = new String[buffer.getInt()];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = readString(buffer);
+    }
+
+    final int recordCount = buffer.getInt();
+    final Map<String, ClassRecord> records = new HashMap<>(recordCount * 2);
+    for (int i = 0; i < recordCount; i++) {
+      final String path = readString(buffer);
+      final long size = buffer.getLong();
+      final long lastModified = buffer.getLong();
+      final byte[] hash = new byte[HASH_LENGTH];
+      buffer.get(hash);
+      final int packageId = buffer.getInt();
+      final String[] dependencies = new String[buffer.getInt()];
+      for (int j = 0; j < dependencies.length; j++) {
+        dependencies[j] = names[buffer.getInt()];
+      }
+      records.put(path, new ClassRecord(path, size, lastModified, hash, packageId < 0 ? null : names[packageId], dependencies));
+    }
+    return records;
+  }
+
+  private static void writeString(DataOutputStream data, String value) throws IOException {
+    final byte[] bytes = value.getBytes(UTF_8);
+    data.writeShort(bytes.length);
+    data.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    final byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+    buffer.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  /**
+   * Package dependencies found on a class file.
+   */
+  private static final class ClassRecord {
+
+    private final String path;
+    private final long size;
+    private final long lastModified;
+    private final byte[] hash;
+    // Null when the class does not declare its package, as when it cannot be parsed
+    private final String packageName;
+    private final String[] dependencies;
+
+    private ClassRecord(String path, long size, long lastModified, byte[] hash, String packageName, String[] dependencies) {
+      this.path = path;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.hash = hash;
+      this.packageName = packageName;
+      this.dependencies = dependencies;
+    }
+  }
+
+  /**
+   * Class file whose size or modification time do not match its record, if any.
+   */
+  private static final class ChangedClass {
+
+    private final Path file;
+    private final String path;
+    private final long size;
+    private final long lastModified;
+    private final ClassRecord previousRecord;
+
+    private ChangedClass(Path file, String path, long size, long lastModified, ClassRecord previousRecord) {
+      this.file = file;
+      this.path = path;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.previousRecord = previousRecord;
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import org.mule.tools.maven.plugin.module.analyze.cache.FolderListing.ListedFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Accumulates a SHA-256 digest of the inputs of an analysis, so a later build can tell whether any of them changed.
+ * <p>
+ * Files are identified by their path, size and modification time, while jar files use their {@link ArtifactFingerprint}.
+ * Every value is length prefixed, so adding different sequences of values never produces the same digest.
+ *
+ * @since 1.10
+ */
+public final class InputFingerprint {
+
+  private static final String MISSING = "<missing>";
+
+  private final MessageDigest digest;
+
+  public InputFingerprint() {
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /**
+   * @param value value to include. Null values are included as a distinct marker.
+   * @return this fingerprint
+   */
+  public InputFingerprint add(String value) {
+    final byte[] bytes = (value == null ? MISSING : value).getBytes(UTF_8);
+    digest.update(toBytes(bytes.length));
+    digest.update(bytes);
+    return this;
+  }
+
+  /**
+   * @param values values to include, in any order.
+   * @return this fingerprint
+   */
+  public InputFingerprint addAll(Collection<String> values) {
+    final List<String> sortedValues = new ArrayList<>(values);
+    Collections.sort(sortedValues);
+    add(String.valueOf(sortedValues.size()));
+    for (String value : sortedValues) {
+      add(value);
+    }
+    return this;
+  }
+
+  /**
+   * Includes the whole content of a file, intended for small descriptors.
+   *
+   * @param file file to include. May not exist.
+   * @return this fingerprint
+   * @throws IOException if the file exists but cannot be read
+   */
+  public InputFingerprint addContent(File file) throws IOException {
+    add(file.getAbsolutePath());
+    if (!file.isFile()) {
+      return add(MISSING);
+    }
+
+    final byte[] content = Files.readAllBytes(file.toPath());
+    digest.update(toBytes(content.length));
+    digest.update(content);
+    return this;
+  }
+
+  /**
+   * Includes the path, size and modification time of every file in a folder.
+   *
+   * @param directory folder to include. May not exist.
+   * @return this fingerprint
+   * @throws IOException if the folder cannot be walked
+   */
+  public InputFingerprint addTree(File directory) throws IOException {
+    return addListing(FolderListing.of(directory));
+  }
+
+  /**
+   * Includes the path, size and modification time of every file of a folder listed beforehand.
+   *
+   * @param listing listing of the folder to include.
+   * @return this fingerprint
+   */
+  public InputFingerprint addListing(FolderListing listing) {
+    add(listing.getDirectory().getPath());
+    if (!listing.exists()) {
+      return add(MISSING);
+    }
+
+    final List<String> files = new ArrayList<>(listing.getFiles().size());
+    for (ListedFile file : listing.getFiles()) {
+      files.add(file.getPath() + '|' + file.getSize() + '|' + file.getLastModified());
+    }
+    return addAll(files);
+  }
+
+  /**
+   * Includes an artifact file, which can be a jar or a folder of classes when it comes from the same build.
+   *
+   * @param artifact artifact to include. May be null or not exist.
+   * @return this fingerprint
+   * @throws IOException if the artifact cannot be read
+   */
+  public InputFingerprint addArtifact(File artifact) throws IOException {
+    if (artifact == null) {
+      return add(MISSING);
+    }
+    if (artifact.isDirectory()) {
+      return addTree(artifact);
+    }
+    if (!artifact.isFile()) {
+      return add(artifact.getAbsolutePath()).add(MISSING);
+    }
+
+    final ArtifactFingerprint fingerprint = ArtifactFingerprint.of(artifact);
+    return add(fingerprint.getPath()).add(String.valueOf(fingerprint.getSize()))
+        .add(String.valueOf(fingerprint.getLastModified())).add(String.valueOf(fingerprint.getDigest()));
+  }
+
+  /**
+   * @return the digest of all the included inputs. The fingerprint cannot be used after calling this method.
+   */
+  public byte[] getDigest() {
+    return digest.digest();
+  }
+
+  private static byte[] toBytes(int value) {
+    return new byte[] {(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
+import org.mule.tools.maven.plugin.module.common.ModuleLogger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Stores the package dependencies found on an artifact in a folder, so they do not need to be computed again while the
+ * artifact does not change.
+ * <p>
+ * Each artifact is stored in its own file using a compact binary format: a header with the artifact fingerprint, the sorted
+ * package names of the {@link PackageGraph} and the dependencies of each declared package as indexes on those names, followed
+ * by a CRC of the whole content.
+ * Entries are written to a temporary file and atomically moved in place, so concurrent builds never see a partially written
+ * entry. Entries that cannot be read back, or whose fingerprint does not match, are ignored and overwritten.
+ * <p>
+ * Analyses that scan the artifacts on demand only parse some of their packages, so they keep those packages on a separate
+ * {@link #loadPackages(ArtifactFingerprint, ModuleLogger) package entry} that grows on every build. Package entries use the same
+ * format, but are never taken as the dependencies of the whole artifact.
+ *
+ * @since 1.10
+ */
+public class PackageDependencyCache {
+
+  /**
+   * Must change whenever the stored format or the dependencies computed for an artifact change.
+   */
+  static final int FORMAT_VERSION = 2;
+
+  private static final int MAGIC = 0x4D4D5044;
+  private static final String ENTRY_EXTENSION = ".pkgdeps";
+  private static final String PACKAGES_ENTRY_EXTENSION = ".pkgpart";
+
+  private final Path directory;
+
+  /**
+   * Creates a new cache
+   *
+   * @param directory folder containing the cached entries. Created on demand.
+   */
+  public PackageDependencyCache(File directory) {
+    this.directory = directory.toPath();
+  }
+
+  /**
+   * Loads the package dependencies of an artifact
+   *
+   * @param fingerprint    identifies the artifact content.
+   * @param analyzerLogger collects all the logging information generated during the project analysis
+   * @return the cached package dependencies or null if there is no valid entry for the given fingerprint
+   */
+  public PackageGraph load(ArtifactFingerprint fingerprint, ModuleLogger analyzerLogger) {
+    return load(getEntry(fingerprint, ENTRY_EXTENSION), fingerprint, analyzerLogger);
+  }
+
+  /**
+   * Loads the dependencies of the packages of an artifact that were analyzed on demand
+   *
+   * @param fingerprint    identifies the artifact content.
+   * @param analyzerLogger collects all the logging information generated during the project analysis
+   * @return the cached package dependencies, declaring only the packages analyzed so far, or null if there is no valid entry for
+   *         the given fingerprint
+   */
+  public PackageGraph loadPackages(ArtifactFingerprint fingerprint, ModuleLogger analyzerLogger) {
+    return load(getEntry(fingerprint, PACKAGES_ENTRY_EXTENSION), fingerprint, analyzerLogger);
+  }
+
+  private PackageGraph load(Path entry, ArtifactFingerprint fingerprint, ModuleLogger analyzerLogger) {
+    try {
+      // Entries are small and read once, so mapping them would only pin the file until the buffer is collected
+      return read(ByteBuffer.wrap(Files.readAllBytes(entry)), fingerprint);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException | RuntimeException e) {
+      analyzerLogger.log(() -> "Discarding invalid cache entry " + entry + ": " + e);
+      deleteQuietly(entry);
+      return null;
+    }
+  }
+
+  /**
+   * Stores the package dependencies of an artifact. Failures are logged and ignored, as the cache is only an optimization.
+   *
+   * @param fingerprint    identifies the artifact content.
+   * @param packageGraph   package dependencies found on the artifact.
+   * @param analyzerLogger collects all the logging information generated during the project analysis
+   */
+  public void store(ArtifactFingerprint fingerprint, PackageGraph packageGraph, ModuleLogger analyzerLogger) {
+    store(getEntry(fingerprint, ENTRY_EXTENSION), fingerprint, packageGraph, analyzerLogger);
+  }
+
+  /**
+   * Stores the dependencies of the packages of an artifact that were analyzed on demand, replacing the ones stored before.
+   * Failures are logged and ignored, as the cache is only an optimization.
+   *
+   * @param fingerprint    identifies the artifact content.
+   * @param packageGraph   dependencies of the analyzed packages, including the ones loaded from a previous entry.
+   * @param analyzerLogger collects all the logging information generated during the project analysis
+   */
+  public void storePackages(ArtifactFingerprint fingerprint, PackageGraph packageGraph, ModuleLogger analyzerLogger) {
+    store(getEntry(fingerprint, PACKAGES_ENTRY_EXTENSION), fingerprint, packageGraph, analyzerLogger);
+  }
+
+  private void store(Path entry, ArtifactFingerprint fingerprint, PackageGraph packageGraph, ModuleLogger analyzerLogger) {
+    Path temporaryEntry = null;
+    try {
+      Files.createDirectories(directory);
+      temporaryEntry = Files.createTempFile(directory, entry.getFileName().toString(), ".tmp");
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporaryEntry))) {
+        write(out, fingerprint, packageGraph);
+      }
+
+      try {
+        Files.move(temporaryEntry, entry, ATOMIC_MOVE, REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temporaryEntry, entry, REPLACE_EXISTING);
+      }
+    } catch (IOException | RuntimeException e) {
+      analyzerLogger.log(() -> "Cannot write cache entry " + entry + ": " + e);
+    } finally {
+      if (temporaryEntry != null) {
+        deleteQuietly(temporaryEntry);
+      }
+    }
+  }
+
+  private Path getEntry(ArtifactFingerprint fingerprint, String extension) {
+    final String path = fingerprint.getPath();
+    final String fileName = path.substring(path.lastIndexOf(File.separatorChar) + 1);
+    return directory.resolve(fileName + "-" + Integer.toHexString(path.hashCode()) + extension);
+  }
+
+  private static void write(OutputStream out, ArtifactFingerprint fingerprint, PackageGraph packageGraph)
+      throws IOException {
+    final CheckedOutputStream checkedOut = new CheckedOutputStream(out, new CRC32());
+    final DataOutputStream data = new DataOutputStream(checkedOut);
+    data.writeInt(MAGIC);
+    data.writeInt(FORMAT_VERSION);
+    writeString(data, fingerprint.getPath());
+    data.writeLong(fingerprint.getSize());
+    data.writeLong(fingerprint.getLastModified());
+    data.writeLong(fingerprint.getDigest());
+
+    final int size = packageGraph.size();
+    data.writeInt(size);
+    int declaredCount = 0;
+    for (int id = 0; id < size; id++) {
+      writeString(data, packageGraph.getName(id));
+      if (packageGraph.isDeclared(id)) {
+        declaredCount++;
+      }
+    }
+
+    data.writeInt(declaredCount);
+    for (int id = 0; id < size; id++) {
+      if (packageGraph.isDeclared(id)) {
+        final int start = packageGraph.getDependenciesStart(id);
+        final int end = packageGraph.getDependenciesEnd(id);
+        data.writeInt(id);
+        data.writeInt(end - start);
+        for (int index = start; index < end; index++) {
+          data.writeInt(packageGraph.getDependency(index));
+        }
+      }
+    }
+    data.flush();
+
+    new DataOutputStream(out).writeLong(checkedOut.getChecksum().getValue());
+  }
+
+  private static PackageGraph read(ByteBuffer buffer, ArtifactFingerprint fingerprint) throws IOException {
+    final int contentLength = buffer.limit() - Long.BYTES;
+    if (contentLength < 0) {
+      throw new IOException("Truncated entry");
+    }
+    final CRC32 crc = new CRC32();
+    crc.update(buffer.duplicate().limit(contentLength));
+    if (crc.getValue() != buffer.getLong(contentLength)) {
+      throw new IOException("Checksum mismatch");
+    }
+
+    if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+      throw new IOException("Unsupported format");
+    }
+    final ArtifactFingerprint storedFingerprint =
+        new ArtifactFingerprint(readString(buffer), buffer.getLong(), buffer.getLong(), buffer.getLong());
+    if (!fingerprint.equals(storedFingerprint)) {
+      return null;
+    }
+
+    final String[] names = new String[buffer.getInt()];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = readString(buffer);
+    }
+
+    final int[][] dependencies = new int[names.length][];
+    final int declaredCount = buffer.getInt();
+    for (int i = 0; i < declaredCount; i++) {
+      final int id = buffer.getInt();
+      final int[] packageDependencies = new int[buffer.getInt()];
+      dependencies[id] = packageDependencies;
+      for (int j = 0; j < packageDependencies.length; j++) {
+        packageDependencies[j] = buffer.getInt();
+      }
+    }
+
+    return PackageGraph.of(names, dependencies);
+  }
+
+  private static void writeString(DataOutputStream data, String value) throws IOException {
+    final byte[] bytes = value.getBytes(UTF_8);
+    data.writeShort(bytes.length);
+    data.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    final byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+    buffer.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  private static void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      // Nothing to do, a stale file does not break the cache
+    }
+  }
+}
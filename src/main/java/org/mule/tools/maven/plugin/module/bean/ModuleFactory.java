@@ -105,17 +105,23 @@ public class ModuleFactory {
 
     final String rawValues = (String) properties.get(key);
     if (rawValues != null) {
-      StringBuilder builder = new StringBuilder("Found module: " + properties.get("module.name") + " with property=" + key + ":");
+      StringBuilder builder = analyzerLogger.isEnabled()
+          ? new StringBuilder("Found module: " + properties.get("module.name") + " with property=" + key + ":")
+          : null;
       for (String value : rawValues.split(",")) {
         if (value != null) {
           value = value.trim();
           if (value != null && !"".equals(value)) {
             values.add(value);
-            builder.append("\n").append(value);
+            if (builder != null) {
+              builder.append("\n").append(value);
+            }
           }
         }
       }
-      analyzerLogger.log(builder.toString());
+      if (builder != null) {
+        analyzerLogger.log(builder.toString());
+      }
     }
     return values;
   }
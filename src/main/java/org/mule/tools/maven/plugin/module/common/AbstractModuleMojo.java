@@ -6,22 +6,194 @@
  */
 package org.mule.tools.maven.plugin.module.common;
 
+import static org.mule.tools.maven.plugin.module.common.SessionCacheReporter.SESSION_CACHE_USAGE;
+
+import org.mule.tools.maven.plugin.module.analyze.AnalyzerConfiguration;
 import org.mule.tools.maven.plugin.module.analyze.ModuleApiAnalyzer;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
 import javax.inject.Inject;
 
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 
 public abstract class AbstractModuleMojo extends org.apache.maven.plugin.AbstractMojo {
 
+  private static final String METRICS_REPORT_DIRECTORY = "mule-module-maven-plugin/";
+
   /**
    * The Maven project to analyze.
    */
   @Parameter(defaultValue = "${project}", readonly = true, required = true)
   protected MavenProject project;
 
+  @Parameter(defaultValue = "${session}", readonly = true, required = true)
+  protected MavenSession session;
+
+  @Parameter(defaultValue = "${plugin}", readonly = true, required = true)
+  protected PluginDescriptor plugin;
+
+  /**
+   * Number of threads used to scan the project dependencies. When not greater than zero, uses as many threads as available
+   * processors.
+   */
+  @Parameter(property = "muleModule.analysis.threads", defaultValue = "0")
+  protected int analysisThreads;
+
+  /**
+   * Folder where the package dependencies found on each dependency jar are cached between builds.
+   */
+  @Parameter(property = "muleModule.analysis.cacheDirectory",
+      defaultValue = "${settings.localRepository}/.cache/mule-module-maven-plugin")
+  protected File analysisCacheDirectory;
+
+  /**
+   * Reuses the package dependencies cached on {@link #analysisCacheDirectory} instead of analyzing again the dependency jars
+   * that did not change. Analyses that {@link #scanOnDemand scan on demand} cache the packages they analyze, so each build only
+   * analyzes the packages of a jar that no previous build needed. Verbose analyses always analyze every class.
+   */
+  @Parameter(property = "muleModule.analysis.useCache", defaultValue = "true")
+  protected boolean useAnalysisCache;
+
+  /**
+   * Keeps a record of the package dependencies of each project class in the build folder, so only the classes added or changed
+   * since the previous build are analyzed again. Verbose analyses always analyze every class.
+   */
+  @Parameter(property = "muleModule.analysis.incremental", defaultValue = "true")
+  protected boolean incrementalAnalysis;
+
+  /**
+   * Maximum size, in megabytes, of the package dependencies kept in memory to share them among the modules analyzed in the
+   * same build. Zero disables sharing them. Its usage is logged when the build ends if the plugin is declared with
+   * {@code <extensions>true</extensions>}, otherwise once the execution on the last project of the build finishes.
+   */
+  @Parameter(property = "muleModule.analysis.sessionCacheSize", defaultValue = "256")
+  protected int analysisSessionCacheSize;
+
+  /**
+   * Java release the project is compiled for. Selects the packages that are provided by the JRE and removed from the exported
+   * package closure: the list bundled with the plugin up to Java 8, the API of the release for later ones. When not set, uses
+   * {@link #target}.
+   */
+  @Parameter(property = "maven.compiler.release")
+  protected String release;
+
+  /**
+   * Java version the project classes are generated for, used as the release when {@link #release} is not set. When neither is
+   * set, or their value does not start with a release number, uses the release of the JVM running the build, so projects that
+   * rely on the compiler defaults no longer see the Java 8 packages removed since then, such as {@code javax.xml.bind}, as
+   * provided by the JRE.
+   */
+  @Parameter(property = "maven.compiler.target")
+  protected String target;
+
+  /**
+   * Analyzes only the packages of the dependency jars that are reachable from the exported packages, finding them through an
+   * index of the jar entries, instead of analyzing every class of every dependency. Verbose analyses always analyze every
+   * class.
+   */
+  @Parameter(property = "muleModule.analysis.scanOnDemand", defaultValue = "true")
+  protected boolean scanOnDemand;
+
+  /**
+   * Adds the classes read and the memory allocated by each phase of the execution to the summary of their wall times that is
+   * always logged, and writes all of them as a JSON report to the build folder. Classes read and memory allocated are measured
+   * for the whole JVM, so they are only accurate on builds that do not run several executions at the same time.
+   */
+  @Parameter(property = "muleModule.analysis.metrics", defaultValue = "false")
+  protected boolean analysisMetrics;
+
   @Inject
   protected ModuleApiAnalyzer analyzer;
 
+  /**
+   * Phases of the current execution.
+   */
+  protected final AnalysisMetrics metrics = new AnalysisMetrics();
+
+  /**
+   * @return the configuration to use when analyzing the project API.
+   */
+  protected AnalyzerConfiguration getAnalyzerConfiguration() {
+    final AnalyzerConfiguration configuration = new AnalyzerConfiguration();
+    configuration.setThreads(analysisThreads);
+    configuration.setRelease(getTargetRelease());
+    configuration.setScanOnDemand(scanOnDemand);
+    configuration.setIncremental(incrementalAnalysis);
+    configuration.setMetrics(metrics);
+    configuration.setVerbose(isVerbose());
+    if (analysisSessionCacheSize > 0) {
+      configuration.setSessionCache(getSessionArtifactCache().getCache());
+    }
+    if (useAnalysisCache) {
+      configuration.setCacheDirectory(analysisCacheDirectory);
+    }
+
+    return configuration;
+  }
+
+  /**
+   * @return the Java release the project is compiled for, taken from {@link #release} or {@link #target}. Null if neither is
+   *         set.
+   */
+  protected String getTargetRelease() {
+    return release == null || release.trim().isEmpty() ? target : release;
+  }
+
+  /**
+   * @return whether the execution logs every module and class it analyzes.
+   */
+  protected boolean isVerbose() {
+    return false;
+  }
+
+  /**
+   * Must be invoked once the execution on the current project finishes, even if it failed. Logs the wall time of the phases
+   * run by the execution and, when {@link #analysisMetrics} is set, their JVM wide counters, writing all of them to
+   * {@code mule-module-maven-plugin/<goal>-metrics.json} in the build folder. Executions that ran no phase report nothing.
+   * Also logs the usage of the session cache on the last project of builds that do not run {@link SessionCacheReporter}.
+   *
+   * @param goal name of the executed goal.
+   */
+  protected void reportMetrics(String goal) {
+    reportSessionCache();
+    if (metrics.getPhases().isEmpty()) {
+      return;
+    }
+
+    getLog().info("Module " + goal + " metrics: " + metrics.getSummary(analysisMetrics));
+    if (!analysisMetrics) {
+      return;
+    }
+
+    final File report = new File(project.getBuild().getDirectory(), METRICS_REPORT_DIRECTORY + goal + "-metrics.json");
+    try {
+      metrics.writeReport(report, goal, project.getId());
+    } catch (IOException e) {
+      getLog().warn("Cannot write the module " + goal + " metrics report", e);
+    }
+  }
+
+  private void reportSessionCache() {
+    final SessionArtifactCache sessionArtifactCache = SessionArtifactCache.find(session);
+    if (sessionArtifactCache == null || SessionArtifactCache.hasReporter(session)) {
+      return;
+    }
+
+    final List<MavenProject> projects = session.getProjects();
+    if (projects.isEmpty() || projects.get(projects.size() - 1).equals(project)) {
+      if (sessionArtifactCache.markReported()) {
+        getLog().info(SESSION_CACHE_USAGE + sessionArtifactCache.getCache().getStatistics());
+      }
+    }
+  }
+
+  private SessionArtifactCache getSessionArtifactCache() {
+    return SessionArtifactCache.get(session, analysisSessionCacheSize * 1024L * 1024L);
+  }
 }
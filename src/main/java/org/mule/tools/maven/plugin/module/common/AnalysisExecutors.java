@@ -0,0 +1,78 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.common;
+
+import static org.mule.tools.maven.plugin.module.common.AnalysisMetrics.measuringAllocation;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the thread pools used to analyze a project.
+ * <p>
+ * Pool threads are daemon threads, so a pool that is not shut down never prevents the JVM from exiting, and the memory they
+ * allocate is accounted on the {@link AnalysisMetrics} even after they finish.
+ *
+ * @since 1.10
+ */
+public final class AnalysisExecutors {
+
+  private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+  private static final long TERMINATION_TIMEOUT_MINUTES = 1;
+
+  private AnalysisExecutors() {
+    // private constructor for utility class
+  }
+
+  /**
+   * Creates a pool with a fixed number of threads
+   *
+   * @param name    purpose of the pool, used to name its threads.
+   * @param threads number of threads of the pool.
+   * @return the created pool
+   */
+  public static ExecutorService newAnalysisPool(String name, int threads) {
+    return newFixedThreadPool(threads, new AnalysisThreadFactory(name));
+  }
+
+  /**
+   * Stops a pool, interrupting its running tasks and waiting for them to finish. Once an analysis fails, none of its tasks keeps
+   * running and writing on the results of the abandoned analysis.
+   *
+   * @param executor pool to stop.
+   */
+  public static void shutdown(ExecutorService executor) {
+    executor.shutdownNow();
+    try {
+      // Tasks parsing a class do not check for interruption, but they end once the class is parsed
+      executor.awaitTermination(TERMINATION_TIMEOUT_MINUTES, MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static class AnalysisThreadFactory implements ThreadFactory {
+
+    private final String prefix;
+    private final AtomicInteger threadCounter = new AtomicInteger();
+
+    private AnalysisThreadFactory(String name) {
+      this.prefix = "mule-module-" + name + "-" + POOL_COUNTER.incrementAndGet() + "-";
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      final Thread thread = new Thread(measuringAllocation(runnable), prefix + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.common;
+
+import static java.lang.management.ManagementFactory.getThreadMXBean;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Collects the {@link PhaseMetrics} of a goal execution, so slow builds can be attributed to a phase.
+ * <p>
+ * Classes read and memory allocated are counted for the whole JVM, so they are only attributable to a single project on
+ * builds that do not analyze several projects at the same time. Allocation adds what the live threads allocated to what the
+ * finished analysis threads allocated, as the pool threads of a phase may be gone when it ends.
+ *
+ * @since 1.10
+ */
+public class AnalysisMetrics {
+
+  private static final double MB = 1024 * 1024;
+
+  private static final LongAdder CLASSES_READ = new LongAdder();
+  private static final LongAdder BYTES_READ = new LongAdder();
+  private static final LongAdder FINISHED_THREADS_ALLOCATION = new LongAdder();
+  private static final ThreadMXBean THREADS = getThreads();
+
+  private final long startTime = System.nanoTime();
+  private final List<PhaseMetrics> phases = new ArrayList<>();
+
+  /**
+   * Starts measuring a phase, which is added to these metrics once closed
+   *
+   * @param name name of the phase.
+   * @return the metrics of the started phase
+   */
+  public PhaseMetrics start(String name) {
+    return new PhaseMetrics(this, name);
+  }
+
+  synchronized void add(PhaseMetrics phase) {
+    phases.add(phase);
+  }
+
+  /**
+   * @return the closed phases, in the order they were closed.
+   */
+  public synchronized List<PhaseMetrics> getPhases() {
+    return new ArrayList<>(phases);
+  }
+
+  /**
+   * Describes every closed phase in a single line: its wall time and the size of the package graph it produced
+   *
+   * @param jvmCounters whether to add the classes read and the memory allocated during each phase, which are measured for the
+   *                    whole JVM.
+   * @return the summary of the closed phases
+   */
+  public String getSummary(boolean jvmCounters) {
+    final StringBuilder builder = new StringBuilder();
+    builder.append(String.format(Locale.ROOT, "total %.0f ms", (System.nanoTime() - startTime) / 1e6));
+    for (PhaseMetrics phase : getPhases()) {
+      builder.append(String.format(Locale.ROOT, ", %s %.0f ms", phase.getName(), phase.getWallTime() / 1e6));
+
+      final List<String> details = new ArrayList<>();
+      if (jvmCounters && phase.getClassesRead() > 0) {
+        details.add(String.format(Locale.ROOT, "%d classes, %.1f MB read", phase.getClassesRead(), phase.getBytesRead() / MB));
+      }
+      if (jvmCounters && phase.getAllocatedBytes() >= 0) {
+        details.add(String.format(Locale.ROOT, "%.1f MB allocated", phase.getAllocatedBytes() / MB));
+      }
+      if (phase.getPackages() >= 0) {
+        details.add(phase.getPackages() + " packages");
+      }
+      if (phase.getDependencies() >= 0) {
+        details.add(phase.getDependencies() + " dependencies");
+      }
+      if (!details.isEmpty()) {
+        builder.append(" (").append(String.join(", ", details)).append(')');
+      }
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Writes the closed phases as a JSON document
+   *
+   * @param file    file to write. Its folder is created if it does not exist.
+   * @param goal    name of the measured goal.
+   * @param project identifier of the project the goal was executed on.
+   * @throws IOException if the file cannot be written
+   */
+  public void writeReport(File file, String goal, String project) throws IOException {
+    final StringBuilder json = new StringBuilder();
+    json.append("{\n");
+    json.append("  \"goal\": ").append(quote(goal)).append(",\n");
+    json.append("  \"project\": ").append(quote(project)).append(",\n");
+    json.append("  \"wallTimeNanos\": ").append(System.nanoTime() - startTime).append(",\n");
+    json.append("  \"phases\": [");
+    final List<PhaseMetrics> closedPhases = getPhases();
+    for (int i = 0; i < closedPhases.size(); i++) {
+      final PhaseMetrics phase = closedPhases.get(i);
+      json.append(i == 0 ? "\n" : ",\n");
+      json.append("    {");
+      json.append("\"name\": ").append(quote(phase.getName()));
+      json.append(", \"wallTimeNanos\": ").append(phase.getWallTime());
+      json.append(", \"classesRead\": ").append(phase.getClassesRead());
+      json.append(", \"bytesRead\": ").append(phase.getBytesRead());
+      json.append(", \"allocatedBytes\": ").append(phase.getAllocatedBytes() < 0 ? "null" : phase.getAllocatedBytes());
+      json.append(", \"packages\": ").append(phase.getPackages() < 0 ? "null" : phase.getPackages());
+      json.append(", \"dependencies\": ").append(phase.getDependencies() < 0 ? "null" : phase.getDependencies());
+      json.append('}');
+    }
+    json.append(closedPhases.isEmpty() ? "]\n" : "\n  ]\n");
+    json.append("}\n");
+
+    Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+    Files.write(file.toPath(), json.toString().getBytes(UTF_8));
+  }
+
+  /**
+   * Counts a class read to be analyzed
+   *
+   * @param bytes size of the class file.
+   */
+  public static void classRead(int bytes) {
+    CLASSES_READ.increment();
+    BYTES_READ.add(bytes);
+  }
+
+  /**
+   * Wraps the task of an analysis pool thread, so the memory it allocated is still accounted once it finishes
+   *
+   * @param task task run by the thread.
+   * @return the task to give to the thread
+   */
+  public static Runnable measuringAllocation(Runnable task) {
+    if (THREADS == null) {
+      return task;
+    }
+    return () -> {
+      try {
+        task.run();
+      } finally {
+        FINISHED_THREADS_ALLOCATION.add(THREADS.getCurrentThreadAllocatedBytes());
+      }
+    };
+  }
+
+  static long getClassesRead() {
+    return CLASSES_READ.sum();
+  }
+
+  static long getBytesRead() {
+    return BYTES_READ.sum();
+  }
+
+  /**
+   * @return bytes allocated by the threads of the JVM so far, or -1 if the JVM does not measure allocation
+   */
+  static long getAllocatedBytes() {
+    if (THREADS == null) {
+      return -1;
+    }
+
+    // Read before the live threads, so a thread finishing meanwhile is not counted twice
+    long allocated = FINISHED_THREADS_ALLOCATION.sum();
+    for (long threadAllocated : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds())) {
+      // Threads that finished after listing them report -1
+      if (threadAllocated > 0) {
+        allocated += threadAllocated;
+      }
+    }
+    return allocated;
+  }
+
+  private static ThreadMXBean getThreads() {
+    final java.lang.management.ThreadMXBean threads = getThreadMXBean();
+    if (threads instanceof ThreadMXBean && ((ThreadMXBean) threads).isThreadAllocatedMemorySupported()
+        && ((ThreadMXBean) threads).isThreadAllocatedMemoryEnabled()) {
+      return (ThreadMXBean) threads;
+    }
+    return null;
+  }
+
+  private static String quote(String value) {
+    final StringBuilder quoted = new StringBuilder("\"");
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        quoted.append('\\').append(c);
+      } else if (c < 0x20) {
+        quoted.append(String.format("\\u%04x", (int) c));
+      } else {
+        quoted.append(c);
+      }
+    }
+    return quoted.append('"').toString();
+  }
+}
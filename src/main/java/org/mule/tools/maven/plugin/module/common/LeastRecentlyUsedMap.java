@@ -0,0 +1,52 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.common;
+
+import static java.util.Collections.synchronizedMap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Map that keeps up to a maximum number of entries, evicting the least recently used one when it is full. Used for what is
+ * kept between builds on long lived JVMs, which must not grow with every artifact ever seen.
+ *
+ * @param <K> type of the keys.
+ * @param <V> type of the values.
+ * @since 1.10
+ */
+public class LeastRecentlyUsedMap<K, V> extends LinkedHashMap<K, V> {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int maxSize;
+
+  /**
+   * Creates a new map
+   *
+   * @param maxSize maximum number of entries kept.
+   */
+  public LeastRecentlyUsedMap(int maxSize) {
+    super(16, 0.75f, true);
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Creates a new map that can be used from several threads
+   *
+   * @param maxSize maximum number of entries kept.
+   * @return the created map
+   */
+  public static <K, V> Map<K, V> synchronizedLeastRecentlyUsedMap(int maxSize) {
+    return synchronizedMap(new LeastRecentlyUsedMap<>(maxSize));
+  }
+
+  @Override
+  protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+    return size() > maxSize;
+  }
+}
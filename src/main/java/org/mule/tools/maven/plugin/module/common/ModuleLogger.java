@@ -6,7 +6,33 @@
  */
 package org.mule.tools.maven.plugin.module.common;
 
+import java.util.function.Supplier;
+
+/**
+ * Collects the diagnostic messages generated while a module is analyzed.
+ * <p>
+ * Messages usually describe every analyzed class or package, so call sites on hot paths must check {@link #isEnabled()}, or
+ * use {@link #log(Supplier)}, to avoid building messages that are discarded.
+ */
 public interface ModuleLogger {
 
   void log(String message);
+
+  /**
+   * Logs a message only built when the logger is enabled
+   *
+   * @param message provides the message to log.
+   */
+  default void log(Supplier<String> message) {
+    if (isEnabled()) {
+      log(message.get());
+    }
+  }
+
+  /**
+   * @return true if logged messages are written somewhere, false if they are discarded.
+   */
+  default boolean isEnabled() {
+    return true;
+  }
 }
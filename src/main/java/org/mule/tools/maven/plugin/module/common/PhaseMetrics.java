@@ -0,0 +1,119 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.common;
+
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
+
+/**
+ * What a phase of a goal execution used: wall time, classes and bytes read, allocated memory and the size of the package graph
+ * it produced. Measuring starts when the phase is created and ends when it is closed.
+ *
+ * @since 1.10
+ */
+public class PhaseMetrics implements AutoCloseable {
+
+  private final AnalysisMetrics metrics;
+  private final String name;
+  private final long startTime;
+  private final long startClassesRead;
+  private final long startBytesRead;
+  private final long startAllocatedBytes;
+
+  private long wallTime;
+  private long classesRead;
+  private long bytesRead;
+  private long allocatedBytes = -1;
+  private int packages = -1;
+  private int dependencies = -1;
+  private boolean closed;
+
+  PhaseMetrics(AnalysisMetrics metrics, String name) {
+    this.metrics = metrics;
+    this.name = name;
+    this.startClassesRead = AnalysisMetrics.getClassesRead();
+    this.startBytesRead = AnalysisMetrics.getBytesRead();
+    this.startAllocatedBytes = AnalysisMetrics.getAllocatedBytes();
+    this.startTime = System.nanoTime();
+  }
+
+  /**
+   * Records the size of the package graph produced by this phase
+   *
+   * @param graph graph produced by the phase.
+   */
+  public void recordGraph(PackageGraph graph) {
+    this.packages = graph.size();
+    this.dependencies = graph.getDependencyCount();
+  }
+
+  /**
+   * Records the number of packages produced by a phase that does not produce a graph
+   *
+   * @param packages number of produced packages.
+   */
+  public void recordPackages(int packages) {
+    this.packages = packages;
+  }
+
+  /**
+   * Stops measuring and adds this phase to the metrics of the execution. Closing a phase again has no effect.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+
+    wallTime = System.nanoTime() - startTime;
+    classesRead = AnalysisMetrics.getClassesRead() - startClassesRead;
+    bytesRead = AnalysisMetrics.getBytesRead() - startBytesRead;
+    final long allocated = AnalysisMetrics.getAllocatedBytes();
+    allocatedBytes = startAllocatedBytes < 0 || allocated < 0 ? -1 : allocated - startAllocatedBytes;
+    metrics.add(this);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return wall time of the phase, in nanoseconds.
+   */
+  public long getWallTime() {
+    return wallTime;
+  }
+
+  public long getClassesRead() {
+    return classesRead;
+  }
+
+  public long getBytesRead() {
+    return bytesRead;
+  }
+
+  /**
+   * @return bytes allocated during the phase, or -1 if the JVM does not measure allocation.
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * @return packages of the graph produced by the phase, or -1 if it produced none.
+   */
+  public int getPackages() {
+    return packages;
+  }
+
+  /**
+   * @return dependencies of the graph produced by the phase, or -1 if it produced none.
+   */
+  public int getDependencies() {
+    return dependencies;
+  }
+}
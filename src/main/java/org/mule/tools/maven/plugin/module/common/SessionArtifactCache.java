@@ -0,0 +1,105 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.common;
+
+import org.mule.tools.maven.plugin.module.analyze.cache.ArtifactAnalysisCache;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.SessionData;
+
+/**
+ * Shares an {@link ArtifactAnalysisCache} among all the plugin executions of a Maven session, including the ones running
+ * concurrently on parallel builds. Its usage is logged by {@link SessionCacheReporter} when the session ends, or by the
+ * executions themselves on builds that do not load the reporter.
+ * <p>
+ * The instance is kept in the session data of the repository session, so it is discarded along with the Maven session.
+ *
+ * @since 1.10
+ */
+public final class SessionArtifactCache {
+
+  // The class is only visible from the realm of this plugin, so other plugins never see the entry
+  private static final Object KEY = SessionArtifactCache.class;
+  private static final Object REPORTER_KEY = SessionCacheReporter.class;
+
+  private final ArtifactAnalysisCache cache;
+  private final AtomicBoolean reported = new AtomicBoolean();
+
+  private SessionArtifactCache(ArtifactAnalysisCache cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Gets the cache of a session, creating it on the first call
+   *
+   * @param session the current Maven session.
+   * @param maxSize maximum estimated size of the cache, in bytes. Only used when the cache is created.
+   * @return the cache of the session
+   */
+  public static SessionArtifactCache get(MavenSession session, long maxSize) {
+    final SessionData data = session.getRepositorySession().getData();
+    while (true) {
+      final Object existing = data.get(KEY);
+      if (existing != null) {
+        return (SessionArtifactCache) existing;
+      }
+
+      final SessionArtifactCache created = new SessionArtifactCache(new ArtifactAnalysisCache(maxSize));
+      if (data.set(KEY, null, created)) {
+        return created;
+      }
+    }
+  }
+
+  /**
+   * Gets the cache of a session without creating it
+   *
+   * @param session a Maven session.
+   * @return the cache of the session, or null if no execution of the session used it
+   */
+  public static SessionArtifactCache find(MavenSession session) {
+    if (session.getRepositorySession() == null) {
+      return null;
+    }
+    return (SessionArtifactCache) session.getRepositorySession().getData().get(KEY);
+  }
+
+  /**
+   * Records that the session runs a {@link SessionCacheReporter}, which logs the cache usage when the session ends.
+   *
+   * @param session the current Maven session.
+   */
+  static void registerReporter(MavenSession session) {
+    session.getRepositorySession().getData().set(REPORTER_KEY, Boolean.TRUE);
+  }
+
+  /**
+   * @param session a Maven session.
+   * @return whether the session runs a {@link SessionCacheReporter}
+   */
+  public static boolean hasReporter(MavenSession session) {
+    return session.getRepositorySession() != null && session.getRepositorySession().getData().get(REPORTER_KEY) != null;
+  }
+
+  /**
+   * Marks the cache usage as reported, so it is only logged once.
+   *
+   * @return whether the usage was not reported before
+   */
+  public boolean markReported() {
+    return reported.compareAndSet(false, true);
+  }
+
+  /**
+   * @return the cache shared by all the analyzed projects
+   */
+  public ArtifactAnalysisCache getCache() {
+    return cache;
+  }
+}
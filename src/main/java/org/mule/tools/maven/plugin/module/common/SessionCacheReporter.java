@@ -0,0 +1,47 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.common;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.execution.MavenSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs the usage of the {@link SessionArtifactCache} once every execution of the build finished, including the ones on
+ * projects that were analyzed after a failed or skipped one.
+ * <p>
+ * Maven only calls lifecycle participants of plugins declared with {@code <extensions>true</extensions>}. When the plugin is not
+ * declared that way the cache is still shared, and its usage is logged once the execution on the last project of the build
+ * finishes instead, which misses the executions still running on parallel builds.
+ *
+ * @since 1.10
+ */
+@Named("mule-module-session-cache")
+@Singleton
+public class SessionCacheReporter extends AbstractMavenLifecycleParticipant {
+
+  public static final String SESSION_CACHE_USAGE = "Artifact analysis session cache: ";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SessionCacheReporter.class);
+
+  @Override
+  public void afterProjectsRead(MavenSession session) {
+    SessionArtifactCache.registerReporter(session);
+  }
+
+  @Override
+  public void afterSessionEnd(MavenSession session) {
+    final SessionArtifactCache sessionArtifactCache = SessionArtifactCache.find(session);
+    if (sessionArtifactCache != null && sessionArtifactCache.markReported()) {
+      LOGGER.info(SESSION_CACHE_USAGE + sessionArtifactCache.getCache().getStatistics());
+    }
+  }
+}
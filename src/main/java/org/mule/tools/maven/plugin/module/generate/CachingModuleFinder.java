@@ -0,0 +1,198 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.generate;
+
+import static org.mule.tools.maven.plugin.module.bean.Module.MULE_MODULE_PROPERTIES_LOCATION;
+import static org.mule.tools.maven.plugin.module.common.LeastRecentlyUsedMap.synchronizedLeastRecentlyUsedMap;
+
+import org.mule.tools.maven.plugin.module.analyze.cache.ArtifactFingerprint;
+import org.mule.tools.maven.plugin.module.generate.ModuleDescriptorCache.JarModuleDescriptor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.module.FindException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReader;
+import java.lang.module.ModuleReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Finds modules on a module path the same way {@link ModuleFinder#of(Path...)} does, but without opening again the jars whose
+ * module was already derived.
+ * <p>
+ * The descriptor derived by the module system for the most recently used jars is kept for the rest of the JVM, so the projects
+ * of a reactor sharing most of their dependencies derive them once, and optionally on a {@link ModuleDescriptorCache} to reuse
+ * them on later builds. Folders and any other path elements are always delegated to the module system. Path elements are only
+ * read until the requested module is found, and the first module found with a given name wins.
+ *
+ * @since 1.10
+ */
+public final class CachingModuleFinder implements ModuleFinder {
+
+  private static final String JAR_EXTENSION = ".jar";
+  private static final String MODULE_INFO_CLASS = "module-info.class";
+
+  private static final int MAX_CACHED_JARS = 4096;
+
+  private static final Map<String, CachedJarModule> JAR_MODULES = synchronizedLeastRecentlyUsedMap(MAX_CACHED_JARS);
+
+  private final List<Path> modulePath;
+  private final ModuleDescriptorCache cache;
+  private final Map<String, ModuleReference> modules = new LinkedHashMap<>();
+  private int nextElement;
+
+  /**
+   * Creates a new finder
+   *
+   * @param modulePath elements of the module path, in lookup order.
+   * @param cache      persistent cache of the jar modules. May be null.
+   */
+  public CachingModuleFinder(List<Path> modulePath, ModuleDescriptorCache cache) {
+    this.modulePath = modulePath;
+    this.cache = cache;
+  }
+
+  @Override
+  public synchronized Optional<ModuleReference> find(String name) {
+    while (!modules.containsKey(name) && nextElement < modulePath.size()) {
+      readNextElement();
+    }
+    return Optional.ofNullable(modules.get(name));
+  }
+
+  @Override
+  public synchronized Set<ModuleReference> findAll() {
+    while (nextElement < modulePath.size()) {
+      readNextElement();
+    }
+    return new HashSet<>(modules.values());
+  }
+
+  /**
+   * @param moduleReference module found by this finder.
+   * @return whether the module contains Mule module properties
+   * @throws IOException if the module cannot be read
+   */
+  public static boolean isMuleModule(ModuleReference moduleReference) throws IOException {
+    if (moduleReference instanceof CachedModuleReference) {
+      return ((CachedModuleReference) moduleReference).muleModule;
+    }
+
+    try (ModuleReader reader = moduleReference.open()) {
+      return reader.find(MULE_MODULE_PROPERTIES_LOCATION).isPresent();
+    }
+  }
+
+  private void readNextElement() {
+    final Path element = modulePath.get(nextElement++);
+    if (Files.isRegularFile(element) && element.getFileName().toString().endsWith(JAR_EXTENSION)) {
+      final ModuleReference moduleReference = findJarModule(element);
+      modules.putIfAbsent(moduleReference.descriptor().name(), moduleReference);
+    } else {
+      for (ModuleReference moduleReference : ModuleFinder.of(element).findAll()) {
+        modules.putIfAbsent(moduleReference.descriptor().name(), moduleReference);
+      }
+    }
+  }
+
+  private ModuleReference findJarModule(Path jar) {
+    final File file = jar.toFile();
+    final String key = file.getAbsolutePath();
+    final long size = file.length();
+    final long lastModified = file.lastModified();
+
+    CachedJarModule cachedModule = JAR_MODULES.get(key);
+    if (cachedModule == null || cachedModule.size != size || cachedModule.lastModified != lastModified) {
+      cachedModule = new CachedJarModule(size, lastModified, loadJarModule(jar, file));
+      JAR_MODULES.put(key, cachedModule);
+    }
+
+    return new CachedModuleReference(jar, cachedModule.module);
+  }
+
+  private JarModuleDescriptor loadJarModule(Path jar, File file) {
+    try {
+      final ArtifactFingerprint fingerprint = cache != null ? ArtifactFingerprint.of(file) : null;
+      JarModuleDescriptor module = fingerprint != null ? cache.load(fingerprint) : null;
+      if (module == null) {
+        module = deriveJarModule(jar);
+        if (fingerprint != null) {
+          cache.store(fingerprint, module);
+        }
+      }
+      return module;
+    } catch (IOException e) {
+      throw new FindException("Error reading module: " + jar, e);
+    }
+  }
+
+  static JarModuleDescriptor deriveJarModule(Path jar) throws IOException {
+    // A jar always contains a single module, an automatic one if it has no module declaration
+    final ModuleReference moduleReference = ModuleFinder.of(jar).findAll().iterator().next();
+    final ModuleDescriptor descriptor = moduleReference.descriptor();
+    try (ModuleReader reader = moduleReference.open()) {
+      // The reader resolves the declaration of multi release jars for the running release, as the module system did
+      byte[] moduleInfo = null;
+      if (!descriptor.isAutomatic()) {
+        try (InputStream in = reader.open(MODULE_INFO_CLASS)
+            .orElseThrow(() -> new IOException(MODULE_INFO_CLASS + " not found on " + jar))) {
+          moduleInfo = in.readAllBytes();
+        }
+      }
+      return new JarModuleDescriptor(descriptor, moduleInfo, reader.find(MULE_MODULE_PROPERTIES_LOCATION).isPresent());
+    }
+  }
+
+  private static final class CachedJarModule {
+
+    private final long size;
+    private final long lastModified;
+    private final JarModuleDescriptor module;
+
+    private CachedJarModule(long size, long lastModified, JarModuleDescriptor module) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.module = module;
+    }
+  }
+
+  /**
+   * Module of a jar built from its cached descriptor. The jar is only opened if its content is read.
+   */
+  private static final class CachedModuleReference extends ModuleReference {
+
+    private final Path jar;
+    private final boolean muleModule;
+
+    private CachedModuleReference(Path jar, JarModuleDescriptor module) {
+      super(module.getDescriptor(), jar.toUri());
+      this.jar = jar;
+      this.muleModule = module.isMuleModule();
+    }
+
+    @Override
+    public ModuleReader open() throws IOException {
+      final ModuleDescriptor descriptor = descriptor();
+      try {
+        return ModuleFinder.of(jar).find(descriptor.name())
+            .orElseThrow(() -> new IOException("Module " + descriptor.name() + " not found on " + jar))
+            .open();
+      } catch (FindException e) {
+        throw new IOException(e.getMessage(), e);
+      }
+    }
+  }
+}
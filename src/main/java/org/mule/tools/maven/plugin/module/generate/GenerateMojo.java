@@ -14,12 +14,8 @@ import static org.mule.tools.maven.plugin.module.bean.Module.MULE_MODULE_PROPERT
 import static org.mule.tools.maven.plugin.module.bean.Module.PRIVILEGED_ARTIFACT_IDS;
 import static org.mule.tools.maven.plugin.module.bean.Module.PRIVILEGED_CLASS_PACKAGES;
 
-import static java.lang.ClassLoader.getSystemClassLoader;
-import static java.lang.ModuleLayer.boot;
-import static java.lang.ModuleLayer.defineModulesWithOneLoader;
-import static java.lang.module.ModuleDescriptor.Requires.Modifier.TRANSITIVE;
-import static java.lang.module.ModuleFinder.ofSystem;
-import static java.util.Collections.singletonList;
+import static org.mule.tools.maven.plugin.module.generate.ModuleInfo.MODULE_INFO_CLASS;
+
 import static java.util.function.Predicate.not;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toCollection;
@@ -38,6 +34,7 @@ import org.mule.tools.maven.plugin.module.analyze.ProjectAnalysisResult;
 import org.mule.tools.maven.plugin.module.analyze.SilentAnalyzerLogger;
 import org.mule.tools.maven.plugin.module.bean.ServiceDefinition;
 import org.mule.tools.maven.plugin.module.common.AbstractModuleMojo;
+import org.mule.tools.maven.plugin.module.common.PhaseMetrics;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -45,20 +42,22 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
-import java.lang.ModuleLayer.Controller;
-import java.lang.module.Configuration;
-import java.lang.module.ModuleDescriptor.Requires;
 import java.lang.module.ModuleFinder;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.stream.Stream;
 
+import javax.lang.model.SourceVersion;
+
 import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -86,17 +85,19 @@ public class GenerateMojo extends AbstractModuleMojo {
 
   @Override
   public void execute() throws MojoExecutionException, MojoFailureException {
-    if (!project.getPackaging().equals("jar")) {
-      getLog().info("Project is of type '" + project.getPackaging() + "', not 'jar'. Skipping...");
-      return;
-    }
-
     try {
+      if (!project.getPackaging().equals("jar")) {
+        getLog().info("Project is of type '" + project.getPackaging() + "', not 'jar'. Skipping...");
+        return;
+      }
+
       doExecute();
     } catch (MojoExecutionException | MojoFailureException e) {
       throw e;
     } catch (Exception e) {
       throw new MojoFailureException(e.getMessage(), e);
+    } finally {
+      reportMetrics("generate");
     }
   }
 
@@ -107,12 +108,12 @@ public class GenerateMojo extends AbstractModuleMojo {
     }
 
     getLog().info("Resolving current module...");
-    final Optional<java.lang.Module> currentModuleOpt = resolveCurrentModule();
+    final Optional<ModuleInfo> currentModuleOpt = readCurrentModule();
     if (currentModuleOpt.isEmpty()) {
       getLog().info("No module found. Skipping...");
       return;
     }
-    java.lang.Module currentModule = currentModuleOpt.get();
+    ModuleInfo currentModule = currentModuleOpt.get();
 
     getLog().info("Loading module information for '" + currentModule.getName() + "'...");
     final org.mule.tools.maven.plugin.module.bean.Module muleModule = toMuleModule(currentModule);
@@ -121,32 +122,34 @@ public class GenerateMojo extends AbstractModuleMojo {
     final Properties properties = toMuleModuleProperties(muleModule);
 
     getLog().info("Saving generated files for module '" + currentModule.getName() + "'...");
-    writeFiles(muleModule, properties);
+    final PhaseMetrics phase = metrics.start("writeFiles");
+    try {
+      writeFiles(muleModule, properties);
+    } finally {
+      phase.close();
+    }
   }
 
-  private org.mule.tools.maven.plugin.module.bean.Module toMuleModule(final java.lang.Module currentModule)
-      throws ClassNotFoundException, ModuleApiAnalyzerException, MojoExecutionException {
-    final PrivilegedApiReflectiveWrapper privilegedApiReflectiveWrapper = new PrivilegedApiReflectiveWrapper(currentModule);
-
-    final Set<String> optionalPackages = Stream.of(privilegedApiReflectiveWrapper.getOptionalPackages())
-        .collect(toCollection(TreeSet::new));
+  private org.mule.tools.maven.plugin.module.bean.Module toMuleModule(final ModuleInfo currentModule)
+      throws IOException, ModuleApiAnalyzerException, MojoFailureException {
+    final Set<String> optionalPackages = new TreeSet<>(currentModule.getOptionalPackages());
 
-    final Set<String> exportedPrivilegedPackages = Stream.of(privilegedApiReflectiveWrapper.getPrivilegedPackages())
-        .collect(toCollection(TreeSet::new));
+    final Set<String> exportedPrivilegedPackages = new TreeSet<>(currentModule.getPrivilegedPackages());
 
-    final Set<String> modulePrivilegedArtifactIds = Stream.of(privilegedApiReflectiveWrapper.getPrivilegedArtifactIds())
-        .collect(toCollection(TreeSet::new));
+    final Set<String> modulePrivilegedArtifactIds = new TreeSet<>(currentModule.getPrivilegedArtifactIds());
 
-    final Set<String> exportedPackages = resolveExportedPackages(currentModule, exportedPrivilegedPackages);
+    final Set<String> exportedPackages;
+    try (PhaseMetrics phase = metrics.start("exportedPackages")) {
+      exportedPackages = resolveExportedPackages(currentModule, exportedPrivilegedPackages);
+      phase.recordPackages(exportedPackages.size());
+    }
 
-    final TreeSet<ServiceDefinition> moduleServiceDefinitions = currentModule.getDescriptor().provides()
+    final TreeSet<ServiceDefinition> moduleServiceDefinitions = currentModule.getProvidedServices().entrySet()
         .stream()
         .map(provides -> {
           final ServiceDefinition serviceDefinition = new ServiceDefinition();
-          serviceDefinition.setServiceInterface(provides.service());
-          serviceDefinition.setServiceImplementations(provides.providers()
-              .stream()
-              .collect(toList()));
+          serviceDefinition.setServiceInterface(provides.getKey());
+          serviceDefinition.setServiceImplementations(new ArrayList<>(provides.getValue()));
           return serviceDefinition;
         })
         .collect(toCollection(TreeSet::new));
@@ -161,7 +164,7 @@ public class GenerateMojo extends AbstractModuleMojo {
 
     if (fillOptionalPackages) {
       final ProjectAnalysisResult analysis = analyzer
-          .analyze(project, generatedModule, new SilentAnalyzerLogger(), getLog());
+          .analyze(project, generatedModule, getAnalyzerConfiguration(), new SilentAnalyzerLogger(), getLog());
       final Set<String> additionalOptionalPackages = analysis.getStandardApi().getPackagesToExport();
       if (!additionalOptionalPackages.isEmpty()) {
         optionalPackages.addAll(additionalOptionalPackages);
@@ -184,48 +187,43 @@ public class GenerateMojo extends AbstractModuleMojo {
     return exportedPackages.contains(packageName) || exportedPrivilegedPackages.contains(packageName);
   }
 
-  private Set<String> resolveExportedPackages(final java.lang.Module currentModule,
-                                              final Set<String> exportedPrivilegedPackages) {
-    final Set<String> exportedPackages = currentModule.getPackages()
+  private Set<String> resolveExportedPackages(final ModuleInfo currentModule, final Set<String> exportedPrivilegedPackages)
+      throws IOException, MojoFailureException {
+    final Set<String> currentModulePackages = currentModule.isOpen()
+        ? findPackages(Paths.get(project.getBuild().getOutputDirectory()))
+        : currentModule.getExportedPackages();
+    final Set<String> exportedPackages = currentModulePackages
         .stream()
         .filter(not(exportedPrivilegedPackages::contains))
-        .filter(pkg -> currentModule.isExported(pkg))
         .collect(toCollection(TreeSet::new));
 
-    exportedPackages.addAll(currentModule
-        .getDescriptor().requires()
-        .stream()
-        .filter(req -> req.modifiers().contains(TRANSITIVE))
-        // only take into account modules brought by the artifact being built, not the ones from the jvm
-        .filter(req -> boot().findModule(req.name()).isEmpty())
-        .filter(not(req -> isMuleModuleRequired(currentModule, req)))
-        .map(req -> currentModule.getLayer().findModule(req.name()).get())
-        .flatMap(transitiveNonMuleModule -> resolveExportedPackages(transitiveNonMuleModule, exportedPrivilegedPackages).stream())
-        .collect(toList()));
+    if (!currentModule.getTransitiveRequires().isEmpty()) {
+      // Only reads the module descriptors, the required modules are never resolved nor defined
+      final TransitiveExportsResolver resolver =
+          new TransitiveExportsResolver(createDependenciesModuleFinder(), currentModule.getName());
+      for (String requiredModule : currentModule.getTransitiveRequires()) {
+        resolver.resolve(requiredModule, currentModule.getName());
+      }
+      resolver.getExportedPackages()
+          .stream()
+          .filter(not(exportedPrivilegedPackages::contains))
+          .forEach(exportedPackages::add);
+    }
 
     return exportedPackages;
   }
 
-  private Boolean isMuleModuleRequired(final java.lang.Module currentModule, Requires req) {
-    return currentModule.getLayer().findModule(req.name())
-        .map(reqMod -> {
-          try {
-            return reqMod.getResourceAsStream(MULE_MODULE_PROPERTIES_LOCATION) != null;
-          } catch (IOException e) {
-            throw new RuntimeException(e);
-          }
-        })
-        .orElse(false);
+  private Optional<ModuleInfo> readCurrentModule() throws IOException {
+    final Path moduleInfoClass = Paths.get(project.getBuild().getOutputDirectory(), MODULE_INFO_CLASS);
+    if (!Files.isRegularFile(moduleInfoClass)) {
+      return Optional.empty();
+    }
+
+    return Optional.of(ModuleInfo.read(moduleInfoClass));
   }
 
-  private Optional<java.lang.Module> resolveCurrentModule() throws MojoFailureException {
+  private ModuleFinder createDependenciesModuleFinder() throws MojoFailureException {
     try {
-      final ModuleFinder currentModuleFinder = ModuleFinder.of(Path.of(project.getBuild().getOutputDirectory()));
-      final List<String> roots = currentModuleFinder.findAll()
-          .stream()
-          .map(moduleRef -> moduleRef.descriptor().name())
-          .collect(toList());
-
       final Optional<Path> xmlApisPath = Optional.ofNullable(project.getArtifactMap().get("xml-apis:xml-apis"))
           .map(xmlApisArtifact -> xmlApisArtifact.getFile().toPath());
 
@@ -239,30 +237,43 @@ public class GenerateMojo extends AbstractModuleMojo {
           .map(artifact -> artifact.getFile().getAbsolutePath())
           .collect(toSet());
 
-      final ModuleFinder finder = ModuleFinder.of(Stream.concat(project.getCompileClasspathElements()
+      final List<Path> modulePath = Stream.concat(project.getCompileClasspathElements()
           .stream(), directTestDependencies.stream())
           .map(cpe -> Paths.get(cpe))
           // Do not use xml-apis which causes a split package with the xml module in the JVM
           .filter(path -> !xmlApisPath.map(path::equals).orElse(false))
-          .toArray(Path[]::new));
-
-      final Configuration configuration = boot().configuration().resolve(finder, ofSystem(), roots);
-
-      Controller controller = defineModulesWithOneLoader(configuration,
-                                                         singletonList(boot()),
-                                                         getSystemClassLoader());
-
-      return finder.findAll()
-          .stream()
-          .filter(modRef -> roots.contains(modRef.descriptor().name()))
-          .map(modRef -> modRef.descriptor().name())
-          .findFirst()
-          .flatMap(controller.layer()::findModule);
+          .collect(toList());
+      return new CachingModuleFinder(modulePath, useAnalysisCache ? new ModuleDescriptorCache(analysisCacheDirectory) : null);
     } catch (DependencyResolutionRequiredException e) {
       throw new MojoFailureException(e.getMessage(), e);
     }
   }
 
+  /**
+   * Finds the packages of an exploded module the same way the module system does: every folder with a regular file whose path
+   * is a valid package name.
+   */
+  private static Set<String> findPackages(Path root) throws IOException {
+    try (Stream<Path> files = Files.walk(root)) {
+      return files
+          .filter(Files::isRegularFile)
+          .map(file -> root.relativize(file).getParent())
+          .filter(Objects::nonNull)
+          .map(directory -> directory.toString().replace(File.separatorChar, '.'))
+          .filter(GenerateMojo::isPackageName)
+          .collect(toCollection(TreeSet::new));
+    }
+  }
+
+  private static boolean isPackageName(String name) {
+    for (String identifier : name.split("\\.", -1)) {
+      if (!SourceVersion.isIdentifier(identifier) || SourceVersion.isKeyword(identifier)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private Properties toMuleModuleProperties(final org.mule.tools.maven.plugin.module.bean.Module muleModule) {
     final Properties properties = new Properties();
 
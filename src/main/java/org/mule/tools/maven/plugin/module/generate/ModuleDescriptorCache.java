@@ -0,0 +1,295 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.generate;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import org.mule.tools.maven.plugin.module.analyze.cache.ArtifactFingerprint;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleDescriptor.Builder;
+import java.lang.module.ModuleDescriptor.Provides;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Stores in a folder the module descriptor the module system derives for a jar, along with whether the jar is a Mule module,
+ * so they do not need to be derived again while the jar does not change.
+ * <p>
+ * Each jar is stored in its own file: a header with the jar fingerprint and the Java feature release that read it, as multi
+ * release jars may declare a different module on each release, followed by the module and a CRC of the whole content.
+ * Explicit modules are stored as their {@code module-info.class} and packages, and read back with
+ * {@link ModuleDescriptor#read(ByteBuffer, java.util.function.Supplier)} the same way the module system reads them, so
+ * requires, opens and versions that a {@link Builder} would reject or parse are kept as found. Automatic modules are stored as
+ * the components the module system derives for them, and built again with {@link ModuleDescriptor#newAutomaticModule(String)}
+ * as the module system does. Entries are written to a temporary file and atomically moved in place. Entries that cannot be
+ * read back, or whose fingerprint does not match, are ignored and overwritten.
+ *
+ * @since 1.10
+ */
+public class ModuleDescriptorCache {
+
+  /**
+   * Must change whenever the stored format changes.
+   */
+  static final int FORMAT_VERSION = 2;
+
+  private static final int MAGIC = 0x4D4D4D44;
+  private static final String ENTRY_EXTENSION = ".moddesc";
+
+  private final Path directory;
+
+  /**
+   * Creates a new cache
+   *
+   * @param directory folder containing the cached entries. Created on demand.
+   */
+  public ModuleDescriptorCache(File directory) {
+    this.directory = directory.toPath();
+  }
+
+  /**
+   * Loads the module of a jar
+   *
+   * @param fingerprint identifies the jar content.
+   * @return the cached module or null if there is no valid entry for the given fingerprint
+   */
+  public JarModuleDescriptor load(ArtifactFingerprint fingerprint) {
+    final Path entry = getEntry(fingerprint);
+    try {
+      return read(ByteBuffer.wrap(Files.readAllBytes(entry)), fingerprint);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException | RuntimeException e) {
+      deleteQuietly(entry);
+      return null;
+    }
+  }
+
+  /**
+   * Stores the module of a jar. Failures are ignored, as the cache is only an optimization.
+   *
+   * @param fingerprint identifies the jar content.
+   * @param module      module found on the jar.
+   */
+  public void store(ArtifactFingerprint fingerprint, JarModuleDescriptor module) {
+    final Path entry = getEntry(fingerprint);
+    Path temporaryEntry = null;
+    try {
+      Files.createDirectories(directory);
+      temporaryEntry = Files.createTempFile(directory, entry.getFileName().toString(), ".tmp");
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporaryEntry))) {
+        write(out, fingerprint, module);
+      }
+
+      try {
+        Files.move(temporaryEntry, entry, ATOMIC_MOVE, REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temporaryEntry, entry, REPLACE_EXISTING);
+      }
+    } catch (IOException | RuntimeException e) {
+      // Nothing to do, the descriptor is derived again on the next build
+    } finally {
+      if (temporaryEntry != null) {
+        deleteQuietly(temporaryEntry);
+      }
+    }
+  }
+
+  private Path getEntry(ArtifactFingerprint fingerprint) {
+    final String path = fingerprint.getPath();
+    final String fileName = path.substring(path.lastIndexOf(File.separatorChar) + 1);
+    return directory.resolve(fileName + "-" + Integer.toHexString(path.hashCode()) + ENTRY_EXTENSION);
+  }
+
+  private static void write(OutputStream out, ArtifactFingerprint fingerprint, JarModuleDescriptor module)
+      throws IOException {
+    final CheckedOutputStream checkedOut = new CheckedOutputStream(out, new CRC32());
+    final DataOutputStream data = new DataOutputStream(checkedOut);
+    data.writeInt(MAGIC);
+    data.writeInt(FORMAT_VERSION);
+    data.writeInt(Runtime.version().feature());
+    writeString(data, fingerprint.getPath());
+    data.writeLong(fingerprint.getSize());
+    data.writeLong(fingerprint.getLastModified());
+    data.writeLong(fingerprint.getDigest());
+    data.writeBoolean(module.isMuleModule());
+
+    final ModuleDescriptor descriptor = module.getDescriptor();
+    final byte[] moduleInfo = module.getModuleInfo();
+    data.writeBoolean(moduleInfo != null);
+    if (moduleInfo != null) {
+      data.writeInt(moduleInfo.length);
+      data.write(moduleInfo);
+    } else {
+      writeString(data, descriptor.name());
+      writeOptional(data, descriptor.rawVersion());
+      writeOptional(data, descriptor.mainClass());
+      data.writeInt(descriptor.provides().size());
+      for (Provides provides : descriptor.provides()) {
+        writeString(data, provides.service());
+        writeStrings(data, provides.providers());
+      }
+    }
+
+    writeStrings(data, descriptor.packages());
+    data.flush();
+
+    new DataOutputStream(out).writeLong(checkedOut.getChecksum().getValue());
+  }
+
+  private static JarModuleDescriptor read(ByteBuffer buffer, ArtifactFingerprint fingerprint) throws IOException {
+    final int contentLength = buffer.limit() - Long.BYTES;
+    if (contentLength < 0) {
+      throw new IOException("Truncated entry");
+    }
+    final CRC32 crc = new CRC32();
+    crc.update(buffer.array(), 0, contentLength);
+    if (crc.getValue() != buffer.getLong(contentLength)) {
+      throw new IOException("Checksum mismatch");
+    }
+
+    if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+      throw new IOException("Unsupported format");
+    }
+    if (buffer.getInt() != Runtime.version().feature()) {
+      return null;
+    }
+    final ArtifactFingerprint storedFingerprint =
+        new ArtifactFingerprint(readString(buffer), buffer.getLong(), buffer.getLong(), buffer.getLong());
+    if (!fingerprint.equals(storedFingerprint)) {
+      return null;
+    }
+    final boolean muleModule = buffer.get() != 0;
+
+    if (buffer.get() != 0) {
+      final byte[] moduleInfo = new byte[buffer.getInt()];
+      buffer.get(moduleInfo);
+      final Set<String> packages = new HashSet<>(readStrings(buffer));
+      return new JarModuleDescriptor(ModuleDescriptor.read(ByteBuffer.wrap(moduleInfo), () -> packages), moduleInfo,
+                                     muleModule);
+    }
+
+    final Builder builder = ModuleDescriptor.newAutomaticModule(readString(buffer));
+    // The module system only derives versions that can be parsed
+    readOptional(buffer).ifPresent(builder::version);
+    readOptional(buffer).ifPresent(builder::mainClass);
+    final int providesCount = buffer.getInt();
+    for (int i = 0; i < providesCount; i++) {
+      builder.provides(readString(buffer), readStrings(buffer));
+    }
+    builder.packages(new HashSet<>(readStrings(buffer)));
+    return new JarModuleDescriptor(builder.build(), null, muleModule);
+  }
+
+  private static void writeOptional(DataOutputStream data, Optional<String> value) throws IOException {
+    data.writeBoolean(value.isPresent());
+    if (value.isPresent()) {
+      writeString(data, value.get());
+    }
+  }
+
+  private static Optional<String> readOptional(ByteBuffer buffer) {
+    return buffer.get() != 0 ? Optional.of(readString(buffer)) : Optional.empty();
+  }
+
+  private static void writeStrings(DataOutputStream data, Collection<String> values) throws IOException {
+    data.writeInt(values.size());
+    for (String value : values) {
+      writeString(data, value);
+    }
+  }
+
+  private static List<String> readStrings(ByteBuffer buffer) {
+    final int size = buffer.getInt();
+    final List<String> values = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      values.add(readString(buffer));
+    }
+    return values;
+  }
+
+  private static void writeString(DataOutputStream data, String value) throws IOException {
+    final byte[] bytes = value.getBytes(UTF_8);
+    data.writeShort(bytes.length);
+    data.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    final byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+    buffer.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  private static void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      // Nothing to do, a stale file does not break the cache
+    }
+  }
+
+  /**
+   * Module found on a jar.
+   */
+  public static final class JarModuleDescriptor {
+
+    private final ModuleDescriptor descriptor;
+    private final byte[] moduleInfo;
+    private final boolean muleModule;
+
+    /**
+     * @param descriptor the descriptor derived by the module system.
+     * @param moduleInfo content of the module declaration the descriptor was read from, null for automatic modules.
+     * @param muleModule whether the jar contains Mule module properties.
+     */
+    public JarModuleDescriptor(ModuleDescriptor descriptor, byte[] moduleInfo, boolean muleModule) {
+      this.descriptor = descriptor;
+      this.moduleInfo = moduleInfo;
+      this.muleModule = muleModule;
+    }
+
+    /**
+     * @return the descriptor derived by the module system
+     */
+    public ModuleDescriptor getDescriptor() {
+      return descriptor;
+    }
+
+    /**
+     * @return content of the module declaration the descriptor was read from, null for automatic modules
+     */
+    public byte[] getModuleInfo() {
+      return moduleInfo;
+    }
+
+    /**
+     * @return whether the jar contains Mule module properties
+     */
+    public boolean isMuleModule() {
+      return muleModule;
+    }
+  }
+}
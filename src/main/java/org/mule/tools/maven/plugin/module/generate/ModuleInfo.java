@@ -0,0 +1,229 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.generate;
+
+import static org.objectweb.asm.ClassReader.SKIP_CODE;
+import static org.objectweb.asm.ClassReader.SKIP_DEBUG;
+import static org.objectweb.asm.ClassReader.SKIP_FRAMES;
+import static org.objectweb.asm.Opcodes.ACC_OPEN;
+import static org.objectweb.asm.Opcodes.ACC_TRANSITIVE;
+import static org.objectweb.asm.Opcodes.ASM9;
+
+import org.mule.api.annotation.jpms.OptionalPackages;
+import org.mule.api.annotation.jpms.PrivilegedApi;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ModuleVisitor;
+import org.objectweb.asm.Type;
+
+/**
+ * Declaration of a module read from its compiled {@code module-info.class} with ASM, so the module does not need to be
+ * defined in a module layer to know its exports, its transitive requirements, the services it provides and the values of its
+ * {@link PrivilegedApi} and {@link OptionalPackages} annotations.
+ *
+ * @since 1.10
+ */
+public final class ModuleInfo {
+
+  public static final String MODULE_INFO_CLASS = "module-info.class";
+
+  private static final String OPTIONAL_PACKAGES_DESCRIPTOR = Type.getDescriptor(OptionalPackages.class);
+  private static final String PRIVILEGED_API_DESCRIPTOR = Type.getDescriptor(PrivilegedApi.class);
+
+  private String name;
+  private boolean open;
+  private final Set<String> exportedPackages = new TreeSet<>();
+  private final Set<String> transitiveRequires = new LinkedHashSet<>();
+  private final Map<String, List<String>> providedServices = new TreeMap<>();
+  private final Set<String> optionalPackages = new TreeSet<>();
+  private final Set<String> privilegedPackages = new TreeSet<>();
+  private final Set<String> privilegedArtifactIds = new TreeSet<>();
+
+  private ModuleInfo() {}
+
+  /**
+   * Reads a module declaration
+   *
+   * @param moduleInfoClass path of a compiled {@code module-info.class}.
+   * @return the module declaration
+   * @throws IOException if the file cannot be read or is not a module declaration
+   */
+  public static ModuleInfo read(Path moduleInfoClass) throws IOException {
+    return read(Files.readAllBytes(moduleInfoClass), moduleInfoClass.toString());
+  }
+
+  /**
+   * Reads a module declaration
+   *
+   * @param moduleInfoClass content of a compiled {@code module-info.class}.
+   * @param location        where the content was read from, used on error messages.
+   * @return the module declaration
+   * @throws IOException if the content is not a module declaration
+   */
+  public static ModuleInfo read(byte[] moduleInfoClass, String location) throws IOException {
+    final ModuleInfo moduleInfo = new ModuleInfo();
+    try {
+      new ClassReader(moduleInfoClass).accept(moduleInfo.new ModuleInfoClassVisitor(), SKIP_CODE | SKIP_DEBUG | SKIP_FRAMES);
+    } catch (RuntimeException e) {
+      throw new IOException("Cannot read module declaration from " + location, e);
+    }
+
+    if (moduleInfo.name == null) {
+      throw new IOException(location + " does not declare a module");
+    }
+    return moduleInfo;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return whether the module is declared open, in which case all its packages are exported
+   */
+  public boolean isOpen() {
+    return open;
+  }
+
+  /**
+   * @return the packages exported without qualification
+   */
+  public Set<String> getExportedPackages() {
+    return exportedPackages;
+  }
+
+  /**
+   * @return names of the modules required transitively, in declaration order
+   */
+  public Set<String> getTransitiveRequires() {
+    return transitiveRequires;
+  }
+
+  /**
+   * @return the implementations of each provided service, as binary class names
+   */
+  public Map<String, List<String>> getProvidedServices() {
+    return providedServices;
+  }
+
+  public Set<String> getOptionalPackages() {
+    return optionalPackages;
+  }
+
+  public Set<String> getPrivilegedPackages() {
+    return privilegedPackages;
+  }
+
+  public Set<String> getPrivilegedArtifactIds() {
+    return privilegedArtifactIds;
+  }
+
+  private static String toBinaryName(String internalName) {
+    return internalName.replace('/', '.');
+  }
+
+  private class ModuleInfoClassVisitor extends ClassVisitor {
+
+    private ModuleInfoClassVisitor() {
+      super(ASM9);
+    }
+
+    @Override
+    public ModuleVisitor visitModule(String moduleName, int access, String version) {
+      name = moduleName;
+      open = (access & ACC_OPEN) != 0;
+
+      return new ModuleVisitor(ASM9) {
+
+        @Override
+        public void visitRequire(String module, int access, String version) {
+          if ((access & ACC_TRANSITIVE) != 0) {
+            transitiveRequires.add(module);
+          }
+        }
+
+        @Override
+        public void visitExport(String packaze, int access, String... modules) {
+          if (modules == null || modules.length == 0) {
+            exportedPackages.add(toBinaryName(packaze));
+          }
+        }
+
+        @Override
+        public void visitProvide(String service, String... providers) {
+          final List<String> implementations = providedServices.computeIfAbsent(toBinaryName(service), key -> new ArrayList<>());
+          for (String provider : providers) {
+            implementations.add(toBinaryName(provider));
+          }
+        }
+      };
+    }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+      if (OPTIONAL_PACKAGES_DESCRIPTOR.equals(descriptor)) {
+        return new StringArrayCollector("value", optionalPackages);
+      } else if (PRIVILEGED_API_DESCRIPTOR.equals(descriptor)) {
+        return new AnnotationVisitor(ASM9) {
+
+          @Override
+          public AnnotationVisitor visitArray(String elementName) {
+            if ("privilegedPackages".equals(elementName)) {
+              return new StringArrayCollector(null, privilegedPackages);
+            } else if ("privilegedArtifactIds".equals(elementName)) {
+              return new StringArrayCollector(null, privilegedArtifactIds);
+            }
+            return null;
+          }
+        };
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Collects the values of a string array annotation element, either when visiting the annotation with the element name or
+   * when visiting the array itself with a null element name.
+   */
+  private static final class StringArrayCollector extends AnnotationVisitor {
+
+    private final String elementName;
+    private final Collection<String> values;
+
+    private StringArrayCollector(String elementName, Collection<String> values) {
+      super(ASM9);
+      this.elementName = elementName;
+      this.values = values;
+    }
+
+    @Override
+    public AnnotationVisitor visitArray(String name) {
+      return elementName != null && elementName.equals(name) ? new StringArrayCollector(null, values) : null;
+    }
+
+    @Override
+    public void visit(String name, Object value) {
+      if (elementName == null && value instanceof String) {
+        values.add((String) value);
+      }
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.generate;
+
+import static java.lang.ModuleLayer.boot;
+import static java.lang.module.ModuleDescriptor.Requires.Modifier.TRANSITIVE;
+import static java.util.function.Predicate.not;
+
+import java.io.IOException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleDescriptor.Exports;
+import java.lang.module.ModuleDescriptor.Requires;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReference;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.apache.maven.plugin.MojoFailureException;
+
+/**
+ * Resolves the packages a module exports through its {@code requires transitive} dependencies that are not Mule modules.
+ * <p>
+ * Each module is expanded at most once, so modules reachable through several paths, as in diamond shaped graphs, are neither
+ * read nor checked for being a Mule module again.
+ *
+ * @since 1.10
+ */
+final class TransitiveExportsResolver {
+
+  private final ModuleFinder finder;
+  private final Set<String> expandedModules = new HashSet<>();
+  private final Set<String> path = new LinkedHashSet<>();
+  private final Set<String> exportedPackages = new TreeSet<>();
+
+  /**
+   * Creates a new resolver
+   *
+   * @param finder     finds the required modules. Only their descriptors are read.
+   * @param rootModule name of the module whose requirements are resolved.
+   */
+  TransitiveExportsResolver(ModuleFinder finder, String rootModule) {
+    this.finder = finder;
+    this.path.add(rootModule);
+  }
+
+  /**
+   * Resolves the packages exported through the given transitive requirement of the root module
+   *
+   * @param moduleName name of the module required transitively.
+   * @param requiredBy name of the module declaring the requirement.
+   * @throws IOException          if a module cannot be read
+   * @throws MojoFailureException if a required module is not found or there is a cycle
+   */
+  void resolve(String moduleName, String requiredBy) throws IOException, MojoFailureException {
+    // only take into account modules brought by the artifact being built, not the ones from the jvm
+    if (boot().findModule(moduleName).isPresent()) {
+      return;
+    }
+    if (path.contains(moduleName)) {
+      throw new MojoFailureException("Cycle detected: " + String.join(" -> ", path) + " -> " + moduleName);
+    }
+    if (!expandedModules.add(moduleName)) {
+      return;
+    }
+
+    final ModuleReference moduleReference = finder.find(moduleName)
+        .orElseThrow(() -> new MojoFailureException("Module " + moduleName + " not found, required by " + requiredBy));
+    if (CachingModuleFinder.isMuleModule(moduleReference)) {
+      return;
+    }
+
+    final ModuleDescriptor descriptor = moduleReference.descriptor();
+    final Stream<String> modulePackages = descriptor.isOpen() || descriptor.isAutomatic()
+        ? descriptor.packages().stream()
+        : descriptor.exports().stream().filter(not(Exports::isQualified)).map(Exports::source);
+    modulePackages.forEach(exportedPackages::add);
+
+    path.add(moduleName);
+    for (Requires requires : descriptor.requires()) {
+      if (requires.modifiers().contains(TRANSITIVE)) {
+        resolve(requires.name(), moduleName);
+      }
+    }
+    path.remove(moduleName);
+  }
+
+  /**
+   * @return the packages exported by all the modules resolved so far
+   */
+  Set<String> getExportedPackages() {
+    return exportedPackages;
+  }
+}
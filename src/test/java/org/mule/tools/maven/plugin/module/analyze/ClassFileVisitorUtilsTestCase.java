@@ -0,0 +1,131 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze;
+
+import static java.nio.file.Files.walk;
+import static java.util.Collections.singleton;
+import static java.util.stream.Collectors.toList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThrows;
+
+import org.mule.tools.maven.plugin.module.analyze.asm.ASMDependencyAnalyzer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ClassFileVisitorUtilsTestCase {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final DependencyAnalyzer analyzer = new ASMDependencyAnalyzer();
+
+  @Test
+  public void concurrentFolderWalkFindsSameDependenciesAsSequentialOne() throws Exception {
+    final File classes = getPluginClasses();
+
+    final PackageGraph sequential = analyzer.analyze(classes.toURI().toURL(), new SilentAnalyzerLogger(), 1);
+    final PackageGraph concurrent = analyzer.analyze(classes.toURI().toURL(), new SilentAnalyzerLogger(), 4);
+
+    assertThat(sequential.size(), greaterThan(0));
+    assertThat(concurrent, equalTo(sequential));
+    assertThat(concurrent.toMap(), equalTo(sequential.toMap()));
+  }
+
+  @Test
+  public void folderWalkFindsSameDependenciesAsJar() throws Exception {
+    final File classes = getPluginClasses();
+    final File jar = createJar(classes);
+
+    final PackageGraph folderDependencies = analyzer.analyze(classes.toURI().toURL(), new SilentAnalyzerLogger(), 4);
+    final PackageGraph jarDependencies = analyzer.analyze(jar.toURI().toURL(), new SilentAnalyzerLogger(), 4);
+
+    assertThat(folderDependencies.toMap(), equalTo(jarDependencies.toMap()));
+  }
+
+  @Test
+  public void visitsClassesOnWalkingThreadWhenVisitorIsNotThreadSafe() throws Exception {
+    final Set<Thread> visitingThreads = ConcurrentHashMap.newKeySet();
+    final AtomicInteger visitedClasses = new AtomicInteger();
+    final ClassFileVisitor visitor = (className, in) -> {
+      visitingThreads.add(Thread.currentThread());
+      visitedClasses.incrementAndGet();
+    };
+
+    ClassFileVisitorUtils.accept(getPluginClasses().toURI().toURL(), visitor, new SilentAnalyzerLogger(), 4);
+
+    assertThat(visitedClasses.get(), greaterThan(0));
+    assertThat(visitingThreads, equalTo(singleton(Thread.currentThread())));
+  }
+
+  @Test
+  public void stopsVisitingClassesWhenWalkFails() throws Exception {
+    final URL classes = getPluginClasses().toURI().toURL();
+    final AtomicInteger visitedClasses = new AtomicInteger();
+    final ClassFileVisitor visitor = new ThreadSafeClassFileVisitor() {
+
+      @Override
+      public void visitClass(String className, InputStream in) {
+        if (visitedClasses.incrementAndGet() == 10) {
+          throw new IllegalStateException("Cannot visit " + className);
+        }
+      }
+    };
+
+    assertThrows(IllegalStateException.class,
+                 () -> ClassFileVisitorUtils.accept(classes, visitor, new SilentAnalyzerLogger(), 4));
+
+    final int visitedOnFailure = visitedClasses.get();
+    Thread.sleep(100);
+    assertThat(visitedClasses.get(), is(visitedOnFailure));
+  }
+
+  private static File getPluginClasses() throws Exception {
+    return new File(ClassFileVisitorUtils.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+  }
+
+  private File createJar(File classes) throws IOException {
+    final File jar = new File(temporaryFolder.getRoot(), "classes.jar");
+    final Path root = classes.toPath();
+    try (OutputStream out = Files.newOutputStream(jar.toPath()); ZipOutputStream zip = new ZipOutputStream(out);
+        Stream<Path> files = walk(root)) {
+      for (Path file : files.filter(Files::isRegularFile).collect(toList())) {
+        zip.putNextEntry(new ZipEntry(root.relativize(file).toString().replace(File.separatorChar, '/')));
+        Files.copy(file, zip);
+        zip.closeEntry();
+      }
+    }
+    return jar;
+  }
+
+  private abstract static class ThreadSafeClassFileVisitor implements ClassFileVisitor {
+
+    @Override
+    public boolean isThreadSafe() {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze;
+
+import static org.mule.tools.maven.plugin.module.analyze.JrePackageFinder.find;
+import static org.mule.tools.maven.plugin.module.analyze.JrePackageFinder.parseRelease;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+
+import java.util.Set;
+
+import org.junit.Test;
+
+public class JrePackageFinderTestCase {
+
+  private static final int RUNNING_RELEASE = Runtime.version().feature();
+
+  @Test
+  public void usesBundledListForJava8() {
+    final Set<String> packages = find("8");
+
+    assertThat(packages, hasItems("javax.xml.bind", "javax.annotation", "org.omg.CORBA"));
+    assertThat(packages, not(hasItem("java.net.http")));
+    assertThat(find("1.8"), sameInstance(packages));
+  }
+
+  @Test
+  public void usesApiOfJava11() {
+    final Set<String> packages = find("11");
+
+    assertThat(packages, hasItems("java.lang", "java.net.http", "javax.annotation.processing"));
+    assertThat(packages, not(hasItem("javax.xml.bind")));
+    assertThat(packages, not(hasItem("org.omg.CORBA")));
+    assertThat(packages, not(hasItem("java.lang.constant")));
+    assertThat(packages, everyItem(not(startsWith("com.sun."))));
+  }
+
+  @Test
+  public void usesApiOfJava17() {
+    final Set<String> packages = find("17");
+
+    assertThat(packages, hasItems("java.lang", "java.lang.constant", "java.net.http"));
+    assertThat(packages, not(hasItem("javax.xml.bind")));
+    assertThat(packages, everyItem(not(startsWith("sun."))));
+  }
+
+  @Test
+  public void parsesReleaseVersions() {
+    assertThat(parseRelease("8"), is(8));
+    assertThat(parseRelease("1.8"), is(8));
+    assertThat(parseRelease(" 11 "), is(11));
+    assertThat(parseRelease("17-ea"), is(17));
+    assertThat(parseRelease("17.0.2"), is(17));
+  }
+
+  @Test
+  public void usesRunningReleaseForInvalidVersions() {
+    assertThat(parseRelease(null), is(RUNNING_RELEASE));
+    assertThat(parseRelease(""), is(RUNNING_RELEASE));
+    assertThat(parseRelease("latest"), is(RUNNING_RELEASE));
+    assertThat(parseRelease("0"), is(RUNNING_RELEASE));
+    assertThat(find("17-ea"), sameInstance(find("17")));
+    assertThat(find("latest"), sameInstance(find()));
+  }
+}
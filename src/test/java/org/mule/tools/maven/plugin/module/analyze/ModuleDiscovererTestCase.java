@@ -0,0 +1,331 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze;
+
+import static org.mule.tools.maven.plugin.module.bean.Module.EXPORT_CLASS_PACKAGES;
+import static org.mule.tools.maven.plugin.module.bean.Module.EXPORT_OPTIONAL_PACKAGES;
+import static org.mule.tools.maven.plugin.module.bean.Module.EXPORT_SERVICES;
+import static org.mule.tools.maven.plugin.module.bean.Module.MODULE_NAME;
+import static org.mule.tools.maven.plugin.module.bean.Module.MULE_MODULE_PROPERTIES_LOCATION;
+import static org.mule.tools.maven.plugin.module.bean.Module.PRIVILEGED_ARTIFACT_IDS;
+import static org.mule.tools.maven.plugin.module.bean.Module.PRIVILEGED_CLASS_PACKAGES;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThrows;
+
+import org.mule.tools.maven.plugin.module.bean.Module;
+import org.mule.tools.maven.plugin.module.common.ModuleLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.maven.project.MavenProject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ModuleDiscovererTestCase {
+
+  private static final long LAST_MODIFIED = 1700000000000L;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final ModuleLogger logger = message -> {
+  };
+  private final ModuleDiscoverer discoverer = new ModuleDiscoverer();
+  private final List<String> runtimeClasspath = new ArrayList<>();
+  private final List<String> compileClasspath = new ArrayList<>();
+
+  @Test
+  public void discoversModulesInClasspathOrder() throws Exception {
+    runtimeClasspath.add(createModuleJar("foo.jar", "foo", "org.foo").getPath());
+    runtimeClasspath.add(createJar("plain.jar", "org/plain/A.class", "").getPath());
+    runtimeClasspath.add(createModuleJar("bar.jar", "bar", "org.bar").getPath());
+    compileClasspath.add(createModuleJar("baz.jar", "baz", "org.baz").getPath());
+
+    final List<Module> modules = discover(configuration(1));
+
+    assertThat(getNames(modules), contains("foo", "bar", "baz"));
+    assertThat(modules.get(0).getExportedPackages(), contains("org.foo"));
+  }
+
+  @Test
+  public void discoversEachClasspathElementOnce() throws Exception {
+    final File foo = createModuleJar("foo.jar", "foo", "org.foo");
+    final File bar = createModuleJar("bar.jar", "bar", "org.bar");
+    runtimeClasspath.addAll(asList(foo.getPath(), bar.getPath()));
+    compileClasspath.addAll(asList(bar.getPath(), foo.getPath()));
+
+    assertThat(getNames(discover(configuration(1))), contains("foo", "bar"));
+  }
+
+  @Test
+  public void skipsProjectModule() throws Exception {
+    runtimeClasspath.add(createModuleJar("foo.jar", "foo", "org.foo").getPath());
+    runtimeClasspath.add(createModuleJar("bar.jar", "bar", "org.bar").getPath());
+
+    assertThat(getNames(discoverer.discoverExternalModules(project(), logger, "foo", configuration(1), null)),
+               contains("bar"));
+  }
+
+  @Test
+  public void discoversModulesOnClassFolders() throws Exception {
+    final File classes = createClassFolder("classes", "foo", "org.foo");
+    final File plainClasses = temporaryFolder.newFolder("plain-classes");
+    runtimeClasspath.addAll(asList(classes.getPath(), plainClasses.getPath()));
+
+    assertThat(getNames(discover(configuration(1))), contains("foo"));
+
+    // Class folders are read again on every discovery, as other modules of the build change them without notice
+    createClassFolder("classes", "changed", "org.changed");
+    assertThat(getNames(discover(configuration(1))), contains("changed"));
+  }
+
+  @Test
+  public void ignoresMissingClasspathElements() throws Exception {
+    runtimeClasspath.add(new File(temporaryFolder.getRoot(), "missing.jar").getPath());
+    runtimeClasspath.add(new File(temporaryFolder.getRoot(), "missing-classes").getPath());
+
+    assertThat(discover(configuration(1)), is(empty()));
+  }
+
+  @Test
+  public void failsOnJarWithoutModuleName() throws Exception {
+    runtimeClasspath.add(createJar("foo.jar", MULE_MODULE_PROPERTIES_LOCATION, EXPORT_CLASS_PACKAGES + "=org.foo").getPath());
+
+    final ModuleApiAnalyzerException e = assertThrows(ModuleApiAnalyzerException.class, () -> discover(configuration(1)));
+    assertThat(e.getMessage(), containsString("foo.jar: missing " + MODULE_NAME));
+  }
+
+  @Test
+  public void failsOnClassFolderWithoutModuleName() throws Exception {
+    final File classes = temporaryFolder.newFolder("classes");
+    final File properties = new File(classes, MULE_MODULE_PROPERTIES_LOCATION);
+    properties.getParentFile().mkdirs();
+    Files.write(properties.toPath(), (EXPORT_CLASS_PACKAGES + "=org.foo").getBytes(ISO_8859_1));
+    runtimeClasspath.add(classes.getPath());
+
+    final ModuleApiAnalyzerException e = assertThrows(ModuleApiAnalyzerException.class, () -> discover(configuration(1)));
+    assertThat(e.getMessage(), containsString("classes: missing " + MODULE_NAME));
+  }
+
+  @Test
+  public void reusesJarModulesWhileSizeAndTimestampDoNotChange() throws Exception {
+    final File jar = createModuleJar("foo.jar", "alpha", "org.foo");
+    runtimeClasspath.add(jar.getPath());
+    assertThat(getNames(discover(configuration(1))), contains("alpha"));
+    final long size = jar.length();
+
+    createModuleJar("foo.jar", "gamma", "org.foo");
+    assertThat(jar.length(), is(size));
+    assertThat(getNames(discover(configuration(1))), contains("alpha"));
+
+    // Verbose analyses do not reuse what previous ones found
+    final AnalyzerConfiguration verbose = configuration(1);
+    verbose.setVerbose(true);
+    assertThat(getNames(discover(verbose)), contains("gamma"));
+  }
+
+  @Test
+  public void readsJarAgainWhenTimestampChanges() throws Exception {
+    final File jar = createModuleJar("foo.jar", "alpha", "org.foo");
+    runtimeClasspath.add(jar.getPath());
+    assertThat(getNames(discover(configuration(1))), contains("alpha"));
+    final long size = jar.length();
+
+    createModuleJar("foo.jar", "gamma", "org.foo");
+    assertThat(jar.setLastModified(LAST_MODIFIED + 2000), is(true));
+    assertThat(jar.length(), is(size));
+
+    assertThat(getNames(discover(configuration(1))), contains("gamma"));
+  }
+
+  @Test
+  public void readsJarAgainWhenSizeChanges() throws Exception {
+    final File jar = createModuleJar("foo.jar", "alpha", "org.foo");
+    runtimeClasspath.add(jar.getPath());
+    assertThat(getNames(discover(configuration(1))), contains("alpha"));
+
+    createModuleJar("foo.jar", "alpha-beta", "org.foo");
+
+    assertThat(getNames(discover(configuration(1))), contains("alpha-beta"));
+  }
+
+  @Test
+  public void discoversModulesConcurrently() throws Exception {
+    final List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 16; i++) {
+      if (i % 3 == 0) {
+        runtimeClasspath.add(createJar("plain" + i + ".jar", "org/plain/A.class", "").getPath());
+      } else {
+        runtimeClasspath.add(createModuleJar("module" + i + ".jar", "module" + i, "org.module" + i).getPath());
+        expected.add("module" + i);
+      }
+    }
+
+    assertThat(getNames(discover(configuration(4))), is(expected));
+  }
+
+  @Test
+  public void reportsFailureOfConcurrentDiscovery() throws Exception {
+    runtimeClasspath.add(createModuleJar("foo.jar", "foo", "org.foo").getPath());
+    runtimeClasspath.add(createJar("bar.jar", MULE_MODULE_PROPERTIES_LOCATION, EXPORT_CLASS_PACKAGES + "=org.bar").getPath());
+    runtimeClasspath.add(createModuleJar("baz.jar", "baz", "org.baz").getPath());
+
+    final ModuleApiAnalyzerException e = assertThrows(ModuleApiAnalyzerException.class, () -> discover(configuration(4)));
+    assertThat(e.getMessage(), containsString("bar.jar: missing " + MODULE_NAME));
+  }
+
+  @Test
+  public void reportsCorruptJarOfConcurrentDiscovery() throws Exception {
+    final File corrupt = temporaryFolder.newFile("corrupt.jar");
+    Files.write(corrupt.toPath(), "not a jar".getBytes(ISO_8859_1));
+    runtimeClasspath.add(createModuleJar("foo.jar", "foo", "org.foo").getPath());
+    runtimeClasspath.add(corrupt.getPath());
+
+    final ModuleApiAnalyzerException e = assertThrows(ModuleApiAnalyzerException.class, () -> discover(configuration(4)));
+    assertThat(e.getMessage(), containsString("corrupt.jar"));
+    assertThat(e.getCause(), instanceOf(ZipException.class));
+  }
+
+  @Test
+  public void indexedJarsYieldSameModulesAsReadingThem() throws Exception {
+    runtimeClasspath.add(createJar("full.jar", MULE_MODULE_PROPERTIES_LOCATION,
+                                   MODULE_NAME + "=full\n"
+                                       + EXPORT_CLASS_PACKAGES + "=org.full, org.full.api\n"
+                                       + PRIVILEGED_CLASS_PACKAGES + "=org.full.privileged\n"
+                                       + PRIVILEGED_ARTIFACT_IDS + "=org.mule:foo,org.mule:bar\n"
+                                       + EXPORT_OPTIONAL_PACKAGES + "=org.optional\n"
+                                       + EXPORT_SERVICES + "=org.full.Service:org.full.internal.ServiceImpl\n")
+        .getPath());
+    runtimeClasspath.add(createJar("plain.jar", "org/plain/A.class", "").getPath());
+    runtimeClasspath.add(createClassFolder("classes", "folder", "org.folder").getPath());
+    compileClasspath.add(createModuleJar("minimal.jar", "minimal", "org.minimal").getPath());
+    final LibraryPackageIndex index = LibraryPackageIndex.of(getClasspath());
+
+    // Verbose analyses always read the jars
+    final AnalyzerConfiguration verbose = configuration(1);
+    verbose.setVerbose(true);
+    final List<Module> modules = discover(verbose);
+    assertThat(getNames(modules), contains("full", "folder", "minimal"));
+    final List<List<Object>> expected = describe(modules);
+
+    assertThat(describe(discoverer.discoverExternalModules(project(), logger, "project", configuration(4), index)),
+               equalTo(expected));
+    // Discoveries without index reuse the modules found on the indexed jars
+    assertThat(describe(discover(configuration(4))), equalTo(expected));
+  }
+
+  @Test
+  public void failsOnIndexedJarWithoutModuleName() throws Exception {
+    runtimeClasspath.add(createJar("foo.jar", MULE_MODULE_PROPERTIES_LOCATION, EXPORT_CLASS_PACKAGES + "=org.foo").getPath());
+    final LibraryPackageIndex index = LibraryPackageIndex.of(getClasspath());
+
+    final ModuleApiAnalyzerException e = assertThrows(ModuleApiAnalyzerException.class, () -> discoverer
+        .discoverExternalModules(project(), logger, "project", configuration(1), index));
+    assertThat(e.getMessage(), containsString("foo.jar: missing " + MODULE_NAME));
+  }
+
+  private List<Module> discover(AnalyzerConfiguration configuration) throws ModuleApiAnalyzerException {
+    return discoverer.discoverExternalModules(project(), logger, "project", configuration, null);
+  }
+
+  private List<File> getClasspath() {
+    final List<File> classpath = new ArrayList<>();
+    for (String element : runtimeClasspath) {
+      classpath.add(new File(element));
+    }
+    for (String element : compileClasspath) {
+      classpath.add(new File(element));
+    }
+    return classpath;
+  }
+
+  private MavenProject project() {
+    return new MavenProject() {
+
+      @Override
+      public List<String> getRuntimeClasspathElements() {
+        return runtimeClasspath;
+      }
+
+      @Override
+      public List<String> getCompileClasspathElements() {
+        return compileClasspath;
+      }
+    };
+  }
+
+  private static AnalyzerConfiguration configuration(int threads) {
+    final AnalyzerConfiguration configuration = new AnalyzerConfiguration();
+    configuration.setThreads(threads);
+    return configuration;
+  }
+
+  private static List<String> getNames(List<Module> modules) {
+    return modules.stream().map(Module::getName).collect(toList());
+  }
+
+  private static List<List<Object>> describe(List<Module> modules) {
+    return modules.stream()
+        .map(module -> asList(module.getName(), module.getExportedPackages(), module.getExportedPrivilegedPackages(),
+                              module.getOptionalExportedPackages(), module.getModulePrivilegedArtifactIds(),
+                              module.getModuleServiceDefinitions()))
+        .collect(toList());
+  }
+
+  private File createClassFolder(String name, String moduleName, String exportedPackage) throws IOException {
+    final File classes = new File(temporaryFolder.getRoot(), name);
+    final File properties = new File(classes, MULE_MODULE_PROPERTIES_LOCATION);
+    properties.getParentFile().mkdirs();
+    Files.write(properties.toPath(), moduleProperties(moduleName, exportedPackage).getBytes(ISO_8859_1));
+    return classes;
+  }
+
+  private File createModuleJar(String name, String moduleName, String exportedPackage) throws IOException {
+    return createJar(name, MULE_MODULE_PROPERTIES_LOCATION, moduleProperties(moduleName, exportedPackage));
+  }
+
+  private static String moduleProperties(String moduleName, String exportedPackage) {
+    return MODULE_NAME + "=" + moduleName + "\n" + EXPORT_CLASS_PACKAGES + "=" + exportedPackage + "\n";
+  }
+
+  /**
+   * Creates a jar with a single entry. Jars created with the same entry and content of the same length have the same size and
+   * modification time.
+   */
+  private File createJar(String name, String entryName, String content) throws IOException {
+    final File jar = new File(temporaryFolder.getRoot(), name);
+    try (OutputStream out = Files.newOutputStream(jar.toPath()); ZipOutputStream zip = new ZipOutputStream(out)) {
+      final ZipEntry entry = new ZipEntry(entryName);
+      entry.setTime(LAST_MODIFIED);
+      zip.putNextEntry(entry);
+      zip.write(content.getBytes(ISO_8859_1));
+      zip.closeEntry();
+    }
+    assertThat(jar.setLastModified(LAST_MODIFIED), is(true));
+    return jar;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze;
+
+import static java.nio.file.Files.walk;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import org.mule.tools.maven.plugin.module.analyze.asm.ASMDependencyAnalyzer;
+import org.mule.tools.maven.plugin.module.analyze.cache.CachingDependencyAnalyzer;
+import org.mule.tools.maven.plugin.module.analyze.cache.PackageDependencyCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class OnDemandDependencyScannerTestCase {
+
+  private static final List<String> RESOLVED_PACKAGES = asList("org.mule.tools.maven.plugin.module.analyze",
+                                                               "org.mule.tools.maven.plugin.module.common");
+  private static final String OTHER_PACKAGE = "org.mule.tools.maven.plugin.module.bean";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File jar;
+  private PackageDependencyCache cache;
+  private Map<String, Set<String>> jarDependencies;
+
+  @Before
+  public void setUp() throws Exception {
+    jar = createJar(getPluginClasses());
+    cache = new PackageDependencyCache(temporaryFolder.newFolder("cache"));
+    jarDependencies = new ASMDependencyAnalyzer().analyze(jar.toURI().toURL(), new SilentAnalyzerLogger()).toMap();
+  }
+
+  @Test
+  public void reusesCachedPackagesOnLaterScans() throws Exception {
+    final OnDemandDependencyScanner firstScanner = newScanner();
+    assertResolvesJarDependencies(firstScanner, RESOLVED_PACKAGES);
+    firstScanner.close();
+    assertThat(firstScanner.getParsedClassCount(), greaterThan(0));
+
+    final OnDemandDependencyScanner secondScanner = newScanner();
+    assertResolvesJarDependencies(secondScanner, RESOLVED_PACKAGES);
+    secondScanner.close();
+    assertThat(secondScanner.getParsedClassCount(), is(0));
+  }
+
+  @Test
+  public void addsPackagesParsedOnLaterScansToCache() throws Exception {
+    final OnDemandDependencyScanner firstScanner = newScanner();
+    assertResolvesJarDependencies(firstScanner, RESOLVED_PACKAGES);
+    firstScanner.close();
+
+    final OnDemandDependencyScanner secondScanner = newScanner();
+    assertResolvesJarDependencies(secondScanner, singletonList(OTHER_PACKAGE));
+    secondScanner.close();
+    assertThat(secondScanner.getParsedClassCount(), greaterThan(0));
+
+    final OnDemandDependencyScanner thirdScanner = newScanner();
+    assertResolvesJarDependencies(thirdScanner, RESOLVED_PACKAGES);
+    assertResolvesJarDependencies(thirdScanner, singletonList(OTHER_PACKAGE));
+    thirdScanner.close();
+    assertThat(thirdScanner.getParsedClassCount(), is(0));
+  }
+
+  @Test
+  public void usesWholeJarEntryOfFullScan() throws Exception {
+    new CachingDependencyAnalyzer(new ASMDependencyAnalyzer(), cache).analyze(jar.toURI().toURL(), new SilentAnalyzerLogger());
+
+    final OnDemandDependencyScanner scanner = newScanner();
+    assertResolvesJarDependencies(scanner, RESOLVED_PACKAGES);
+    scanner.close();
+    assertThat(scanner.getParsedClassCount(), is(0));
+  }
+
+  private OnDemandDependencyScanner newScanner() throws IOException {
+    return new OnDemandDependencyScanner(LibraryPackageIndex.of(singletonList(jar)), cache, null, 1,
+                                         new SilentAnalyzerLogger());
+  }
+
+  private void assertResolvesJarDependencies(OnDemandDependencyScanner scanner, List<String> packageNames) throws IOException {
+    for (String packageName : packageNames) {
+      assertThat(scanner.resolve(packageName), equalTo(jarDependencies.get(packageName)));
+    }
+  }
+
+  private static File getPluginClasses() throws Exception {
+    return new File(OnDemandDependencyScanner.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+  }
+
+  private File createJar(File classes) throws IOException {
+    final File jar = new File(temporaryFolder.getRoot(), "classes.jar");
+    final Path root = classes.toPath();
+    try (OutputStream out = Files.newOutputStream(jar.toPath()); ZipOutputStream zip = new ZipOutputStream(out);
+        Stream<Path> files = walk(root)) {
+      for (Path file : files.filter(Files::isRegularFile).collect(toList())) {
+        zip.putNextEntry(new ZipEntry(root.relativize(file).toString().replace(File.separatorChar, '/')));
+        Files.copy(file, zip);
+        zip.closeEntry();
+      }
+    }
+    return jar;
+  }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze;
+
+import static org.mule.tools.maven.plugin.module.analyze.DefaultModuleApiAnalyzer.buildRemovedJrePackageMessage;
+import static org.mule.tools.maven.plugin.module.analyze.DefaultModuleApiAnalyzer.buildRemovedProvidedPackageMessage;
+import static org.mule.tools.maven.plugin.module.analyze.DefaultModuleApiAnalyzer.buildRemovedSunPackageMessage;
+import static org.mule.tools.maven.plugin.module.analyze.RandomPackageDependencies.JRE_PACKAGES;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.frequency;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import org.mule.tools.maven.plugin.module.analyze.PackageClosureCalculator.PackageClosure;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class PackageClosureCalculatorTestCase {
+
+  private static final int RANDOM_GRAPHS = 300;
+
+  private final List<String> logLines = new ArrayList<>();
+
+  @Test
+  public void calculatesSameClosureAsMapBasedCalculation() throws Exception {
+    for (int seed = 0; seed < RANDOM_GRAPHS; seed++) {
+      final RandomPackageDependencies random = new RandomPackageDependencies(seed, 60);
+      final Map<String, Set<String>> projectPackageDeps = random.packageDeps(0.3, 4);
+      final Map<String, Set<String>> externalPackageDeps = random.packageDeps(0.5, 6);
+      final Set<String> exportedPackages = random.declaredPackages(projectPackageDeps, 0.3);
+      exportedPackages.addAll(random.packages(0.02));
+      final Set<String> optionalPackages = random.packages(0.05);
+      final Set<String> otherModuleExportedPackages = random.packages(0.1);
+      otherModuleExportedPackages.removeAll(exportedPackages);
+
+      final PackageClosure closure =
+          newCalculator(projectPackageDeps, externalPackageDeps)
+              .calculate(exportedPackages, optionalPackages, otherModuleExportedPackages);
+
+      final MapClosure expected = calculateWithMaps(projectPackageDeps, externalPackageDeps, exportedPackages,
+                                                        optionalPackages, otherModuleExportedPackages);
+      assertThat("Seed " + seed, closure.getExportedPackageClosure(), equalTo(expected.exportedPackageClosure));
+      assertThat("Seed " + seed, closure.getNotAnalyzedPackages(), equalTo(expected.notAnalyzedPackages));
+    }
+  }
+
+  @Test
+  public void resolvesSameClosureOnDemand() throws Exception {
+    for (int seed = 0; seed < RANDOM_GRAPHS; seed++) {
+      final RandomPackageDependencies random = new RandomPackageDependencies(seed, 60);
+      final Map<String, Set<String>> projectPackageDeps = random.packageDeps(0.3, 4);
+      final Map<String, Set<String>> externalPackageDeps = random.packageDeps(0.5, 6);
+      final Set<String> exportedPackages = random.declaredPackages(projectPackageDeps, 0.3);
+      final Set<String> optionalPackages = random.packages(0.05);
+      final Set<String> otherModuleExportedPackages = random.packages(0.1);
+      otherModuleExportedPackages.removeAll(exportedPackages);
+
+      final PackageClosureCalculator onDemandCalculator =
+          new PackageClosureCalculator(PackageGraph.of(projectPackageDeps), packageName -> externalPackageDeps.get(packageName),
+                                       JRE_PACKAGES, logLines::add);
+      final PackageClosure closure =
+          onDemandCalculator.calculate(exportedPackages, optionalPackages, otherModuleExportedPackages);
+
+      final MapClosure expected = calculateWithMaps(projectPackageDeps, externalPackageDeps, exportedPackages,
+                                                        optionalPackages, otherModuleExportedPackages);
+      assertThat("Seed " + seed, closure.getExportedPackageClosure(), equalTo(expected.exportedPackageClosure));
+      assertThat("Seed " + seed, closure.getNotAnalyzedPackages(), equalTo(expected.notAnalyzedPackages));
+    }
+  }
+
+  @Test
+  public void calculatesSamePrivilegedClosureAfterStandardOne() throws Exception {
+    for (int seed = 0; seed < RANDOM_GRAPHS; seed++) {
+      final RandomPackageDependencies random = new RandomPackageDependencies(seed, 60);
+      final Map<String, Set<String>> projectPackageDeps = random.packageDeps(0.3, 4);
+      final Map<String, Set<String>> externalPackageDeps = random.packageDeps(0.5, 6);
+      final Set<String> exportedPackages = random.declaredPackages(projectPackageDeps, 0.2);
+      final Set<String> privilegedPackages = random.declaredPackages(projectPackageDeps, 0.2);
+      final Set<String> optionalPackages = random.packages(0.05);
+      final Set<String> otherModuleExportedPackages = random.packages(0.1);
+      otherModuleExportedPackages.removeAll(exportedPackages);
+      otherModuleExportedPackages.removeAll(privilegedPackages);
+      // As the privileged API is analyzed, everything exported by the standard API is provided to it
+      final Set<String> privilegedProvidedPackages = new HashSet<>(otherModuleExportedPackages);
+      privilegedProvidedPackages.addAll(exportedPackages);
+      privilegedProvidedPackages.addAll(random.packages(0.05));
+      privilegedProvidedPackages.removeAll(privilegedPackages);
+
+      final PackageClosureCalculator calculator = newCalculator(projectPackageDeps, externalPackageDeps);
+      calculator.calculate(exportedPackages, optionalPackages, otherModuleExportedPackages);
+      final PackageClosure closure = calculator.calculate(privilegedPackages, optionalPackages, privilegedProvidedPackages);
+
+      final MapClosure expected = calculateWithMaps(projectPackageDeps, externalPackageDeps, privilegedPackages,
+                                                        optionalPackages, privilegedProvidedPackages);
+      assertThat("Seed " + seed, closure.getExportedPackageClosure(), equalTo(expected.exportedPackageClosure));
+      assertThat("Seed " + seed, closure.getNotAnalyzedPackages(), equalTo(expected.notAnalyzedPackages));
+    }
+  }
+
+  @Test
+  public void followsProjectBeforeExternalDependencies() throws Exception {
+    final Map<String, Set<String>> projectPackageDeps = new HashMap<>();
+    projectPackageDeps.put("org.api", set("org.shared"));
+    projectPackageDeps.put("org.shared", set("org.project"));
+    projectPackageDeps.put("org.project", emptySet());
+    final Map<String, Set<String>> externalPackageDeps = new HashMap<>();
+    externalPackageDeps.put("org.shared", set("org.library"));
+    externalPackageDeps.put("org.library", emptySet());
+
+    final PackageClosure closure =
+        newCalculator(projectPackageDeps, externalPackageDeps).calculate(set("org.api"), emptySet(), emptySet());
+
+    assertThat(closure.getExportedPackageClosure(), containsInAnyOrder("org.api", "org.shared", "org.project"));
+    assertThat(closure.getNotAnalyzedPackages(), is(empty()));
+  }
+
+  @Test
+  public void removesPackagesExportedByOtherModules() throws Exception {
+    final Map<String, Set<String>> projectPackageDeps = new HashMap<>();
+    projectPackageDeps.put("org.api", set("org.provided", "org.internal"));
+    projectPackageDeps.put("org.internal", emptySet());
+    final Map<String, Set<String>> externalPackageDeps = new HashMap<>();
+    externalPackageDeps.put("org.provided", set("org.behind.provided"));
+    externalPackageDeps.put("org.behind.provided", emptySet());
+
+    final PackageClosure closure =
+        newCalculator(projectPackageDeps, externalPackageDeps).calculate(set("org.api"), emptySet(), set("org.provided"));
+
+    assertThat(closure.getExportedPackageClosure(), containsInAnyOrder("org.api", "org.internal"));
+    assertThat(logLines, equalTo(asList(buildRemovedProvidedPackageMessage("org.provided"))));
+  }
+
+  @Test
+  public void removesJreAndSunPackages() throws Exception {
+    final Map<String, Set<String>> projectPackageDeps = new HashMap<>();
+    projectPackageDeps.put("org.api", set("java.util", "sun.misc", "com.sun.xml.internal", "org.internal"));
+    projectPackageDeps.put("org.internal", set("java.util", "sun.misc", "com.sun.xml.internal"));
+
+    final PackageClosure closure =
+        newCalculator(projectPackageDeps, new HashMap<>()).calculate(set("org.api"), emptySet(), emptySet());
+
+    assertThat(closure.getExportedPackageClosure(), containsInAnyOrder("org.api", "org.internal"));
+    assertThat(closure.getNotAnalyzedPackages(), is(empty()));
+    assertThat(logLines, containsInAnyOrder(buildRemovedJrePackageMessage("java.util"),
+                                            buildRemovedSunPackageMessage("sun.misc"),
+                                            buildRemovedSunPackageMessage("com.sun.xml.internal")));
+  }
+
+  @Test
+  public void logsEachRemovalOncePerCalculation() throws Exception {
+    final Map<String, Set<String>> projectPackageDeps = new HashMap<>();
+    projectPackageDeps.put("org.a", set("org.b", "org.c", "java.lang", "org.provided"));
+    projectPackageDeps.put("org.b", set("org.c", "java.lang", "org.provided"));
+    projectPackageDeps.put("org.c", set("org.a", "java.lang", "org.provided"));
+    final PackageClosureCalculator calculator = newCalculator(projectPackageDeps, new HashMap<>());
+
+    calculator.calculate(set("org.a"), emptySet(), set("org.provided"));
+    calculator.calculate(set("org.b"), emptySet(), set("org.provided"));
+
+    assertThat(frequency(logLines, buildRemovedJrePackageMessage("java.lang")), is(2));
+    assertThat(frequency(logLines, buildRemovedProvidedPackageMessage("org.provided")), is(2));
+    assertThat(logLines.size(), is(4));
+  }
+
+  @Test
+  public void keepsIgnoredExportedPackagesWithoutFollowingThem() throws Exception {
+    final Map<String, Set<String>> projectPackageDeps = new HashMap<>();
+    projectPackageDeps.put("org.api", emptySet());
+    projectPackageDeps.put("sun.exported", set("org.behind.sun"));
+    projectPackageDeps.put("org.behind.sun", emptySet());
+
+    final PackageClosure closure =
+        newCalculator(projectPackageDeps, new HashMap<>()).calculate(set("org.api", "sun.exported"), emptySet(), emptySet());
+
+    assertThat(closure.getExportedPackageClosure(), containsInAnyOrder("org.api", "sun.exported"));
+    assertThat(logLines, equalTo(asList(buildRemovedSunPackageMessage("sun.exported"))));
+  }
+
+  @Test
+  public void reportsNotAnalyzedPackages() throws Exception {
+    final Map<String, Set<String>> projectPackageDeps = new HashMap<>();
+    projectPackageDeps.put("org.api", set("org.missing", "org.optional", "org.library"));
+    final Map<String, Set<String>> externalPackageDeps = new HashMap<>();
+    externalPackageDeps.put("org.library", set("org.missing.from.library"));
+
+    final PackageClosure closure = newCalculator(projectPackageDeps, externalPackageDeps)
+        .calculate(set("org.api", "org.exported.missing"), set("org.optional"), emptySet());
+
+    assertThat(closure.getExportedPackageClosure(),
+               containsInAnyOrder("org.api", "org.exported.missing", "org.missing", "org.optional", "org.library",
+                                  "org.missing.from.library"));
+    assertThat(closure.getNotAnalyzedPackages(),
+               containsInAnyOrder("org.exported.missing", "org.missing", "org.missing.from.library"));
+  }
+
+  private PackageClosureCalculator newCalculator(Map<String, Set<String>> projectPackageDeps,
+                                                 Map<String, Set<String>> externalPackageDeps) {
+    return new PackageClosureCalculator(PackageGraph.of(projectPackageDeps), PackageGraph.of(externalPackageDeps),
+                                        JRE_PACKAGES, logLines::add);
+  }
+
+  /**
+   * Calculates the closure the way it was calculated before the {@link PackageClosureCalculator} existed: expanding the whole
+   * closure again until no package is added.
+   */
+  private static MapClosure calculateWithMaps(Map<String, Set<String>> projectPackageDependencies,
+                                                  Map<String, Set<String>> externalPackageDeps,
+                                                  Set<String> exportedPackages, Set<String> optionalPackages,
+                                                  Set<String> otherModuleExportedPackages) {
+    final Set<String> exportedPackageClosure = new HashSet<>(exportedPackages);
+    final Set<String> missingAnalyzedPackages = new HashSet<>();
+
+    boolean dirty;
+    do {
+      Set<String> diff = new HashSet<>();
+      for (String exportedPackage : exportedPackageClosure) {
+        if (!ignorePackage(exportedPackage, otherModuleExportedPackages)) {
+          Set<String> packageDeps = projectPackageDependencies.get(exportedPackage);
+          if (packageDeps == null) {
+            packageDeps = externalPackageDeps.get(exportedPackage);
+          }
+          if (packageDeps != null) {
+            for (String packageDep : packageDeps) {
+              if (!exportedPackageClosure.contains(packageDep) && !ignorePackage(packageDep, otherModuleExportedPackages)) {
+                diff.add(packageDep);
+              }
+            }
+          } else if (!otherModuleExportedPackages.contains(exportedPackage) && !optionalPackages.contains(exportedPackage)) {
+            missingAnalyzedPackages.add(exportedPackage);
+          }
+        }
+      }
+      exportedPackageClosure.addAll(diff);
+      dirty = !diff.isEmpty();
+    } while (dirty);
+
+    return new MapClosure(exportedPackageClosure, missingAnalyzedPackages);
+  }
+
+  private static boolean ignorePackage(String packageName, Set<String> otherModuleExportedPackages) {
+    return otherModuleExportedPackages.contains(packageName) || JRE_PACKAGES.contains(packageName)
+        || packageName.startsWith("sun.") || packageName.startsWith("com.sun.");
+  }
+
+  private static Set<String> set(String... packages) {
+    return new HashSet<>(asList(packages));
+  }
+
+  private static final class MapClosure {
+
+    private final Set<String> exportedPackageClosure;
+    private final Set<String> notAnalyzedPackages;
+
+    private MapClosure(Set<String> exportedPackageClosure, Set<String> notAnalyzedPackages) {
+      this.exportedPackageClosure = exportedPackageClosure;
+      this.notAnalyzedPackages = notAnalyzedPackages;
+    }
+  }
+}
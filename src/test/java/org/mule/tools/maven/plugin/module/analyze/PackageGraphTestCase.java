@@ -0,0 +1,185 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.shuffle;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class PackageGraphTestCase {
+
+  private static final int RANDOM_GRAPHS = 200;
+
+  @Test
+  public void keepsDependenciesOfMap() {
+    for (int seed = 0; seed < RANDOM_GRAPHS; seed++) {
+      final Map<String, Set<String>> packageDeps = new RandomPackageDependencies(seed, 50).packageDeps(0.5, 8);
+
+      final PackageGraph graph = PackageGraph.of(packageDeps);
+
+      assertThat("Seed " + seed, graph.toMap(), equalTo(packageDeps));
+      assertGraphPackages(graph, packageDeps);
+    }
+  }
+
+  @Test
+  public void sortsAndRemovesDuplicatedDependencies() {
+    final PackageGraph graph = PackageGraph.of(new String[] {"org.c", "org.a", "org.b"},
+                                               new int[][] {{1, 2, 1, 2}, null, {}});
+
+    assertThat(graph.size(), is(3));
+    assertThat(graph.getName(0), is("org.a"));
+    assertThat(graph.getName(1), is("org.b"));
+    assertThat(graph.getName(2), is("org.c"));
+    assertThat(graph.isDeclared("org.a"), is(false));
+    assertThat(graph.isDeclared("org.b"), is(true));
+    assertThat(graph.isDeclared("org.c"), is(true));
+    assertThat(dependencies(graph, "org.c"), equalTo(asList("org.a", "org.b")));
+    assertThat(dependencies(graph, "org.b"), equalTo(new ArrayList<>()));
+    assertThat(graph.getDependencyCount(), is(2));
+  }
+
+  @Test
+  public void mergeIsUnionOfMaps() {
+    for (int seed = 0; seed < RANDOM_GRAPHS; seed++) {
+      final RandomPackageDependencies random = new RandomPackageDependencies(seed, 50);
+      final List<Map<String, Set<String>>> libraries = random.split(random.packageDeps(0.6, 8));
+      final List<PackageGraph> graphs = new ArrayList<>();
+      for (Map<String, Set<String>> library : libraries) {
+        graphs.add(PackageGraph.of(library));
+      }
+
+      final PackageGraph merged = PackageGraph.merge(graphs);
+
+      final Map<String, Set<String>> expected = mergeMaps(libraries);
+      assertThat("Seed " + seed, merged.toMap(), equalTo(expected));
+      assertGraphPackages(merged, expected);
+    }
+  }
+
+  @Test
+  public void mergeDoesNotDependOnGraphOrder() {
+    for (int seed = 0; seed < RANDOM_GRAPHS; seed++) {
+      final RandomPackageDependencies random = new RandomPackageDependencies(seed, 50);
+      final List<PackageGraph> graphs = new ArrayList<>();
+      for (Map<String, Set<String>> library : random.split(random.packageDeps(0.6, 8))) {
+        graphs.add(PackageGraph.of(library));
+      }
+      final List<PackageGraph> shuffledGraphs = new ArrayList<>(graphs);
+      shuffle(shuffledGraphs, new Random(seed));
+
+      assertThat("Seed " + seed, PackageGraph.merge(shuffledGraphs), equalTo(PackageGraph.merge(graphs)));
+    }
+  }
+
+  @Test
+  public void mergesDependenciesOfOverlappingPackages() {
+    final Map<String, Set<String>> first = new HashMap<>();
+    first.put("org.a", set("org.b", "org.c"));
+    first.put("org.b", set("org.c"));
+    final Map<String, Set<String>> second = new HashMap<>();
+    second.put("org.a", set("org.c", "org.d"));
+    second.put("org.b", emptySet());
+
+    final PackageGraph merged = PackageGraph.merge(asList(PackageGraph.of(first), PackageGraph.of(second)));
+
+    assertThat(dependencies(merged, "org.a"), equalTo(asList("org.b", "org.c", "org.d")));
+    assertThat(dependencies(merged, "org.b"), equalTo(asList("org.c")));
+    assertThat(merged.getDependencyCount(), is(4));
+  }
+
+  @Test
+  public void mergeDeclaresPackagesDeclaredOnAnyGraph() {
+    final Map<String, Set<String>> first = new HashMap<>();
+    first.put("org.a", set("org.x", "org.y"));
+    final Map<String, Set<String>> second = new HashMap<>();
+    second.put("org.b", set("org.x"));
+    final Map<String, Set<String>> third = new HashMap<>();
+    third.put("org.y", emptySet());
+
+    final PackageGraph merged =
+        PackageGraph.merge(asList(PackageGraph.of(first), PackageGraph.of(second), PackageGraph.of(third)));
+
+    assertThat(merged.size(), is(4));
+    assertThat(merged.isDeclared("org.a"), is(true));
+    assertThat(merged.isDeclared("org.b"), is(true));
+    assertThat(merged.getId("org.x") >= 0, is(true));
+    assertThat(merged.isDeclared("org.x"), is(false));
+    assertThat(merged.isDeclared("org.y"), is(true));
+    assertThat(dependencies(merged, "org.x"), equalTo(new ArrayList<>()));
+    assertThat(dependencies(merged, "org.y"), equalTo(new ArrayList<>()));
+  }
+
+  @Test
+  public void mergeSkipsEmptyGraphs() {
+    final PackageGraph graph = PackageGraph.of(Map.of("org.a", set("org.b")));
+
+    assertThat(PackageGraph.merge(asList(PackageGraph.empty(), graph, PackageGraph.empty())), sameInstance(graph));
+    assertThat(PackageGraph.merge(asList(PackageGraph.empty(), PackageGraph.empty())).size(), is(0));
+    assertThat(PackageGraph.merge(new ArrayList<>()).size(), is(0));
+  }
+
+  /**
+   * Merges the package dependencies of several libraries the way they were merged before the graph existed
+   */
+  private static Map<String, Set<String>> mergeMaps(List<Map<String, Set<String>>> libraries) {
+    final Map<String, Set<String>> result = new HashMap<>();
+    for (Map<String, Set<String>> library : libraries) {
+      for (Map.Entry<String, Set<String>> entry : library.entrySet()) {
+        result.computeIfAbsent(entry.getKey(), key -> new HashSet<>()).addAll(entry.getValue());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Checks that the graph has a node for every declared and referenced package, and nothing else
+   */
+  private static void assertGraphPackages(PackageGraph graph, Map<String, Set<String>> packageDeps) {
+    final Set<String> packages = new HashSet<>(packageDeps.keySet());
+    packageDeps.values().forEach(packages::addAll);
+
+    final Set<String> graphPackages = new HashSet<>();
+    for (int id = 0; id < graph.size(); id++) {
+      graphPackages.add(graph.getName(id));
+      assertThat(graph.getId(graph.getName(id)), is(id));
+      assertThat(graph.isDeclared(id), is(packageDeps.containsKey(graph.getName(id))));
+      if (id > 0) {
+        assertThat(graph.getName(id - 1).compareTo(graph.getName(id)) < 0, is(true));
+      }
+    }
+    assertThat(graphPackages, equalTo(packages));
+  }
+
+  private static List<String> dependencies(PackageGraph graph, String packageName) {
+    final int id = graph.getId(packageName);
+    final List<String> dependencies = new ArrayList<>();
+    for (int index = graph.getDependenciesStart(id); index < graph.getDependenciesEnd(id); index++) {
+      dependencies.add(graph.getName(graph.getDependency(index)));
+    }
+    return dependencies;
+  }
+
+  private static Set<String> set(String... packages) {
+    return new HashSet<>(asList(packages));
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates random package dependencies, with the same shape as the ones found on real libraries: packages referencing
+ * packages of the same library, packages of other libraries, JRE packages and internal SUN packages.
+ */
+class RandomPackageDependencies {
+
+  static final Set<String> JRE_PACKAGES = new HashSet<>(List.of("java.lang", "java.util", "javax.xml.parsers"));
+
+  private static final String[] SPECIAL_PACKAGES = {"java.lang", "java.util", "javax.xml.parsers", "sun.misc",
+      "com.sun.xml.internal"};
+
+  private final Random random;
+  private final int packageCount;
+
+  /**
+   * @param seed         seed of the generated values, so failures can be reproduced.
+   * @param packageCount number of regular packages to pick names from.
+   */
+  RandomPackageDependencies(long seed, int packageCount) {
+    this.random = new Random(seed);
+    this.packageCount = packageCount;
+  }
+
+  /**
+   * @param declaredRatio ratio of the packages that are declared.
+   * @param maxFanOut     maximum number of dependencies of a declared package.
+   * @return the dependencies of a random group of packages
+   */
+  Map<String, Set<String>> packageDeps(double declaredRatio, int maxFanOut) {
+    final Map<String, Set<String>> packageDeps = new HashMap<>();
+    for (int i = 0; i < packageCount; i++) {
+      if (random.nextDouble() < declaredRatio) {
+        final Set<String> dependencies = new HashSet<>();
+        final int fanOut = random.nextInt(maxFanOut + 1);
+        for (int j = 0; j < fanOut; j++) {
+          dependencies.add(packageName());
+        }
+        packageDeps.put(packageName(i), dependencies);
+      }
+    }
+    return packageDeps;
+  }
+
+  /**
+   * @param ratio ratio of the packages that are picked.
+   * @return a random group of packages, including JRE and SUN ones
+   */
+  Set<String> packages(double ratio) {
+    final Set<String> packages = new HashSet<>();
+    for (int i = 0; i < packageCount + SPECIAL_PACKAGES.length; i++) {
+      if (random.nextDouble() < ratio) {
+        packages.add(i < packageCount ? packageName(i) : SPECIAL_PACKAGES[i - packageCount]);
+      }
+    }
+    return packages;
+  }
+
+  /**
+   * @param packageDeps package dependencies.
+   * @param ratio       ratio of the declared packages that are picked.
+   * @return a random group of the declared packages
+   */
+  Set<String> declaredPackages(Map<String, Set<String>> packageDeps, double ratio) {
+    final Set<String> packages = new HashSet<>();
+    for (String packageName : packageDeps.keySet()) {
+      if (random.nextDouble() < ratio) {
+        packages.add(packageName);
+      }
+    }
+    return packages;
+  }
+
+  /**
+   * @param packageDeps package dependencies.
+   * @return the given dependencies split into a random number of overlapping groups, as they would be found on several
+   *         libraries
+   */
+  List<Map<String, Set<String>>> split(Map<String, Set<String>> packageDeps) {
+    final List<Map<String, Set<String>>> groups = new ArrayList<>();
+    final int groupCount = 1 + random.nextInt(6);
+    for (int i = 0; i < groupCount; i++) {
+      groups.add(new HashMap<>());
+    }
+
+    for (Map.Entry<String, Set<String>> entry : packageDeps.entrySet()) {
+      // A package can be split between libraries, each of them declaring part of its dependencies
+      final int copies = 1 + random.nextInt(2);
+      for (int i = 0; i < copies; i++) {
+        final Set<String> dependencies = new HashSet<>();
+        for (String dependency : entry.getValue()) {
+          if (i == 0 || random.nextBoolean()) {
+            dependencies.add(dependency);
+          }
+        }
+        groups.get(random.nextInt(groupCount)).merge(entry.getKey(), dependencies, (a, b) -> {
+          final Set<String> union = new HashSet<>(a);
+          union.addAll(b);
+          return union;
+        });
+      }
+    }
+    return groups;
+  }
+
+  private String packageName() {
+    final int index = random.nextInt(packageCount + SPECIAL_PACKAGES.length);
+    return index < packageCount ? packageName(index) : SPECIAL_PACKAGES[index - packageCount];
+  }
+
+  private static String packageName(int index) {
+    return "org.p" + index;
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze.asm;
+
+import static org.mule.tools.maven.plugin.module.analyze.DefaultModuleApiAnalyzer.getPackageName;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.objectweb.asm.ClassReader.SKIP_CODE;
+import static org.objectweb.asm.Opcodes.ASM9;
+
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+public class ResultCollectorTestCase {
+
+  private final ResultCollector collector = new ResultCollector(message -> {
+  });
+  private final BaselineCollector baseline = new BaselineCollector();
+
+  @Test
+  public void collectsNames() {
+    addName("org.foo", "org/bar/A");
+    addName("org.foo", "org/foo/Same");
+    addName("org.foo", "org/bar/Outer$Inner");
+    addName("org.foo", "org/baz/Outer$Inner$Deeper");
+    addName("org.foo", "[Lorg/qux/A;");
+    addName("org.foo", "Default");
+    addName("org.foo", "java/lang/Object");
+    addName("org.foo", "javax/inject/Named");
+    addName("org.foo", "org.binary.A");
+    addName("org.other", "java/util/List");
+    addName("org.default", "InDefault");
+
+    assertSameGraph();
+  }
+
+  @Test
+  public void collectsFieldDescriptors() {
+    addDesc("org.foo", "I");
+    addDesc("org.foo", "[J");
+    addDesc("org.foo", "[[Z");
+    addDesc("org.foo", "Lorg/bar/A;");
+    addDesc("org.foo", "[Lorg/baz/A;");
+    addDesc("org.foo", "[[[Lorg/qux/Outer$Inner;");
+    addDesc("org.foo", "LDefault;");
+    addDesc("org.foo", "[LDefault;");
+    addDesc("org.foo", "Ljava/lang/String;");
+    addDesc("org.foo", "[Ljava/util/Map$Entry;");
+    addDesc("org.foo", "Lorg/foo/Same;");
+    addDesc("org.primitives", "D");
+    addDesc("org.jdk", "Ljava/lang/Object;");
+
+    assertSameGraph();
+  }
+
+  @Test
+  public void collectsMethodDescriptors() {
+    addMethodDesc("org.foo", "()V");
+    addMethodDesc("org.foo", "(IJ[D)[[C");
+    addMethodDesc("org.foo", "(I[JLorg/bar/A;[[Lorg/baz/B$C;)V");
+    addMethodDesc("org.foo", "()[Lorg/qux/D;");
+    addMethodDesc("org.foo", "(LDefault;Ljava/lang/String;[LDefault;)LDefault;");
+    addMethodDesc("org.foo", "(Lorg/foo/Same;[ZLorg/nested/Outer$Inner$Deeper;)Lorg/ret/R;");
+    addMethodDesc("org.foo", "([[[Ljava/util/List;BSLorg/last/L;)Ljava/util/Map$Entry;");
+    addMethodDesc("org.primitives", "(IZ)J");
+    addMethodDesc("org.jdk", "(Ljava/lang/Object;)Ljava/lang/Object;");
+
+    assertSameGraph();
+  }
+
+  @Test
+  public void collectsTypes() {
+    addType("org.foo", Type.INT_TYPE);
+    addType("org.foo", Type.getType("[[I"));
+    addType("org.foo", Type.getObjectType("org/bar/A"));
+    addType("org.foo", Type.getType("[Lorg/baz/Outer$Inner;"));
+    addType("org.foo", Type.getObjectType("Default"));
+    addType("org.foo", Type.getType(Object.class));
+    addType("org.foo", Type.getMethodType("(Lorg/method/M;)V"));
+
+    assertSameGraph();
+  }
+
+  @Test
+  public void collectsDescriptorsOfJdkClasses() throws Exception {
+    final FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+    try (Stream<Path> classes = Files.walk(jrt.getPath("/modules/java.base"))) {
+      for (Path classFile : (Iterable<Path>) classes.filter(path -> path.toString().endsWith(".class"))::iterator) {
+        addDescriptors(classFile);
+      }
+    }
+
+    assertThat(collector.getPackageGraph().size(), greaterThan(100));
+    assertSameGraph();
+  }
+
+  private void addDescriptors(Path classFile) throws IOException {
+    new ClassReader(Files.readAllBytes(classFile)).accept(new ClassVisitor(ASM9) {
+
+      private String packageName;
+
+      @Override
+      public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+        packageName = getPackageName(name.replace('/', '.'));
+        addName(packageName, superName);
+        for (String anInterface : interfaces) {
+          addName(packageName, anInterface);
+        }
+      }
+
+      @Override
+      public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+        addDesc(packageName, descriptor);
+        return null;
+      }
+
+      @Override
+      public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+        addMethodDesc(packageName, descriptor);
+        if (exceptions != null) {
+          for (String exception : exceptions) {
+            addName(packageName, exception);
+          }
+        }
+        return null;
+      }
+    }, SKIP_CODE);
+  }
+
+  private void addName(String packageName, String name) {
+    collector.addName(packageName, name);
+    baseline.addName(packageName, name);
+  }
+
+  private void addDesc(String packageName, String desc) {
+    collector.addDesc(packageName, desc);
+    baseline.addType(packageName, Type.getType(desc));
+  }
+
+  private void addMethodDesc(String packageName, String desc) {
+    collector.addMethodDesc(packageName, desc);
+    baseline.addType(packageName, Type.getReturnType(desc));
+    for (Type type : Type.getArgumentTypes(desc)) {
+      baseline.addType(packageName, type);
+    }
+  }
+
+  private void addType(String packageName, Type type) {
+    collector.addType(packageName, type);
+    baseline.addType(packageName, type);
+  }
+
+  private void assertSameGraph() {
+    final PackageGraph expected = PackageGraph.of(baseline.packageDeps);
+    final PackageGraph actual = collector.getPackageGraph();
+
+    assertThat(actual.toMap(), equalTo(baseline.packageDeps));
+    assertThat(actual, equalTo(expected));
+  }
+
+  /**
+   * Collects package dependencies decoding every name with {@link Type} and using strings for packages, the way it was done
+   * before package IDs were introduced.
+   */
+  private static final class BaselineCollector {
+
+    private final Map<String, Set<String>> packageDeps = new HashMap<>();
+
+    private void addName(String packageName, String name) {
+      if (name == null) {
+        return;
+      }
+      if (name.startsWith("[L") && name.endsWith(";")) {
+        name = name.substring(2, name.length() - 1);
+      }
+      addPackageDependency(packageName, name.replace('/', '.'));
+    }
+
+    private void addType(String packageName, Type type) {
+      switch (type.getSort()) {
+        case Type.ARRAY:
+          addType(packageName, type.getElementType());
+          break;
+
+        case Type.OBJECT:
+          addName(packageName, type.getClassName().replace('.', '/'));
+          break;
+
+        default:
+      }
+    }
+
+    private void addPackageDependency(String packageName, String className) {
+      if (className.startsWith("java.")) {
+        return;
+      }
+
+      final Set<String> deps = packageDeps.computeIfAbsent(packageName, name -> new HashSet<>());
+      final String depPackageName = getPackageName(className);
+      if (!packageName.equals(depPackageName) && !depPackageName.isEmpty()) {
+        deps.add(depPackageName);
+      }
+    }
+  }
+}
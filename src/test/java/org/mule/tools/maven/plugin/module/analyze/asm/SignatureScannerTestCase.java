@@ -0,0 +1,154 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze.asm;
+
+import static java.util.Arrays.asList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.objectweb.asm.ClassReader.SKIP_CODE;
+import static org.objectweb.asm.Opcodes.ASM9;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.signature.SignatureReader;
+import org.objectweb.asm.signature.SignatureVisitor;
+
+public class SignatureScannerTestCase {
+
+  @Test
+  public void reportsClassTypesOfClassSignatures() {
+    assertSameClassTypes("<T:Ljava/lang/Object;>Ljava/lang/Object;");
+    assertSameClassTypes("<T::Ljava/lang/Comparable<-TT;>;>Ljava/lang/Object;Ljava/io/Serializable;");
+    assertSameClassTypes("<K:Ljava/lang/Object;V::Ljava/lang/Runnable;:Ljava/io/Closeable;>Ljava/util/AbstractMap<TK;TV;>;"
+        + "Ljava/util/Map<TK;TV;>;");
+    assertSameClassTypes("<E:Ljava/lang/Enum<TE;>;>Ljava/lang/Object;Ljava/lang/Comparable<TE;>;");
+    assertSameClassTypes("<T:[Ljava/lang/String;>Lorg/foo/Outer<TT;>.Inner<Lorg/bar/B;>.Deeper;");
+  }
+
+  @Test
+  public void reportsClassTypesOfMethodSignatures() {
+    assertSameClassTypes("()V");
+    assertSameClassTypes("(I[JLjava/util/List<*>;)Ljava/lang/String;");
+    assertSameClassTypes("<T::Ljava/lang/Comparable<-TT;>;>(Ljava/util/Collection<+TT;>;)TT;");
+    assertSameClassTypes("(Ljava/util/Map<Ljava/lang/String;[[Lorg/foo/A;>;)[TT;");
+    assertSameClassTypes("<X:Ljava/lang/Throwable;>(Ljava/util/function/Supplier<+TX;>;)V^TX;");
+    assertSameClassTypes("()V^Ljava/io/IOException;^Lorg/foo/FooException<Lorg/bar/B;>;");
+    assertSameClassTypes("(Lorg/foo/Outer<Ljava/lang/String;>.Inner;)Lorg/foo/Outer$Nested<*>.Inner<-Lorg/bar/B;>;");
+  }
+
+  @Test
+  public void reportsClassTypesOfFieldSignatures() {
+    assertSameFieldClassTypes("Ljava/util/List<Ljava/lang/String;>;");
+    assertSameFieldClassTypes("TT;");
+    assertSameFieldClassTypes("[[Ljava/util/Map<+Lorg/foo/A;-Lorg/bar/B;>;");
+    assertSameFieldClassTypes("Lorg/foo/Outer<TT;>.Inner<*>.Deeper<[I>;");
+  }
+
+  @Test
+  public void reportsClassTypesOfJdkSignatures() throws Exception {
+    final List<String> classSignatures = new ArrayList<>();
+    final List<String> fieldSignatures = new ArrayList<>();
+    collectJdkSignatures(classSignatures, fieldSignatures);
+
+    assertThat(classSignatures.size(), greaterThan(1000));
+    for (String signature : classSignatures) {
+      assertSameClassTypes(signature);
+    }
+    for (String signature : fieldSignatures) {
+      assertSameFieldClassTypes(signature);
+    }
+  }
+
+  private static void assertSameClassTypes(String signature) {
+    final ClassTypeRecorder expected = new ClassTypeRecorder();
+    new SignatureReader(signature).accept(expected);
+    final ClassTypeRecorder actual = new ClassTypeRecorder();
+    SignatureScanner.accept(signature, actual);
+
+    assertThat(signature, actual.classTypes, equalTo(expected.classTypes));
+  }
+
+  private static void assertSameFieldClassTypes(String signature) {
+    final ClassTypeRecorder expected = new ClassTypeRecorder();
+    new SignatureReader(signature).acceptType(expected);
+    final ClassTypeRecorder actual = new ClassTypeRecorder();
+    SignatureScanner.acceptType(signature, actual);
+
+    assertThat(signature, actual.classTypes, equalTo(expected.classTypes));
+  }
+
+  /**
+   * Collects the generic signatures of the classes, methods and fields of {@code java.util}, which use every signature feature
+   */
+  private static void collectJdkSignatures(List<String> classSignatures, List<String> fieldSignatures) throws IOException {
+    final FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+    try (Stream<Path> classes = Files.walk(jrt.getPath("/modules/java.base/java/util"))) {
+      for (Path classFile : (Iterable<Path>) classes.filter(path -> path.toString().endsWith(".class"))::iterator) {
+        new ClassReader(Files.readAllBytes(classFile)).accept(new ClassVisitor(ASM9) {
+
+          @Override
+          public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            addSignature(classSignatures, signature);
+          }
+
+          @Override
+          public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            addSignature(fieldSignatures, signature);
+            return null;
+          }
+
+          @Override
+          public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                                           String[] exceptions) {
+            addSignature(classSignatures, signature);
+            return null;
+          }
+        }, SKIP_CODE);
+      }
+    }
+  }
+
+  private static void addSignature(List<String> signatures, String signature) {
+    if (signature != null) {
+      signatures.add(signature);
+    }
+  }
+
+  private static final class ClassTypeRecorder extends SignatureVisitor {
+
+    private final List<String> classTypes = new ArrayList<>();
+
+    private ClassTypeRecorder() {
+      super(ASM9);
+    }
+
+    @Override
+    public void visitClassType(String name) {
+      classTypes.addAll(asList("class", name));
+    }
+
+    @Override
+    public void visitInnerClassType(String name) {
+      classTypes.addAll(asList("inner", name));
+    }
+  }
+}
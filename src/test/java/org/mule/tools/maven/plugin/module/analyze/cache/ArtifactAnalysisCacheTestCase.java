@@ -0,0 +1,184 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze.cache;
+
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonMap;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThrows;
+
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ArtifactAnalysisCacheTestCase {
+
+  private static final int THREADS = 8;
+
+  private static final PackageGraph GRAPH_A = graph("org.a");
+  private static final PackageGraph GRAPH_B = graph("org.b");
+  private static final PackageGraph GRAPH_C = graph("org.c");
+  private static final long GRAPH_SIZE = GRAPH_A.getEstimatedSize();
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void loadsOnceForConcurrentCallers() throws Exception {
+    final ArtifactAnalysisCache cache = new ArtifactAnalysisCache(10 * GRAPH_SIZE);
+    final AtomicInteger loads = new AtomicInteger();
+    final CountDownLatch loading = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+
+    final List<Future<PackageGraph>> results = getConcurrently(cache, () -> {
+      loads.incrementAndGet();
+      loading.countDown();
+      await(release);
+      return GRAPH_A;
+    }, loading);
+    awaitStatistics(cache, (THREADS - 1) + " shared loads");
+    release.countDown();
+
+    for (Future<PackageGraph> result : results) {
+      assertThat(result.get(10, SECONDS), sameInstance(GRAPH_A));
+    }
+    assertThat(loads.get(), is(1));
+    assertThat(cache.get("key", () -> GRAPH_B), sameInstance(GRAPH_A));
+    assertThat(cache.getStatistics(), containsString("1 hits, 1 misses, " + (THREADS - 1) + " shared loads"));
+  }
+
+  @Test
+  public void sharesFailureWithConcurrentCallersWithoutCachingIt() throws Exception {
+    final ArtifactAnalysisCache cache = new ArtifactAnalysisCache(10 * GRAPH_SIZE);
+    final CountDownLatch loading = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+
+    final List<Future<PackageGraph>> results = getConcurrently(cache, () -> {
+      loading.countDown();
+      await(release);
+      throw new IOException("Cannot read artifact");
+    }, loading);
+    awaitStatistics(cache, (THREADS - 1) + " shared loads");
+    release.countDown();
+
+    for (Future<PackageGraph> result : results) {
+      final ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(10, SECONDS));
+      assertThat(e.getCause(), instanceOf(IOException.class));
+      assertThat(e.getCause().getMessage(), is("Cannot read artifact"));
+    }
+    assertThat(cache.get("key", () -> GRAPH_A), sameInstance(GRAPH_A));
+  }
+
+  @Test
+  public void doesNotCacheMissingResults() throws Exception {
+    final ArtifactAnalysisCache cache = new ArtifactAnalysisCache(10 * GRAPH_SIZE);
+
+    assertThat(cache.get("key", () -> null), is(nullValue()));
+    assertThat(cache.getIfPresent("key"), is(nullValue()));
+    assertThat(cache.get("key", () -> GRAPH_A), sameInstance(GRAPH_A));
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsedEntries() throws Exception {
+    assertThat(GRAPH_B.getEstimatedSize(), is(GRAPH_SIZE));
+    assertThat(GRAPH_C.getEstimatedSize(), is(GRAPH_SIZE));
+    final ArtifactAnalysisCache cache = new ArtifactAnalysisCache(2 * GRAPH_SIZE);
+    cache.put("a", GRAPH_A);
+    cache.put("b", GRAPH_B);
+    assertThat(cache.getIfPresent("a"), sameInstance(GRAPH_A));
+
+    cache.put("c", GRAPH_C);
+
+    assertThat(cache.getIfPresent("b"), is(nullValue()));
+    assertThat(cache.getIfPresent("a"), sameInstance(GRAPH_A));
+    assertThat(cache.get("c", () -> GRAPH_B), sameInstance(GRAPH_C));
+    assertThat(cache.getStatistics(), containsString("1 evictions, 2 entries"));
+  }
+
+  @Test
+  public void replacesEntryWithoutEvictingOthers() throws Exception {
+    final ArtifactAnalysisCache cache = new ArtifactAnalysisCache(2 * GRAPH_SIZE);
+    cache.put("a", GRAPH_A);
+    cache.put("b", GRAPH_B);
+
+    cache.put("a", GRAPH_C);
+
+    assertThat(cache.getIfPresent("a"), sameInstance(GRAPH_C));
+    assertThat(cache.getIfPresent("b"), sameInstance(GRAPH_B));
+    assertThat(cache.getStatistics(), containsString("0 evictions, 2 entries"));
+  }
+
+  @Test
+  public void doesNotCacheEntriesLargerThanCache() throws Exception {
+    final ArtifactAnalysisCache cache = new ArtifactAnalysisCache(GRAPH_SIZE - 1);
+
+    assertThat(cache.get("a", () -> GRAPH_A), sameInstance(GRAPH_A));
+
+    assertThat(cache.getIfPresent("a"), is(nullValue()));
+    assertThat(cache.getStatistics(), containsString("0 evictions, 0 entries"));
+  }
+
+  /**
+   * Gets the same key from several threads. The first one runs the loader, the rest start once it is loading.
+   */
+  private List<Future<PackageGraph>> getConcurrently(ArtifactAnalysisCache cache, ArtifactAnalysisCache.Loader loader,
+                                                     CountDownLatch loading)
+      throws InterruptedException {
+    final List<Future<PackageGraph>> results = new ArrayList<>();
+    results.add(executor.submit(() -> cache.get("key", loader)));
+    assertThat(loading.await(10, SECONDS), is(true));
+    for (int i = 1; i < THREADS; i++) {
+      results.add(executor.submit(() -> cache.get("key", () -> {
+        throw new IllegalStateException("Loaded twice");
+      })));
+    }
+    return results;
+  }
+
+  private static void await(CountDownLatch latch) throws IOException {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    }
+  }
+
+  private static void awaitStatistics(ArtifactAnalysisCache cache, String expected) throws InterruptedException {
+    final long deadline = System.nanoTime() + SECONDS.toNanos(10);
+    while (!cache.getStatistics().contains(expected) && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(cache.getStatistics(), containsString(expected));
+  }
+
+  private static PackageGraph graph(String packageName) {
+    return PackageGraph.of(singletonMap(packageName, singleton("org.dependency")));
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ArtifactFingerprintTestCase {
+
+  private static final long LAST_MODIFIED = 1700000000000L;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void sameContentHasSameFingerprint() throws Exception {
+    final File jar = createJar("foo.jar", "org/foo/A.class", "content A");
+
+    final ArtifactFingerprint fingerprint = ArtifactFingerprint.of(jar);
+
+    assertThat(ArtifactFingerprint.of(jar), equalTo(fingerprint));
+    assertThat(fingerprint.getPath(), is(jar.getAbsolutePath()));
+    assertThat(fingerprint.getSize(), is(jar.length()));
+    assertThat(fingerprint.getLastModified(), is(LAST_MODIFIED));
+  }
+
+  @Test
+  public void detectsJarRewrittenWithSameSizeAndTimestamp() throws Exception {
+    final File jar = createJar("foo.jar", "org/foo/A.class", "content A");
+    final ArtifactFingerprint fingerprint = ArtifactFingerprint.of(jar);
+
+    createJar("foo.jar", "org/foo/A.class", "content B");
+
+    final ArtifactFingerprint rewritten = ArtifactFingerprint.of(jar);
+    assertThat(rewritten.getSize(), is(fingerprint.getSize()));
+    assertThat(rewritten.getLastModified(), is(fingerprint.getLastModified()));
+    assertThat(rewritten, not(equalTo(fingerprint)));
+  }
+
+  @Test
+  public void fingerprintsFileThatIsNotZip() throws Exception {
+    final File file = temporaryFolder.newFile("foo.txt");
+    Files.write(file.toPath(), "content A".getBytes(UTF_8));
+    final ArtifactFingerprint fingerprint = ArtifactFingerprint.of(file);
+
+    Files.write(file.toPath(), "content B".getBytes(UTF_8));
+
+    assertThat(ArtifactFingerprint.of(file).getDigest(), not(equalTo(fingerprint.getDigest())));
+  }
+
+  private File createJar(String name, String entryName, String content) throws IOException {
+    final File jar = new File(temporaryFolder.getRoot(), name);
+    try (OutputStream out = Files.newOutputStream(jar.toPath()); ZipOutputStream zip = new ZipOutputStream(out)) {
+      final ZipEntry entry = new ZipEntry(entryName);
+      entry.setTime(LAST_MODIFIED);
+      zip.putNextEntry(entry);
+      zip.write(content.getBytes(UTF_8));
+      zip.closeEntry();
+    }
+    assertThat(jar.setLastModified(LAST_MODIFIED), is(true));
+    return jar;
+  }
+}
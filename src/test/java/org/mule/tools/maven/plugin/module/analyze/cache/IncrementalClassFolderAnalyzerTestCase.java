@@ -0,0 +1,293 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze.cache;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.file.Files.walk;
+import static java.nio.file.StandardCopyOption.COPY_ATTRIBUTES;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Comparator.reverseOrder;
+import static java.util.stream.Collectors.toList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
+import org.mule.tools.maven.plugin.module.analyze.SilentAnalyzerLogger;
+import org.mule.tools.maven.plugin.module.analyze.asm.ASMDependencyAnalyzer;
+import org.mule.tools.maven.plugin.module.common.ModuleLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IncrementalClassFolderAnalyzerTestCase {
+
+  private static final String ANALYZED_PACKAGE = "org/mule/tools/maven/plugin/module/common/";
+  private static final String ANALYZED_CLASS = ANALYZED_PACKAGE + "LeastRecentlyUsedMap.class";
+  private static final String OTHER_PACKAGE_CLASS = "org/mule/tools/maven/plugin/module/analyze/AnalyzeMojo.class";
+  private static final String ANALYZED_SOURCE_FILE = "LeastRecentlyUsedMap.java";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File classes;
+  private File recordsFile;
+
+  @Before
+  public void setUp() throws Exception {
+    classes = temporaryFolder.newFolder("classes");
+    recordsFile = new File(temporaryFolder.getRoot(), "records/classes.bin");
+    copyFolder(getPluginClasses().toPath(), classes.toPath());
+  }
+
+  @Test
+  public void analyzesFolderWithoutRecordsLikeFullAnalysis() throws Exception {
+    final PackageGraph sequential = analyze(1).graph;
+    assertThat(recordsFile.isFile(), is(true));
+    assertThat(recordsFile.delete(), is(true));
+    final PackageGraph concurrent = analyze(4).graph;
+
+    assertThat(sequential.size(), greaterThan(0));
+    assertThat(sequential.toMap(), equalTo(fullAnalysis()));
+    assertThat(concurrent.toMap(), equalTo(fullAnalysis()));
+  }
+
+  @Test
+  public void reusesRecordsOfUnchangedClasses() throws Exception {
+    analyze(4);
+
+    final Analysis analysis = analyze(4);
+
+    assertThat(analysis.graph.toMap(), equalTo(fullAnalysis()));
+    assertThat(analysis.log, hasItem(containsString(" 0 changed, 0 parsed, 0 removed")));
+  }
+
+  @Test
+  public void analyzesModifiedClass() throws Exception {
+    analyze(4);
+    final Path analyzedClass = classes.toPath().resolve(ANALYZED_CLASS);
+    Files.copy(classes.toPath().resolve(OTHER_PACKAGE_CLASS), analyzedClass, REPLACE_EXISTING);
+
+    final Analysis analysis = analyze(4);
+
+    assertThat(analysis.graph.toMap(), equalTo(fullAnalysis()));
+    assertThat(analysis.log, hasItem(containsString(" 1 changed, 1 parsed, 0 removed")));
+  }
+
+  @Test
+  public void reusesRecordOfClassCompiledToSameContent() throws Exception {
+    analyze(4);
+    final File analyzedClass = new File(classes, ANALYZED_CLASS);
+    assertThat(analyzedClass.setLastModified(analyzedClass.lastModified() + 10000), is(true));
+
+    final Analysis analysis = analyze(4);
+
+    assertThat(analysis.graph.toMap(), equalTo(fullAnalysis()));
+    assertThat(analysis.log, hasItem(containsString(" 1 changed, 0 parsed, 0 removed")));
+  }
+
+  @Test
+  public void analyzesClassRewrittenWithSameSizeAndChecksum() throws Exception {
+    analyze(4);
+    final Path analyzedClass = classes.toPath().resolve(ANALYZED_CLASS);
+    final byte[] classBytes = Files.readAllBytes(analyzedClass);
+    final byte[] rewrittenBytes = forgeSameChecksum(classBytes);
+    assertThat(Arrays.equals(rewrittenBytes, classBytes), is(false));
+    assertThat(crc(rewrittenBytes), is(crc(classBytes)));
+    Files.write(analyzedClass, rewrittenBytes);
+    assertThat(analyzedClass.toFile().setLastModified(analyzedClass.toFile().lastModified() + 10000), is(true));
+
+    final Analysis analysis = analyze(4);
+
+    assertThat(analysis.graph.toMap(), equalTo(fullAnalysis()));
+    assertThat(analysis.log, hasItem(containsString(" 1 changed, 1 parsed, 0 removed")));
+  }
+
+  @Test
+  public void dropsRecordsOfDeletedClasses() throws Exception {
+    analyze(4);
+    deleteFolder(classes.toPath().resolve(ANALYZED_PACKAGE));
+
+    final Analysis analysis = analyze(4);
+
+    assertThat(analysis.graph.toMap(), equalTo(fullAnalysis()));
+    assertThat(analysis.graph.toMap(), not(hasKey("org.mule.tools.maven.plugin.module.common")));
+    assertThat(analysis.log, hasItem(containsString(" 0 changed, 0 parsed, ")));
+    assertThat(analysis.log, not(hasItem(containsString(" 0 removed"))));
+  }
+
+  @Test
+  public void analyzesAddedClass() throws Exception {
+    analyze(4);
+    final Path addedClass = classes.toPath().resolve("org/added/Added.class");
+    Files.createDirectories(addedClass.getParent());
+    Files.copy(classes.toPath().resolve(OTHER_PACKAGE_CLASS), addedClass);
+
+    final Analysis analysis = analyze(4);
+
+    assertThat(analysis.graph.toMap(), equalTo(fullAnalysis()));
+    assertThat(analysis.graph.toMap(), hasKey("org.added"));
+    assertThat(analysis.log, hasItem(containsString(" 1 changed, 1 parsed, 0 removed")));
+  }
+
+  @Test
+  public void analyzesFolderAgainWhenRecordsAreCorrupted() throws Exception {
+    analyze(4);
+    final byte[] records = Files.readAllBytes(recordsFile.toPath());
+    records[records.length / 2] ^= 0xFF;
+    Files.write(recordsFile.toPath(), records);
+
+    final Analysis analysis = analyze(4);
+
+    assertThat(analysis.graph.toMap(), equalTo(fullAnalysis()));
+    assertThat(analysis.log, hasItem(containsString("Discarding invalid class records")));
+    assertThat(analyze(4).log, hasItem(containsString(" 0 changed, 0 parsed, 0 removed")));
+  }
+
+  @Test
+  public void analyzesClassesOfGivenListing() throws Exception {
+    final FolderListing listing = FolderListing.of(classes);
+    final Map<String, Set<String>> listedDependencies = fullAnalysis();
+    final Path addedClass = classes.toPath().resolve("org/added/Added.class");
+    Files.createDirectories(addedClass.getParent());
+    Files.copy(classes.toPath().resolve(OTHER_PACKAGE_CLASS), addedClass);
+
+    final PackageGraph graph = new IncrementalClassFolderAnalyzer(recordsFile, listing)
+        .analyze(classes.toURI().toURL(), new SilentAnalyzerLogger(), 4);
+
+    assertThat(graph.toMap(), equalTo(listedDependencies));
+  }
+
+  private Analysis analyze(int threads) throws IOException {
+    final Analysis analysis = new Analysis();
+    // Keeps the summary of the analysis only, as an enabled logger also receives every dependency found
+    final ModuleLogger logger = message -> {
+      if (message.startsWith("Incremental analysis") || message.startsWith("Discarding")) {
+        analysis.log.add(message);
+      }
+    };
+    analysis.graph = new IncrementalClassFolderAnalyzer(recordsFile).analyze(classes.toURI().toURL(), logger, threads);
+    return analysis;
+  }
+
+  private Map<String, Set<String>> fullAnalysis() throws IOException {
+    return new ASMDependencyAnalyzer().analyze(classes.toURI().toURL(), new SilentAnalyzerLogger(), 1).toMap();
+  }
+
+  /**
+   * Flips low bits of the source file name of a class, which does not change its dependencies, so the content keeps the size and
+   * CRC32 of the original one. As CRC32 is linear, any set of bit flips whose CRC differences cancel out does so, and 64
+   * candidate bits always contain one for a 32 bits checksum.
+   */
+  private static byte[] forgeSameChecksum(byte[] classBytes) {
+    final int offset = indexOf(classBytes, ANALYZED_SOURCE_FILE.getBytes(US_ASCII));
+    assertThat(offset, greaterThan(-1));
+
+    final long[] basis = new long[Integer.SIZE];
+    final long[] flips = new long[Integer.SIZE];
+    final long originalCrc = crc(classBytes);
+    for (int candidate = 0; candidate < Long.SIZE; candidate++) {
+      long difference = crc(flip(classBytes, offset, 1L << candidate)) ^ originalCrc;
+      long flip = 1L << candidate;
+      for (int bit = Integer.SIZE - 1; bit >= 0 && difference != 0; bit--) {
+        if ((difference & (1L << bit)) == 0) {
+          continue;
+        }
+        if (basis[bit] == 0) {
+          basis[bit] = difference;
+          flips[bit] = flip;
+          break;
+        }
+        difference ^= basis[bit];
+        flip ^= flips[bit];
+      }
+      if (difference == 0) {
+        return flip(classBytes, offset, flip);
+      }
+    }
+    throw new AssertionError("No bit flips keep the checksum");
+  }
+
+  /**
+   * Flips the 4 lowest bits of 16 consecutive characters, which keeps them printable ASCII.
+   */
+  private static byte[] flip(byte[] bytes, int offset, long flips) {
+    final byte[] flipped = bytes.clone();
+    for (int candidate = 0; candidate < Long.SIZE; candidate++) {
+      if ((flips & (1L << candidate)) != 0) {
+        flipped[offset + candidate / 4] ^= 1 << (candidate % 4);
+      }
+    }
+    return flipped;
+  }
+
+  private static int indexOf(byte[] bytes, byte[] value) {
+    for (int i = 0; i <= bytes.length - value.length; i++) {
+      if (Arrays.equals(Arrays.copyOfRange(bytes, i, i + value.length), value)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static long crc(byte[] bytes) {
+    final CRC32 crc = new CRC32();
+    crc.update(bytes);
+    return crc.getValue();
+  }
+
+  private static File getPluginClasses() throws Exception {
+    return new File(IncrementalClassFolderAnalyzer.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+  }
+
+  private static void copyFolder(Path source, Path target) throws IOException {
+    try (Stream<Path> files = walk(source)) {
+      for (Path file : files.collect(toList())) {
+        final Path copy = target.resolve(source.relativize(file).toString());
+        if (Files.isDirectory(file)) {
+          Files.createDirectories(copy);
+        } else {
+          Files.copy(file, copy, COPY_ATTRIBUTES);
+        }
+      }
+    }
+  }
+
+  private static void deleteFolder(Path folder) throws IOException {
+    try (Stream<Path> files = walk(folder)) {
+      for (Path file : files.sorted(reverseOrder()).collect(toList())) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  private static final class Analysis {
+
+    private final List<String> log = new ArrayList<>();
+    private PackageGraph graph;
+  }
+}
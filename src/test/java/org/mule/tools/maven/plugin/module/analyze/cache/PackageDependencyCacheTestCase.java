@@ -0,0 +1,181 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.analyze.cache;
+
+import static java.util.Arrays.asList;
+import static java.util.Arrays.copyOf;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anyOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+import org.mule.tools.maven.plugin.module.analyze.PackageGraph;
+import org.mule.tools.maven.plugin.module.common.ModuleLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PackageDependencyCacheTestCase {
+
+  private static final ArtifactFingerprint FINGERPRINT = new ArtifactFingerprint("/repository/foo.jar", 1000, 2000, 3000);
+  private static final PackageGraph GRAPH = PackageGraph.of(dependencies("org.foo", "org.bar", "org.baz"));
+  private static final PackageGraph OTHER_GRAPH = PackageGraph.of(dependencies("org.qux", "org.foo"));
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final List<String> log = new CopyOnWriteArrayList<>();
+  private final ModuleLogger logger = log::add;
+  private File directory;
+  private PackageDependencyCache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = temporaryFolder.newFolder("cache");
+    cache = new PackageDependencyCache(directory);
+  }
+
+  @Test
+  public void loadsStoredGraph() {
+    cache.store(FINGERPRINT, GRAPH, logger);
+
+    assertThat(cache.load(FINGERPRINT, logger), equalTo(GRAPH));
+    assertThat(cache.loadPackages(FINGERPRINT, logger), is(nullValue()));
+  }
+
+  @Test
+  public void discardsTruncatedEntry() throws Exception {
+    cache.store(FINGERPRINT, GRAPH, logger);
+    final Path entry = getEntry();
+    final byte[] content = Files.readAllBytes(entry);
+    Files.write(entry, copyOf(content, content.length / 2));
+
+    assertDiscarded(entry);
+  }
+
+  @Test
+  public void discardsEntryWithBadChecksum() throws Exception {
+    cache.store(FINGERPRINT, GRAPH, logger);
+    final Path entry = getEntry();
+    final byte[] content = Files.readAllBytes(entry);
+    content[content.length / 2] ^= 0xFF;
+    Files.write(entry, content);
+
+    assertDiscarded(entry);
+  }
+
+  @Test
+  public void discardsEntryOfOtherFormatVersion() throws Exception {
+    cache.store(FINGERPRINT, GRAPH, logger);
+    final Path entry = getEntry();
+    final ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(entry));
+    // The version follows the magic number, the checksum is updated so only the version is wrong
+    content.putInt(Integer.BYTES, PackageDependencyCache.FORMAT_VERSION + 1);
+    final int contentLength = content.limit() - Long.BYTES;
+    final CRC32 crc = new CRC32();
+    crc.update(content.array(), 0, contentLength);
+    content.putLong(contentLength, crc.getValue());
+    Files.write(entry, content.array());
+
+    assertDiscarded(entry);
+  }
+
+  @Test
+  public void ignoresEntryOfStaleFingerprint() {
+    cache.store(FINGERPRINT, GRAPH, logger);
+    final ArtifactFingerprint changed = new ArtifactFingerprint(FINGERPRINT.getPath(), FINGERPRINT.getSize(),
+                                                                FINGERPRINT.getLastModified() + 1, FINGERPRINT.getDigest());
+
+    assertThat(cache.load(changed, logger), is(nullValue()));
+
+    cache.store(changed, OTHER_GRAPH, logger);
+    assertThat(cache.load(changed, logger), equalTo(OTHER_GRAPH));
+    assertThat(cache.load(FINGERPRINT, logger), is(nullValue()));
+  }
+
+  @Test
+  public void readsCompleteEntriesWhileStoredConcurrently() throws Exception {
+    final int threads = 8;
+    final int iterations = 200;
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final CountDownLatch start = new CountDownLatch(1);
+      final List<Future<?>> tasks = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        final PackageGraph graph = i % 2 == 0 ? GRAPH : OTHER_GRAPH;
+        tasks.add(executor.submit(() -> {
+          start.await();
+          for (int j = 0; j < iterations; j++) {
+            cache.store(FINGERPRINT, graph, logger);
+            assertThat(cache.load(FINGERPRINT, logger), anyOf(equalTo(GRAPH), equalTo(OTHER_GRAPH)));
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> task : tasks) {
+        task.get(60, SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // Readers only ever see complete entries, whatever writer replaced them last
+    assertThat(log, not(hasItem(containsString("Discarding invalid cache entry"))));
+    assertThat(asList(directory.list()), equalTo(asList(getEntry().getFileName().toString())));
+  }
+
+  private void assertDiscarded(Path entry) {
+    assertThat(cache.load(FINGERPRINT, logger), is(nullValue()));
+    assertThat(log, hasItem(containsString("Discarding invalid cache entry")));
+    assertThat(Files.exists(entry), is(false));
+
+    cache.store(FINGERPRINT, GRAPH, logger);
+    assertThat(cache.load(FINGERPRINT, logger), equalTo(GRAPH));
+  }
+
+  private Path getEntry() throws IOException {
+    final File[] entries = directory.listFiles();
+    assertThat(entries.length, is(1));
+    return entries[0].toPath();
+  }
+
+  /**
+   * @return a graph where the first package depends on all the others
+   */
+  private static Map<String, Set<String>> dependencies(String packageName, String... dependencies) {
+    final Map<String, Set<String>> result = new HashMap<>();
+    result.put(packageName, new HashSet<>(asList(dependencies)));
+    return result;
+  }
+}
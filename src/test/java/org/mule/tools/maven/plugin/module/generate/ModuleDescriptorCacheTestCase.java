@@ -0,0 +1,227 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.tools.maven.plugin.module.generate;
+
+import static org.mule.tools.maven.plugin.module.bean.Module.MULE_MODULE_PROPERTIES_LOCATION;
+import static org.mule.tools.maven.plugin.module.generate.CachingModuleFinder.deriveJarModule;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.jar.Attributes.Name.MAIN_CLASS;
+import static java.util.jar.Attributes.Name.MANIFEST_VERSION;
+import static java.util.jar.Attributes.Name.MULTI_RELEASE;
+import static java.util.stream.Collectors.toList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.objectweb.asm.Opcodes.ACC_MANDATED;
+import static org.objectweb.asm.Opcodes.ACC_MODULE;
+import static org.objectweb.asm.Opcodes.ACC_OPEN;
+import static org.objectweb.asm.Opcodes.ACC_STATIC_PHASE;
+import static org.objectweb.asm.Opcodes.ACC_TRANSITIVE;
+import static org.objectweb.asm.Opcodes.V9;
+
+import org.mule.tools.maven.plugin.module.analyze.cache.ArtifactFingerprint;
+import org.mule.tools.maven.plugin.module.generate.ModuleDescriptorCache.JarModuleDescriptor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleDescriptor.Requires;
+import java.lang.module.ModuleFinder;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.ModuleVisitor;
+
+public class ModuleDescriptorCacheTestCase {
+
+  private static final byte[] CLASS = new byte[] {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE};
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private ModuleDescriptorCache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    cache = new ModuleDescriptorCache(temporaryFolder.newFolder("cache"));
+  }
+
+  @Test
+  public void keepsExplicitModule() throws Exception {
+    final Map<String, byte[]> entries = fooEntries();
+    entries.put("module-info.class", moduleInfo("org.foo", 0, "v1", "org.bar"));
+    entries.put(MULE_MODULE_PROPERTIES_LOCATION, "module.name=foo".getBytes(UTF_8));
+    final File jar = createJar("foo.jar", null, entries);
+
+    final ModuleDescriptor descriptor = roundTrip(jar, true);
+
+    // Versions that cannot be parsed are kept raw, as the module system does
+    assertThat(descriptor.rawVersion(), is(Optional.of("v1")));
+    assertThat(descriptor.version(), is(Optional.empty()));
+    assertThat(getRequires(descriptor, "org.bar").rawCompiledVersion(), is(Optional.of("not-a-version")));
+    assertThat(descriptor.opens().size(), is(2));
+    assertThat(descriptor.mainClass(), is(Optional.of("org.foo.Main")));
+    assertThat(new CachingModuleFinder(singletonList(jar.toPath()), cache).find("org.foo").get().descriptor(),
+               equalTo(descriptor));
+  }
+
+  @Test
+  public void keepsOpenModule() throws Exception {
+    final Map<String, byte[]> entries = fooEntries();
+    entries.put("module-info.class", moduleInfo("org.foo", ACC_OPEN, "1.0", "org.bar"));
+    final File jar = createJar("foo.jar", null, entries);
+
+    final ModuleDescriptor descriptor = roundTrip(jar, false);
+
+    assertThat(descriptor.isOpen(), is(true));
+    assertThat(getRequires(descriptor, "org.bar").rawCompiledVersion(), is(Optional.of("not-a-version")));
+    assertThat(descriptor.rawVersion(), is(Optional.of("1.0")));
+  }
+
+  @Test
+  public void keepsAutomaticModule() throws Exception {
+    final Manifest manifest = manifest();
+    manifest.getMainAttributes().put(MAIN_CLASS, "org.auto.Main");
+    final Map<String, byte[]> entries = new LinkedHashMap<>();
+    entries.put("org/auto/Main.class", CLASS);
+    entries.put("org/auto/impl/ServiceImpl.class", CLASS);
+    entries.put("META-INF/services/org.auto.spi.Service", "org.auto.impl.ServiceImpl\n".getBytes(UTF_8));
+    final File jar = createJar("auto-utils-1.2.3.jar", manifest, entries);
+
+    final ModuleDescriptor descriptor = roundTrip(jar, false);
+
+    assertThat(descriptor.isAutomatic(), is(true));
+    assertThat(descriptor.name(), is("auto.utils"));
+    assertThat(descriptor.rawVersion(), is(Optional.of("1.2.3")));
+    assertThat(descriptor.mainClass(), is(Optional.of("org.auto.Main")));
+    assertThat(descriptor.provides().size(), is(1));
+  }
+
+  @Test
+  public void keepsModuleOfRunningReleaseOfMultiReleaseJar() throws Exception {
+    final Manifest manifest = manifest();
+    manifest.getMainAttributes().put(MULTI_RELEASE, "true");
+    final Map<String, byte[]> entries = fooEntries();
+    entries.put("module-info.class", moduleInfo("org.foo", 0, "1.0", "org.old"));
+    entries.put("META-INF/versions/11/module-info.class", moduleInfo("org.foo", 0, "1.0", "org.new"));
+    final File jar = createJar("foo.jar", manifest, entries);
+
+    final ModuleDescriptor descriptor = roundTrip(jar, false);
+
+    assertThat(getRequiredModules(descriptor), hasItem("org.new"));
+    assertThat(getRequiredModules(descriptor), not(hasItem("org.old")));
+  }
+
+  @Test
+  public void keepsModuleDeclaredOnlyForLaterReleasesOfMultiReleaseJar() throws Exception {
+    final Manifest manifest = manifest();
+    manifest.getMainAttributes().put(MULTI_RELEASE, "true");
+    final Map<String, byte[]> entries = fooEntries();
+    entries.put("META-INF/versions/9/module-info.class", moduleInfo("org.foo", ACC_OPEN, "2.0", "org.bar"));
+    final File jar = createJar("foo.jar", manifest, entries);
+
+    final ModuleDescriptor descriptor = roundTrip(jar, false);
+
+    assertThat(descriptor.isOpen(), is(true));
+    assertThat(descriptor.name(), is("org.foo"));
+  }
+
+  /**
+   * Stores the module of a jar and asserts the loaded one is the one the module system finds on it
+   */
+  private ModuleDescriptor roundTrip(File jar, boolean muleModule) throws IOException {
+    final ArtifactFingerprint fingerprint = ArtifactFingerprint.of(jar);
+    cache.store(fingerprint, deriveJarModule(jar.toPath()));
+
+    final JarModuleDescriptor loaded = cache.load(fingerprint);
+    assertThat(loaded, notNullValue());
+    assertThat(loaded.isMuleModule(), is(muleModule));
+    final ModuleDescriptor expected = ModuleFinder.of(jar.toPath()).findAll().iterator().next().descriptor();
+    assertThat(loaded.getDescriptor(), equalTo(expected));
+    assertThat(loaded.getDescriptor().requires(), equalTo(expected.requires()));
+    assertThat(loaded.getDescriptor().packages(), equalTo(expected.packages()));
+    return loaded.getDescriptor();
+  }
+
+  private static Requires getRequires(ModuleDescriptor descriptor, String name) {
+    return descriptor.requires().stream().filter(requires -> requires.name().equals(name)).findFirst().get();
+  }
+
+  private static List<String> getRequiredModules(ModuleDescriptor descriptor) {
+    return descriptor.requires().stream().map(Requires::name).collect(toList());
+  }
+
+  private static Map<String, byte[]> fooEntries() {
+    final Map<String, byte[]> entries = new LinkedHashMap<>();
+    for (String className : asList("org/foo/Main", "org/foo/internal/A", "org/foo/impl/ServiceImpl", "org/foo/spi/Service")) {
+      entries.put(className + ".class", CLASS);
+    }
+    return entries;
+  }
+
+  /**
+   * @return a module declaration using every feature. Open modules cannot declare opens, so only the others declare them.
+   */
+  private static byte[] moduleInfo(String name, int access, String version, String requiredModule) {
+    final ClassWriter classWriter = new ClassWriter(0);
+    classWriter.visit(V9, ACC_MODULE, "module-info", null, null, null);
+    final ModuleVisitor module = classWriter.visitModule(name, access, version);
+    module.visitMainClass("org/foo/Main");
+    module.visitRequire("java.base", ACC_MANDATED, null);
+    module.visitRequire(requiredModule, ACC_TRANSITIVE, "not-a-version");
+    module.visitRequire("org.optional", ACC_STATIC_PHASE, "2.0");
+    module.visitExport("org/foo", 0);
+    module.visitExport("org/foo/spi", 0, "org.bar", "org.baz");
+    if ((access & ACC_OPEN) == 0) {
+      module.visitOpen("org/foo/impl", 0);
+      module.visitOpen("org/foo/internal", 0, "org.bar");
+    }
+    module.visitUse("org/foo/spi/Service");
+    module.visitProvide("org/foo/spi/Service", "org/foo/impl/ServiceImpl");
+    module.visitEnd();
+    classWriter.visitEnd();
+    return classWriter.toByteArray();
+  }
+
+  private static Manifest manifest() {
+    final Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(MANIFEST_VERSION, "1.0");
+    return manifest;
+  }
+
+  private File createJar(String name, Manifest manifest, Map<String, byte[]> entries) throws IOException {
+    final File jar = new File(temporaryFolder.getRoot(), name);
+    try (OutputStream out = Files.newOutputStream(jar.toPath());
+        JarOutputStream jarOut = manifest != null ? new JarOutputStream(out, manifest) : new JarOutputStream(out)) {
+      for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+        jarOut.putNextEntry(new ZipEntry(entry.getKey()));
+        jarOut.write(entry.getValue());
+        jarOut.closeEntry();
+      }
+    }
+    return jar;
+  }
+}
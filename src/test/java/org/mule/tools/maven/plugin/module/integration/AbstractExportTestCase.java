@@ -10,6 +10,7 @@ import static org.mule.tools.maven.plugin.module.analyze.AnalyzeMojo.DUPLICATED_
 import static org.mule.tools.maven.plugin.module.analyze.AnalyzeMojo.DUPLICATED_PRIVILEGED_EXPORTED_PACKAGES;
 import static org.mule.tools.maven.plugin.module.analyze.AnalyzeMojo.MODULE_API_PROBLEMS_FOUND;
 import static org.mule.tools.maven.plugin.module.analyze.AnalyzeMojo.NOT_ANALYZED_PACKAGES_ERROR;
+import static org.mule.tools.maven.plugin.module.analyze.AnalyzeMojo.NOT_ANALYZED_PRIVILEGED_PACKAGES_ERROR;
 import static org.mule.tools.maven.plugin.module.analyze.AnalyzeMojo.NO_MODULE_API_PROBLEMS_FOUND;
 import static org.mule.tools.maven.plugin.module.analyze.AnalyzeMojo.PACKAGES_TO_EXPORT_ERROR;
 import static org.mule.tools.maven.plugin.module.analyze.AnalyzeMojo.PRIVILEGED_PACKAGES_TO_EXPORT_ERROR;
@@ -23,9 +24,11 @@ import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
 
 import java.io.File;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -58,6 +61,12 @@ public abstract class AbstractExportTestCase {
   private static final Pattern moduleTitleStart = Pattern.compile("\\[INFO\\]\\s-+<.*>-+");
   private static final String ANALYZING_CLASS_PREFIX = INFO_LOG_PREFIX + "Analyzing class: ";
   private static final String MAVEN_BUILD_PREFIX = "[INFO] Building ";
+  private static final String NON_VERBOSE_OPTION = "-DmuleModule.analyze.verbose=false";
+  private static final String[] VERDICT_MESSAGES =
+      {NO_MODULE_API_PROBLEMS_FOUND, MODULE_API_PROBLEMS_FOUND, "BUILD SUCCESS", "BUILD FAILURE"};
+  private static final String[] PACKAGE_LIST_MESSAGES =
+      {PACKAGES_TO_EXPORT_ERROR, PRIVILEGED_PACKAGES_TO_EXPORT_ERROR, NOT_ANALYZED_PACKAGES_ERROR,
+          NOT_ANALYZED_PRIVILEGED_PACKAGES_ERROR, DUPLICATED_EXPORTED_PACKAGES, DUPLICATED_PRIVILEGED_EXPORTED_PACKAGES};
 
   @Rule
   public final TestResources resources = new TestResources();
@@ -239,6 +248,20 @@ public abstract class AbstractExportTestCase {
     return splitLog(logLines);
   }
 
+  /**
+   * Builds a multi module with Maven on a copy of a test project that is already created
+   *
+   * @param basedir    copy of the test project, as returned by {@link #getBasedir(String)}.
+   * @param cliOptions options added to the default ones.
+   * @param goals      goals to execute.
+   * @return a {@link Map} containing the separated Maven's log of each single module build
+   * @throws Exception
+   */
+  protected Map<String, List<String>> buildMultiModule(File basedir, List<String> cliOptions, String... goals)
+      throws Exception {
+    return splitLog(getLogLines(runMaven(basedir, cliOptions, goals)));
+  }
+
   /**
    * Asserts that there are the expected log entries regarding missing exported packages
    *
@@ -288,9 +311,46 @@ public abstract class AbstractExportTestCase {
     return runMaven(projectName, "compile", "mule-module:analyze");
   }
 
+  /**
+   * Runs Maven on a new copy of a test project. The project is built first without the verbose option, which lets the analysis
+   * skip work, on another copy, checking that both builds reach the same verdicts.
+   *
+   * @param projectName name of the folder containing the Maven project to test.
+   * @param goals       goals to execute.
+   * @return the result of the verbose build
+   * @throws Exception
+   */
   protected MavenExecutionResult runMaven(String projectName, String... goals) throws Exception {
-    File basedir = resources.getBasedir(folder + separator + projectName);
-    return mavenRuntime.forProject(basedir).execute(goals);
+    List<String> nonVerboseVerdicts =
+        getVerdicts(mavenRuntime.forProject(getBasedir(projectName)).withCliOptions(NON_VERBOSE_OPTION).execute(goals));
+
+    MavenExecutionResult result = mavenRuntime.forProject(getBasedir(projectName)).execute(goals);
+    assertThat("Verdicts of the build without the verbose option", nonVerboseVerdicts, equalTo(getVerdicts(result)));
+    return result;
+  }
+
+  /**
+   * Runs Maven on a copy of a test project that is already created, so consecutive builds see what the previous ones left
+   *
+   * @param basedir    copy of the test project, as returned by {@link #getBasedir(String)}.
+   * @param cliOptions options added to the default ones.
+   * @param goals      goals to execute.
+   * @return the result of the build
+   * @throws Exception
+   */
+  protected MavenExecutionResult runMaven(File basedir, List<String> cliOptions, String... goals) throws Exception {
+    return mavenRuntime.forProject(basedir).withCliOptions(cliOptions.toArray(new String[0])).execute(goals);
+  }
+
+  /**
+   * Creates a new copy of a test project
+   *
+   * @param projectName name of the folder containing the Maven project to test.
+   * @return the folder of the copy
+   * @throws Exception
+   */
+  protected File getBasedir(String projectName) throws Exception {
+    return resources.getBasedir(folder + separator + projectName);
   }
 
   private Map<String, List<String>> splitLog(List<String> logLines) {
@@ -347,7 +407,31 @@ public abstract class AbstractExportTestCase {
     throw new AssertionError(builder.toString());
   }
 
-  private List<String> getLogLines(MavenExecutionResult result) {
+  /**
+   * @return the lines of the log that state the result of each project, with the packages listed by each message sorted.
+   */
+  private List<String> getVerdicts(MavenExecutionResult result) {
+    List<String> logLines = getLogLines(result);
+    List<String> verdicts = new ArrayList<>();
+    int i = 0;
+    while (i < logLines.size()) {
+      String line = logLines.get(i++);
+      if (line.startsWith(MAVEN_BUILD_PREFIX) || stream(VERDICT_MESSAGES).anyMatch(line::contains)) {
+        verdicts.add(line);
+      } else if (stream(PACKAGE_LIST_MESSAGES).anyMatch(line::endsWith)) {
+        verdicts.add(line);
+        List<String> packages = new ArrayList<>();
+        while (i < logLines.size() && !logLines.get(i).startsWith("[")) {
+          packages.add(logLines.get(i++));
+        }
+        packages.sort(null);
+        verdicts.addAll(packages);
+      }
+    }
+    return verdicts;
+  }
+
+  protected List<String> getLogLines(MavenExecutionResult result) {
     List<String> log;
     try {
       Field logField = result.getClass().getDeclaredField("log");
@@ -188,6 +188,31 @@ public class GenerateTestCase extends AbstractExportTestCase {
     assertThat(muleModule.getOptionalExportedPackages(), empty());
   }
 
+  @Test
+  public void requiresTransitiveDiamond() throws Exception {
+    MavenExecutionResult result = runMaven("requiresTransitiveDiamond", "package", "mule-module:analyze");
+    result.assertErrorFreeLog();
+    assertThat(result.getLog(), hasItem("[INFO] No module API problems found"));
+
+    final long nonMuleModuleProjects = result.getLog()
+        .stream()
+        .filter(log -> log.equals("[INFO] " + PROJECT_IS_NOT_A_MULE_MODULE))
+        .count();
+    // `non-mule-base` and the three modules requiring it
+    assertThat(nonMuleModuleProjects, is(4L));
+
+    final Module muleModule =
+        loadMuleModuleProperties("mule-module-with-diamond", result);
+
+    assertThat(muleModule.getName(), is("org.diamond.wrapper"));
+    assertThat(muleModule.getExportedPackages(),
+               containsInAnyOrder("org.diamond", "org.left", "org.center", "org.right", "org.base"));
+    assertThat(muleModule.getExportedPrivilegedPackages(), empty());
+    assertThat(muleModule.getModulePrivilegedArtifactIds(), empty());
+    assertThat(muleModule.getModuleServiceDefinitions(), empty());
+    assertThat(muleModule.getOptionalExportedPackages(), empty());
+  }
+
   // W-14610690
   @Test
   public void transitiveMuleModuleAsTestDependency() throws Exception {
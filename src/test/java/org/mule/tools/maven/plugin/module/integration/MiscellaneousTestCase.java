@@ -6,18 +6,31 @@
  */
 package org.mule.tools.maven.plugin.module.integration;
 
+import static org.mule.tools.maven.plugin.module.analyze.AnalyzeMojo.MODULE_API_PROBLEMS_FOUND;
+import static org.mule.tools.maven.plugin.module.analyze.AnalyzeMojo.MODULE_API_UP_TO_DATE;
 import static org.mule.tools.maven.plugin.module.analyze.DefaultModuleApiAnalyzer.buildRemovedJrePackageMessage;
 import static org.mule.tools.maven.plugin.module.analyze.DefaultModuleApiAnalyzer.buildRemovedSunPackageMessage;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Files.write;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+
 import static org.apache.commons.lang3.JavaVersion.JAVA_11;
 import static org.apache.commons.lang3.SystemUtils.isJavaVersionAtLeast;
+import static org.hamcrest.CoreMatchers.allOf;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assume.assumeFalse;
 
+import java.io.File;
 import java.util.List;
 
+import io.takari.maven.testing.executor.MavenExecutionResult;
 import io.takari.maven.testing.executor.MavenRuntime;
 
 import org.junit.Test;
@@ -66,4 +79,59 @@ public class MiscellaneousTestCase extends AbstractExportTestCase {
 
     assertValidModuleApi(log);
   }
+
+  @Test
+  public void reportsAnalysisMetrics() throws Exception {
+    MavenExecutionResult result =
+        runMaven(getBasedir("services"), singletonList("-DmuleModule.analysis.metrics=true"), "compile", "mule-module:analyze");
+
+    assertThat(result.getLog(), hasItem(containsString("Module analyze metrics: total ")));
+    File report = new File(result.getBasedir(), "target/mule-module-maven-plugin/analyze-metrics.json");
+    assertThat(report.isFile(), is(true));
+    String json = new String(readAllBytes(report.toPath()), UTF_8);
+    assertThat(json, containsString("\"goal\": \"analyze\""));
+    assertThat(json, containsString("\"name\": \"projectScan\""));
+  }
+
+  @Test
+  public void logsPhaseWallTimesByDefault() throws Exception {
+    MavenExecutionResult result = runMaven(getBasedir("services"), emptyList(), "compile", "mule-module:analyze");
+
+    assertThat(result.getLog(),
+               hasItem(allOf(containsString("Module analyze metrics: total "), not(containsString("MB allocated")))));
+    assertThat(new File(result.getBasedir(), "target/mule-module-maven-plugin/analyze-metrics.json").exists(), is(false));
+  }
+
+  @Test
+  public void skipsUpToDateAnalysis() throws Exception {
+    File basedir = getBasedir("upToDateAnalysis");
+    // The integration tests run verbose analyses, which are never skipped
+    List<String> options = singletonList("-DmuleModule.analyze.verbose=false");
+    File verdictRecord = new File(basedir, "target/mule-module-maven-plugin/analyze-verdict.bin");
+
+    MavenExecutionResult result = runMaven(basedir, options, "compile", "mule-module:analyze");
+    assertValidModuleApi(result.getLog());
+    assertThat(result.getLog(), not(hasItem(containsString(MODULE_API_UP_TO_DATE))));
+    assertThat(verdictRecord.isFile(), is(true));
+
+    result = runMaven(basedir, options, "compile", "mule-module:analyze");
+    assertValidModuleApi(result.getLog());
+    assertThat(result.getLog(), hasItem(containsString(MODULE_API_UP_TO_DATE)));
+
+    write(new File(basedir, "src/main/java/org/foo/A.java").toPath(),
+          "package org.foo;\n\nimport org.bar.B;\n\npublic class A extends B {\n\n  public void a() {}\n}\n".getBytes(UTF_8));
+    result = runMaven(basedir, options, "compile", "mule-module:analyze");
+    assertValidModuleApi(result.getLog());
+    assertThat(result.getLog(), not(hasItem(containsString(MODULE_API_UP_TO_DATE))));
+
+    result = runMaven(basedir, options, "compile", "mule-module:analyze");
+    assertThat(result.getLog(), hasItem(containsString(MODULE_API_UP_TO_DATE)));
+
+    write(new File(basedir, "src/main/resources/META-INF/mule-module.properties").toPath(),
+          "module.name=foo\nartifact.export.classPackages=org.foo\n".getBytes(UTF_8));
+    result = runMaven(basedir, options, "compile", "mule-module:analyze");
+    assertThat(result.getLog(), not(hasItem(containsString(MODULE_API_UP_TO_DATE))));
+    assertThat(result.getLog(), hasItem(containsString(MODULE_API_PROBLEMS_FOUND)));
+    assertThat(verdictRecord.exists(), is(false));
+  }
 }
@@ -6,14 +6,22 @@
  */
 package org.mule.tools.maven.plugin.module.integration;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Files.write;
+import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mule.tools.maven.plugin.module.analyze.AnalyzeMojo.PACKAGES_TO_EXPORT_ERROR;
 import static org.mule.tools.maven.plugin.module.analyze.DefaultModuleApiAnalyzer.PROJECT_IS_NOT_A_MULE_MODULE;
 import static org.mule.tools.maven.plugin.module.analyze.DefaultModuleApiAnalyzer.buildOptionalPackageExportedMessage;
+import static org.mule.tools.maven.plugin.module.common.SessionCacheReporter.SESSION_CACHE_USAGE;
 
+import java.io.File;
 import java.util.List;
 import java.util.Map;
 
@@ -53,6 +61,48 @@ public class ModuleTestCase extends AbstractExportTestCase {
     assertMissingExportedPackages(fooLog, PACKAGES_TO_EXPORT_ERROR, BAR_PACKAGE);
   }
 
+  @Test
+  public void scansLibrariesOnDemandLikeFullScan() throws Exception {
+    File basedir = getBasedir("missingExportsPackageFromLibrary");
+    File cacheDirectory = new File(basedir, "analysis-cache");
+
+    Map<String, List<String>> logs =
+        buildMultiModule(basedir, libraryScanOptions(cacheDirectory, true), "package", "mule-module:analyze");
+    assertMissingExportedPackages(logs.get(FOO_MODULE_ID), PACKAGES_TO_EXPORT_ERROR, BAR_PACKAGE);
+    String[] packageEntries = cacheDirectory.list((directory, name) -> name.endsWith(".pkgpart"));
+    assertThat(packageEntries != null && packageEntries.length > 0, is(true));
+
+    logs = buildMultiModule(basedir, libraryScanOptions(cacheDirectory, true), "package", "mule-module:analyze");
+    assertMissingExportedPackages(logs.get(FOO_MODULE_ID), PACKAGES_TO_EXPORT_ERROR, BAR_PACKAGE);
+
+    logs = buildMultiModule(basedir, libraryScanOptions(cacheDirectory, false), "package", "mule-module:analyze");
+    assertMissingExportedPackages(logs.get(FOO_MODULE_ID), PACKAGES_TO_EXPORT_ERROR, BAR_PACKAGE);
+  }
+
+  @Test
+  public void logsSessionCacheUsageOnceBuildEnds() throws Exception {
+    File basedir = getBasedir("missingExportsPackageFromLibrary");
+
+    // The foo module fails, so the usage is only logged if it is not tied to the execution on the last project
+    List<String> log = getLogLines(runMaven(basedir, singletonList("-DmuleModule.analyze.verbose=false"), "package",
+                                            "mule-module:analyze"));
+
+    assertSessionCacheUsageLoggedOnceAfterLastProjectStarts(log);
+  }
+
+  @Test
+  public void logsSessionCacheUsageOnceLastProjectEndsWithoutExtensions() throws Exception {
+    File basedir = getBasedir("missingExportsPackageFromLibrary");
+    File pom = new File(basedir, "pom.xml");
+    write(pom.toPath(), new String(readAllBytes(pom.toPath()), UTF_8).replace("<extensions>true</extensions>", "")
+        .getBytes(UTF_8));
+
+    List<String> log = getLogLines(runMaven(basedir, singletonList("-DmuleModule.analyze.verbose=false"), "package",
+                                            "mule-module:analyze"));
+
+    assertSessionCacheUsageLoggedOnceAfterLastProjectStarts(log);
+  }
+
   @Test
   public void noExportsPackageFromModule() throws Exception {
     Map<String, List<String>> logs = buildMultiModule("noExportsPackageFromModule");
@@ -93,4 +143,27 @@ public class ModuleTestCase extends AbstractExportTestCase {
     List<String> fooLog = logs.get(FOO_MODULE_ID);
     assertThat(fooLog, hasItem(containsString(buildOptionalPackageExportedMessage(singletonList(BAR_PACKAGE)))));
   }
+
+  /**
+   * Libraries are only cached when packaged, and verbose analyses always scan every class of every library, so the builds
+   * comparing both scans package the library and run non verbose analyses.
+   */
+  private static List<String> libraryScanOptions(File cacheDirectory, boolean scanOnDemand) {
+    return asList("-DmuleModule.analyze.verbose=false",
+                  "-DmuleModule.analyze.skipUpToDate=false",
+                  "-DmuleModule.analysis.cacheDirectory=" + cacheDirectory.getAbsolutePath(),
+                  "-DmuleModule.analysis.scanOnDemand=" + scanOnDemand);
+  }
+
+  private void assertSessionCacheUsageLoggedOnceAfterLastProjectStarts(List<String> log) {
+    List<String> usageLines = log.stream().filter(line -> line.contains(SESSION_CACHE_USAGE)).collect(toList());
+    assertThat(usageLines.size(), is(1));
+    int lastProjectStart = 0;
+    for (int i = 0; i < log.size(); i++) {
+      if (log.get(i).startsWith(INFO_LOG_PREFIX + "Building ")) {
+        lastProjectStart = i;
+      }
+    }
+    assertThat(log.indexOf(usageLines.get(0)) > lastProjectStart, is(true));
+  }
 }
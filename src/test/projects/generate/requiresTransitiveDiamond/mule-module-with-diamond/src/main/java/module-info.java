@@ -0,0 +1,15 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+module org.diamond.wrapper {
+  
+  requires transitive org.left;
+  requires transitive org.center;
+  requires transitive org.right;
+  
+  exports org.diamond;
+  
+}
\ No newline at end of file
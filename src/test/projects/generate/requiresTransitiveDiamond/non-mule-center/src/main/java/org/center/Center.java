@@ -0,0 +1,12 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.center;
+
+public interface Center
+{
+  org.base.Base getBase();
+}
\ No newline at end of file